@@ -7,6 +7,7 @@ import ranger.setting.SettingsRegistrar;
 import ranger.sheet.Sheet;
 import ranger.sheet.Storage;
 import ranger.sheet.StorageRequestListener;
+import ranger.sheet.cell.CalculationMode;
 import ranger.syntax.parser.ParserType;
 import ranger.ui.UserInterfaceController;
 import ranger.ui.popup.standard.ErrorPopup;
@@ -49,12 +50,28 @@ public class Ranger implements StorageRequestListener {
         userInterface.setStorageRequestListener(this);
 
         Sheet infix = new Sheet("Infixed", functionRegistrar, ParserType.INFIX.getParser());
+        configureCalculation(infix);
         storage.addSheet(infix);
 
         Sheet prefixed = new Sheet("Prefixed", functionRegistrar, ParserType.PREFIX.getParser());
+        configureCalculation(prefixed);
         storage.addSheet(prefixed);
     }
 
+    /**
+     * Applies the calculation settings to a new sheet.
+     * 
+     * @param sheet The sheet.
+     */
+    private void configureCalculation(Sheet sheet) {
+        sheet.setCalculationMode(settings.get(Setting.INITIAL_CALCULATION_MODE, CalculationMode.class));
+        sheet.setTimeBudget(settings.get(Setting.RECALCULATION_TIME_BUDGET, Integer.class));
+
+        sheet.setMaximumIterations(settings.get(Setting.MAXIMUM_ITERATIONS, Integer.class));
+        sheet.setMaximumChange(settings.get(Setting.MAXIMUM_CHANGE, Double.class));
+        sheet.setIterative(settings.get(Setting.ITERATIVE_CALCULATION, Boolean.class));
+    }
+
     /**
      * The main method.
      * 
@@ -84,6 +101,7 @@ public class Ranger implements StorageRequestListener {
 
         ParserType parserType = settings.get(Setting.INITIAL_PARSER_TYPE, ParserType.class);
         Sheet sheet = new Sheet("Sheet " + (storage.getSheetCount() + 1), functionRegistrar, parserType.getParser());
+        configureCalculation(sheet);
         storage.addSheet(sheet);
     }
 
@@ -105,6 +123,7 @@ public class Ranger implements StorageRequestListener {
     @Override
     public void removeSheet(Sheet sheet) {
         storage.removeSheet(sheet);
+        sheet.dispose();
     }
 
     /**
@@ -117,4 +136,15 @@ public class Ranger implements StorageRequestListener {
     public void renameSheet(Sheet sheet, String name) {
         sheet.setName(name);
     }
+
+    /**
+     * Changes the calculation mode of the specified sheet.
+     * 
+     * @param sheet           The sheet.
+     * @param calculationMode The new calculation mode.
+     */
+    @Override
+    public void setCalculationMode(Sheet sheet, CalculationMode calculationMode) {
+        sheet.setCalculationMode(calculationMode);
+    }
 }
\ No newline at end of file
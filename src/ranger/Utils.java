@@ -1,11 +1,5 @@
 package ranger;
 
-import java.util.Queue;
-
-import ranger.syntax.Delimiter;
-import ranger.syntax.token.DelimiterToken;
-import ranger.syntax.token.Token;
-
 /**
  * Class containing utility methods.
  */
@@ -54,24 +48,6 @@ public class Utils {
         return length;
     }
 
-    /**
-     * Returns whether the next token in the queue is a specific delimiter.
-     * 
-     * @param tokens    The queue of tokens.
-     * @param delimiter The delimiter to check for.
-     * @return Whether the next token in the queue is a specific delimiter.
-     */
-    public static boolean isNextDelimiter(Queue<Token> tokens, Delimiter delimiter) {
-        if (tokens.isEmpty())
-            return false;
-
-        Token token = tokens.peek();
-        if (!(token instanceof DelimiterToken))
-            return false;
-
-        return ((DelimiterToken) token).getDelimiter() == delimiter;
-    }
-
     /**
      * Calculates the factorial of a value.
      * 
@@ -0,0 +1,140 @@
+package ranger.data;
+
+/**
+ * Class representing a rectangular region of a two-dimensional space. The
+ * bounds of the region are included in it.
+ */
+public class Region {
+    /**
+     * The left bound of the region.
+     */
+    private final int left;
+
+    /**
+     * The top bound of the region.
+     */
+    private final int top;
+
+    /**
+     * The right bound of the region.
+     */
+    private final int right;
+
+    /**
+     * The bottom bound of the region.
+     */
+    private final int bottom;
+
+    /**
+     * Constructs a new region. The bounds are swapped if needed, so that the left
+     * and top bounds are never greater than the right and bottom bounds.
+     * 
+     * @param left   The left bound.
+     * @param top    The top bound.
+     * @param right  The right bound.
+     * @param bottom The bottom bound.
+     * @throws IllegalArgumentException If a bound is negative.
+     */
+    public Region(int left, int top, int right, int bottom) {
+        if (left < 0 || top < 0 || right < 0 || bottom < 0)
+            throw new IllegalArgumentException("Invalid region bounds (" + left + ", " + top + ", " + right + ", "
+                    + bottom + ")");
+
+        this.left = Math.min(left, right);
+        this.top = Math.min(top, bottom);
+        this.right = Math.max(left, right);
+        this.bottom = Math.max(top, bottom);
+    }
+
+    /**
+     * Returns the left bound of the region.
+     * 
+     * @return The left bound of the region.
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns the top bound of the region.
+     * 
+     * @return The top bound of the region.
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Returns the right bound of the region.
+     * 
+     * @return The right bound of the region.
+     */
+    public int getRight() {
+        return right;
+    }
+
+    /**
+     * Returns the bottom bound of the region.
+     * 
+     * @return The bottom bound of the region.
+     */
+    public int getBottom() {
+        return bottom;
+    }
+
+    /**
+     * Returns whether the region contains the specified point.
+     * 
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return Whether the region contains the specified point.
+     */
+    public boolean contains(int x, int y) {
+        return x >= left && x <= right && y >= top && y <= bottom;
+    }
+
+    /**
+     * Returns the string representation of the region.
+     * 
+     * @return The string representation of the region.
+     */
+    @Override
+    public String toString() {
+        return "[" + left + ", " + top + "] - [" + right + ", " + bottom + "]";
+    }
+
+    /**
+     * Compares this object to another object.
+     * 
+     * @param obj The object to compare to.
+     * @return Whether the objects are equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null)
+            return false;
+
+        if (!(obj instanceof Region))
+            return false;
+
+        Region other = (Region) obj;
+
+        return left == other.left && top == other.top && right == other.right && bottom == other.bottom;
+    }
+
+    /**
+     * Returns the hash code of the object.
+     * 
+     * @return The hash code of the object.
+     */
+    @Override
+    public int hashCode() {
+        int hash = left;
+
+        hash = hash * 31 + top;
+        hash = hash * 31 + right;
+        hash = hash * 31 + bottom;
+
+        return hash;
+    }
+}
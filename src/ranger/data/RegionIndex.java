@@ -0,0 +1,202 @@
+package ranger.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing a spatial index of two-dimensional regions.
+ * The index is a quadtree where each region is stored in the deepest node whose
+ * square contains it entirely, so that registering a region costs a single
+ * entry whatever its size. Finding the regions containing a point only visits
+ * the nodes on the path to that point, which is logarithmic in the size of the
+ * indexed space.
+ * 
+ * @param <T> The type of the values associated with the regions.
+ */
+public class RegionIndex<T> {
+    /**
+     * The size of each axis of the indexed space. Due to Java's only-signed
+     * integers, this is 2^31.
+     */
+    private static final long INDEX_SIZE = 1L << 31;
+
+    /**
+     * The root node of the index. This is null if the index is empty.
+     */
+    private RegionNode<T> root;
+
+    /**
+     * The number of regions in the index.
+     */
+    private int size;
+
+    /**
+     * Constructs a new empty region index.
+     */
+    public RegionIndex() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of regions in the index.
+     * 
+     * @return The number of regions in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the index is empty.
+     * 
+     * @return Whether the index is empty.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Adds a region to the index. The same region can be added several times,
+     * with different values.
+     * 
+     * @param region The region.
+     * @param value  The value associated with the region.
+     */
+    public void add(Region region, T value) {
+        if (root == null)
+            root = new RegionNode<T>();
+
+        RegionNode<T> node = root;
+        long x = 0;
+        long y = 0;
+
+        for (long half = INDEX_SIZE / 2; half > 0; half /= 2) {
+            int index = getChildIndex(region, x, y, half);
+            if (index < 0)
+                break;
+
+            RegionNode<T> child = node.getChild(index);
+            if (child == null) {
+                child = new RegionNode<T>();
+                node.setChild(index, child);
+            }
+
+            node = child;
+            x += (index & 1) * half;
+            y += (index >> 1) * half;
+        }
+
+        node.add(region, value);
+        size++;
+    }
+
+    /**
+     * Removes a region from the index, and trims the index if possible.
+     * 
+     * @param region The region.
+     * @param value  The value associated with the region.
+     * @return Whether the region was in the index.
+     */
+    public boolean remove(Region region, T value) {
+        if (root == null)
+            return false;
+
+        List<RegionNode<T>> path = new ArrayList<RegionNode<T>>();
+        List<Integer> indices = new ArrayList<Integer>();
+
+        RegionNode<T> node = root;
+        long x = 0;
+        long y = 0;
+
+        for (long half = INDEX_SIZE / 2; half > 0; half /= 2) {
+            int index = getChildIndex(region, x, y, half);
+            if (index < 0)
+                break;
+
+            RegionNode<T> child = node.getChild(index);
+            if (child == null)
+                return false;
+
+            path.add(node);
+            indices.add(index);
+
+            node = child;
+            x += (index & 1) * half;
+            y += (index >> 1) * half;
+        }
+
+        if (!node.remove(region, value))
+            return false;
+
+        size--;
+
+        for (int i = path.size() - 1; i >= 0 && node.isEmpty(); i--) {
+            path.get(i).setChild(indices.get(i), null);
+            node = path.get(i);
+        }
+
+        if (root.isEmpty())
+            root = null;
+
+        return true;
+    }
+
+    /**
+     * Returns the values of the regions containing the specified point.
+     * 
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The values of the regions containing the specified point.
+     */
+    public List<T> get(int x, int y) {
+        List<T> output = new ArrayList<T>();
+
+        RegionNode<T> node = root;
+        long nodeX = 0;
+        long nodeY = 0;
+
+        for (long half = INDEX_SIZE / 2; node != null; half /= 2) {
+            for (int i = 0; i < node.getRegionCount(); i++)
+                if (node.getRegion(i).contains(x, y))
+                    output.add(node.getValue(i));
+
+            if (half == 0)
+                break;
+
+            int index = (x >= nodeX + half ? 1 : 0) | (y >= nodeY + half ? 2 : 0);
+
+            node = node.getChild(index);
+            nodeX += (index & 1) * half;
+            nodeY += (index >> 1) * half;
+        }
+
+        return output;
+    }
+
+    /**
+     * Returns the quadrant of a node that contains the specified region entirely.
+     * 
+     * @param region The region.
+     * @param x      The x coordinate of the node's square.
+     * @param y      The y coordinate of the node's square.
+     * @param half   The half of the size of the node's square.
+     * @return The quadrant containing the region, or -1 if the region crosses the
+     *         center lines of the node's square.
+     */
+    private int getChildIndex(Region region, long x, long y, long half) {
+        int index = 0;
+
+        if (region.getLeft() >= x + half)
+            index |= 1;
+        else if (region.getRight() >= x + half)
+            return -1;
+
+        if (region.getTop() >= y + half)
+            index |= 2;
+        else if (region.getBottom() >= y + half)
+            return -1;
+
+        return index;
+    }
+}
@@ -0,0 +1,153 @@
+package ranger.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing a region index's node.
+ * A node covers a square of the indexed space, split into four quadrants, one
+ * per child. It holds the regions that cross the center lines of its square,
+ * and thus fit in none of its quadrants.
+ * 
+ * @param <T> The type of the values of the node.
+ */
+public class RegionNode<T> {
+    /**
+     * The number of children of a node, one per quadrant.
+     */
+    public static final int CHILDREN = 4;
+
+    /**
+     * The regions held by the node.
+     */
+    private List<Region> regions;
+
+    /**
+     * The values held by the node, matching the regions.
+     */
+    private List<T> values;
+
+    /**
+     * The number of active children. Only non-null children are active.
+     */
+    private int activeChildren;
+
+    /**
+     * The children of the node, indexed by quadrant.
+     */
+    private List<RegionNode<T>> children;
+
+    /**
+     * Constructs a new empty region node.
+     */
+    public RegionNode() {
+        regions = new ArrayList<Region>();
+        values = new ArrayList<T>();
+
+        activeChildren = 0;
+        children = new ArrayList<RegionNode<T>>(CHILDREN);
+        for (int i = 0; i < CHILDREN; i++)
+            children.add(null);
+    }
+
+    /**
+     * Returns the number of regions held by the node.
+     * 
+     * @return The number of regions held by the node.
+     */
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Returns the region at the specified index.
+     * 
+     * @param index The index.
+     * @return The region at the specified index.
+     */
+    public Region getRegion(int index) {
+        return regions.get(index);
+    }
+
+    /**
+     * Returns the value at the specified index.
+     * 
+     * @param index The index.
+     * @return The value at the specified index.
+     */
+    public T getValue(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Adds a region and its value to the node.
+     * 
+     * @param region The region.
+     * @param value  The value.
+     */
+    public void add(Region region, T value) {
+        regions.add(region);
+        values.add(value);
+    }
+
+    /**
+     * Removes a region and its value from the node.
+     * 
+     * @param region The region.
+     * @param value  The value.
+     * @return Whether the region and its value were held by the node.
+     */
+    public boolean remove(Region region, T value) {
+        for (int i = 0; i < regions.size(); i++)
+            if (regions.get(i).equals(region) && values.get(i).equals(value)) {
+                int last = regions.size() - 1;
+
+                regions.set(i, regions.get(last));
+                values.set(i, values.get(last));
+
+                regions.remove(last);
+                values.remove(last);
+
+                return true;
+            }
+
+        return false;
+    }
+
+    /**
+     * Returns whether the node holds no region and has no active children, so
+     * that it can be removed.
+     * 
+     * @return Whether the node is empty.
+     */
+    public boolean isEmpty() {
+        return regions.isEmpty() && activeChildren == 0;
+    }
+
+    /**
+     * Returns the child at the specified quadrant.
+     * 
+     * @param index The quadrant.
+     * @return The child at the specified quadrant, or null if there is none.
+     */
+    public RegionNode<T> getChild(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * Sets the child at the specified quadrant.
+     * 
+     * @param index The quadrant.
+     * @param child The child, or null to remove it.
+     */
+    public void setChild(int index, RegionNode<T> child) {
+        RegionNode<T> previous = children.get(index);
+
+        if (previous == null && child != null)
+            activeChildren++;
+        else if (previous != null && child == null)
+            activeChildren--;
+
+        children.set(index, child);
+    }
+}
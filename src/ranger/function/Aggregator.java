@@ -0,0 +1,39 @@
+package ranger.function;
+
+/**
+ * Interface representing an aggregator.
+ * An aggregator maintains the result of a function over values that are added
+ * and removed one at a time, so that the result does not need to be computed
+ * again from all the values whenever one of them changes.
+ */
+public interface Aggregator {
+    /**
+     * Adds a value to the aggregator. Some aggregators cannot always tell their
+     * result after an addition either, eg. when their sum lost too much
+     * precision.
+     * 
+     * @param value The value.
+     * @return Whether the value was added, or false if the aggregator must be
+     *         built again.
+     */
+    public boolean add(double value);
+
+    /**
+     * Removes a value from the aggregator. Some aggregators cannot always tell
+     * their result after a removal, eg. when the removed value was the only
+     * maximum, in which case they must be built again from all the values.
+     * 
+     * @param value The value, which must have been added before.
+     * @return Whether the value was removed, or false if the aggregator must be
+     *         built again.
+     */
+    public boolean remove(double value);
+
+    /**
+     * Returns the result of the function over the values of the aggregator.
+     * 
+     * @return The result of the function, or an evaluation error if the function
+     *         has no result for these values, eg. the maximum of no value.
+     */
+    public double getResult();
+}
@@ -17,6 +17,10 @@ public class DefaultFunctionRegistrar extends FunctionRegistrar {
                 new AbsFunction(),
                 new SqrtFunction(),
                 new SumFunction(),
+                new CountFunction(),
+                new AverageFunction(),
+                new MinFunction(),
+                new MaxFunction(),
                 new NowFunction(),
                 new PowFunction(),
                 new CosFunction(),
@@ -0,0 +1,164 @@
+package ranger.function;
+
+/**
+ * Enum representing an error occurring while evaluating an expression.
+ * Errors are carried as values rather than thrown, so that evaluating cells
+ * that legitimately fail, such as the ones dividing by an empty cell, costs no
+ * more than evaluating the other cells. Each error is a NaN whose payload
+ * identifies it, which the operators and the function calls pass on, the
+ * leftmost operand first, so that the error of an expression is the first one
+ * its evaluation met. Other NaN values are not errors.
+ * <p>
+ * Exceptions thrown during an evaluation are left to the errors that are bugs
+ * or that callers cannot recover from.
+ */
+public enum EvaluationError {
+    /**
+     * Indicates a division by zero.
+     */
+    DIVISION_BY_ZERO("Division operation with zero divisor is undefined."),
+
+    /**
+     * Indicates a modulo by zero.
+     */
+    MODULO_BY_ZERO("Modulo operation with zero divisor is undefined."),
+
+    /**
+     * Indicates the factorial of a negative number.
+     */
+    NEGATIVE_FACTORIAL("Factorial of a negative number."),
+
+    /**
+     * Indicates that an expression resulted in NaN.
+     */
+    NOT_A_NUMBER("Expression resulted in NaN."),
+
+    /**
+     * Indicates that an expression resulted in infinity.
+     */
+    INFINITY("Expression resulted in infinity."),
+
+    /**
+     * Indicates that a function was called with invalid arguments.
+     */
+    INVALID_ARGUMENTS("Invalid arguments for the function."),
+
+    /**
+     * Indicates that a range was used as a value, outside of a function call.
+     */
+    RANGE_VALUE("A range can only be used as a function argument."),
+
+    /**
+     * Indicates that a called function is not registered.
+     */
+    UNKNOWN_FUNCTION("Function is not registered."),
+
+    ;
+
+    /**
+     * The bits shared by the values of the errors, a quiet NaN with a payload no
+     * operation produces, followed by the index of the error.
+     */
+    private static final long ERROR_BITS = 0x7ffa000000000000L;
+
+    /**
+     * The mask of the bits shared by the values of the errors, ignoring the sign
+     * so that a negated error is the same error.
+     */
+    private static final long ERROR_MASK = 0x7fffffffffff0000L;
+
+    /**
+     * The errors, by index.
+     */
+    private static final EvaluationError[] ERRORS = values();
+
+    /**
+     * The message of the error.
+     */
+    private final String message;
+
+    /**
+     * The value carrying the error.
+     */
+    private final double value;
+
+    /**
+     * Constructs a new evaluation error.
+     * 
+     * @param message The message of the error.
+     */
+    private EvaluationError(String message) {
+        this.message = message;
+        this.value = Double.longBitsToDouble(ERROR_BITS | ordinal());
+    }
+
+    /**
+     * Returns the message of the error.
+     * 
+     * @return The message of the error.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the value carrying the error, which is returned instead of the
+     * result of the evaluation.
+     * 
+     * @return The value of the error.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Returns an exception describing the error, for the callers reporting errors
+     * as exceptions. Arithmetic errors are reported as arithmetic exceptions,
+     * invalid arguments as illegal arguments, and other errors as illegal states.
+     * 
+     * @return The exception, which is not thrown.
+     */
+    public RuntimeException toException() {
+        switch (this) {
+            case DIVISION_BY_ZERO:
+            case MODULO_BY_ZERO:
+            case NEGATIVE_FACTORIAL:
+            case NOT_A_NUMBER:
+            case INFINITY:
+                return new ArithmeticException(message);
+
+            case INVALID_ARGUMENTS:
+            case RANGE_VALUE:
+                return new IllegalArgumentException(message);
+
+            default:
+                return new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * Returns whether a value carries an error.
+     * 
+     * @param value The value.
+     * @return Whether the value is an error.
+     */
+    public static boolean isError(double value) {
+        return Double.isNaN(value) && get(value) != null;
+    }
+
+    /**
+     * Returns the error carried by a value.
+     * 
+     * @param value The value.
+     * @return The error, or null if the value is not an error.
+     */
+    public static EvaluationError get(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        if ((bits & ERROR_MASK) != ERROR_BITS)
+            return null;
+
+        int index = (int) (bits & 0xffff);
+
+        return index < ERRORS.length ? ERRORS[index] : null;
+    }
+}
@@ -1,8 +1,19 @@
 package ranger.function;
 
+import java.util.Arrays;
+
 /**
  * Abstract class representing a function. Functions have a name and can be
  * evaluated with a given set of arguments.
+ * <p>
+ * Besides the evaluation on an array of arguments, a function can be evaluated
+ * on up to three arguments passed as values, and on arguments held by a part of
+ * a buffer. By default these evaluations copy the arguments into a new array,
+ * and functions override the ones matching their number of arguments so that
+ * calling them does not allocate.
+ * <p>
+ * Functions report invalid arguments by returning an evaluation error rather
+ * than by throwing, and are never called with arguments that are errors.
  */
 public abstract class Function {
     /**
@@ -33,14 +44,106 @@ public abstract class Function {
     }
 
     /**
-     * Evaluates the function with the specified arguments. This can throw all
-     * kinds of exceptions, depending on the function.
+     * Evaluates the function with the specified arguments.
      * 
      * @param args The arguments.
      * @return The result of the evaluation.
      */
     public abstract double evaluate(double[] args);
 
+    /**
+     * Evaluates the function without arguments.
+     * 
+     * @return The result of the evaluation.
+     */
+    public double evaluate0() {
+        return evaluate(new double[0]);
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument.
+     * @return The result of the evaluation.
+     */
+    public double evaluate1(double first) {
+        return evaluate(new double[] { first });
+    }
+
+    /**
+     * Evaluates the function with two arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @return The result of the evaluation.
+     */
+    public double evaluate2(double first, double second) {
+        return evaluate(new double[] { first, second });
+    }
+
+    /**
+     * Evaluates the function with three arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @param third  The third argument.
+     * @return The result of the evaluation.
+     */
+    public double evaluate3(double first, double second, double third) {
+        return evaluate(new double[] { first, second, third });
+    }
+
+    /**
+     * Evaluates the function with the arguments held by a part of a buffer, which
+     * the function must neither modify nor keep. Up to three arguments are passed
+     * to the evaluation matching their number, more arguments are copied into a
+     * new array. Functions taking any number of arguments override this method,
+     * and must do so if their evaluation on an array calls it.
+     * 
+     * @param values The buffer.
+     * @param offset The index of the first argument in the buffer.
+     * @param count  The number of arguments.
+     * @return The result of the evaluation.
+     */
+    public double evaluate(double[] values, int offset, int count) {
+        switch (count) {
+            case 0:
+                return evaluate0();
+            case 1:
+                return evaluate1(values[offset]);
+            case 2:
+                return evaluate2(values[offset], values[offset + 1]);
+            case 3:
+                return evaluate3(values[offset], values[offset + 1], values[offset + 2]);
+            default:
+                return evaluate(Arrays.copyOfRange(values, offset, offset + count));
+        }
+    }
+
+    /**
+     * Returns whether the function is volatile. A volatile function can return a
+     * different result for the same arguments, eg. depending on the current time,
+     * so the cells using it need to be evaluated again periodically.
+     * 
+     * @return Whether the function is volatile.
+     */
+    public boolean isVolatile() {
+        return false;
+    }
+
+    /**
+     * Returns a new aggregator maintaining the result of the function over
+     * arguments that are added and removed one at a time. This lets a function
+     * called on a single range update its result from the cell that changed,
+     * instead of reading the whole range again. Only the functions whose result
+     * does not depend on the order of their arguments can be aggregated.
+     * 
+     * @return A new aggregator, or null if the function cannot be aggregated.
+     */
+    public Aggregator createAggregator() {
+        return null;
+    }
+
     /**
      * Returns whether a character is supported in a function name.
      * 
@@ -0,0 +1,81 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
+
+/**
+ * Class representing an average aggregator, maintaining the average of its
+ * values from their sum and their number. As with the sum aggregator, the
+ * aggregator asks to be built again once its sum has lost too much precision.
+ */
+public class AverageAggregator implements Aggregator {
+    /**
+     * The sum of the values.
+     */
+    private double sum;
+
+    /**
+     * The number of values.
+     */
+    private int count;
+
+    /**
+     * The largest magnitude the sum reached.
+     */
+    private double peak;
+
+    /**
+     * Constructs a new average aggregator.
+     */
+    public AverageAggregator() {
+        sum = 0;
+        count = 0;
+        peak = 0;
+    }
+
+    /**
+     * Adds a value to the aggregator.
+     * 
+     * @param value The value.
+     * @return Whether the value was added, or false if the sum lost too much
+     *         precision and must be computed again.
+     */
+    @Override
+    public boolean add(double value) {
+        sum += value;
+        count++;
+        peak = Math.max(peak, Math.abs(sum));
+
+        return Math.abs(sum) * SumAggregator.MAXIMUM_CANCELLATION >= peak;
+    }
+
+    /**
+     * Removes a value from the aggregator.
+     * 
+     * @param value The value.
+     * @return Whether the value was removed, or false if the sum lost too much
+     *         precision and must be computed again.
+     */
+    @Override
+    public boolean remove(double value) {
+        sum -= value;
+        count--;
+        peak = Math.max(peak, Math.abs(sum));
+
+        return Math.abs(sum) * SumAggregator.MAXIMUM_CANCELLATION >= peak;
+    }
+
+    /**
+     * Returns the average of the values.
+     * 
+     * @return The average of the values, or an invalid arguments error if there
+     *         are no values.
+     */
+    @Override
+    public double getResult() {
+        if (count == 0)
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
+
+        return sum / count;
+    }
+}
@@ -0,0 +1,84 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
+import ranger.function.Function;
+
+/**
+ * Class representing the average function.
+ */
+public class AverageFunction extends Function {
+    /**
+     * Constructs a new average function.
+     */
+    public AverageFunction() {
+        super("average");
+    }
+
+    /**
+     * Evaluates the function.
+     * 
+     * @param args The arguments to the function.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not at least one.
+     */
+    @Override
+    public double evaluate(double[] args) {
+        return evaluate(args, 0, args.length);
+    }
+
+    /**
+     * Evaluates the function with the arguments held by a part of a buffer.
+     * 
+     * @param values The buffer.
+     * @param offset The index of the first argument in the buffer.
+     * @param count  The number of arguments.
+     * @return The average of the arguments, or an invalid arguments error if
+     *         there are no arguments.
+     */
+    @Override
+    public double evaluate(double[] values, int offset, int count) {
+        if (count == 0)
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
+
+        double sum = 0;
+
+        for (int i = offset; i < offset + count; i++)
+            sum += values[i];
+
+        return sum / count;
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument.
+     * @return The argument, summed from zero as for any number of arguments.
+     */
+    @Override
+    public double evaluate1(double first) {
+        return 0.0 + first;
+    }
+
+    /**
+     * Evaluates the function with two arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @return The average of the arguments.
+     */
+    @Override
+    public double evaluate2(double first, double second) {
+        return (0.0 + first + second) / 2;
+    }
+
+    /**
+     * Returns a new aggregator maintaining the average of its values.
+     * 
+     * @return A new aggregator.
+     */
+    @Override
+    public Aggregator createAggregator() {
+        return new AverageAggregator();
+    }
+}
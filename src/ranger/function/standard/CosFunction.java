@@ -1,5 +1,6 @@
 package ranger.function.standard;
 
+import ranger.function.EvaluationError;
 import ranger.function.Function;
 
 /**
@@ -17,14 +18,25 @@ public class CosFunction extends Function {
      * Evaluates the function.
      * 
      * @param args The arguments to the function.
-     * @return The result of the evaluation.
-     * @throws IllegalArgumentException If the number of arguments is not one.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not one.
      */
     @Override
     public double evaluate(double[] args) {
         if (args.length != 1)
-            throw new IllegalArgumentException("Function 'cos(x)' takes exactly one argument.");
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
 
-        return Math.cos(args[0]);
+        return evaluate1(args[0]);
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument, in radians.
+     * @return The cosine of the argument.
+     */
+    @Override
+    public double evaluate1(double first) {
+        return Math.cos(first);
     }
 }
@@ -0,0 +1,54 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+
+/**
+ * Class representing a count aggregator, maintaining the number of its values.
+ */
+public class CountAggregator implements Aggregator {
+    /**
+     * The number of values.
+     */
+    private int count;
+
+    /**
+     * Constructs a new count aggregator.
+     */
+    public CountAggregator() {
+        count = 0;
+    }
+
+    /**
+     * Adds a value to the aggregator.
+     * 
+     * @param value The value.
+     * @return Always true, as a value can always be counted.
+     */
+    @Override
+    public boolean add(double value) {
+        count++;
+        return true;
+    }
+
+    /**
+     * Removes a value from the aggregator.
+     * 
+     * @param value The value.
+     * @return Always true, as a value can always be uncounted.
+     */
+    @Override
+    public boolean remove(double value) {
+        count--;
+        return true;
+    }
+
+    /**
+     * Returns the number of values.
+     * 
+     * @return The number of values.
+     */
+    @Override
+    public double getResult() {
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+import ranger.function.Function;
+
+/**
+ * Class representing the count function, which counts its arguments. Called on
+ * ranges, it counts the cells holding a number or a formula.
+ */
+public class CountFunction extends Function {
+    /**
+     * Constructs a new count function.
+     */
+    public CountFunction() {
+        super("count");
+    }
+
+    /**
+     * Evaluates the function.
+     * 
+     * @param args The arguments to the function.
+     * @return The result of the evaluation.
+     */
+    @Override
+    public double evaluate(double[] args) {
+        return args.length;
+    }
+
+    /**
+     * Evaluates the function with the arguments held by a part of a buffer.
+     * 
+     * @param values The buffer.
+     * @param offset The index of the first argument in the buffer.
+     * @param count  The number of arguments.
+     * @return The number of arguments.
+     */
+    @Override
+    public double evaluate(double[] values, int offset, int count) {
+        return count;
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument.
+     * @return One.
+     */
+    @Override
+    public double evaluate1(double first) {
+        return 1;
+    }
+
+    /**
+     * Evaluates the function with two arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @return Two.
+     */
+    @Override
+    public double evaluate2(double first, double second) {
+        return 2;
+    }
+
+    /**
+     * Returns a new aggregator maintaining the number of its values.
+     * 
+     * @return A new aggregator.
+     */
+    @Override
+    public Aggregator createAggregator() {
+        return new CountAggregator();
+    }
+}
@@ -0,0 +1,90 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
+
+/**
+ * Class representing an extremum aggregator, maintaining either the minimum or
+ * the maximum of its values.
+ * Only the extremum and its number of occurrences are kept, so removing the
+ * last occurrence of the extremum requires the aggregator to be built again.
+ */
+public class ExtremumAggregator implements Aggregator {
+    /**
+     * Whether the aggregator maintains the maximum instead of the minimum.
+     */
+    private boolean maximum;
+
+    /**
+     * The current extremum. This is meaningless if there are no occurrences.
+     */
+    private double extremum;
+
+    /**
+     * The number of occurrences of the extremum among the values.
+     */
+    private int occurrences;
+
+    /**
+     * Constructs a new extremum aggregator.
+     * 
+     * @param maximum Whether the aggregator maintains the maximum instead of the
+     *                minimum.
+     */
+    public ExtremumAggregator(boolean maximum) {
+        this.maximum = maximum;
+
+        extremum = 0;
+        occurrences = 0;
+    }
+
+    /**
+     * Adds a value to the aggregator.
+     * 
+     * @param value The value.
+     * @return Always true, as the extremum can always be updated.
+     */
+    @Override
+    public boolean add(double value) {
+        if (occurrences == 0 || (maximum ? value > extremum : value < extremum)) {
+            extremum = value;
+            occurrences = 1;
+        } else if (value == extremum)
+            occurrences++;
+
+        return true;
+    }
+
+    /**
+     * Removes a value from the aggregator.
+     * 
+     * @param value The value.
+     * @return Whether the value was removed, or false if it was the last
+     *         occurrence of the extremum.
+     */
+    @Override
+    public boolean remove(double value) {
+        if (value != extremum)
+            return true;
+
+        if (occurrences == 1)
+            return false;
+
+        occurrences--;
+        return true;
+    }
+
+    /**
+     * Returns the extremum of the values.
+     * 
+     * @return The extremum of the values, or an invalid arguments error if
+     *         there are no values.
+     */
+    @Override
+    public double getResult() {
+        if (occurrences == 0)
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
+
+        return extremum;
+    }
+}
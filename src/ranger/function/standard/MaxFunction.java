@@ -0,0 +1,87 @@
+package ranger.function.standard;
+
+import ranger.function.EvaluationError;
+import ranger.function.Aggregator;
+import ranger.function.Function;
+
+/**
+ * Class representing the max function, which returns the maximum of its
+ * arguments.
+ */
+public class MaxFunction extends Function {
+    /**
+     * Constructs a new max function.
+     */
+    public MaxFunction() {
+        super("max");
+    }
+
+    /**
+     * Evaluates the function.
+     * 
+     * @param args The arguments to the function.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not at least one.
+     */
+    @Override
+    public double evaluate(double[] args) {
+        return evaluate(args, 0, args.length);
+    }
+
+    /**
+     * Evaluates the function with the arguments held by a part of a buffer.
+     * 
+     * @param values The buffer.
+     * @param offset The index of the first argument in the buffer.
+     * @param count  The number of arguments.
+     * @return The maximum of the arguments, or an invalid arguments error if
+     *         there are no arguments.
+     */
+    @Override
+    public double evaluate(double[] values, int offset, int count) {
+        if (count == 0)
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
+
+        double maximum = values[offset];
+
+        for (int i = offset + 1; i < offset + count; i++)
+            if (values[i] > maximum)
+                maximum = values[i];
+
+        return maximum;
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument.
+     * @return The argument.
+     */
+    @Override
+    public double evaluate1(double first) {
+        return first;
+    }
+
+    /**
+     * Evaluates the function with two arguments. A NaN first argument is kept,
+     * as for any number of arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @return The maximum of the arguments.
+     */
+    @Override
+    public double evaluate2(double first, double second) {
+        return second > first ? second : first;
+    }
+
+    /**
+     * Returns a new aggregator maintaining the maximum of its values.
+     * 
+     * @return A new aggregator.
+     */
+    @Override
+    public Aggregator createAggregator() {
+        return new ExtremumAggregator(true);
+    }
+}
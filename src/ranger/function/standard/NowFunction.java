@@ -1,5 +1,6 @@
 package ranger.function.standard;
 
+import ranger.function.EvaluationError;
 import ranger.function.Function;
 
 /**
@@ -17,14 +18,35 @@ public class NowFunction extends Function {
      * Evaluates the function.
      * 
      * @param args The arguments to the function.
-     * @return The result of the evaluation.
-     * @throws IllegalArgumentException If the number of arguments is not zero.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not zero.
      */
     @Override
     public double evaluate(double[] args) {
         if (args.length != 0)
-            throw new IllegalArgumentException("Function 'now()' takes no arguments.");
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
 
+        return evaluate0();
+    }
+
+    /**
+     * Evaluates the function without arguments.
+     * 
+     * @return The current time, in seconds since the epoch.
+     */
+    @Override
+    public double evaluate0() {
         return System.currentTimeMillis() / 1000.0;
     }
+
+    /**
+     * Returns whether the function is volatile, which is always the case as the
+     * current time changes.
+     * 
+     * @return Whether the function is volatile.
+     */
+    @Override
+    public boolean isVolatile() {
+        return true;
+    }
 }
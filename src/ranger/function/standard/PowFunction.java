@@ -1,5 +1,6 @@
 package ranger.function.standard;
 
+import ranger.function.EvaluationError;
 import ranger.function.Function;
 
 /**
@@ -17,14 +18,26 @@ public class PowFunction extends Function {
      * Evaluates the function.
      * 
      * @param args The arguments to the function.
-     * @return The result of the evaluation.
-     * @throws IllegalArgumentException If the number of arguments is not two.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not two.
      */
     @Override
     public double evaluate(double[] args) {
         if (args.length != 2)
-            throw new IllegalArgumentException("Function 'pow(x,y)' takes exactly two arguments.");
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
 
-        return Math.pow(args[0], args[1]);
+        return evaluate2(args[0], args[1]);
+    }
+
+    /**
+     * Evaluates the function with two arguments.
+     * 
+     * @param first  The base.
+     * @param second The exponent.
+     * @return The base raised to the exponent.
+     */
+    @Override
+    public double evaluate2(double first, double second) {
+        return Math.pow(first, second);
     }
 }
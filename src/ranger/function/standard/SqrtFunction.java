@@ -1,5 +1,6 @@
 package ranger.function.standard;
 
+import ranger.function.EvaluationError;
 import ranger.function.Function;
 
 /**
@@ -17,18 +18,30 @@ public class SqrtFunction extends Function {
      * Evaluates the function.
      * 
      * @param args The arguments to the function.
-     * @return The result of the evaluation.
-     * @throws IllegalArgumentException If the number of arguments is not one, or
-     *                                  if the argument is negative.
+     * @return The result of the evaluation, or an invalid arguments error if
+     *         the number of arguments is not one, or if the argument is
+     *         negative.
      */
     @Override
     public double evaluate(double[] args) {
         if (args.length != 1)
-            throw new IllegalArgumentException("Function 'sqrt(x)' takes exactly one argument.");
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
 
-        if (args[0] < 0)
-            throw new IllegalArgumentException("Function 'sqrt(x)' takes only positive arguments.");
+        return evaluate1(args[0]);
+    }
+
+    /**
+     * Evaluates the function with one argument.
+     * 
+     * @param first The argument.
+     * @return The square root of the argument, or an invalid arguments error if
+     *         the argument is negative.
+     */
+    @Override
+    public double evaluate1(double first) {
+        if (first < 0)
+            return EvaluationError.INVALID_ARGUMENTS.getValue();
 
-        return Math.sqrt(args[0]);
+        return Math.sqrt(first);
     }
 }
@@ -0,0 +1,76 @@
+package ranger.function.standard;
+
+import ranger.function.Aggregator;
+
+/**
+ * Class representing a sum aggregator, maintaining the sum of its values.
+ * Subtracting a value from the sum does not undo the rounding of adding it, so
+ * once the sum has cancelled down far below the largest magnitude it reached,
+ * the rounding errors made at that magnitude would dominate it, and the
+ * aggregator asks to be built again instead.
+ */
+public class SumAggregator implements Aggregator {
+    /**
+     * The ratio between the largest magnitude the sum reached and its current
+     * magnitude above which the sum is considered imprecise.
+     */
+    static final double MAXIMUM_CANCELLATION = 1 << 20;
+
+    /**
+     * The sum of the values.
+     */
+    private double sum;
+
+    /**
+     * The largest magnitude the sum reached.
+     */
+    private double peak;
+
+    /**
+     * Constructs a new sum aggregator.
+     */
+    public SumAggregator() {
+        sum = 0;
+        peak = 0;
+    }
+
+    /**
+     * Adds a value to the aggregator.
+     * 
+     * @param value The value.
+     * @return Whether the value was added, or false if the sum lost too much
+     *         precision and must be computed again.
+     */
+    @Override
+    public boolean add(double value) {
+        sum += value;
+        peak = Math.max(peak, Math.abs(sum));
+
+        return Math.abs(sum) * MAXIMUM_CANCELLATION >= peak;
+    }
+
+    /**
+     * Removes a value from the aggregator.
+     * 
+     * @param value The value.
+     * @return Whether the value was removed, or false if the sum lost too much
+     *         precision and must be computed again.
+     */
+    @Override
+    public boolean remove(double value) {
+        sum -= value;
+        peak = Math.max(peak, Math.abs(sum));
+
+        return Math.abs(sum) * MAXIMUM_CANCELLATION >= peak;
+    }
+
+    /**
+     * Returns the sum of the values.
+     * 
+     * @return The sum of the values.
+     */
+    @Override
+    public double getResult() {
+        return sum;
+    }
+}
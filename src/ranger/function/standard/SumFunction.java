@@ -1,5 +1,6 @@
 package ranger.function.standard;
 
+import ranger.function.Aggregator;
 import ranger.function.Function;
 
 /**
@@ -14,23 +15,66 @@ public class SumFunction extends Function {
     }
 
     /**
-     * Evaluates the function.
+     * Evaluates the function. The sum of no arguments, such as the values of an
+     * empty range, is zero.
      * 
      * @param args The arguments to the function.
      * @return The result of the evaluation.
-     * @throws IllegalArgumentException If the number of arguments is not at least
-     *                                  one.
      */
     @Override
     public double evaluate(double[] args) {
-        if (args.length == 0)
-            throw new IllegalArgumentException("Function 'sum(x,...)' takes at least one argument.");
+        return evaluate(args, 0, args.length);
+    }
 
+    /**
+     * Evaluates the function with the arguments held by a part of a buffer.
+     * 
+     * @param values The buffer.
+     * @param offset The index of the first argument in the buffer.
+     * @param count  The number of arguments.
+     * @return The sum of the arguments.
+     */
+    @Override
+    public double evaluate(double[] values, int offset, int count) {
         double sum = 0;
 
-        for (double arg : args)
-            sum += arg;
+        for (int i = offset; i < offset + count; i++)
+            sum += values[i];
 
         return sum;
     }
+
+    /**
+     * Evaluates the function with one argument. The sum starts from zero as for
+     * any number of arguments, so that a negative zero is summed the same way.
+     * 
+     * @param first The argument.
+     * @return The sum of the argument.
+     */
+    @Override
+    public double evaluate1(double first) {
+        return 0.0 + first;
+    }
+
+    /**
+     * Evaluates the function with two arguments.
+     * 
+     * @param first  The first argument.
+     * @param second The second argument.
+     * @return The sum of the arguments.
+     */
+    @Override
+    public double evaluate2(double first, double second) {
+        return 0.0 + first + second;
+    }
+
+    /**
+     * Returns a new aggregator maintaining the sum of its values.
+     * 
+     * @return A new aggregator.
+     */
+    @Override
+    public Aggregator createAggregator() {
+        return new SumAggregator();
+    }
 }
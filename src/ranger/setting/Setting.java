@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.net.URL;
 
+import ranger.sheet.cell.CalculationMode;
 import ranger.syntax.parser.ParserType;
 
 /**
@@ -15,11 +16,45 @@ public enum Setting {
      */
     INITIAL_PARSER_TYPE(ParserType.PREFIX),
 
+    /**
+     * The initial calculation mode for new sheets.
+     */
+    INITIAL_CALCULATION_MODE(CalculationMode.BACKGROUND),
+
     /**
      * The maximum number of sheets that can be opened at once.
      */
     MAXIMUM_SHEETS(5),
 
+    /**
+     * The interval, in milliseconds, at which the volatile cells are evaluated
+     * again.
+     */
+    VOLATILE_REFRESH_INTERVAL(1000),
+
+    /**
+     * The time, in milliseconds, a recalculation can run at once before being
+     * paused and continued later. If zero, recalculations run until they are done.
+     */
+    RECALCULATION_TIME_BUDGET(50),
+
+    /**
+     * Whether the cycles of new sheets are calculated iteratively instead of
+     * being reported as errors.
+     */
+    ITERATIVE_CALCULATION(false),
+
+    /**
+     * The maximum number of iterations run for a cycle in iterative calculation.
+     */
+    MAXIMUM_ITERATIONS(100),
+
+    /**
+     * The change of value under which the cells of a cycle are considered to have
+     * converged in iterative calculation.
+     */
+    MAXIMUM_CHANGE(0.001),
+
     /**
      * The font to use for all text.
      */
@@ -110,6 +145,11 @@ public enum Setting {
      */
     SHEET_FOREGROUND(Color.BLACK),
 
+    /**
+     * The foreground color for the cells being calculated.
+     */
+    SHEET_CALCULATING_FOREGROUND(new Color(0x909090)),
+
     /**
      * The background color for the sheet labels.
      */
@@ -5,14 +5,22 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Consumer;
 
+import ranger.function.EvaluationError;
 import ranger.function.FunctionRegistrar;
+import ranger.sheet.action.CompositeAction;
 import ranger.sheet.action.SheetAction;
+import ranger.sheet.cell.CalculationMode;
+import ranger.sheet.cell.CellChangeSet;
 import ranger.sheet.cell.CellContent;
 import ranger.sheet.cell.CellCoordinates;
 import ranger.sheet.cell.CellStorage;
 import ranger.sheet.cell.CellStorageListener;
 import ranger.sheet.cell.CellValue;
+import ranger.sheet.cell.FormulaCache;
+import ranger.sheet.cell.RecalculationStatistics;
+import ranger.sheet.cell.WorkbookGraph;
 import ranger.syntax.SyntaxTree;
 import ranger.syntax.block.ExpressionBlock;
 import ranger.syntax.lexer.Lexer;
@@ -42,6 +50,12 @@ public class Sheet implements CellStorageListener {
      */
     private CellStorage storage;
 
+    /**
+     * The dependency graph of the workbook the sheet is part of.
+     * This is null if the sheet is not part of a workbook.
+     */
+    private WorkbookGraph workbook;
+
     /**
      * The stack containing the actions that can be undone.
      */
@@ -52,6 +66,17 @@ public class Sheet implements CellStorageListener {
      */
     private Stack<SheetAction> redoStack;
 
+    /**
+     * The action collecting the actions applied during the current batch. This is
+     * null if no batch is in progress.
+     */
+    private CompositeAction batchAction;
+
+    /**
+     * The number of batches currently opened.
+     */
+    private int batchDepth;
+
     /**
      * The row heights.
      */
@@ -80,9 +105,14 @@ public class Sheet implements CellStorageListener {
         storage = new CellStorage(functionRegistrar, expressionParser);
         storage.addListener(this);
 
+        workbook = null;
+
         undoStack = new Stack<SheetAction>();
         redoStack = new Stack<SheetAction>();
 
+        batchAction = null;
+        batchDepth = 0;
+
         rowHeights = new HashMap<Integer, Integer>();
         columnWidths = new HashMap<Integer, Integer>();
 
@@ -124,10 +154,34 @@ public class Sheet implements CellStorageListener {
     public void setName(String name) {
         this.name = name;
 
+        if (workbook != null)
+            workbook.rename(storage, name);
+
         for (SheetListener listener : listeners)
             listener.nameChanged(this, name);
     }
 
+    /**
+     * Sets the dependency graph of the workbook the sheet is part of. The cells of
+     * the sheet can then be referenced by the other sheets of the workbook by the
+     * name of the sheet, and reference theirs.
+     * 
+     * @param workbook The graph of the workbook, or null if the sheet is no longer
+     *                 part of a workbook.
+     */
+    public void setWorkbook(WorkbookGraph workbook) {
+        if (this.workbook == workbook)
+            return;
+
+        if (this.workbook != null)
+            this.workbook.remove(storage);
+
+        this.workbook = workbook;
+
+        if (workbook != null)
+            workbook.add(storage, name);
+    }
+
     /**
      * Returns the width of a column.
      * 
@@ -222,6 +276,193 @@ public class Sheet implements CellStorageListener {
         storage.setExpressionParser(expressionParser);
     }
 
+    /**
+     * Returns whether the sheet contains cells whose expression calls a volatile
+     * function.
+     * 
+     * @return Whether the sheet contains volatile cells.
+     */
+    public boolean hasVolatileCells() {
+        return storage.hasVolatileCells();
+    }
+
+    /**
+     * Evaluates the volatile cells of the sheet again, along with the cells
+     * depending on them.
+     */
+    public void recalculateVolatileCells() {
+        storage.recalculateVolatileCells();
+    }
+
+    /**
+     * Returns the calculation mode of the sheet.
+     * 
+     * @return The calculation mode of the sheet.
+     */
+    public CalculationMode getCalculationMode() {
+        return storage.getCalculationMode();
+    }
+
+    /**
+     * Sets the calculation mode of the sheet.
+     * 
+     * @param calculationMode The calculation mode of the sheet.
+     */
+    public void setCalculationMode(CalculationMode calculationMode) {
+        storage.setCalculationMode(calculationMode);
+    }
+
+    /**
+     * Evaluates the cells of the sheet left not evaluated, such as the stale
+     * cells in manual mode, or resumes a cancelled recalculation.
+     */
+    public void calculate() {
+        storage.calculate();
+    }
+
+    /**
+     * Cancels the recalculation of the sheet in progress. The cells left not
+     * evaluated stay stale until the next modification or calculation.
+     */
+    public void cancelCalculation() {
+        storage.cancelRecalculation();
+    }
+
+    /**
+     * Returns the time a recalculation of the sheet can run at once before being
+     * paused and continued later.
+     * 
+     * @return The time budget, in milliseconds, or zero if there is none.
+     */
+    public long getTimeBudget() {
+        return storage.getTimeBudget();
+    }
+
+    /**
+     * Sets the time a recalculation of the sheet can run at once before being
+     * paused and continued later.
+     * 
+     * @param timeBudget The time budget, in milliseconds, or zero for none.
+     */
+    public void setTimeBudget(long timeBudget) {
+        storage.setTimeBudget(timeBudget);
+    }
+
+    /**
+     * Returns whether the cycles of the sheet are calculated iteratively.
+     * 
+     * @return Whether the cycles are calculated iteratively.
+     */
+    public boolean isIterative() {
+        return storage.isIterative();
+    }
+
+    /**
+     * Sets whether the cycles of the sheet are calculated iteratively, until
+     * their values converge, instead of being reported as cycles.
+     * 
+     * @param iterative Whether the cycles are calculated iteratively.
+     */
+    public void setIterative(boolean iterative) {
+        storage.setIterative(iterative);
+    }
+
+    /**
+     * Returns the maximum number of iterations run for a cycle of the sheet.
+     * 
+     * @return The maximum number of iterations.
+     */
+    public int getMaximumIterations() {
+        return storage.getMaximumIterations();
+    }
+
+    /**
+     * Sets the maximum number of iterations run for a cycle of the sheet.
+     * 
+     * @param maximumIterations The maximum number of iterations.
+     */
+    public void setMaximumIterations(int maximumIterations) {
+        storage.setMaximumIterations(maximumIterations);
+    }
+
+    /**
+     * Returns the change of value under which the cells of a cycle of the sheet
+     * are considered to have converged.
+     * 
+     * @return The maximum change.
+     */
+    public double getMaximumChange() {
+        return storage.getMaximumChange();
+    }
+
+    /**
+     * Sets the change of value under which the cells of a cycle of the sheet are
+     * considered to have converged.
+     * 
+     * @param maximumChange The maximum change.
+     */
+    public void setMaximumChange(double maximumChange) {
+        storage.setMaximumChange(maximumChange);
+    }
+
+    /**
+     * Returns the number of stale cells of the sheet, whose values have not been
+     * updated since they were modified.
+     * 
+     * @return The number of stale cells of the sheet.
+     */
+    public int getStaleCount() {
+        return storage.getStaleCount();
+    }
+
+    /**
+     * Returns whether some cells of the sheet are being calculated, in background
+     * or in slices.
+     * 
+     * @return Whether some cells of the sheet are being calculated.
+     */
+    public boolean isCalculating() {
+        return storage.isCalculating();
+    }
+
+    /**
+     * Returns the statistics of the last recalculation of the sheet that
+     * deevaluated or evaluated cells.
+     * 
+     * @return The statistics of the last recalculation.
+     */
+    public RecalculationStatistics getLastRecalculation() {
+        return storage.getLastRecalculation();
+    }
+
+    /**
+     * Returns the cache of the parsed formulas of the sheet, which reports how
+     * often the cells share the formulas.
+     * 
+     * @return The cache of the parsed formulas.
+     */
+    public FormulaCache getFormulaCache() {
+        return storage.getFormulaCache();
+    }
+
+    /**
+     * Returns a report of the formulas of the sheet with the longest sampled
+     * evaluation time, one per line, the slowest first.
+     * 
+     * @param count The maximum number of formulas.
+     * @return The report of the slowest formulas.
+     */
+    public String getSlowestFormulasReport(int count) {
+        return storage.getSlowestFormulasReport(count);
+    }
+
+    /**
+     * Releases the resources of the sheet, such as its background recalculation.
+     */
+    public void dispose() {
+        storage.dispose();
+    }
+
     /**
      * Returns the value of a cell.
      * 
@@ -245,6 +486,8 @@ public class Sheet implements CellStorageListener {
 
     /**
      * Applies an action to the sheet.
+     * During a batch, the action is recorded in the batch's history entry instead
+     * of its own.
      * 
      * @param action The action.
      */
@@ -253,6 +496,52 @@ public class Sheet implements CellStorageListener {
 
         action.doAction(storage);
 
+        if (batchDepth > 0) {
+            batchAction.addAction(action);
+            return;
+        }
+
+        undoStack.push(action);
+        redoStack.clear();
+
+        for (SheetListener listener : listeners)
+            listener.actionPerformed(this);
+    }
+
+    /**
+     * Begins a batch. The actions applied until the batch is committed are
+     * evaluated once, notified once, and recorded as a single history entry.
+     * Batches can be nested.
+     */
+    public void beginBatch() {
+        if (batchDepth == 0)
+            batchAction = new CompositeAction();
+
+        batchDepth++;
+        storage.beginBatch();
+    }
+
+    /**
+     * Commits the current batch.
+     * 
+     * @throws IllegalStateException If no batch is in progress.
+     */
+    public void commitBatch() {
+        if (batchDepth == 0)
+            throw new IllegalStateException("Cannot commit a batch, as no batch is in progress.");
+
+        batchDepth--;
+        storage.commitBatch();
+
+        if (batchDepth > 0)
+            return;
+
+        CompositeAction action = batchAction;
+        batchAction = null;
+
+        if (action.isEmpty())
+            return;
+
         undoStack.push(action);
         redoStack.clear();
 
@@ -260,13 +549,37 @@ public class Sheet implements CellStorageListener {
             listener.actionPerformed(this);
     }
 
+    /**
+     * Returns whether a batch is in progress.
+     * 
+     * @return Whether a batch is in progress.
+     */
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * Applies the specified edits to the sheet as a single batch.
+     * 
+     * @param edits The edits, which receive this sheet.
+     */
+    public void batch(Consumer<Sheet> edits) {
+        beginBatch();
+
+        try {
+            edits.accept(this);
+        } finally {
+            commitBatch();
+        }
+    }
+
     /**
      * Returns whether an action can be undone.
      * 
      * @return Whether an action can be undone.
      */
     public boolean canUndoAction() {
-        return !undoStack.isEmpty();
+        return batchDepth == 0 && !undoStack.isEmpty();
     }
 
     /**
@@ -292,7 +605,7 @@ public class Sheet implements CellStorageListener {
      * @return Whether an action can be redone.
      */
     public boolean canRedoAction() {
-        return !redoStack.isEmpty();
+        return batchDepth == 0 && !redoStack.isEmpty();
     }
 
     /**
@@ -339,26 +652,35 @@ public class Sheet implements CellStorageListener {
      * 
      * @param expression The expression.
      * @return The value of the expression.
+     * @throws RuntimeException If the evaluation failed, as described by the
+     *                          exception of its evaluation error.
      */
     public double interactive(String expression) {
         SyntaxTree tree = new SyntaxTree(ExpressionBlock.getRoot(Lexer.getTokens(expression)),
-                storage.getExpressionParser());
+                storage.getExpressionParser(), storage.getFunctionRegistrar());
+
+        double result = tree.evaluate(new SheetEvaluationContext(storage.getFunctionRegistrar(), storage));
+
+        EvaluationError error = EvaluationError.get(result);
+        if (error != null)
+            throw error.toException();
 
-        return tree.evaluate(new SheetEvaluationContext(storage.getFunctionRegistrar(), storage));
+        return result;
     }
 
     /**
      * Handles when the content of a storage has changed.
      * 
      * @param storage The storage.
+     * @param changes The cells that changed.
      */
     @Override
-    public void contentChanged(CellStorage storage) {
+    public void contentChanged(CellStorage storage, CellChangeSet changes) {
         if (storage != this.storage)
             throw new IllegalArgumentException("The storage is not the same as the storage of this sheet.");
 
         for (SheetListener listener : listeners)
-            listener.contentChanged(this);
+            listener.contentChanged(this, changes);
     }
 
     /**
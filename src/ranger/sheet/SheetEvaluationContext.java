@@ -1,8 +1,11 @@
 package ranger.sheet;
 
+import ranger.function.Aggregator;
 import ranger.function.Function;
 import ranger.function.FunctionRegistrar;
+import ranger.sheet.cell.Cell;
 import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
 import ranger.sheet.cell.CellStorage;
 import ranger.syntax.EvaluationContext;
 
@@ -19,6 +22,28 @@ public class SheetEvaluationContext implements EvaluationContext {
      */
     private CellStorage cellStorage;
 
+    /**
+     * The cells bound to the reference slots, or null if there are none.
+     */
+    private Cell[] bindings;
+
+    /**
+     * The cell being evaluated, or null if there is none.
+     */
+    private Cell cell;
+
+    /**
+     * The number of columns the references are moved by, when the syntax tree of
+     * the cell is shared with the cell it was parsed for.
+     */
+    private int columnOffset;
+
+    /**
+     * The number of rows the references are moved by, when the syntax tree of the
+     * cell is shared with the cell it was parsed for.
+     */
+    private int rowOffset;
+
     /**
      * Constructs a new sheet evaluation context.
      * 
@@ -26,8 +51,40 @@ public class SheetEvaluationContext implements EvaluationContext {
      * @param cellStorage       The cell storage.
      */
     public SheetEvaluationContext(FunctionRegistrar functionRegistrar, CellStorage cellStorage) {
+        this(functionRegistrar, cellStorage, null);
+    }
+
+    /**
+     * Constructs a new sheet evaluation context with cells bound to the reference
+     * slots.
+     * 
+     * @param functionRegistrar The function registrar.
+     * @param cellStorage       The cell storage.
+     * @param bindings          The cells bound to the reference slots, or null.
+     */
+    public SheetEvaluationContext(FunctionRegistrar functionRegistrar, CellStorage cellStorage, Cell[] bindings) {
+        this(functionRegistrar, cellStorage, bindings, null);
+    }
+
+    /**
+     * Constructs a new sheet evaluation context for the evaluation of a cell,
+     * whose range aggregators are then used, and whose offset the references
+     * are moved by.
+     * 
+     * @param functionRegistrar The function registrar.
+     * @param cellStorage       The cell storage.
+     * @param bindings          The cells bound to the reference slots, or null.
+     * @param cell              The cell being evaluated, or null.
+     */
+    public SheetEvaluationContext(FunctionRegistrar functionRegistrar, CellStorage cellStorage, Cell[] bindings,
+            Cell cell) {
         this.functionRegistrar = functionRegistrar;
         this.cellStorage = cellStorage;
+        this.bindings = bindings;
+        this.cell = cell;
+
+        this.columnOffset = cell == null ? 0 : cell.getColumnOffset();
+        this.rowOffset = cell == null ? 0 : cell.getRowOffset();
     }
 
     /**
@@ -41,6 +98,16 @@ public class SheetEvaluationContext implements EvaluationContext {
         return functionRegistrar.get(name);
     }
 
+    /**
+     * Returns the function registrar the functions are resolved with.
+     * 
+     * @return The function registrar.
+     */
+    @Override
+    public FunctionRegistrar getFunctionRegistrar() {
+        return functionRegistrar;
+    }
+
     /**
      * Returns the value of the cell at the given coordinates.
      * 
@@ -49,6 +116,74 @@ public class SheetEvaluationContext implements EvaluationContext {
      */
     @Override
     public double getValue(CellCoordinates coordinates) {
-        return cellStorage.getValue(coordinates);
+        return cellStorage.getValue(coordinates.offset(columnOffset, rowOffset));
+    }
+
+    /**
+     * Returns the value of the cell bound to the given reference slot.
+     * 
+     * @param slot        The reference slot.
+     * @param coordinates The coordinates of the cell.
+     * @return The value of the cell bound to the given reference slot.
+     */
+    @Override
+    public double getValue(int slot, CellCoordinates coordinates) {
+        if (bindings == null)
+            return cellStorage.getValue(coordinates.offset(columnOffset, rowOffset));
+
+        return bindings[slot].getValue();
+    }
+
+    /**
+     * Returns the value of the cell at the given coordinates on the sheet with the
+     * given name.
+     * 
+     * @param sheet       The name of the sheet.
+     * @param coordinates The coordinates of the cell.
+     * @return The value of the cell.
+     */
+    @Override
+    public double getValue(String sheet, CellCoordinates coordinates) {
+        return cellStorage.getExternalValue(sheet, coordinates.offset(columnOffset, rowOffset));
+    }
+
+    /**
+     * Returns the values of the cells in the given range.
+     * 
+     * @param range The range.
+     * @return The values of the cells in the given range.
+     */
+    @Override
+    public double[] getValues(CellRange range) {
+        return cellStorage.getValues(range.offset(columnOffset, rowOffset));
+    }
+
+    /**
+     * Returns the values of the cells in the given range on the sheet with the
+     * given name.
+     * 
+     * @param sheet The name of the sheet.
+     * @param range The range.
+     * @return The values of the cells in the given range.
+     */
+    @Override
+    public double[] getValues(String sheet, CellRange range) {
+        return cellStorage.getExternalValues(sheet, range.offset(columnOffset, rowOffset));
+    }
+
+    /**
+     * Returns the aggregator of the given function over the given range, kept up
+     * to date by the cell being evaluated.
+     * 
+     * @param range    The range.
+     * @param function The function.
+     * @return The aggregator, or null if there is none.
+     */
+    @Override
+    public Aggregator getAggregator(CellRange range, Function function) {
+        if (cell == null)
+            return null;
+
+        return cell.getAggregator(range, function);
     }
 }
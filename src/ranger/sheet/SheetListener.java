@@ -1,5 +1,7 @@
 package ranger.sheet;
 
+import ranger.sheet.cell.CellChangeSet;
+
 /**
  * Interface for listening to changes in a sheet.
  */
@@ -7,9 +9,10 @@ public interface SheetListener {
     /**
      * Called when the content of a sheet has changed.
      * 
-     * @param sheet The sheet.
+     * @param sheet   The sheet.
+     * @param changes The cells whose content, style or displayed value changed.
      */
-    public void contentChanged(Sheet sheet);
+    public void contentChanged(Sheet sheet, CellChangeSet changes);
 
     /**
      * Called when an action was performed on a sheet.
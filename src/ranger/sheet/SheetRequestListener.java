@@ -70,6 +70,16 @@ public interface SheetRequestListener {
      */
     public void redo();
 
+    /**
+     * Called when the cells left not evaluated should be calculated.
+     */
+    public void calculate();
+
+    /**
+     * Called when the recalculation in progress should be cancelled.
+     */
+    public void cancelCalculation();
+
     /**
      * Called when the sheet's content should be copied to the clipboard.
      * 
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import ranger.sheet.cell.CellChangeSet;
+import ranger.sheet.cell.WorkbookGraph;
+
 /**
  * Class representing a storage of sheets.
  */
@@ -23,11 +26,17 @@ public class Storage implements SheetListener, Iterable<Sheet> {
      */
     private List<StorageListener> listeners;
 
+    /**
+     * The dependency graph linking the cells of the sheets referencing each other.
+     */
+    private WorkbookGraph graph;
+
     /**
      * Constructs a new empty storage.
      */
     public Storage() {
         sheets = new ArrayList<Sheet>();
+        graph = new WorkbookGraph();
 
         selectedSheet = null;
 
@@ -101,6 +110,7 @@ public class Storage implements SheetListener, Iterable<Sheet> {
 
         sheets.add(sheet);
         sheet.addListener(this);
+        sheet.setWorkbook(graph);
 
         for (StorageListener listener : listeners)
             listener.sheetAdded(this, sheet);
@@ -131,6 +141,7 @@ public class Storage implements SheetListener, Iterable<Sheet> {
         }
 
         sheet.removeListener(this);
+        sheet.setWorkbook(null);
         sheets.remove(sheet);
 
         for (StorageListener listener : listeners)
@@ -186,12 +197,13 @@ public class Storage implements SheetListener, Iterable<Sheet> {
     /**
      * Handles the change of the content of a sheet.
      * 
-     * @param sheet The sheet whose content changed.
+     * @param sheet   The sheet whose content changed.
+     * @param changes The cells that changed.
      */
     @Override
-    public void contentChanged(Sheet sheet) {
+    public void contentChanged(Sheet sheet, CellChangeSet changes) {
         for (StorageListener listener : listeners)
-            listener.sheetContentChanged(this, sheet);
+            listener.sheetContentChanged(this, sheet, changes);
     }
 
     /**
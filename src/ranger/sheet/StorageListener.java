@@ -1,5 +1,7 @@
 package ranger.sheet;
 
+import ranger.sheet.cell.CellChangeSet;
+
 /**
  * Interface for listening to changes in a storage.
  */
@@ -10,8 +12,9 @@ public interface StorageListener {
      * 
      * @param storage The storage.
      * @param sheet   The sheet.
+     * @param changes The cells of the sheet that changed.
      */
-    public void sheetContentChanged(Storage storage, Sheet sheet);
+    public void sheetContentChanged(Storage storage, Sheet sheet, CellChangeSet changes);
 
     /**
      * Called when an action has been performed on a sheet.
@@ -1,5 +1,7 @@
 package ranger.sheet;
 
+import ranger.sheet.cell.CalculationMode;
+
 /**
  * Interface for listening to storage requests.
  */
@@ -35,4 +37,12 @@ public interface StorageRequestListener {
      * @param name  The new name.
      */
     public void renameSheet(Sheet sheet, String name);
+
+    /**
+     * Called when the calculation mode of a sheet should be changed.
+     * 
+     * @param sheet           The sheet.
+     * @param calculationMode The new calculation mode.
+     */
+    public void setCalculationMode(Sheet sheet, CalculationMode calculationMode);
 }
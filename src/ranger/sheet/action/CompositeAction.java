@@ -0,0 +1,93 @@
+package ranger.sheet.action;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ranger.sheet.cell.CellStorage;
+
+/**
+ * Class representing a composite action.
+ * The action is responsible for doing and undoing a sequence of actions as a
+ * single batch, so that they are recorded as a single history entry.
+ */
+public class CompositeAction implements SheetAction {
+    /**
+     * The actions, in the order in which they are done.
+     */
+    private List<SheetAction> actions;
+
+    /**
+     * Constructs a new empty composite action.
+     */
+    public CompositeAction() {
+        actions = new ArrayList<SheetAction>();
+    }
+
+    /**
+     * Adds an action to the composite action. The action is expected to have
+     * already been done, and is not cloned.
+     * 
+     * @param action The action.
+     */
+    public void addAction(SheetAction action) {
+        actions.add(action);
+    }
+
+    /**
+     * Returns whether the composite action contains no action.
+     * 
+     * @return Whether the composite action contains no action.
+     */
+    public boolean isEmpty() {
+        return actions.isEmpty();
+    }
+
+    /**
+     * Clones the action.
+     * 
+     * @return The cloned action.
+     */
+    @Override
+    public SheetAction clone() {
+        CompositeAction clone = new CompositeAction();
+
+        for (SheetAction action : actions)
+            clone.addAction(action.clone());
+
+        return clone;
+    }
+
+    /**
+     * Does the action.
+     * 
+     * @param storage The storage in which to do the action.
+     */
+    @Override
+    public void doAction(CellStorage storage) {
+        storage.beginBatch();
+
+        try {
+            for (SheetAction action : actions)
+                action.doAction(storage);
+        } finally {
+            storage.commitBatch();
+        }
+    }
+
+    /**
+     * Undoes the action.
+     * 
+     * @param storage The storage in which to undo the action.
+     */
+    @Override
+    public void undoAction(CellStorage storage) {
+        storage.beginBatch();
+
+        try {
+            for (int i = actions.size() - 1; i >= 0; i--)
+                actions.get(i).undoAction(storage);
+        } finally {
+            storage.commitBatch();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ranger.sheet.cell;
+
+/**
+ * Enum representing the way a cell storage evaluates its cells after they are
+ * modified.
+ */
+public enum CalculationMode {
+    /**
+     * The modified cells and their dependents are evaluated right after each
+     * modification.
+     */
+    AUTOMATIC,
+
+    /**
+     * The modified cells and their dependents are only marked as not evaluated.
+     * They are evaluated when their value is requested, and their value is kept
+     * until they are modified again.
+     */
+    LAZY,
+
+    /**
+     * The modified cells and their dependents are only marked as stale, and keep
+     * the values they had before the modification. They are evaluated when a
+     * calculation is explicitly requested.
+     */
+    MANUAL,
+
+    /**
+     * The modified cells and their dependents are evaluated by a background
+     * thread. Until they are all evaluated, the values they had before the
+     * modification are kept, and reported as being calculated.
+     */
+    BACKGROUND,
+}
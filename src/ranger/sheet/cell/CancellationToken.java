@@ -0,0 +1,37 @@
+package ranger.sheet.cell;
+
+/**
+ * Class representing a cooperative cancellation token.
+ * The evaluations check the token between their steps, and pause once it has
+ * been cancelled. A token can be cancelled from any thread, but never reset: a
+ * new token is used for the next recalculation.
+ */
+public class CancellationToken {
+    /**
+     * Whether the token has been cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Constructs a new token that is not cancelled.
+     */
+    public CancellationToken() {
+        cancelled = false;
+    }
+
+    /**
+     * Cancels the token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether the token has been cancelled.
+     * 
+     * @return Whether the token has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
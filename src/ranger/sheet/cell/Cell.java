@@ -1,14 +1,16 @@
 package ranger.sheet.cell;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import ranger.format.Formatter;
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
+import ranger.function.Function;
 import ranger.sheet.SheetEvaluationContext;
 import ranger.syntax.SyntaxTree;
-import ranger.syntax.block.ExpressionBlock;
-import ranger.syntax.lexer.Lexer;
-import ranger.syntax.node.NumberNode;
 
 /**
  * Class representing a cell.
@@ -30,9 +32,46 @@ public class Cell {
     private CellContent content;
 
     /**
-     * The cell's dependencies.
+     * The ranges of cells the cell depends on.
+     * This can be null if the cell does not reference any range.
      */
-    private Set<CellCoordinates> dependencies;
+    private List<CellRange> ranges;
+
+    /**
+     * The dependencies of the cell on its ranges, matching the ranges.
+     * This can be null if the ranges are not bound yet.
+     */
+    private List<RangeDependency> rangeDependencies;
+
+    /**
+     * The cells and ranges of cells of other sheets the cell depends on.
+     * This can be null if the cell does not reference any other sheet.
+     */
+    private List<ExternalReference> externals;
+
+    /**
+     * Whether the cell is demanding the cells of other sheets it references. A
+     * cell met again while doing so is part of a cycle through other sheets.
+     */
+    private boolean demanding;
+
+    /**
+     * The cell met again while demanding the cells of other sheets, which closed
+     * the cycle the cell was found to be part of, or null.
+     */
+    private Cell cycleOrigin;
+
+    /**
+     * The cells bound to the reference slots of the cell's syntax tree.
+     * This can be null if the references are not bound yet.
+     */
+    private Cell[] bindings;
+
+    /**
+     * The cells bound to the cell, whose reference slots reference it.
+     * This is null if no cell depends on the cell.
+     */
+    private CellSet dependents;
 
     /**
      * The cell's syntax tree.
@@ -41,6 +80,24 @@ public class Cell {
      */
     private SyntaxTree tree;
 
+    /**
+     * The number of columns the references of the cell's syntax tree are moved
+     * by, when the tree is shared with the cell it was parsed for.
+     */
+    private int columnOffset;
+
+    /**
+     * The number of rows the references of the cell's syntax tree are moved by,
+     * when the tree is shared with the cell it was parsed for.
+     */
+    private int rowOffset;
+
+    /**
+     * Whether the cell's expression is a number or a formula, as opposed to plain
+     * text or no expression at all.
+     */
+    private boolean numeric;
+
     /**
      * The cell's value.
      * This can be null if the cell failed to evaluate or to parse.
@@ -59,6 +116,46 @@ public class Cell {
      */
     private CellError error;
 
+    /**
+     * The cell's last published value.
+     * This is only used in background mode, while the cell is being calculated.
+     */
+    private Double publishedValue;
+
+    /**
+     * The cell's last published formatted value.
+     */
+    private String publishedFormatted;
+
+    /**
+     * The cell's last published error.
+     */
+    private CellError publishedError;
+
+    /**
+     * The value the cell displayed when the listeners of its storage were last
+     * notified.
+     */
+    private Double displayedValue;
+
+    /**
+     * The formatted value the cell displayed when the listeners of its storage
+     * were last notified.
+     */
+    private String displayedFormatted;
+
+    /**
+     * The error the cell displayed when the listeners of its storage were last
+     * notified.
+     */
+    private CellError displayedError;
+
+    /**
+     * Whether the cell was displayed as being calculated when the listeners of its
+     * storage were last notified.
+     */
+    private boolean displayedStale;
+
     /**
      * Constructs a new cell.
      * 
@@ -70,6 +167,46 @@ public class Cell {
         this.coordinates = coordinates;
 
         this.content = new CellContent();
+
+        reparse();
+    }
+
+    /**
+     * Returns the storage in which the cell is stored.
+     * 
+     * @return The storage in which the cell is stored.
+     */
+    public CellStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the coordinates of the cell.
+     * 
+     * @return The coordinates of the cell.
+     */
+    public CellCoordinates getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Returns the number of columns the references of the cell's syntax tree are
+     * moved by when it is evaluated.
+     * 
+     * @return The column offset, which is 0 if the tree was parsed for the cell.
+     */
+    public int getColumnOffset() {
+        return columnOffset;
+    }
+
+    /**
+     * Returns the number of rows the references of the cell's syntax tree are
+     * moved by when it is evaluated.
+     * 
+     * @return The row offset, which is 0 if the tree was parsed for the cell.
+     */
+    public int getRowOffset() {
+        return rowOffset;
     }
 
     /**
@@ -93,15 +230,318 @@ public class Cell {
     /**
      * Returns the cell's dependencies, as a copy.
      * 
-     * @return The cell's dependencies.
+     * @return The cell's dependencies, or null if the cell has no syntax tree.
      */
     public Set<CellCoordinates> getDependencies() {
-        if (dependencies != null)
-            return new HashSet<CellCoordinates>(dependencies);
+        if (bindings != null) {
+            Set<CellCoordinates> dependencies = new HashSet<CellCoordinates>();
+            for (Cell binding : bindings)
+                dependencies.add(binding.getCoordinates());
+
+            return dependencies;
+        }
+
+        if (tree == null)
+            return null;
+
+        Set<CellCoordinates> references = tree.getReferences();
+        if (columnOffset == 0 && rowOffset == 0)
+            return references;
+
+        Set<CellCoordinates> dependencies = new HashSet<CellCoordinates>();
+        for (CellCoordinates reference : references)
+            dependencies.add(reference.offset(columnOffset, rowOffset));
+
+        return dependencies;
+    }
+
+    /**
+     * Returns the number of cells the cell is bound to, which are its
+     * dependencies.
+     * 
+     * @return The number of cells the cell is bound to.
+     */
+    public int getPrecedentCount() {
+        return bindings != null ? bindings.length : 0;
+    }
+
+    /**
+     * Returns the cell bound to the specified reference slot of the cell.
+     * 
+     * @param index The reference slot.
+     * @return The cell bound to the reference slot.
+     */
+    public Cell getPrecedent(int index) {
+        return bindings[index];
+    }
+
+    /**
+     * Returns the cells bound to the reference slots of the cell. This is not a
+     * copy, and must not be modified.
+     * 
+     * @return The cells bound to the reference slots, or null if the references
+     *         are not bound.
+     */
+    Cell[] getBindings() {
+        return bindings;
+    }
+
+    /**
+     * Returns whether some cells are bound to the cell.
+     * 
+     * @return Whether some cells depend on the cell.
+     */
+    public boolean hasDependents() {
+        return dependents != null;
+    }
+
+    /**
+     * Returns the number of cells bound to the cell.
+     * 
+     * @return The number of cells depending on the cell.
+     */
+    public int getDependentCount() {
+        return dependents != null ? dependents.size() : 0;
+    }
+
+    /**
+     * Returns the cell bound to the cell at the specified index. Removing a
+     * dependent may change the index of the others.
+     * 
+     * @param index The index.
+     * @return The dependent at the specified index.
+     */
+    public Cell getDependent(int index) {
+        return dependents.get(index);
+    }
+
+    /**
+     * Registers a cell bound to the cell.
+     * 
+     * @param dependent The dependent cell.
+     */
+    void addDependent(Cell dependent) {
+        if (dependents == null)
+            dependents = new CellSet();
+
+        dependents.add(dependent);
+    }
+
+    /**
+     * Unregisters a cell bound to the cell. The set of dependents is released
+     * once empty.
+     * 
+     * @param dependent The dependent cell.
+     */
+    void removeDependent(Cell dependent) {
+        if (dependents == null)
+            return;
+
+        dependents.remove(dependent);
+        if (dependents.isEmpty())
+            dependents = null;
+    }
+
+    /**
+     * Returns the ranges of cells the cell depends on, as a copy.
+     * 
+     * @return The ranges of cells the cell depends on, or null if there are none.
+     */
+    public List<CellRange> getRanges() {
+        if (ranges != null)
+            return new ArrayList<CellRange>(ranges);
 
         return null;
     }
 
+    /**
+     * Returns the cells and ranges of cells of other sheets the cell depends on, as
+     * a copy.
+     * 
+     * @return The references to other sheets, or null if there are none.
+     */
+    public List<ExternalReference> getExternalReferences() {
+        if (externals != null)
+            return new ArrayList<ExternalReference>(externals);
+
+        return null;
+    }
+
+    /**
+     * Binds the ranges of the cell to the specified range dependencies, which then
+     * track the cells of the ranges that are not evaluated, and the aggregators
+     * of the functions called on them.
+     * 
+     * @param rangeDependencies The dependencies on the ranges, matching the
+     *                          ranges.
+     */
+    public void bindRanges(List<RangeDependency> rangeDependencies) {
+        this.rangeDependencies = rangeDependencies;
+    }
+
+    /**
+     * Returns the coordinates of the cells of the ranges that are not evaluated.
+     * 
+     * @return The coordinates of the cells that are not evaluated, or null if the
+     *         ranges are not bound.
+     */
+    public Set<CellCoordinates> getPendingInRanges() {
+        if (rangeDependencies == null)
+            return null;
+
+        Set<CellCoordinates> pending = new HashSet<CellCoordinates>();
+
+        for (RangeDependency dependency : rangeDependencies)
+            pending.addAll(dependency.getPending());
+
+        return pending;
+    }
+
+    /**
+     * Handles a change of a cell contained in one of the ranges of the cell.
+     * 
+     * @param coordinates The coordinates of the changed cell.
+     * @param wasPending  Whether the changed cell was numeric and not evaluated.
+     * @param previous    The previous value of the changed cell, or null.
+     * @param isPending   Whether the changed cell is numeric and not evaluated.
+     * @param current     The current value of the changed cell, or null.
+     */
+    public void rangeInputChanged(CellCoordinates coordinates, boolean wasPending, Double previous,
+            boolean isPending, Double current) {
+        if (rangeDependencies == null)
+            return;
+
+        for (RangeDependency dependency : rangeDependencies)
+            if (dependency.getRange().contains(coordinates))
+                dependency.inputChanged(coordinates, wasPending, previous, isPending, current);
+    }
+
+    /**
+     * Returns the aggregator of the specified function over one of the ranges of
+     * the cell.
+     * 
+     * @param range    The range, as referenced by the cell's syntax tree, before
+     *                 being moved by the offset of the cell.
+     * @param function The function.
+     * @return The aggregator, or null if the range is not bound or the function
+     *         cannot be aggregated.
+     */
+    public Aggregator getAggregator(CellRange range, Function function) {
+        if (rangeDependencies == null)
+            return null;
+
+        // Compared without moving the range, as this is done on every evaluation
+        for (RangeDependency dependency : rangeDependencies) {
+            CellRange bound = dependency.getRange();
+
+            if (bound.getLeft() == range.getLeft() + columnOffset && bound.getTop() == range.getTop() + rowOffset
+                    && bound.getRight() == range.getRight() + columnOffset
+                    && bound.getBottom() == range.getBottom() + rowOffset)
+                return dependency.getAggregator(function, storage);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the aggregators of the functions called on the ranges of the cell,
+     * eg. because the functions were replaced.
+     */
+    public void clearAggregators() {
+        if (rangeDependencies == null)
+            return;
+
+        for (RangeDependency dependency : rangeDependencies)
+            dependency.clearAggregators();
+    }
+
+    /**
+     * Returns the coordinates of the cells referenced by the cell, indexed by
+     * reference slot.
+     * 
+     * @return The coordinates of the referenced cells, or null if the cell has no
+     *         syntax tree.
+     */
+    public List<CellCoordinates> getSlots() {
+        if (tree == null)
+            return null;
+
+        List<CellCoordinates> slots = tree.getSlots();
+        if (columnOffset == 0 && rowOffset == 0)
+            return slots;
+
+        List<CellCoordinates> moved = new ArrayList<CellCoordinates>(slots.size());
+        for (CellCoordinates slot : slots)
+            moved.add(slot.offset(columnOffset, rowOffset));
+
+        return moved;
+    }
+
+    /**
+     * Binds the reference slots of the cell to the specified cells, which are then
+     * read directly when evaluating the cell.
+     * 
+     * @param bindings The cells bound to the reference slots.
+     */
+    public void bind(Cell[] bindings) {
+        this.bindings = bindings;
+    }
+
+    /**
+     * Returns whether the cell's expression calls a volatile function.
+     * 
+     * @return Whether the cell's expression calls a volatile function.
+     */
+    public boolean isVolatile() {
+        return tree != null && tree.isVolatile(storage.getFunctionRegistrar());
+    }
+
+    /**
+     * Returns whether the cell is expected to hold a number, meaning that it has
+     * content which is not plain text. Only such cells are part of the values of
+     * the ranges containing them.
+     * 
+     * @return Whether the cell is expected to hold a number.
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Returns whether the cell is numeric, but not evaluated yet.
+     * 
+     * @return Whether the cell is numeric and not evaluated.
+     */
+    private boolean isPending() {
+        return isNumeric() && !isEvaluated();
+    }
+
+    /**
+     * Returns the value the cell contributes to the ranges containing it.
+     * 
+     * @return The value of the cell if it is numeric and evaluated, or null.
+     */
+    private Double getContribution() {
+        return isNumeric() ? value : null;
+    }
+
+    /**
+     * Notifies the storage that the contribution of the cell to the ranges
+     * containing it changed, if it did.
+     * 
+     * @param wasPending Whether the cell was numeric and not evaluated.
+     * @param previous   The value the cell previously contributed, or null.
+     */
+    private void contributionChanged(boolean wasPending, Double previous) {
+        boolean isPending = isPending();
+        Double current = getContribution();
+
+        if (wasPending == isPending && (previous == null ? current == null : previous.equals(current)))
+            return;
+
+        storage.rangeInputChanged(coordinates, wasPending, previous, isPending, current);
+    }
+
     /**
      * Returns whether the cell is evaluated.
      * 
@@ -141,40 +581,57 @@ public class Cell {
      * Parses the cell's expression again.
      */
     public void reparse() {
-        String expression = content.getExpression();
+        boolean wasPending = isPending();
+        Double previous = getContribution();
 
-        this.tree = null;
-        this.dependencies = null;
+        parse();
 
-        this.value = null;
-        this.formatted = null;
+        contributionChanged(wasPending, previous);
+    }
 
-        this.error = null;
+    /**
+     * Parses the cell's expression again, with the result of parsing it
+     * beforehand.
+     * 
+     * @param parsed The parsed expression of the cell.
+     */
+    public void reparse(ParsedExpression parsed) {
+        boolean wasPending = isPending();
+        Double previous = getContribution();
 
-        if (expression == null) {
-            tree = new SyntaxTree(new NumberNode(0.0), storage.getExpressionParser());
-            return;
-        }
+        apply(parsed);
 
-        try {
-            tree = new SyntaxTree(new NumberNode(Double.parseDouble(expression)), storage.getExpressionParser());
-            return;
-        } catch (NumberFormatException e) {
-        }
+        contributionChanged(wasPending, previous);
+    }
 
-        if (expression.startsWith("=")) {
-            try {
-                tree = new SyntaxTree(ExpressionBlock.getRoot(Lexer.getTokens(expression.substring(1))),
-                        storage.getExpressionParser());
+    /**
+     * Parses the cell's expression.
+     */
+    private void parse() {
+        apply(storage.parse(content.getExpression(), coordinates));
+    }
 
-                dependencies = tree.getReferences();
-                return;
-            } catch (Exception e) {
-                error = CellError.INVALID_EXPRESSION;
-            }
+    /**
+     * Applies the result of parsing the cell's expression, which leaves the cell
+     * not evaluated and not bound.
+     * 
+     * @param parsed The parsed expression of the cell.
+     */
+    private void apply(ParsedExpression parsed) {
+        this.tree = parsed.getTree();
+        this.columnOffset = parsed.getColumnOffset();
+        this.rowOffset = parsed.getRowOffset();
+        this.ranges = parsed.getRanges();
+        this.rangeDependencies = null;
+        this.externals = parsed.getExternalReferences();
+        this.bindings = null;
 
-            return;
-        }
+        this.value = null;
+        this.formatted = null;
+
+        this.error = parsed.getError();
+
+        this.numeric = parsed.isNumeric();
     }
 
     /**
@@ -206,18 +663,138 @@ public class Cell {
         if (isEvaluated())
             return false;
 
-        if (tree == null)
+        if (tree == null || !isReady())
+            return false;
+
+        if (!compute())
+            return false;
+
+        contributionChanged(isNumeric(), null);
+
+        return true;
+    }
+
+    /**
+     * Gives the cell a provisional value before it is evaluated iteratively along
+     * with the other cells of its cycle. The value is the one the cell displayed,
+     * or zero if it displayed none.
+     */
+    public void seed() {
+        boolean wasPending = isPending();
+        Double previous = getContribution();
+
+        value = displayedValue != null ? displayedValue : 0.0;
+        error = null;
+
+        reformat();
+
+        contributionChanged(wasPending, previous);
+    }
+
+    /**
+     * Evaluates the cell again during an iterative calculation, reading the
+     * provisional values of the other cells of its cycle.
+     * 
+     * @return Whether the cell was evaluated.
+     */
+    public boolean iterate() {
+        if (tree == null || !isReady())
             return false;
 
-        if (dependencies != null)
-            for (CellCoordinates coordinates : dependencies)
-                if (!storage.isEvaluated(coordinates)) {
+        boolean wasPending = isPending();
+        Double previous = getContribution();
+
+        boolean computed = compute();
+
+        contributionChanged(wasPending, previous);
+
+        return computed;
+    }
+
+    /**
+     * Returns whether everything the cell depends on is evaluated, so that the
+     * cell can be evaluated. If not, the error of the cell is set accordingly.
+     * 
+     * @return Whether the cell can be evaluated.
+     */
+    private boolean isReady() {
+        if (bindings != null)
+            for (Cell binding : bindings)
+                if (!binding.isEvaluated()) {
+                    error = CellError.DEPENDENCY_NOT_EVALUATED;
+                    return false;
+                }
+
+        if (rangeDependencies != null) {
+            for (RangeDependency dependency : rangeDependencies)
+                if (!dependency.isEvaluated()) {
+                    error = CellError.DEPENDENCY_NOT_EVALUATED;
+                    return false;
+                }
+        } else if (ranges != null)
+            for (CellRange range : ranges)
+                if (!storage.isEvaluated(range)) {
                     error = CellError.DEPENDENCY_NOT_EVALUATED;
                     return false;
                 }
 
+        if (externals != null) {
+            if (demanding) {
+                error = CellError.DEPENDENCY_CYCLE;
+                cycleOrigin = this;
+                return false;
+            }
+
+            demanding = true;
+
+            try {
+                for (ExternalReference reference : externals) {
+                    CellStorage external = storage.getExternalStorage(reference.getSheet());
+                    if (external == null) {
+                        error = CellError.INVALID_REFERENCE;
+                        return false;
+                    }
+
+                    CellRange range = reference.getRange();
+                    boolean cell = range.getStart().equals(range.getEnd());
+
+                    if (!external.demand(range) || (cell && !external.isReadable(range.getStart()))) {
+                        // The cells of the demand chain closing a cycle are part of
+                        // it, while the cells reading it later merely depend on it
+                        cycleOrigin = external.getOpenCycle(range);
+                        error = cycleOrigin != null ? CellError.DEPENDENCY_CYCLE
+                                : CellError.DEPENDENCY_NOT_EVALUATED;
+                        return false;
+                    }
+                }
+            } finally {
+                demanding = false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the value of the cell from its syntax tree. If the computation
+     * fails, the error of the cell is set accordingly and its value is left as is.
+     * Evaluation errors are returned by the syntax tree, the exceptions it throws
+     * being left to the failures that are not.
+     * 
+     * @return Whether the value was computed.
+     */
+    private boolean compute() {
         try {
-            value = tree.evaluate(new SheetEvaluationContext(storage.getFunctionRegistrar(), storage));
+            double result = tree.evaluate(
+                    new SheetEvaluationContext(storage.getFunctionRegistrar(), storage, bindings, this));
+
+            EvaluationError evaluationError = EvaluationError.get(result);
+            if (evaluationError != null) {
+                error = getCellError(evaluationError);
+                return false;
+            }
+
+            value = result;
             error = null;
 
             reformat();
@@ -235,6 +812,30 @@ public class Cell {
         }
     }
 
+    /**
+     * Returns the cell error matching an evaluation error.
+     * 
+     * @param error The evaluation error.
+     * @return The cell error.
+     */
+    private static CellError getCellError(EvaluationError error) {
+        switch (error) {
+            case DIVISION_BY_ZERO:
+            case MODULO_BY_ZERO:
+            case NEGATIVE_FACTORIAL:
+            case NOT_A_NUMBER:
+            case INFINITY:
+                return CellError.ARITHMETIC_ERROR;
+
+            case INVALID_ARGUMENTS:
+            case RANGE_VALUE:
+                return CellError.ARGUMENT_ERROR;
+
+            default:
+                return CellError.FAILED_TO_EVALUATE;
+        }
+    }
+
     /**
      * Tries to deevaluate the cell.
      * 
@@ -244,13 +845,140 @@ public class Cell {
         if (!isEvaluated())
             return false;
 
+        Double previous = getContribution();
+
         error = CellError.DEPENDENCY_NOT_EVALUATED;
         value = null;
         formatted = null;
 
+        contributionChanged(false, previous);
+
         return true;
     }
 
+    /**
+     * Returns the cell closing the cycle through other sheets the cell was found
+     * to be part of, if that cell is still demanding the cells of the cycle.
+     * 
+     * @return The cell closing the cycle, or null if the cell is not part of a
+     *         cycle being demanded.
+     */
+    Cell getOpenCycle() {
+        if (error != CellError.DEPENDENCY_CYCLE || cycleOrigin == null || !cycleOrigin.demanding)
+            return null;
+
+        return cycleOrigin;
+    }
+
+    /**
+     * Leaves the cell not evaluated after it failed to be evaluated during an
+     * iterative calculation, keeping the error it failed with instead of the
+     * provisional value of its cycle.
+     */
+    public void fail() {
+        CellError failure = error;
+
+        deevaluate();
+
+        error = failure;
+    }
+
+    /**
+     * Publishes the cell's current value, which is then the one reported while the
+     * cell is being calculated.
+     * 
+     * @return Whether the published value or error changed.
+     */
+    public boolean publish() {
+        boolean changed = error != publishedError
+                || (value == null ? publishedValue != null : !value.equals(publishedValue));
+
+        publishedValue = value;
+        publishedFormatted = formatted;
+        publishedError = error;
+
+        return changed;
+    }
+
+    /**
+     * Publishes the value the cell displayed when the listeners of its storage
+     * were last notified, which is then the one reported while the cell is being
+     * calculated.
+     */
+    public void publishDisplayed() {
+        publishedValue = displayedValue;
+        publishedFormatted = displayedFormatted;
+        publishedError = displayedError;
+    }
+
+    /**
+     * Returns the cell's last published value, reported as being calculated.
+     * 
+     * @return The cell's last published value.
+     */
+    public CellValue getPublishedValue() {
+        return new CellValue(this, publishedValue, publishedFormatted, publishedError);
+    }
+
+    /**
+     * Returns whether the cell had a value when it was last published.
+     * 
+     * @return Whether the cell had a value when it was last published.
+     */
+    boolean hasPublishedValue() {
+        return publishedValue != null;
+    }
+
+    /**
+     * Returns the cell's last published raw value.
+     * 
+     * @return The cell's last published raw value.
+     * @throws IllegalStateException If the cell had no value when it was last
+     *                               published.
+     */
+    public double getPublishedRawValue() {
+        if (publishedValue == null)
+            throw new IllegalStateException(
+                    "Cannot get value of the cell '" + coordinates + "' because it was not published.");
+
+        return publishedValue;
+    }
+
+    /**
+     * Records the value the cell displays, and returns whether it differs from the
+     * one recorded the previous time.
+     * 
+     * @param stale Whether the cell is stale, and thus displays its last published
+     *              value as being calculated.
+     * @return Whether the displayed value changed.
+     */
+    public boolean updateDisplayed(boolean stale) {
+        Double value = stale ? publishedValue : this.value;
+        String formatted = stale ? publishedFormatted : this.formatted;
+        CellError error = stale ? publishedError : this.error;
+
+        boolean changed = stale != displayedStale || error != displayedError
+                || (value == null ? displayedValue != null : !value.equals(displayedValue))
+                || (formatted == null ? displayedFormatted != null : !formatted.equals(displayedFormatted));
+
+        displayedValue = value;
+        displayedFormatted = formatted;
+        displayedError = error;
+        displayedStale = stale;
+
+        return changed;
+    }
+
+    /**
+     * Returns whether the cycles the cell can be part of are calculated
+     * iteratively.
+     * 
+     * @return Whether the cycles are calculated iteratively.
+     */
+    public boolean isIterative() {
+        return storage.isIterative();
+    }
+
     /**
      * Returns whether the cell has a cycle.
      * 
@@ -270,7 +998,7 @@ public class Cell {
     private boolean checkForCycle(CellCoordinates current, Set<CellCoordinates> visited) {
         visited.add(current);
 
-        Set<CellCoordinates> dependencies = storage.getDependencies(current);
+        Set<CellCoordinates> dependencies = storage.getPrecedents(current);
         if (dependencies == null)
             return false;
 
@@ -320,6 +1048,15 @@ public class Cell {
                 reformat();
     }
 
+    /**
+     * Returns the expression of the cell.
+     * 
+     * @return The expression of the cell, or null if it has none.
+     */
+    public String getExpression() {
+        return content.getExpression();
+    }
+
     /**
      * Returns whether the cell has content.
      * 
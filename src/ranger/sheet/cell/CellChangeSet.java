@@ -0,0 +1,137 @@
+package ranger.sheet.cell;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Class representing the cells changed by a modification of a cell storage.
+ * A cell is part of the set when its content, its style or its displayed value
+ * changed, including the cells evaluated again because of the modification.
+ * The listeners can thus only invalidate what changed, either cell by cell or
+ * through the bounding range of the set.
+ */
+public class CellChangeSet implements Iterable<CellCoordinates> {
+    /**
+     * The coordinates of the changed cells.
+     */
+    private Set<CellCoordinates> cells;
+
+    /**
+     * The leftmost column of the changed cells.
+     */
+    private int left;
+
+    /**
+     * The topmost row of the changed cells.
+     */
+    private int top;
+
+    /**
+     * The rightmost column of the changed cells.
+     */
+    private int right;
+
+    /**
+     * The bottommost row of the changed cells.
+     */
+    private int bottom;
+
+    /**
+     * Constructs a new empty change set.
+     */
+    public CellChangeSet() {
+        cells = new HashSet<CellCoordinates>();
+
+        left = Integer.MAX_VALUE;
+        top = Integer.MAX_VALUE;
+        right = Integer.MIN_VALUE;
+        bottom = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Adds a changed cell to the set.
+     * 
+     * @param coordinates The coordinates of the cell.
+     */
+    void add(CellCoordinates coordinates) {
+        if (!cells.add(coordinates))
+            return;
+
+        left = Math.min(left, coordinates.getX());
+        top = Math.min(top, coordinates.getY());
+        right = Math.max(right, coordinates.getX());
+        bottom = Math.max(bottom, coordinates.getY());
+    }
+
+    /**
+     * Returns whether no cell changed.
+     * 
+     * @return Whether the set is empty.
+     */
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    /**
+     * Returns the number of changed cells.
+     * 
+     * @return The number of changed cells.
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Returns whether the cell at the specified coordinates changed.
+     * 
+     * @param coordinates The coordinates.
+     * @return Whether the cell changed.
+     */
+    public boolean contains(CellCoordinates coordinates) {
+        return cells.contains(coordinates);
+    }
+
+    /**
+     * Returns the coordinates of the changed cells.
+     * 
+     * @return The coordinates of the changed cells.
+     */
+    public Set<CellCoordinates> getCells() {
+        return Collections.unmodifiableSet(cells);
+    }
+
+    /**
+     * Returns the smallest range containing every changed cell.
+     * 
+     * @return The bounding range of the changed cells, or null if the set is
+     *         empty.
+     */
+    public CellRange getBounds() {
+        if (cells.isEmpty())
+            return null;
+
+        return new CellRange(new CellCoordinates(left, top), new CellCoordinates(right, bottom));
+    }
+
+    /**
+     * Returns the iterator over the coordinates of the changed cells.
+     * 
+     * @return The iterator over the coordinates of the changed cells.
+     */
+    @Override
+    public Iterator<CellCoordinates> iterator() {
+        return getCells().iterator();
+    }
+
+    /**
+     * Returns the string representation of the change set.
+     * 
+     * @return The string representation of the change set.
+     */
+    @Override
+    public String toString() {
+        return cells.size() + " cells in " + getBounds();
+    }
+}
@@ -146,6 +146,22 @@ public class CellCoordinates extends Coordinates {
         return y;
     }
 
+    /**
+     * Returns the coordinates moved by the specified numbers of columns and rows.
+     * 
+     * @param columns The number of columns, which can be negative.
+     * @param rows    The number of rows, which can be negative.
+     * @return The moved coordinates.
+     * @throws IllegalArgumentException If the moved coordinates are outside of the
+     *                                  sheet.
+     */
+    public CellCoordinates offset(int columns, int rows) {
+        if (columns == 0 && rows == 0)
+            return this;
+
+        return new CellCoordinates(x + columns, y + rows);
+    }
+
     /**
      * Returns the row's string representation.
      * 
@@ -195,38 +211,64 @@ public class CellCoordinates extends Coordinates {
      * @throws NumberFormatException If the coordinates are invalid.
      */
     public static CellCoordinates parse(String coordinates) {
-        int columnLength = 0;
+        return parse(coordinates, 0, coordinates.length());
+    }
+
+    /**
+     * Parses the string representation of the cell coordinates found between two
+     * indices of a string, without copying it.
+     * 
+     * @param input The string containing the cell coordinates.
+     * @param start The index of the cell coordinates.
+     * @param end   The index following the cell coordinates.
+     * @return The cell coordinates.
+     * @throws NumberFormatException If the coordinates are invalid.
+     */
+    public static CellCoordinates parse(String input, int start, int end) {
+        int columnEnd = start;
+
+        while (columnEnd < end && Character.isUpperCase(input.charAt(columnEnd)))
+            columnEnd++;
+
+        if (columnEnd == start)
+            throw new NumberFormatException("Invalid cell coordinates '" + input.substring(start, end)
+                    + "' (missing column). Format: [A-Z]+[0-9]+");
 
-        while (columnLength < coordinates.length())
-            if (Character.isUpperCase(coordinates.charAt(columnLength)))
-                columnLength++;
-            else
-                break;
+        int column = 0;
 
-        if (columnLength == 0)
-            throw new NumberFormatException(
-                    "Invalid cell coordinates '" + coordinates + "' (missing column). Format: [A-Z]+[0-9]+");
+        for (int i = start; i < columnEnd; i++) {
+            if (column > Integer.MAX_VALUE / 26)
+                throw new NumberFormatException("Invalid cell coordinates '" + input.substring(start, columnEnd)
+                        + "' (column too large). Format: [A-Z]+[0-9]+");
 
-        int column = getColumnFromString(coordinates.substring(0, columnLength));
+            column = column * 26 + (input.charAt(i) - 'A' + 1);
+        }
+
+        int rowEnd = columnEnd;
+
+        while (rowEnd < end && Character.isDigit(input.charAt(rowEnd)))
+            rowEnd++;
 
-        int rowLength = 0;
+        if (rowEnd == columnEnd)
+            throw new NumberFormatException("Invalid cell coordinates '" + input.substring(start, end)
+                    + "' (missing row). Format: [A-Z]+[0-9]+");
 
-        while (columnLength + rowLength < coordinates.length())
-            if (Character.isDigit(coordinates.charAt(columnLength + rowLength)))
-                rowLength++;
-            else
-                break;
+        int row = 0;
 
-        if (rowLength == 0)
-            throw new NumberFormatException(
-                    "Invalid cell coordinates '" + coordinates + "' (missing row). Format: [A-Z]+[0-9]+");
+        for (int i = columnEnd; i < rowEnd; i++) {
+            int digit = Character.digit(input.charAt(i), 10);
 
-        int row = getRowFromString(coordinates.substring(columnLength, columnLength + rowLength));
+            // Rows too large for an integer are rejected by the standard parsing
+            if (row > (Integer.MAX_VALUE - digit) / 10)
+                return new CellCoordinates(column - 1, getRowFromString(input.substring(columnEnd, rowEnd)));
+
+            row = row * 10 + digit;
+        }
 
-        if (columnLength + rowLength < coordinates.length())
-            throw new NumberFormatException(
-                    "Invalid cell coordinates '" + coordinates + "' (additional characters). Format: [A-Z]+[0-9]+");
+        if (rowEnd < end)
+            throw new NumberFormatException("Invalid cell coordinates '" + input.substring(start, end)
+                    + "' (additional characters). Format: [A-Z]+[0-9]+");
 
-        return new CellCoordinates(column, row);
+        return new CellCoordinates(column - 1, row - 1);
     }
 }
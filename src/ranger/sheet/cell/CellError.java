@@ -34,6 +34,11 @@ public enum CellError {
      */
     DEPENDENCY_CYCLE("#CYCLE"),
 
+    /**
+     * Indicates that the cell references a sheet that does not exist.
+     */
+    INVALID_REFERENCE("#REF"),
+
     ;
 
     /**
@@ -0,0 +1,124 @@
+package ranger.sheet.cell;
+
+/**
+ * Class representing the evaluation profile of a cell.
+ * The profile gathers the durations of the sampled evaluations of the cell, so
+ * that the cells dominating the recalculations can be found.
+ */
+public class CellProfile {
+    /**
+     * The coordinates of the cell.
+     */
+    private final CellCoordinates coordinates;
+
+    /**
+     * The number of sampled evaluations.
+     */
+    private int sampleCount;
+
+    /**
+     * The total duration of the sampled evaluations, in nanoseconds.
+     */
+    private long totalTime;
+
+    /**
+     * The longest duration of the sampled evaluations, in nanoseconds.
+     */
+    private long maxTime;
+
+    /**
+     * Constructs a new empty cell profile.
+     * 
+     * @param coordinates The coordinates of the cell.
+     */
+    public CellProfile(CellCoordinates coordinates) {
+        this.coordinates = coordinates;
+
+        sampleCount = 0;
+        totalTime = 0;
+        maxTime = 0;
+    }
+
+    /**
+     * Constructs a new cell profile from another cell profile.
+     * 
+     * @param other The other profile.
+     */
+    public CellProfile(CellProfile other) {
+        this.coordinates = other.coordinates;
+
+        sampleCount = other.sampleCount;
+        totalTime = other.totalTime;
+        maxTime = other.maxTime;
+    }
+
+    /**
+     * Returns the coordinates of the cell.
+     * 
+     * @return The coordinates of the cell.
+     */
+    public CellCoordinates getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Returns the number of sampled evaluations.
+     * 
+     * @return The number of sampled evaluations.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns the total duration of the sampled evaluations.
+     * 
+     * @return The total duration, in nanoseconds.
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Returns the longest duration of the sampled evaluations.
+     * 
+     * @return The longest duration, in nanoseconds.
+     */
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Returns the average duration of the sampled evaluations.
+     * 
+     * @return The average duration, in nanoseconds.
+     */
+    public double getAverageTime() {
+        if (sampleCount == 0)
+            return 0;
+
+        return (double) totalTime / sampleCount;
+    }
+
+    /**
+     * Records the duration of a sampled evaluation.
+     * 
+     * @param duration The duration, in nanoseconds.
+     */
+    void record(long duration) {
+        sampleCount++;
+        totalTime += duration;
+        maxTime = Math.max(maxTime, duration);
+    }
+
+    /**
+     * Returns the string representation of the profile.
+     * 
+     * @return The string representation of the profile.
+     */
+    @Override
+    public String toString() {
+        return coordinates + ": " + Math.round(getAverageTime() / 1000.0) + " us average, "
+                + Math.round(totalTime / 1000.0) + " us total over " + sampleCount + " samples";
+    }
+}
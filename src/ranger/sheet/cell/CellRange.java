@@ -0,0 +1,127 @@
+package ranger.sheet.cell;
+
+import ranger.data.Region;
+
+/**
+ * Class representing a rectangular range of cells in a sheet, such as "A1:B10".
+ * Both corners are included in the range.
+ */
+public class CellRange extends Region {
+    /**
+     * The separator between the corners of the range.
+     */
+    public static final char SEPARATOR = ':';
+
+    /**
+     * The top left corner of the range.
+     */
+    private final CellCoordinates start;
+
+    /**
+     * The bottom right corner of the range.
+     */
+    private final CellCoordinates end;
+
+    /**
+     * Constructs a new cell range. The corners do not need to be ordered, the
+     * range always goes from its top left corner to its bottom right corner.
+     * 
+     * @param first  The coordinates of the first corner.
+     * @param second The coordinates of the second corner.
+     */
+    public CellRange(CellCoordinates first, CellCoordinates second) {
+        super(first.getX(), first.getY(), second.getX(), second.getY());
+
+        this.start = new CellCoordinates(getLeft(), getTop());
+        this.end = new CellCoordinates(getRight(), getBottom());
+    }
+
+    /**
+     * Constructs a new cell range from a string.
+     * 
+     * @param range The range string.
+     */
+    public CellRange(String range) {
+        this(parse(range));
+    }
+
+    /**
+     * Constructs a new cell range from another cell range.
+     * 
+     * @param other The other range.
+     */
+    private CellRange(CellRange other) {
+        this(other.start, other.end);
+    }
+
+    /**
+     * Returns the coordinates of the top left corner of the range.
+     * 
+     * @return The coordinates of the top left corner of the range.
+     */
+    public CellCoordinates getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the coordinates of the bottom right corner of the range.
+     * 
+     * @return The coordinates of the bottom right corner of the range.
+     */
+    public CellCoordinates getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the range moved by the specified numbers of columns and rows.
+     * 
+     * @param columns The number of columns, which can be negative.
+     * @param rows    The number of rows, which can be negative.
+     * @return The moved range.
+     * @throws IllegalArgumentException If the moved range is outside of the sheet.
+     */
+    public CellRange offset(int columns, int rows) {
+        if (columns == 0 && rows == 0)
+            return this;
+
+        return new CellRange(start.offset(columns, rows), end.offset(columns, rows));
+    }
+
+    /**
+     * Returns whether the range contains the specified coordinates.
+     * 
+     * @param coordinates The coordinates.
+     * @return Whether the range contains the specified coordinates.
+     */
+    public boolean contains(CellCoordinates coordinates) {
+        return contains(coordinates.getX(), coordinates.getY());
+    }
+
+    /**
+     * Returns the string representation of the cell range.
+     * 
+     * @return The string representation of the cell range.
+     */
+    @Override
+    public String toString() {
+        return start.toString() + SEPARATOR + end.toString();
+    }
+
+    /**
+     * Parses the string representation of the cell range.
+     * 
+     * @param range The string representation of the cell range.
+     * @return The cell range.
+     * @throws NumberFormatException If the range is invalid.
+     */
+    public static CellRange parse(String range) {
+        int separator = range.indexOf(SEPARATOR);
+
+        if (separator < 0)
+            throw new NumberFormatException(
+                    "Invalid cell range '" + range + "' (missing separator). Format: [A-Z]+[0-9]+:[A-Z]+[0-9]+");
+
+        return new CellRange(CellCoordinates.parse(range.substring(0, separator)),
+                CellCoordinates.parse(range.substring(separator + 1)));
+    }
+}
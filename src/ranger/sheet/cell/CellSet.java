@@ -0,0 +1,199 @@
+package ranger.sheet.cell;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Class representing a compact set of cells, such as the dependents of a cell.
+ * The cells are stored in an array which grows and shrinks with the set, so
+ * that its memory stays proportional to its size, and which can be iterated by
+ * index without allocating. Small sets are searched linearly, while larger ones
+ * also index the position of each cell so that removing one stays constant.
+ * The cells are compared by identity, and their order is not kept.
+ */
+public class CellSet {
+    /**
+     * The initial capacity of the array.
+     */
+    private static final int INITIAL_CAPACITY = 2;
+
+    /**
+     * The size above which the positions of the cells are indexed.
+     */
+    private static final int INDEX_THRESHOLD = 16;
+
+    /**
+     * The cells of the set, followed by unused entries.
+     */
+    private Cell[] cells;
+
+    /**
+     * The number of cells in the set.
+     */
+    private int size;
+
+    /**
+     * The positions of the cells in the array. This is null while the set is
+     * small enough to be searched linearly.
+     */
+    private Map<Cell, Integer> positions;
+
+    /**
+     * Constructs a new empty cell set.
+     */
+    public CellSet() {
+        cells = new Cell[INITIAL_CAPACITY];
+        size = 0;
+        positions = null;
+    }
+
+    /**
+     * Returns the number of cells in the set.
+     * 
+     * @return The number of cells in the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the set is empty.
+     * 
+     * @return Whether the set is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the cell at the specified index. Removing a cell may move the last
+     * one to its index.
+     * 
+     * @param index The index, between zero and the size of the set.
+     * @return The cell at the specified index.
+     */
+    public Cell get(int index) {
+        if (index < 0 || index >= size)
+            throw new IllegalArgumentException("Invalid index " + index + " for a set of " + size + " cells.");
+
+        return cells[index];
+    }
+
+    /**
+     * Returns whether the set contains the specified cell.
+     * 
+     * @param cell The cell.
+     * @return Whether the set contains the cell.
+     */
+    public boolean contains(Cell cell) {
+        return indexOf(cell) >= 0;
+    }
+
+    /**
+     * Adds a cell to the set.
+     * 
+     * @param cell The cell.
+     * @return Whether the cell was added, as opposed to being already in the set.
+     */
+    public boolean add(Cell cell) {
+        if (indexOf(cell) >= 0)
+            return false;
+
+        if (size == cells.length)
+            cells = Arrays.copyOf(cells, cells.length * 2);
+
+        cells[size] = cell;
+
+        if (positions != null)
+            positions.put(cell, size);
+        else if (size + 1 > INDEX_THRESHOLD)
+            index();
+
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Removes a cell from the set. The last cell of the array takes its place,
+     * and the array shrinks once it is mostly unused.
+     * 
+     * @param cell The cell.
+     * @return Whether the cell was removed, as opposed to not being in the set.
+     */
+    public boolean remove(Cell cell) {
+        int index = indexOf(cell);
+        if (index < 0)
+            return false;
+
+        size--;
+
+        Cell last = cells[size];
+        cells[index] = last;
+        cells[size] = null;
+
+        if (positions != null) {
+            positions.remove(cell);
+            if (last != cell)
+                positions.put(last, index);
+
+            if (size <= INDEX_THRESHOLD / 2)
+                positions = null;
+        }
+
+        if (cells.length > INITIAL_CAPACITY && size <= cells.length / 4)
+            cells = Arrays.copyOf(cells, Math.max(INITIAL_CAPACITY, cells.length / 2));
+
+        return true;
+    }
+
+    /**
+     * Returns the index of a cell in the array.
+     * 
+     * @param cell The cell.
+     * @return The index of the cell, or -1 if it is not in the set.
+     */
+    private int indexOf(Cell cell) {
+        if (positions != null) {
+            Integer position = positions.get(cell);
+            return position != null ? position : -1;
+        }
+
+        for (int i = 0; i < size; i++)
+            if (cells[i] == cell)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Indexes the positions of the cells, once the set is too large to be
+     * searched linearly.
+     */
+    private void index() {
+        positions = new IdentityHashMap<Cell, Integer>();
+
+        for (int i = 0; i <= size; i++)
+            positions.put(cells[i], i);
+    }
+
+    /**
+     * Returns the string representation of the cell set.
+     * 
+     * @return The string representation of the cell set.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                builder.append(", ");
+
+            builder.append(cells[i].getCoordinates());
+        }
+
+        return builder.append(']').toString();
+    }
+}
@@ -1,14 +1,21 @@
 package ranger.sheet.cell;
 
+import java.awt.EventQueue;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 import ranger.data.Coordinates;
+import ranger.data.RegionIndex;
 import ranger.data.Tree;
 import ranger.function.FunctionRegistrar;
 import ranger.sheet.Area;
@@ -16,8 +23,23 @@ import ranger.syntax.parser.ExpressionParser;
 
 /**
  * Class representing a cell storage.
+ * The storage is guarded by a monitor, so that its cells can be evaluated by a
+ * background thread. The monitor is the storage itself, or the graph of its
+ * workbook once it is part of one, so that its cells can also read the cells of
+ * the other storages of the workbook while being evaluated.
  */
 public class CellStorage {
+    /**
+     * The default maximum number of iterations run for a cycle in iterative mode.
+     */
+    public static final int DEFAULT_MAXIMUM_ITERATIONS = 100;
+
+    /**
+     * The default change of value under which the cells of a cycle are considered
+     * to have converged in iterative mode.
+     */
+    public static final double DEFAULT_MAXIMUM_CHANGE = 0.001;
+
     /**
      * The function registrar used to evaluate functions.
      */
@@ -34,15 +56,141 @@ public class CellStorage {
     private Tree<Cell> cells;
 
     /**
-     * The dependencies of the cells.
+     * The dependencies of the cells on ranges. Each range is registered once per
+     * dependent cell, whatever its size.
+     */
+    private RegionIndex<CellCoordinates> rangeDependents;
+
+    /**
+     * The coordinates of the cells whose expression calls a volatile function.
      */
-    private Map<CellCoordinates, Set<CellCoordinates>> dependents;
+    private Set<CellCoordinates> volatileCells;
 
     /**
      * The listeners of the storage.
      */
     private List<CellStorageListener> listeners;
 
+    /**
+     * The number of batches currently opened. While it is greater than zero,
+     * evaluations and notifications are deferred until the outermost batch is
+     * committed.
+     */
+    private int batchDepth;
+
+    /**
+     * Whether the content changed during the current batch.
+     */
+    private boolean batchChanged;
+
+    /**
+     * The coordinates of the cells whose evaluation has been deferred.
+     */
+    private Set<CellCoordinates> pendingEvaluations;
+
+    /**
+     * The calculation mode of the storage.
+     */
+    private CalculationMode calculationMode;
+
+    /**
+     * The recalculator evaluating the cells in background mode.
+     * This is null in the other modes.
+     */
+    private Recalculator recalculator;
+
+    /**
+     * The coordinates of the cells modified since their values were last
+     * published, in manual and background modes.
+     */
+    private Set<CellCoordinates> staleCells;
+
+    /**
+     * The time, in nanoseconds, an evaluation can run at once in automatic and
+     * manual modes before being paused and continued later. If zero, evaluations
+     * run until they are done.
+     */
+    private long timeBudget;
+
+    /**
+     * Whether the cycles are calculated iteratively instead of being left not
+     * evaluated.
+     */
+    private boolean iterative;
+
+    /**
+     * The maximum number of iterations run for a cycle in iterative mode.
+     */
+    private int maximumIterations;
+
+    /**
+     * The change of value under which the cells of a cycle are considered to
+     * have converged in iterative mode.
+     */
+    private double maximumChange;
+
+    /**
+     * The cancellation token of the current recalculation. Once cancelled, it is
+     * replaced on the next modification or calculation.
+     */
+    private volatile CancellationToken cancellation;
+
+    /**
+     * The evaluation paused because of its time budget or its cancellation, which
+     * is continued in later slices. This is null if no evaluation is paused.
+     */
+    private Evaluation unfinished;
+
+    /**
+     * Whether a slice of the paused evaluation is scheduled.
+     */
+    private boolean resumeScheduled;
+
+    /**
+     * The coordinates of the cells whose content changed since the listeners were
+     * last notified. They are reported whatever their displayed value.
+     */
+    private Set<CellCoordinates> changedCells;
+
+    /**
+     * The coordinates of the cells whose displayed value may have changed since
+     * the listeners were last notified. They are only reported if it did.
+     */
+    private Set<CellCoordinates> touchedCells;
+
+    /**
+     * The statistics of the recalculation in progress, completed on the next
+     * notification of the listeners.
+     */
+    private RecalculationStatistics statistics;
+
+    /**
+     * The statistics of the last completed recalculation that did some work.
+     */
+    private RecalculationStatistics lastStatistics;
+
+    /**
+     * The profiler sampling the evaluations of the cells.
+     */
+    private EvaluationProfiler profiler;
+
+    /**
+     * The cache of the parsed formulas, shared by the cells with the same
+     * formula.
+     */
+    private FormulaCache formulaCache;
+
+    /**
+     * The monitor guarding the storage.
+     */
+    private volatile Object lock;
+
+    /**
+     * The dependency graph of the workbook the storage is part of.
+     * This is null if the storage is not part of a workbook.
+     */
+    private WorkbookGraph workbook;
+
     /**
      * Constructs a new cell storage.
      * 
@@ -55,9 +203,123 @@ public class CellStorage {
 
         cells = new Tree<Cell>(2);
 
-        dependents = new HashMap<CellCoordinates, Set<CellCoordinates>>();
+        rangeDependents = new RegionIndex<CellCoordinates>();
+
+        volatileCells = new HashSet<CellCoordinates>();
 
         listeners = new ArrayList<CellStorageListener>();
+
+        batchDepth = 0;
+        batchChanged = false;
+        pendingEvaluations = new LinkedHashSet<CellCoordinates>();
+
+        calculationMode = CalculationMode.AUTOMATIC;
+        staleCells = new HashSet<CellCoordinates>();
+
+        timeBudget = 0;
+
+        iterative = false;
+        maximumIterations = DEFAULT_MAXIMUM_ITERATIONS;
+        maximumChange = DEFAULT_MAXIMUM_CHANGE;
+        cancellation = new CancellationToken();
+        unfinished = null;
+        resumeScheduled = false;
+
+        changedCells = new HashSet<CellCoordinates>();
+        touchedCells = new HashSet<CellCoordinates>();
+
+        statistics = new RecalculationStatistics();
+        lastStatistics = new RecalculationStatistics();
+        profiler = new EvaluationProfiler();
+        formulaCache = new FormulaCache();
+
+        lock = this;
+        workbook = null;
+    }
+
+    /**
+     * Returns the monitor guarding the storage.
+     * 
+     * @return The monitor guarding the storage.
+     */
+    Object getLock() {
+        return lock;
+    }
+
+    /**
+     * Sets the dependency graph of the workbook the storage is part of, whose
+     * monitor then guards the storage. The references of the cells to other sheets
+     * are registered in the graph, and the cells holding them are evaluated again.
+     * 
+     * @param workbook The graph of the workbook, or null if the storage is no
+     *                 longer part of a workbook.
+     */
+    void setWorkbook(WorkbookGraph workbook) {
+        synchronized (lock) {
+            if (recalculator != null) {
+                recalculator.stop();
+                recalculator = null;
+            }
+
+            if (this.workbook != null)
+                for (Entry<Coordinates, Cell> entry : cells)
+                    this.workbook.unregister(entry.getValue());
+
+            this.workbook = workbook;
+            lock = workbook == null ? this : workbook;
+        }
+
+        synchronized (lock) {
+            for (Entry<Coordinates, Cell> entry : cells) {
+                if (entry.getValue().getExternalReferences() == null)
+                    continue;
+
+                if (workbook != null)
+                    workbook.register(entry.getValue());
+
+                externalChanged(new CellCoordinates(entry.getKey()));
+            }
+
+            if (calculationMode == CalculationMode.BACKGROUND) {
+                recalculator = new Recalculator(this, EventQueue::invokeLater);
+                recalculator.start();
+            }
+
+            contentChanged();
+        }
+    }
+
+    /**
+     * Returns the storage of the sheet with the specified name, in the workbook
+     * the storage is part of.
+     * 
+     * @param sheet The name of the sheet.
+     * @return The storage of the sheet, or null if there is none.
+     */
+    CellStorage getExternalStorage(String sheet) {
+        synchronized (lock) {
+            if (workbook == null)
+                return null;
+
+            return workbook.getStorage(sheet);
+        }
+    }
+
+    /**
+     * Deevaluates the cell at the specified coordinates because a cell of another
+     * storage it references changed, and queues it to be evaluated again once that
+     * storage has processed its own cells.
+     * 
+     * @param coordinates The coordinates.
+     */
+    void externalChanged(CellCoordinates coordinates) {
+        synchronized (lock) {
+            deevaluate(coordinates);
+            pendingEvaluations.add(coordinates);
+
+            if (workbook != null)
+                workbook.changed(this);
+        }
     }
 
     /**
@@ -66,7 +328,9 @@ public class CellStorage {
      * @param listener The listener to add.
      */
     public void addListener(CellStorageListener listener) {
-        listeners.add(listener);
+        synchronized (lock) {
+            listeners.add(listener);
+        }
     }
 
     /**
@@ -75,7 +339,161 @@ public class CellStorage {
      * @param listener The listener to remove.
      */
     public void removeListener(CellStorageListener listener) {
-        listeners.remove(listener);
+        synchronized (lock) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Begins a batch. Until the batch is committed, modifications are applied
+     * without evaluating the cells nor notifying the listeners. Batches can be
+     * nested, only the outermost one triggers the evaluation.
+     */
+    public void beginBatch() {
+        synchronized (lock) {
+            batchDepth++;
+        }
+    }
+
+    /**
+     * Commits the current batch. If it is the outermost batch, the cells whose
+     * evaluation has been deferred are evaluated at once, and the listeners are
+     * notified a single time.
+     * 
+     * @throws IllegalStateException If no batch is in progress.
+     */
+    public void commitBatch() {
+        synchronized (lock) {
+            if (batchDepth == 0)
+                throw new IllegalStateException("Cannot commit a batch, as no batch is in progress.");
+
+            batchDepth--;
+            if (batchDepth > 0 || !batchChanged)
+                return;
+
+            batchChanged = false;
+            contentChanged();
+        }
+    }
+
+    /**
+     * Returns whether a batch is in progress.
+     * 
+     * @return Whether a batch is in progress.
+     */
+    public boolean isBatching() {
+        synchronized (lock) {
+            return batchDepth > 0;
+        }
+    }
+
+    /**
+     * Returns the calculation mode of the storage.
+     * 
+     * @return The calculation mode of the storage.
+     */
+    public CalculationMode getCalculationMode() {
+        synchronized (lock) {
+            return calculationMode;
+        }
+    }
+
+    /**
+     * Sets the calculation mode of the storage. When switching back to the
+     * automatic mode, the cells left not evaluated are evaluated. When switching
+     * to the manual or background modes, the current values are published and the
+     * cells left not evaluated are marked as stale.
+     * 
+     * @param calculationMode The calculation mode of the storage.
+     */
+    public void setCalculationMode(CalculationMode calculationMode) {
+        synchronized (lock) {
+            if (calculationMode == null)
+                throw new IllegalArgumentException("The calculation mode cannot be null.");
+
+            if (this.calculationMode == calculationMode)
+                return;
+
+            if (recalculator != null) {
+                recalculator.stop();
+                recalculator = null;
+            }
+
+            boolean wasPublishing = isPublishing();
+            boolean wasLazy = this.calculationMode == CalculationMode.LAZY;
+            this.calculationMode = calculationMode;
+
+            unfinished = null;
+
+            for (Entry<Coordinates, Cell> entry : cells) {
+                touchedCells.add(new CellCoordinates(entry.getKey()));
+                if (wasLazy)
+                    changedCells.add(new CellCoordinates(entry.getKey()));
+            }
+
+            if (!isPublishing())
+                staleCells.clear();
+            else if (!wasPublishing)
+                for (Entry<Coordinates, Cell> entry : cells)
+                    if (!staleCells.contains(new CellCoordinates(entry.getKey())))
+                        entry.getValue().publish();
+
+            if (calculationMode == CalculationMode.BACKGROUND) {
+                recalculator = new Recalculator(this, EventQueue::invokeLater);
+                recalculator.start();
+            }
+
+            if (calculationMode == CalculationMode.AUTOMATIC)
+                for (Entry<Coordinates, Cell> entry : cells)
+                    pendingEvaluations.add(new CellCoordinates(entry.getKey()));
+            else if (isPublishing())
+                markStale();
+
+            contentChanged();
+        }
+    }
+
+    /**
+     * Returns whether the cells report their published values while they are
+     * stale, which is the case in manual and background modes.
+     * 
+     * @return Whether the cells report their published values while stale.
+     */
+    private boolean isPublishing() {
+        return calculationMode == CalculationMode.MANUAL || calculationMode == CalculationMode.BACKGROUND;
+    }
+
+    /**
+     * Evaluates the cells left not evaluated. In manual mode, the stale cells are
+     * evaluated and their values published, within the time budget. In lazy mode,
+     * every cell is evaluated at once. In the other modes, the cells are already
+     * being evaluated, and only a cancelled recalculation is resumed.
+     */
+    public void calculate() {
+        synchronized (lock) {
+            if (cancellation.isCancelled())
+                cancellation = new CancellationToken();
+
+            if (calculationMode == CalculationMode.MANUAL) {
+                runSlice(new Evaluation(this, staleCells, true));
+                propagate();
+            } else if (calculationMode == CalculationMode.AUTOMATIC && unfinished != null) {
+                runSlice(unfinished);
+                propagate();
+            } else if (calculationMode == CalculationMode.BACKGROUND && recalculator != null) {
+                recalculator.schedule();
+                return;
+            } else if (calculationMode == CalculationMode.LAZY) {
+                List<CellCoordinates> coordinates = new ArrayList<CellCoordinates>();
+                for (Entry<Coordinates, Cell> entry : cells)
+                    coordinates.add(new CellCoordinates(entry.getKey()));
+
+                new Evaluation(this, coordinates).run();
+            } else
+                return;
+
+            notifyListeners();
+        }
     }
 
     /**
@@ -84,7 +502,9 @@ public class CellStorage {
      * @return The function registrar used to evaluate functions.
      */
     public FunctionRegistrar getFunctionRegistrar() {
-        return functionRegistrar;
+        synchronized (lock) {
+            return functionRegistrar;
+        }
     }
 
     /**
@@ -93,9 +513,13 @@ public class CellStorage {
      * @param functionRegistrar The function registrar used to evaluate functions.
      */
     public void setFunctionRegistrar(FunctionRegistrar functionRegistrar) {
-        this.functionRegistrar = functionRegistrar;
+        synchronized (lock) {
+            this.functionRegistrar = functionRegistrar;
+            profiler.clear();
 
-        reevaluateAll();
+            reparseAll();
+            notifyListeners();
+        }
     }
 
     /**
@@ -104,7 +528,9 @@ public class CellStorage {
      * @return The expression parser used to parse expressions.
      */
     public ExpressionParser getExpressionParser() {
-        return expressionParser;
+        synchronized (lock) {
+            return expressionParser;
+        }
     }
 
     /**
@@ -113,9 +539,12 @@ public class CellStorage {
      * @param expressionParser The expression parser used to parse expressions.
      */
     public void setExpressionParser(ExpressionParser expressionParser) {
-        this.expressionParser = expressionParser;
+        synchronized (lock) {
+            this.expressionParser = expressionParser;
 
-        reparseAll();
+            reparseAll();
+            notifyListeners();
+        }
     }
 
     /**
@@ -125,11 +554,13 @@ public class CellStorage {
      * @return The content at the specified coordinates.
      */
     public CellContent getContent(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
-            return null;
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null || !cell.hasContent())
+                return null;
 
-        return cell.getContent();
+            return cell.getContent();
+        }
     }
 
     /**
@@ -139,17 +570,23 @@ public class CellStorage {
      * @param end   The end coordinates.
      * @return The contents of the cells in the specified range.
      */
-    public Map<CellCoordinates, CellContent> getContents(CellCoordinates start, CellCoordinates end) {
-        Map<CellCoordinates, CellContent> contents = new HashMap<CellCoordinates, CellContent>();
+    public Map<CellCoordinates, CellContent> getContents(CellCoordinates start,
+            CellCoordinates end) {
+        synchronized (lock) {
+            Map<CellCoordinates, CellContent> contents = new HashMap<CellCoordinates, CellContent>();
 
-        for (Entry<Coordinates, Cell> entry : cells.getRange(start, end).entrySet()) {
-            CellCoordinates coordinates = new CellCoordinates(entry.getKey());
-            Cell cell = entry.getValue();
+            for (Entry<Coordinates, Cell> entry : cells.getRange(start, end).entrySet()) {
+                CellCoordinates coordinates = new CellCoordinates(entry.getKey());
+                Cell cell = entry.getValue();
 
-            contents.put(coordinates, cell.getContent());
-        }
+                if (!cell.hasContent())
+                    continue;
+
+                contents.put(coordinates, cell.getContent());
+            }
 
-        return contents;
+            return contents;
+        }
     }
 
     /**
@@ -159,12 +596,12 @@ public class CellStorage {
      * @param content     The content.
      */
     public void setContent(CellCoordinates coordinates, CellContent content) {
-        passiveSetContent(coordinates, content);
-
-        evaluate(coordinates);
+        synchronized (lock) {
+            passiveSetContent(coordinates, content);
+            pendingEvaluations.add(coordinates);
 
-        for (CellStorageListener listener : listeners)
-            listener.contentChanged(this);
+            contentChanged();
+        }
     }
 
     /**
@@ -173,24 +610,24 @@ public class CellStorage {
      * @param contents The pairs of coordinates and contents.
      */
     public void setContents(Map<CellCoordinates, CellContent> contents) {
-        boolean contentChanged = false;
-        for (Entry<CellCoordinates, CellContent> entry : contents.entrySet())
-            if (!contentEquals(entry.getKey(), entry.getValue())) {
-                contentChanged = true;
-                break;
-            }
-
-        if (!contentChanged)
-            return;
-
-        for (Entry<CellCoordinates, CellContent> entry : contents.entrySet())
-            passiveSetContent(entry.getKey(), entry.getValue());
+        synchronized (lock) {
+            boolean contentChanged = false;
+            for (Entry<CellCoordinates, CellContent> entry : contents.entrySet())
+                if (!contentEquals(entry.getKey(), entry.getValue())) {
+                    contentChanged = true;
+                    break;
+                }
+
+            if (!contentChanged)
+                return;
 
-        for (Entry<CellCoordinates, CellContent> entry : contents.entrySet())
-            evaluate(entry.getKey());
+            for (Entry<CellCoordinates, CellContent> entry : contents.entrySet()) {
+                passiveSetContent(entry.getKey(), entry.getValue());
+                pendingEvaluations.add(entry.getKey());
+            }
 
-        for (CellStorageListener listener : listeners)
-            listener.contentChanged(this);
+            contentChanged();
+        }
     }
 
     /**
@@ -209,14 +646,24 @@ public class CellStorage {
         if (!contentChanged)
             return;
 
+        changedCells.add(coordinates);
+
         String currentExpression = currentContent == null ? null : currentContent.getExpression();
         String expression = content == null ? null : content.getExpression();
 
         boolean expressionChanged = currentExpression == null ? expression != null
                 : !currentExpression.equals(expression);
 
+        Cell[] previousBindings = null;
+
         if (expressionChanged) {
-            deevaluate(coordinates);
+            Cell previous = cells.get(coordinates);
+            if (previous != null)
+                previousBindings = previous.getBindings();
+
+            profiler.remove(coordinates);
+
+            invalidate(coordinates);
             clearDependencies(coordinates);
         }
 
@@ -231,11 +678,17 @@ public class CellStorage {
 
         cell.setContent(content);
 
-        if (!cell.hasContent())
+        if (!cell.hasContent() && !cell.hasDependents()) {
             cells.remove(coordinates);
+            staleCells.remove(coordinates);
+        }
 
-        if (expressionChanged)
+        if (expressionChanged) {
             updateDependencies(coordinates);
+            updateVolatility(coordinates);
+
+            releasePlaceholders(previousBindings);
+        }
     }
 
     /**
@@ -247,10 +700,12 @@ public class CellStorage {
      * @return The area at the specified coordinates.
      */
     public Area getArea(CellCoordinates start, int width, int height) {
-        Map<CellCoordinates, CellContent> contents = getContents(start,
-                new CellCoordinates(start.getX() + width - 1, start.getY() + height - 1));
+        synchronized (lock) {
+            Map<CellCoordinates, CellContent> contents = getContents(start,
+                    new CellCoordinates(start.getX() + width - 1, start.getY() + height - 1));
 
-        return new Area(start, width, height, contents);
+            return new Area(start, width, height, contents);
+        }
     }
 
     /**
@@ -260,34 +715,27 @@ public class CellStorage {
      * @param area  The area.
      */
     public void setArea(CellCoordinates start, Area area) {
-        Map<Coordinates, Cell> cells = this.cells.getRange(start,
-                new CellCoordinates(start.getX() + area.getWidth() - 1, start.getY() + area.getHeight() - 1));
+        synchronized (lock) {
+            Map<Coordinates, Cell> cells = this.cells.getRange(start,
+                    new CellCoordinates(start.getX() + area.getWidth() - 1, start.getY() + area.getHeight() - 1));
 
-        for (Coordinates coordinates : cells.keySet())
-            passiveSetContent(new CellCoordinates(coordinates), null);
-
-        for (Coordinates coordinates : cells.keySet())
-            evaluate(new CellCoordinates(coordinates));
-
-        for (Entry<CellCoordinates, CellContent> entry : area) {
-            CellCoordinates coordinates = new CellCoordinates(
-                    start.getX() + entry.getKey().getX() - area.getOrigin().getX(),
-                    start.getY() + entry.getKey().getY() - area.getOrigin().getY());
-            CellContent content = entry.getValue();
+            for (Coordinates coordinates : cells.keySet()) {
+                passiveSetContent(new CellCoordinates(coordinates), null);
+                pendingEvaluations.add(new CellCoordinates(coordinates));
+            }
 
-            passiveSetContent(coordinates, content);
-        }
+            for (Entry<CellCoordinates, CellContent> entry : area) {
+                CellCoordinates coordinates = new CellCoordinates(
+                        start.getX() + entry.getKey().getX() - area.getOrigin().getX(),
+                        start.getY() + entry.getKey().getY() - area.getOrigin().getY());
+                CellContent content = entry.getValue();
 
-        for (Entry<CellCoordinates, CellContent> entry : area) {
-            CellCoordinates coordinates = new CellCoordinates(
-                    start.getX() + entry.getKey().getX() - area.getOrigin().getX(),
-                    start.getY() + entry.getKey().getY() - area.getOrigin().getY());
+                passiveSetContent(coordinates, content);
+                pendingEvaluations.add(coordinates);
+            }
 
-            evaluate(coordinates);
+            contentChanged();
         }
-
-        for (CellStorageListener listener : listeners)
-            listener.contentChanged(this);
     }
 
     /**
@@ -299,104 +747,801 @@ public class CellStorage {
      * @param content     The content.
      */
     public void fillArea(CellCoordinates coordinates, int width, int height, CellContent content) {
-        for (int x = coordinates.getX(); x < coordinates.getX() + width; x++)
-            for (int y = coordinates.getY(); y < coordinates.getY() + height; y++)
-                passiveSetContent(new CellCoordinates(x, y), content);
+        synchronized (lock) {
+            for (int x = coordinates.getX(); x < coordinates.getX() + width; x++)
+                for (int y = coordinates.getY(); y < coordinates.getY() + height; y++) {
+                    CellCoordinates current = new CellCoordinates(x, y);
 
-        for (int x = coordinates.getX(); x < coordinates.getX() + width; x++)
-            for (int y = coordinates.getY(); y < coordinates.getY() + height; y++)
-                evaluate(new CellCoordinates(x, y));
+                    passiveSetContent(current, content);
+                    pendingEvaluations.add(current);
+                }
 
-        for (CellStorageListener listener : listeners)
-            listener.contentChanged(this);
+            contentChanged();
+        }
     }
 
     /**
-     * Returns whether the content at the specific coordinates equals the specified
-     * content.
+     * Queues the cell at the specified coordinates to be evaluated, as it may have
+     * been waiting for a cell evaluated on demand. In lazy mode, nothing is done as
+     * the cells are only evaluated on demand.
      * 
      * @param coordinates The coordinates.
-     * @param content     The content.
-     * @return Whether the content at the specific coordinates equals the specified
-     *         content.
      */
-    private boolean contentEquals(CellCoordinates coordinates, CellContent content) {
-        CellContent currentContent = getContent(coordinates);
-        if (currentContent == null)
-            return content == null;
+    void queue(CellCoordinates coordinates) {
+        synchronized (lock) {
+            if (calculationMode == CalculationMode.LAZY)
+                return;
 
-        return currentContent.equals(content);
+            pendingEvaluations.add(coordinates);
+
+            if (workbook != null)
+                workbook.changed(this);
+        }
     }
 
     /**
-     * Reparses the cell at the specified coordinates.
+     * Queues the cells of the other storages of the workbook depending on the cell
+     * at the specified coordinates that are not evaluated, once the cell has been
+     * evaluated. They are processed by their storages on the next propagation.
      * 
      * @param coordinates The coordinates.
      */
-    private void reparse(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
-            return;
-
-        deevaluate(coordinates);
-        clearDependencies(coordinates);
-
-        cell.reparse();
-
-        updateDependencies(coordinates);
+    void queueExternalDependents(CellCoordinates coordinates) {
+        synchronized (lock) {
+            if (workbook != null)
+                workbook.queueDependents(this, coordinates);
+        }
     }
 
     /**
-     * Evaluates the cell at the specified coordinates.
+     * Records that the displayed value of the cell at the specified coordinates may
+     * have changed, so that the listeners are told on the next notification if it
+     * did.
      * 
      * @param coordinates The coordinates.
      */
-    private void evaluate(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
-            evaluateDependents(coordinates);
-        else if (cell.evaluate())
-            evaluateDependents(coordinates);
+    void valueChanged(CellCoordinates coordinates) {
+        synchronized (lock) {
+            touchedCells.add(coordinates);
+        }
     }
 
     /**
-     * Reparses all cells.
+     * Lets the other storages of the workbook process the cells the storage
+     * deevaluated or queued, according to their calculation modes.
      */
-    private void reparseAll() {
-        for (Entry<Coordinates, Cell> entry : cells)
-            reparse(new CellCoordinates(entry.getKey()));
-
-        for (Entry<Coordinates, Cell> entry : cells)
-            evaluate(new CellCoordinates(entry.getKey()));
+    void propagate() {
+        synchronized (lock) {
+            if (workbook != null)
+                workbook.propagate();
+        }
     }
 
     /**
-     * Evaluates all cells.
+     * Handles a change of the content. Outside of a batch, the pending cells are
+     * evaluated and the listeners are notified. Inside of a batch, this is
+     * deferred until the batch is committed. In lazy mode, the pending cells are
+     * left not evaluated until their value is requested. In manual mode, they are
+     * marked as stale until the next calculation. In background mode, they are also
+     * handed to the recalculator. This is also called by the graph of the workbook
+     * when cells of the storage were deevaluated by another storage.
      */
-    private void reevaluateAll() {
-        for (Entry<Coordinates, Cell> entry : cells)
-            deevaluate(new CellCoordinates(entry.getKey()));
+    void contentChanged() {
+        if (batchDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+
+        processPending();
+        notifyListeners();
+    }
+
+    /**
+     * Handles the cells whose evaluation has been deferred, according to the
+     * calculation mode. The other storages of the workbook whose cells have been
+     * deevaluated meanwhile then handle theirs, once the cells they depend on are
+     * up to date.
+     */
+    private void processPending() {
+        touchedCells.addAll(pendingEvaluations);
+
+        if (cancellation.isCancelled())
+            cancellation = new CancellationToken();
+
+        if (calculationMode == CalculationMode.LAZY)
+            pendingEvaluations.clear();
+        else if (isPublishing()) {
+            for (CellCoordinates coordinates : pendingEvaluations)
+                if (cells.get(coordinates) != null)
+                    staleCells.add(coordinates);
+
+            pendingEvaluations.clear();
+
+            if (recalculator != null)
+                recalculator.schedule();
+            else if (unfinished != null)
+                runSlice(new Evaluation(this, staleCells, true));
+        } else
+            evaluatePending();
+
+        propagate();
+    }
+
+    /**
+     * Notifies the listeners that the content of the storage changed, along with
+     * the cells that changed since the previous notification.
+     */
+    void notifyListeners() {
+        CellChangeSet changes = collectChanges();
+        completeStatistics();
+
+        for (CellStorageListener listener : listeners)
+            listener.contentChanged(this, changes);
+    }
+
+    /**
+     * Collects the cells that changed since the listeners were last notified. The
+     * cells whose content changed are always part of the changes, the other ones
+     * only if their displayed value changed. In lazy mode, the displayed values
+     * are only known once read, so every cell that may have changed is reported.
+     * 
+     * @return The cells that changed.
+     */
+    private CellChangeSet collectChanges() {
+        synchronized (lock) {
+            CellChangeSet changes = new CellChangeSet();
+
+            for (CellCoordinates coordinates : changedCells)
+                changes.add(coordinates);
+
+            touchedCells.addAll(changedCells);
+
+            for (CellCoordinates coordinates : touchedCells) {
+                Cell cell = cells.get(coordinates);
+                if (cell == null || !cell.hasContent())
+                    continue;
+
+                if (cell.updateDisplayed(staleCells.contains(coordinates))
+                        || calculationMode == CalculationMode.LAZY)
+                    changes.add(coordinates);
+            }
+
+            // Replaced rather than cleared, as clearing walks the whole capacity
+            // left by the largest change
+            changedCells = new HashSet<CellCoordinates>();
+            touchedCells = new HashSet<CellCoordinates>();
+
+            return changes;
+        }
+    }
+
+    /**
+     * Completes the statistics of the recalculation in progress, which become the
+     * last ones if the recalculation did some work.
+     */
+    private void completeStatistics() {
+        synchronized (lock) {
+            if (statistics.isEmpty())
+                return;
+
+            lastStatistics = statistics;
+            statistics = new RecalculationStatistics();
+        }
+    }
+
+    /**
+     * Returns the statistics of the recalculation in progress.
+     * 
+     * @return The statistics of the recalculation in progress.
+     */
+    RecalculationStatistics getStatistics() {
+        synchronized (lock) {
+            return statistics;
+        }
+    }
+
+    /**
+     * Returns the statistics of the last recalculation that deevaluated or
+     * evaluated cells. A recalculation gathers the work done between two
+     * notifications of the listeners.
+     * 
+     * @return The statistics of the last recalculation.
+     */
+    public RecalculationStatistics getLastRecalculation() {
+        synchronized (lock) {
+            return lastStatistics;
+        }
+    }
+
+    /**
+     * Returns the profiler sampling the evaluations of the cells.
+     * 
+     * @return The profiler sampling the evaluations of the cells.
+     */
+    EvaluationProfiler getProfiler() {
+        synchronized (lock) {
+            return profiler;
+        }
+    }
+
+    /**
+     * Returns the cache of the parsed formulas.
+     * 
+     * @return The cache of the parsed formulas.
+     */
+    public FormulaCache getFormulaCache() {
+        synchronized (lock) {
+            return formulaCache;
+        }
+    }
+
+    /**
+     * Parses the expression of a cell with the expression parser and the function
+     * registrar of the storage, reusing the syntax tree of the cells with the
+     * same formula or the same relative formula.
+     * 
+     * @param expression The expression, or null.
+     * @param anchor     The cell of the expression.
+     * @return The parsed expression.
+     */
+    ParsedExpression parse(String expression, CellCoordinates anchor) {
+        synchronized (lock) {
+            long hits = formulaCache.getHitCount();
+            long misses = formulaCache.getMissCount();
+
+            ParsedExpression parsed = formulaCache.get(expression, anchor, expressionParser, functionRegistrar);
+
+            statistics.cached(formulaCache.getHitCount() - hits, formulaCache.getMissCount() - misses);
+
+            return parsed;
+        }
+    }
+
+    /**
+     * Returns the number of evaluations between two samples of the profiler.
+     * 
+     * @return The number of evaluations between two samples, or zero if
+     *         profiling is disabled.
+     */
+    public int getProfilingInterval() {
+        synchronized (lock) {
+            return profiler.getInterval();
+        }
+    }
+
+    /**
+     * Sets the number of evaluations between two samples of the profiler. An
+     * interval of one times every evaluation.
+     * 
+     * @param interval The number of evaluations between two samples, or zero to
+     *                 disable profiling.
+     */
+    public void setProfilingInterval(int interval) {
+        synchronized (lock) {
+            profiler.setInterval(interval);
+        }
+    }
+
+    /**
+     * Removes the sampled profiles of every cell.
+     */
+    public void clearProfile() {
+        synchronized (lock) {
+            profiler.clear();
+        }
+    }
+
+    /**
+     * Returns the profiles of the cells with the longest total sampled evaluation
+     * time, the slowest first.
+     * 
+     * @param count The maximum number of profiles.
+     * @return The profiles of the slowest cells.
+     */
+    public List<CellProfile> getSlowestCells(int count) {
+        synchronized (lock) {
+            return profiler.getSlowest(count);
+        }
+    }
+
+    /**
+     * Returns a report of the formulas with the longest total sampled evaluation
+     * time, one per line, the slowest first.
+     * 
+     * @param count The maximum number of formulas.
+     * @return The report of the slowest formulas.
+     */
+    public String getSlowestFormulasReport(int count) {
+        synchronized (lock) {
+            StringBuilder report = new StringBuilder();
+
+            for (CellProfile profile : profiler.getSlowest(count)) {
+                CellContent content = getContent(profile.getCoordinates());
+                String expression = content == null ? null : content.getExpression();
+
+                report.append(profile.getCoordinates()).append(' ').append(expression).append(": ")
+                        .append(toMilliseconds(profile.getAverageTime())).append(" ms average, ")
+                        .append(toMilliseconds(profile.getMaxTime())).append(" ms max, ")
+                        .append(toMilliseconds(profile.getTotalTime())).append(" ms total over ")
+                        .append(profile.getSampleCount()).append(" samples\n");
+            }
+
+            return report.toString();
+        }
+    }
+
+    /**
+     * Converts a duration to milliseconds, rounded to the microsecond.
+     * 
+     * @param nanoseconds The duration, in nanoseconds.
+     * @return The duration, in milliseconds.
+     */
+    private static double toMilliseconds(double nanoseconds) {
+        return Math.round(nanoseconds / 1000.0) / 1000.0;
+    }
+
+    /**
+     * Evaluates the cells whose evaluation has been deferred, every dependency
+     * being evaluated before the cells depending on it.
+     */
+    private void evaluatePending() {
+        List<CellCoordinates> pending = new ArrayList<CellCoordinates>(pendingEvaluations);
+        pendingEvaluations.clear();
+
+        if (unfinished != null)
+            pending.addAll(unfinished.getRemaining());
+
+        runSlice(new Evaluation(this, pending, true));
+    }
+
+    /**
+     * Runs an evaluation within the time budget, unless the recalculation is
+     * cancelled. Once done, the stale cells are published. Otherwise, the
+     * evaluation is paused: the cells it evaluated are published, the ones left
+     * are marked as stale and keep reporting the value they displayed, and the
+     * evaluation is continued in a later slice unless cancelled.
+     * 
+     * @param evaluation The evaluation.
+     */
+    private void runSlice(Evaluation evaluation) {
+        unfinished = null;
+
+        if (evaluation.run(timeBudget, cancellation)) {
+            if (calculationMode == CalculationMode.MANUAL || !staleCells.isEmpty())
+                publish();
+
+            return;
+        }
+
+        unfinished = evaluation;
+
+        if (calculationMode == CalculationMode.AUTOMATIC)
+            for (CellCoordinates coordinates : evaluation.getRemaining()) {
+                Cell cell = cells.get(coordinates);
+                if (cell != null && !cell.isEvaluated() && staleCells.add(coordinates))
+                    cell.publishDisplayed();
+            }
+
+        publishEvaluated();
+
+        if (!cancellation.isCancelled() && !resumeScheduled) {
+            resumeScheduled = true;
+            EventQueue.invokeLater(this::resume);
+        }
+    }
+
+    /**
+     * Continues the paused evaluation for another slice, then notifies the
+     * listeners of the progress.
+     */
+    private void resume() {
+        synchronized (lock) {
+            resumeScheduled = false;
+
+            if (unfinished == null || cancellation.isCancelled())
+                return;
+
+            runSlice(unfinished);
+            propagate();
+        }
+
+        notifyListeners();
+    }
+
+    /**
+     * Cancels the current recalculation. The evaluation in progress, if any, is
+     * paused at its next check, leaving the cells it did not evaluate stale until
+     * the next modification or calculation. This can be called from any thread,
+     * even while the storage is being evaluated.
+     */
+    public void cancelRecalculation() {
+        cancellation.cancel();
+
+        EventQueue.invokeLater(this::notifyListeners);
+    }
+
+    /**
+     * Returns the cancellation token of the current recalculation.
+     * 
+     * @return The cancellation token of the current recalculation.
+     */
+    CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    /**
+     * Returns the time an evaluation can run at once in automatic and manual
+     * modes before being paused and continued later.
+     * 
+     * @return The time budget, in milliseconds, or zero if there is none.
+     */
+    public long getTimeBudget() {
+        synchronized (lock) {
+            return timeBudget / 1000000;
+        }
+    }
+
+    /**
+     * Sets the time an evaluation can run at once in automatic and manual modes
+     * before being paused and continued later, so that the thread modifying the
+     * storage is never blocked for longer.
+     * 
+     * @param timeBudget The time budget, in milliseconds, or zero for none.
+     */
+    public void setTimeBudget(long timeBudget) {
+        synchronized (lock) {
+            if (timeBudget < 0)
+                throw new IllegalArgumentException("The time budget cannot be negative.");
+
+            this.timeBudget = timeBudget * 1000000;
+        }
+    }
+
+    /**
+     * Returns whether the cycles are calculated iteratively.
+     * 
+     * @return Whether the cycles are calculated iteratively.
+     */
+    public boolean isIterative() {
+        synchronized (lock) {
+            return iterative;
+        }
+    }
+
+    /**
+     * Sets whether the cycles are calculated iteratively. In iterative mode, the
+     * cells of a cycle are evaluated in turn until their values converge, instead
+     * of being reported as a cycle. Every cell is evaluated again.
+     * 
+     * @param iterative Whether the cycles are calculated iteratively.
+     */
+    public void setIterative(boolean iterative) {
+        synchronized (lock) {
+            if (this.iterative == iterative)
+                return;
+
+            this.iterative = iterative;
+
+            reevaluateAll();
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Returns the maximum number of iterations run for a cycle in iterative mode.
+     * 
+     * @return The maximum number of iterations.
+     */
+    public int getMaximumIterations() {
+        synchronized (lock) {
+            return maximumIterations;
+        }
+    }
+
+    /**
+     * Sets the maximum number of iterations run for a cycle in iterative mode. It
+     * applies from the next calculation of the cycles.
+     * 
+     * @param maximumIterations The maximum number of iterations.
+     */
+    public void setMaximumIterations(int maximumIterations) {
+        synchronized (lock) {
+            if (maximumIterations < 1)
+                throw new IllegalArgumentException("The maximum number of iterations must be positive.");
+
+            this.maximumIterations = maximumIterations;
+        }
+    }
+
+    /**
+     * Returns the change of value under which the cells of a cycle are considered
+     * to have converged in iterative mode.
+     * 
+     * @return The maximum change.
+     */
+    public double getMaximumChange() {
+        synchronized (lock) {
+            return maximumChange;
+        }
+    }
+
+    /**
+     * Sets the change of value under which the cells of a cycle are considered to
+     * have converged in iterative mode. It applies from the next calculation of
+     * the cycles.
+     * 
+     * @param maximumChange The maximum change.
+     */
+    public void setMaximumChange(double maximumChange) {
+        synchronized (lock) {
+            if (!(maximumChange >= 0))
+                throw new IllegalArgumentException("The maximum change cannot be negative.");
+
+            this.maximumChange = maximumChange;
+        }
+    }
+
+    /**
+     * Returns whether the content at the specific coordinates equals the specified
+     * content.
+     * 
+     * @param coordinates The coordinates.
+     * @param content     The content.
+     * @return Whether the content at the specific coordinates equals the specified
+     *         content.
+     */
+    private boolean contentEquals(CellCoordinates coordinates, CellContent content) {
+        CellContent currentContent = getContent(coordinates);
+        if (currentContent == null)
+            return content == null;
+
+        return currentContent.equals(content);
+    }
+
+    /**
+     * Reparses all cells. The expressions are first parsed in parallel on the
+     * common fork-join pool, as parsing does not touch the storage, the cells
+     * with the same formula sharing its syntax tree. Every cell is
+     * then deevaluated and unbound, given its new syntax tree and bound again,
+     * before a single recalculation evaluates them all in topological order.
+     * Until then, the cells keep reporting the values they displayed.
+     */
+    private void reparseAll() {
+        List<Cell> all = getAllCells();
+
+        String[] expressions = new String[all.size()];
+        CellCoordinates[] anchors = new CellCoordinates[all.size()];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = all.get(i).getExpression();
+            anchors[i] = all.get(i).getCoordinates();
+        }
+
+        long start = System.nanoTime();
+        long hits = formulaCache.getHitCount();
+        long misses = formulaCache.getMissCount();
+
+        ParsedExpression[] parsed = new ParsedExpression[expressions.length];
+        ForkJoinPool.commonPool().invoke(
+                new ParseTask(expressions, anchors, parsed, formulaCache, expressionParser, functionRegistrar));
+
+        statistics.reparsed(expressions.length, System.nanoTime() - start);
+        statistics.cached(formulaCache.getHitCount() - hits, formulaCache.getMissCount() - misses);
+
+        deevaluateAll(all);
+
+        for (Cell cell : all)
+            clearDependencies(cell.getCoordinates());
+
+        for (int i = 0; i < parsed.length; i++) {
+            profiler.remove(all.get(i).getCoordinates());
+            all.get(i).reparse(parsed[i]);
+        }
+
+        for (Cell cell : all) {
+            updateDependencies(cell.getCoordinates());
+            updateVolatility(cell.getCoordinates());
+        }
+
+        releasePlaceholders(all.toArray(new Cell[all.size()]));
+
+        for (Cell cell : all)
+            pendingEvaluations.add(cell.getCoordinates());
+
+        processPending();
+    }
+
+    /**
+     * Evaluates all cells again, in a single recalculation. Until then, the cells
+     * keep reporting the values they displayed.
+     */
+    private void reevaluateAll() {
+        List<Cell> all = getAllCells();
+
+        deevaluateAll(all);
+
+        for (Cell cell : all)
+            pendingEvaluations.add(cell.getCoordinates());
+
+        processPending();
+    }
+
+    /**
+     * Returns every cell of the storage, including the placeholders.
+     * 
+     * @return The cells of the storage.
+     */
+    private List<Cell> getAllCells() {
+        List<Cell> all = new ArrayList<Cell>();
+        for (Entry<Coordinates, Cell> entry : cells)
+            all.add(entry.getValue());
+
+        return all;
+    }
+
+    /**
+     * Deevaluates the specified cells at once. As they are all deevaluated, their
+     * dependents in the storage are not followed, only the ones on the other
+     * sheets of the workbook.
+     * 
+     * @param all The cells.
+     */
+    private void deevaluateAll(List<Cell> all) {
+        for (Cell cell : all) {
+            CellCoordinates coordinates = cell.getCoordinates();
+
+            if (cell.deevaluate()) {
+                statistics.deevaluated();
+
+                if (isPublishing())
+                    staleCells.add(coordinates);
+            }
 
-        for (Entry<Coordinates, Cell> entry : cells)
-            evaluate(new CellCoordinates(entry.getKey()));
+            if (workbook != null)
+                workbook.invalidateDependents(this, coordinates);
+        }
     }
 
     /**
-     * Tries to evaluate the dependents of the cell at the specified coordinates.
+     * Evaluates the cell at the specified coordinates if it is not evaluated yet,
+     * after evaluating the dependencies it needs. Only the cells the requested one
+     * depends on are evaluated, its dependents are left untouched.
      * 
      * @param coordinates The coordinates.
      */
-    private void evaluateDependents(CellCoordinates coordinates) {
-        Set<CellCoordinates> dependents = this.dependents.get(coordinates);
-        if (dependents == null)
+    private void demand(CellCoordinates coordinates) {
+        Cell cell = cells.get(coordinates);
+        if (cell == null || cell.isEvaluated())
             return;
 
-        for (CellCoordinates dependent : dependents)
-            evaluate(dependent);
+        new Evaluation(this, Collections.singleton(coordinates)).run();
+    }
+
+    /**
+     * Marks all the cells left not evaluated as stale, and hands them to the
+     * recalculator in background mode.
+     */
+    private void markStale() {
+        for (Entry<Coordinates, Cell> entry : cells)
+            if (!entry.getValue().isEvaluated())
+                staleCells.add(new CellCoordinates(entry.getKey()));
+
+        if (recalculator != null && !staleCells.isEmpty())
+            recalculator.schedule();
+    }
+
+    /**
+     * Returns whether some cells are being calculated, either in background or in
+     * slices of a paused evaluation, and the recalculation is not cancelled.
+     * 
+     * @return Whether some cells are being calculated.
+     */
+    public boolean isCalculating() {
+        synchronized (lock) {
+            return (calculationMode == CalculationMode.BACKGROUND || unfinished != null) && !staleCells.isEmpty()
+                    && !cancellation.isCancelled();
+        }
+    }
+
+    /**
+     * Returns the number of stale cells, whose values have not been published
+     * since they were modified.
+     * 
+     * @return The number of stale cells.
+     */
+    public int getStaleCount() {
+        synchronized (lock) {
+            return staleCells.size();
+        }
+    }
+
+    /**
+     * Returns the coordinates of the stale cells.
+     * 
+     * @return The coordinates of the stale cells.
+     */
+    Set<CellCoordinates> getStaleCells() {
+        synchronized (lock) {
+            return new HashSet<CellCoordinates>(staleCells);
+        }
+    }
+
+    /**
+     * Publishes the values of the stale cells, which are then no longer stale.
+     * The cells of the other storages reading the published values that changed
+     * are evaluated again, which can make the cells of the storage reading them in
+     * turn stale until the next calculation.
+     */
+    void publish() {
+        synchronized (lock) {
+            touchedCells.addAll(staleCells);
+
+            List<CellCoordinates> changed = new ArrayList<CellCoordinates>();
+            for (CellCoordinates coordinates : staleCells) {
+                Cell cell = cells.get(coordinates);
+                if (cell == null || cell.publish())
+                    changed.add(coordinates);
+            }
+
+            staleCells.clear();
+            invalidateExternalDependents(changed);
+        }
+    }
+
+    /**
+     * Publishes the values of the stale cells that are evaluated, which are then
+     * no longer stale. The other ones are left stale.
+     */
+    private void publishEvaluated() {
+        List<CellCoordinates> changed = new ArrayList<CellCoordinates>();
+        Iterator<CellCoordinates> iterator = staleCells.iterator();
+
+        while (iterator.hasNext()) {
+            CellCoordinates coordinates = iterator.next();
+
+            Cell cell = cells.get(coordinates);
+            if (cell != null && !cell.isEvaluated())
+                continue;
+
+            touchedCells.add(coordinates);
+            if (cell == null || cell.publish())
+                changed.add(coordinates);
+
+            iterator.remove();
+        }
+
+        invalidateExternalDependents(changed);
+    }
+
+    /**
+     * Deevaluates the cells of the other storages reading the published values of
+     * the cells at the specified coordinates. This is done once the stale cells
+     * are no longer iterated, as it can make some of them stale again.
+     * 
+     * @param coordinates The coordinates of the cells.
+     */
+    private void invalidateExternalDependents(List<CellCoordinates> coordinates) {
+        if (workbook != null)
+            for (CellCoordinates published : coordinates)
+                workbook.invalidateDependents(this, published);
+    }
+
+    /**
+     * Stops the background evaluation of the storage, if any. The cells left not
+     * evaluated are then evaluated on demand.
+     */
+    public void dispose() {
+        synchronized (lock) {
+            if (calculationMode == CalculationMode.BACKGROUND)
+                setCalculationMode(CalculationMode.LAZY);
+        }
     }
 
     /**
-     * Deevaluates the cell at the specified coordinates.
+     * Deevaluates the cell at the specified coordinates. The deevaluated cells are
+     * added to the pending cells, so that they are evaluated again. In lazy mode,
+     * the cells that are not evaluated are passed through as well the first time
+     * they are met, as nothing evaluates them before they are read, and the cells
+     * of the other storages waiting for them would otherwise never be queued.
      * 
      * @param coordinates The coordinates.
      */
@@ -404,22 +1549,65 @@ public class CellStorage {
         Cell cell = cells.get(coordinates);
         if (cell == null)
             deevaluateDependents(coordinates);
-        else if (cell.deevaluate())
+        else if (cell.deevaluate()) {
+            statistics.deevaluated();
+
+            if (isPublishing())
+                staleCells.add(coordinates);
+
+            pendingEvaluations.add(coordinates);
+            deevaluateDependents(coordinates);
+        } else if (calculationMode == CalculationMode.LAZY && workbook != null
+                && pendingEvaluations.add(coordinates))
             deevaluateDependents(coordinates);
     }
 
     /**
-     * Tries to deevaluate the dependents of the cell at the specified coordinates.
+     * Deevaluates the modified cell at the specified coordinates, along with its
+     * dependents. Unlike a plain deevaluation, the dependents are deevaluated even
+     * if the cell was not evaluated, as its modification can change their values.
+     * The direct dependents are also evaluated again if they were not evaluated,
+     * as they may have been waiting for the cell.
+     * 
+     * @param coordinates The coordinates.
+     */
+    private void invalidate(CellCoordinates coordinates) {
+        Cell cell = cells.get(coordinates);
+        if (cell != null && cell.deevaluate()) {
+            statistics.deevaluated();
+
+            if (isPublishing())
+                staleCells.add(coordinates);
+        }
+
+        pendingEvaluations.add(coordinates);
+
+        for (CellCoordinates dependent : getDependents(coordinates)) {
+            deevaluate(dependent);
+            pendingEvaluations.add(dependent);
+        }
+
+        if (workbook != null)
+            workbook.invalidateDependents(this, coordinates);
+    }
+
+    /**
+     * Tries to deevaluate the dependents of the cell at the specified coordinates,
+     * including the ones on the other sheets of the workbook.
      * 
      * @param coordinates The coordinates.
      */
     private void deevaluateDependents(CellCoordinates coordinates) {
-        Set<CellCoordinates> dependents = this.dependents.get(coordinates);
-        if (dependents == null)
-            return;
+        Cell cell = cells.get(coordinates);
+        if (cell != null)
+            for (int i = 0; i < cell.getDependentCount(); i++)
+                deevaluate(cell.getDependent(i).getCoordinates());
 
-        for (CellCoordinates dependent : dependents)
+        for (CellCoordinates dependent : rangeDependents.get(coordinates.getX(), coordinates.getY()))
             deevaluate(dependent);
+
+        if (workbook != null)
+            workbook.invalidateDependents(this, coordinates);
     }
 
     /**
@@ -429,11 +1617,102 @@ public class CellStorage {
      * @return The dependencies of the cell at the specified coordinates.
      */
     public Set<CellCoordinates> getDependencies(CellCoordinates current) {
-        Cell cell = cells.get(current);
-        if (cell == null)
+        synchronized (lock) {
+            Cell cell = cells.get(current);
+            if (cell == null)
+                return null;
+
+            return cell.getDependencies();
+        }
+    }
+
+    /**
+     * Returns the cells depending on the cell at the specified coordinates, either
+     * directly or through a range.
+     * 
+     * @param coordinates The coordinates.
+     * @return The dependents of the cell at the specified coordinates.
+     */
+    Set<CellCoordinates> getDependents(CellCoordinates coordinates) {
+        synchronized (lock) {
+            Set<CellCoordinates> dependents = new HashSet<CellCoordinates>();
+
+            Cell cell = cells.get(coordinates);
+            if (cell != null)
+                for (int i = 0; i < cell.getDependentCount(); i++)
+                    dependents.add(cell.getDependent(i).getCoordinates());
+
+            dependents.addAll(rangeDependents.get(coordinates.getX(), coordinates.getY()));
+
+            return dependents;
+        }
+    }
+
+    /**
+     * Returns the cells depending on a range containing the cell at the specified
+     * coordinates. The cells depending on it directly are read from the cell.
+     * 
+     * @param coordinates The coordinates.
+     * @return The cells depending on the cell through a range.
+     */
+    List<CellCoordinates> getRangeDependents(CellCoordinates coordinates) {
+        return rangeDependents.get(coordinates.getX(), coordinates.getY());
+    }
+
+    /**
+     * Returns the cells the cell at the specified coordinates needs to be
+     * evaluated: its dependencies, along with the numeric cells of the ranges it
+     * depends on.
+     * 
+     * @param coordinates The coordinates.
+     * @return The precedents of the cell at the specified coordinates.
+     */
+    Set<CellCoordinates> getPrecedents(CellCoordinates coordinates) {
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null)
+                return null;
+
+            Set<CellCoordinates> precedents = cell.getDependencies();
+
+            Set<CellCoordinates> rangePrecedents = getRangePrecedents(cell);
+            if (rangePrecedents == null)
+                return precedents;
+
+            if (precedents == null)
+                return rangePrecedents;
+
+            precedents.addAll(rangePrecedents);
+            return precedents;
+        }
+    }
+
+    /**
+     * Returns the numeric cells of the ranges the specified cell depends on,
+     * restricted to the ones not evaluated once the ranges are bound. The cells
+     * the cell depends on directly are read from the cell.
+     * 
+     * @param cell The cell.
+     * @return The precedents of the cell through its ranges, or null if the cell
+     *         does not depend on any range.
+     */
+    Set<CellCoordinates> getRangePrecedents(Cell cell) {
+        List<CellRange> ranges = cell.getRanges();
+        if (ranges == null)
             return null;
 
-        return cell.getDependencies();
+        Set<CellCoordinates> pending = cell.getPendingInRanges();
+        if (pending != null)
+            return pending;
+
+        Set<CellCoordinates> precedents = new HashSet<CellCoordinates>();
+
+        for (CellRange range : ranges)
+            for (Entry<Coordinates, Cell> entry : cells.getRange(range.getStart(), range.getEnd()).entrySet())
+                if (entry.getValue().isNumeric())
+                    precedents.add(new CellCoordinates(entry.getKey()));
+
+        return precedents;
     }
 
     /**
@@ -442,21 +1721,48 @@ public class CellStorage {
      * @param coordinates The coordinates.
      */
     private void clearDependencies(CellCoordinates coordinates) {
-        Set<CellCoordinates> dependencies = this.dependents.get(coordinates);
-        if (dependencies == null)
+        Cell cell = cells.get(coordinates);
+        if (cell == null)
+            return;
+
+        List<CellRange> ranges = cell.getRanges();
+        if (ranges != null)
+            for (CellRange range : ranges)
+                rangeDependents.remove(range, coordinates);
+
+        if (workbook != null)
+            workbook.unregister(cell);
+
+        for (int i = 0; i < cell.getPrecedentCount(); i++)
+            cell.getPrecedent(i).removeDependent(cell);
+    }
+
+    /**
+     * Removes the placeholders among the specified cells that are no longer
+     * referenced. A placeholder is a cell without content, kept only so that the
+     * cells referencing it can be bound to it.
+     * 
+     * @param bindings The cells, or null.
+     */
+    private void releasePlaceholders(Cell[] bindings) {
+        if (bindings == null)
             return;
 
-        dependencies = new HashSet<CellCoordinates>(dependencies); // Copy to avoid concurrent modification
+        for (Cell binding : bindings) {
+            CellCoordinates current = binding.getCoordinates();
+            if (cells.get(current) != binding || binding.hasContent() || binding.hasDependents())
+                continue;
 
-        for (CellCoordinates dependency : dependencies) {
-            Set<CellCoordinates> dependentsOnCell = this.dependents.get(dependency);
-            if (dependentsOnCell != null)
-                dependentsOnCell.remove(coordinates);
+            cells.remove(current);
+            staleCells.remove(current);
         }
     }
 
     /**
-     * Updates the dependencies of the cell at the specified coordinates.
+     * Updates the dependencies of the cell at the specified coordinates, and binds
+     * its references to the cells they reference. A placeholder is created for
+     * each referenced cell that does not exist yet, so that every reference can be
+     * read directly from the bound cell.
      * 
      * @param coordinates The coordinates.
      */
@@ -465,19 +1771,119 @@ public class CellStorage {
         if (cell == null)
             return;
 
-        Set<CellCoordinates> dependencies = cell.getDependencies();
-        if (dependencies == null)
+        List<CellCoordinates> slots = cell.getSlots();
+        if (slots == null)
             return;
 
-        for (CellCoordinates dependency : dependencies) {
-            Set<CellCoordinates> dependents = this.dependents.get(dependency);
+        List<CellRange> ranges = cell.getRanges();
+        if (ranges != null) {
+            List<RangeDependency> rangeDependencies = new ArrayList<RangeDependency>();
+
+            for (CellRange range : ranges) {
+                rangeDependents.add(range, coordinates);
+                rangeDependencies.add(new RangeDependency(range, getPendingCells(range)));
+            }
+
+            cell.bindRanges(rangeDependencies);
+        }
+
+        Cell[] bindings = new Cell[slots.size()];
+
+        for (int i = 0; i < slots.size(); i++) {
+            CellCoordinates dependency = slots.get(i);
 
-            if (dependents == null) {
-                dependents = new HashSet<CellCoordinates>();
-                this.dependents.put(dependency, dependents);
+            Cell bound = cells.get(dependency);
+            if (bound == null) {
+                bound = new Cell(this, dependency);
+                bound.evaluate();
+                bound.publish();
+
+                cells.set(dependency, bound);
             }
 
-            dependents.add(coordinates);
+            bound.addDependent(cell);
+            bindings[i] = bound;
+        }
+
+        cell.bind(bindings);
+
+        if (workbook != null)
+            workbook.register(cell);
+    }
+
+    /**
+     * Updates whether the cell at the specified coordinates is tracked as a
+     * volatile cell.
+     * 
+     * @param coordinates The coordinates.
+     */
+    private void updateVolatility(CellCoordinates coordinates) {
+        Cell cell = cells.get(coordinates);
+
+        if (cell != null && cell.isVolatile())
+            volatileCells.add(coordinates);
+        else
+            volatileCells.remove(coordinates);
+    }
+
+    /**
+     * Returns whether the storage contains cells whose expression calls a volatile
+     * function.
+     * 
+     * @return Whether the storage contains volatile cells.
+     */
+    public boolean hasVolatileCells() {
+        synchronized (lock) {
+            return !volatileCells.isEmpty();
+        }
+    }
+
+    /**
+     * Evaluates the volatile cells again, along with the cells depending on them.
+     * The other cells are left untouched.
+     */
+    public void recalculateVolatileCells() {
+        synchronized (lock) {
+            if (volatileCells.isEmpty())
+                return;
+
+            for (CellCoordinates coordinates : volatileCells)
+                invalidate(coordinates);
+
+            contentChanged();
+        }
+    }
+
+    /**
+     * Returns the cell at the specified coordinates.
+     * 
+     * @param coordinates The coordinates.
+     * @return The cell at the specified coordinates, or null if there is none.
+     */
+    Cell getCell(CellCoordinates coordinates) {
+        synchronized (lock) {
+            return cells.get(coordinates);
+        }
+    }
+
+    /**
+     * Returns whether the value of the cell at the specified coordinates can be
+     * read by the other storages, a stale cell being read by its published value.
+     * 
+     * @param coordinates The coordinates.
+     * @return Whether the value of the cell at the specified coordinates can be
+     *         read.
+     */
+    boolean isReadable(CellCoordinates coordinates) {
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null)
+                return true;
+
+            if (isPublishing() && staleCells.contains(coordinates))
+                return cell.hasPublishedValue();
+
+            return cell.isEvaluated();
         }
     }
 
@@ -488,25 +1894,201 @@ public class CellStorage {
      * @return Whether the cell at the specified coordinates is evaluated.
      */
     public boolean isEvaluated(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null)
+                return true;
+
+            return cell.isEvaluated();
+        }
+    }
+
+    /**
+     * Returns the coordinates of the numeric cells in the specified range that are
+     * not evaluated.
+     * 
+     * @param range The range.
+     * @return The coordinates of the cells that are not evaluated.
+     */
+    private Set<CellCoordinates> getPendingCells(CellRange range) {
+        Set<CellCoordinates> pending = new HashSet<CellCoordinates>();
+
+        for (Entry<Coordinates, Cell> entry : cells.getRange(range.getStart(), range.getEnd()).entrySet())
+            if (entry.getValue().isNumeric() && !entry.getValue().isEvaluated())
+                pending.add(new CellCoordinates(entry.getKey()));
+
+        return pending;
+    }
+
+    /**
+     * Handles a change of the value a cell contributes to the ranges containing
+     * it, by updating the cells depending on these ranges. A cell whose ranges
+     * overlap is listed once for each of them, but is only updated once, as it
+     * updates all of its ranges containing the changed cell.
+     * 
+     * @param coordinates The coordinates of the changed cell.
+     * @param wasPending  Whether the changed cell was numeric and not evaluated.
+     * @param previous    The previous value of the changed cell, or null.
+     * @param isPending   Whether the changed cell is numeric and not evaluated.
+     * @param current     The current value of the changed cell, or null.
+     */
+    void rangeInputChanged(CellCoordinates coordinates, boolean wasPending, Double previous,
+            boolean isPending, Double current) {
+        synchronized (lock) {
+            Set<CellCoordinates> dependents = new HashSet<CellCoordinates>(
+                    rangeDependents.get(coordinates.getX(), coordinates.getY()));
+
+            for (CellCoordinates dependent : dependents) {
+                Cell cell = cells.get(dependent);
+                if (cell != null)
+                    cell.rangeInputChanged(coordinates, wasPending, previous, isPending, current);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the numeric cells in the specified range are all evaluated.
+     * 
+     * @param range The range.
+     * @return Whether the numeric cells in the specified range are all evaluated.
+     */
+    public boolean isEvaluated(CellRange range) {
+        synchronized (lock) {
+            for (Cell cell : cells.getRange(range.getStart(), range.getEnd()).values())
+                if (cell.isNumeric() && !cell.isEvaluated())
+                    return false;
+
             return true;
+        }
+    }
+
+    /**
+     * Returns the raw values of the numeric cells in the specified range. The
+     * other cells, such as empty or text cells, are skipped.
+     * 
+     * @param range The range.
+     * @return The raw values of the numeric cells in the specified range.
+     */
+    public double[] getValues(CellRange range) {
+        synchronized (lock) {
+            Map<Coordinates, Cell> cells = this.cells.getRange(range.getStart(), range.getEnd());
+
+            double[] values = new double[cells.size()];
+            int count = 0;
+
+            for (Cell cell : cells.values())
+                if (cell.isNumeric())
+                    values[count++] = cell.getValue();
+
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Returns the cell closing a cycle through other sheets that a cell of the
+     * specified range was found to be part of, while that cycle is being
+     * demanded.
+     * 
+     * @param range The range.
+     * @return The cell closing the cycle, or null if no cell of the range is part
+     *         of a cycle being demanded.
+     */
+    Cell getOpenCycle(CellRange range) {
+        synchronized (lock) {
+            for (Cell cell : cells.getRange(range.getStart(), range.getEnd()).values()) {
+                Cell origin = cell.getOpenCycle();
+                if (origin != null)
+                    return origin;
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates the numeric cells in the specified range that are not evaluated
+     * yet, after evaluating the dependencies they need, whatever the calculation
+     * mode. This lets the cells of other storages read the range at once.
+     * 
+     * @param range The range.
+     * @return Whether the numeric cells in the range are all evaluated.
+     */
+    boolean demand(CellRange range) {
+        synchronized (lock) {
+            Set<CellCoordinates> pending = getPendingCells(range);
+            if (pending.isEmpty())
+                return true;
+
+            new Evaluation(this, pending).run();
+
+            return isEvaluated(range);
+        }
+    }
+
+    /**
+     * Returns the raw value of the cell at the specified coordinates on the sheet
+     * with the specified name, in the workbook the storage is part of.
+     * 
+     * @param sheet       The name of the sheet.
+     * @param coordinates The coordinates.
+     * @return The raw value of the cell.
+     * @throws IllegalArgumentException If there is no sheet with this name.
+     */
+    public double getExternalValue(String sheet, CellCoordinates coordinates) {
+        synchronized (lock) {
+            CellStorage storage = getExternalStorage(sheet);
+            if (storage == null)
+                throw new IllegalArgumentException("There is no sheet named '" + sheet + "'.");
+
+            storage.demand(new CellRange(coordinates, coordinates));
+
+            return storage.getValue(coordinates);
+        }
+    }
 
-        return cell.isEvaluated();
+    /**
+     * Returns the raw values of the numeric cells in the specified range on the
+     * sheet with the specified name, in the workbook the storage is part of.
+     * 
+     * @param sheet The name of the sheet.
+     * @param range The range.
+     * @return The raw values of the numeric cells in the range.
+     * @throws IllegalArgumentException If there is no sheet with this name.
+     */
+    public double[] getExternalValues(String sheet, CellRange range) {
+        synchronized (lock) {
+            CellStorage storage = getExternalStorage(sheet);
+            if (storage == null)
+                throw new IllegalArgumentException("There is no sheet named '" + sheet + "'.");
+
+            storage.demand(range);
+
+            return storage.getValues(range);
+        }
     }
 
     /**
-     * Returns the raw value of the cell at the specified coordinates.
+     * Returns the raw value of the cell at the specified coordinates. A stale
+     * cell reports its last published value, as its cell value does, so that
+     * manual calculation holds for the sheets reading it.
      * 
      * @param coordinates The coordinates.
      * @return The raw value of the cell at the specified coordinates.
      */
     public double getValue(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
-            return 0;
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null)
+                return 0;
 
-        return cell.getValue();
+            if (isPublishing() && staleCells.contains(coordinates))
+                return cell.getPublishedRawValue();
+
+            if (calculationMode == CalculationMode.LAZY)
+                demand(coordinates);
+
+            return cell.getValue();
+        }
     }
 
     /**
@@ -516,11 +2098,19 @@ public class CellStorage {
      * @return The cell value of the cell at the specified coordinates.
      */
     public CellValue getCellValue(CellCoordinates coordinates) {
-        Cell cell = cells.get(coordinates);
-        if (cell == null)
-            return null;
+        synchronized (lock) {
+            Cell cell = cells.get(coordinates);
+            if (cell == null || !cell.hasContent())
+                return null;
+
+            if (staleCells.contains(coordinates))
+                return cell.getPublishedValue();
+
+            if (calculationMode == CalculationMode.LAZY)
+                demand(coordinates);
 
-        return new CellValue(cell);
+            return new CellValue(cell);
+        }
     }
 
     /**
@@ -530,13 +2120,30 @@ public class CellStorage {
      * @param end   The end coordinates.
      * @return The cell values of the cells in the specified range.
      */
-    public Map<CellCoordinates, CellValue> getCellValuesInRange(CellCoordinates start, CellCoordinates end) {
-        Map<CellCoordinates, CellValue> values = new HashMap<CellCoordinates, CellValue>();
+    public Map<CellCoordinates, CellValue> getCellValuesInRange(CellCoordinates start,
+            CellCoordinates end) {
+        synchronized (lock) {
+            Map<CellCoordinates, CellValue> values = new HashMap<CellCoordinates, CellValue>();
+
+            for (Entry<Coordinates, Cell> entry : cells.getRange(start, end).entrySet()) {
+                CellCoordinates coordinates = new CellCoordinates(entry.getKey());
+
+                if (!entry.getValue().hasContent())
+                    continue;
+
+                if (staleCells.contains(coordinates)) {
+                    values.put(coordinates, entry.getValue().getPublishedValue());
+                    continue;
+                }
 
-        for (Entry<Coordinates, Cell> entry : cells.getRange(start, end).entrySet())
-            values.put(new CellCoordinates(entry.getKey()), new CellValue(entry.getValue()));
+                if (calculationMode == CalculationMode.LAZY)
+                    demand(coordinates);
 
-        return values;
+                values.put(coordinates, new CellValue(entry.getValue()));
+            }
+
+            return values;
+        }
     }
 
     /**
@@ -546,6 +2153,8 @@ public class CellStorage {
      */
     @Override
     public String toString() {
-        return cells.toString();
+        synchronized (lock) {
+            return cells.toString();
+        }
     }
 }
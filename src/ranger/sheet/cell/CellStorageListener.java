@@ -8,6 +8,7 @@ public interface CellStorageListener {
      * Called when the content of a cell has changed.
      * 
      * @param storage The cell storage.
+     * @param changes The cells whose content, style or displayed value changed.
      */
-    public void contentChanged(CellStorage storage);
+    public void contentChanged(CellStorage storage, CellChangeSet changes);
 }
@@ -2,6 +2,8 @@ package ranger.sheet.cell;
 
 /**
  * Class representing a cell's value.
+ * A cell value either reflects the current state of the cell, or the state it
+ * had when its value was last published, if the cell is being calculated.
  */
 public class CellValue {
     /**
@@ -9,6 +11,26 @@ public class CellValue {
      */
     private Cell cell;
 
+    /**
+     * Whether the cell is being calculated.
+     */
+    private boolean calculating;
+
+    /**
+     * The published value, if the cell is being calculated.
+     */
+    private Double value;
+
+    /**
+     * The published formatted value, if the cell is being calculated.
+     */
+    private String formatted;
+
+    /**
+     * The published error, if the cell is being calculated.
+     */
+    private CellError error;
+
     /**
      * Constructs a new cell value.
      * 
@@ -16,6 +38,34 @@ public class CellValue {
      */
     public CellValue(Cell cell) {
         this.cell = cell;
+        this.calculating = false;
+    }
+
+    /**
+     * Constructs a new cell value for a cell being calculated.
+     * 
+     * @param cell      The cell.
+     * @param value     The published value, or null if there is none.
+     * @param formatted The published formatted value, or null if there is none.
+     * @param error     The published error, or null if there is none.
+     */
+    public CellValue(Cell cell, Double value, String formatted, CellError error) {
+        this.cell = cell;
+        this.calculating = true;
+
+        this.value = value;
+        this.formatted = formatted;
+        this.error = error;
+    }
+
+    /**
+     * Returns whether the cell is being calculated, or waiting for a calculation in
+     * manual mode. If so, the value is the one the cell had before being modified.
+     * 
+     * @return Whether the cell is being calculated.
+     */
+    public boolean isCalculating() {
+        return calculating;
     }
 
     /**
@@ -24,6 +74,9 @@ public class CellValue {
      * @return Whether the cell has a value.
      */
     public boolean hasValue() {
+        if (calculating)
+            return value != null;
+
         return cell.isEvaluated();
     }
 
@@ -33,7 +86,13 @@ public class CellValue {
      * @return The cell's value.
      */
     public double getValue() {
-        return cell.getValue();
+        if (!calculating)
+            return cell.getValue();
+
+        if (value == null)
+            throw new IllegalStateException("Cannot get value of the cell because it has no published value.");
+
+        return value;
     }
 
     /**
@@ -42,7 +101,14 @@ public class CellValue {
      * @return The cell's formatted value.
      */
     public String getFormattedValue() {
-        return cell.getFormattedValue();
+        if (!calculating)
+            return cell.getFormattedValue();
+
+        if (value == null)
+            throw new IllegalStateException(
+                    "Cannot get formatted value of the cell because it has no published value.");
+
+        return formatted;
     }
 
     /**
@@ -51,6 +117,9 @@ public class CellValue {
      * @return Whether the cell has an error.
      */
     public boolean hasError() {
+        if (calculating)
+            return error != null;
+
         return cell.hasError();
     }
 
@@ -60,11 +129,13 @@ public class CellValue {
      * @return The cell's error.
      */
     public CellError getError() {
-        CellError error = cell.getError();
+        CellError error = calculating ? this.error : cell.getError();
         if (error == null)
             return null;
 
-        if (error == CellError.DEPENDENCY_NOT_EVALUATED && isPartOfCycle())
+        // Cycles calculated iteratively are not errors, so a cell of such a cycle
+        // that is not evaluated failed because of a cell it depends on
+        if (error == CellError.DEPENDENCY_NOT_EVALUATED && !cell.isIterative() && isPartOfCycle())
             return CellError.DEPENDENCY_CYCLE;
 
         return error;
@@ -94,17 +165,21 @@ public class CellValue {
      * @return The cell's display text.
      */
     public String getDisplayText() {
-        if (cell.hasError())
+        CellContent content = getContent();
+        if (content == null || content.getExpression() == null)
+            return null;
+
+        if (hasError())
             return getError().toString();
 
-        if (cell.isEvaluated()) {
+        if (hasValue()) {
             String formatted = getFormattedValue();
             if (formatted == null)
                 return "#FORMAT";
 
             return formatted;
         }
-        CellContent content = getContent();
-        return content == null ? null : content.getExpression();
+
+        return content.getExpression();
     }
 }
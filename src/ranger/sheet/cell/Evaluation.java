@@ -0,0 +1,506 @@
+package ranger.sheet.cell;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class representing an evaluation of cells.
+ * The evaluation is responsible for evaluating a set of cells along with the
+ * dependencies they need, every dependency being evaluated before the cells
+ * depending on it. It can be run at once, or step by step so that it can be
+ * interrupted between two steps. A propagating evaluation also evaluates the
+ * cells left not evaluated that depend on the cells it evaluates, while other
+ * evaluations queue them to be evaluated by their storage. The ones of other
+ * storages are always queued. The work done is recorded in the statistics and
+ * the profiler of the storage. If the storage is iterative, the cells left not
+ * evaluated because of a cycle are then split into strongly connected
+ * components, handled in topological order: the cells of a cycle are evaluated
+ * iteratively until they converge, the other ones once.
+ */
+public class Evaluation {
+    /**
+     * The number of steps between two checks of the time budget and of the
+     * cancellation token.
+     */
+    public static final int CHECK_INTERVAL = 16;
+
+    /**
+     * The storage containing the cells to evaluate.
+     */
+    private CellStorage storage;
+
+    /**
+     * The coordinates of the cells left to evaluate.
+     */
+    private Deque<CellCoordinates> roots;
+
+    /**
+     * Whether the dependents of the evaluated cells are evaluated as well.
+     */
+    private boolean propagating;
+
+    /**
+     * The coordinates of the cells being evaluated, the next one being on top.
+     */
+    private Deque<CellCoordinates> stack;
+
+    /**
+     * The coordinates of the cells whose dependencies have already been pushed
+     * onto the stack.
+     */
+    private Set<CellCoordinates> visited;
+
+    /**
+     * The propagation depths of the cells left to evaluate whose dependencies
+     * have been evaluated, by coordinates. The other cells have a depth of zero.
+     */
+    private Map<CellCoordinates, Integer> depths;
+
+    /**
+     * The coordinates of the cells that could not be evaluated because a cell
+     * they depend on was not, which may be because of a cycle. They are only
+     * gathered if the storage is iterative.
+     */
+    private Set<CellCoordinates> blocked;
+
+    /**
+     * The strongly connected components of the blocked cells left to handle, in
+     * topological order.
+     */
+    private Deque<List<CellCoordinates>> components;
+
+    /**
+     * Constructs a new evaluation.
+     * 
+     * @param storage The storage containing the cells to evaluate.
+     * @param roots   The coordinates of the cells to evaluate.
+     */
+    public Evaluation(CellStorage storage, Collection<CellCoordinates> roots) {
+        this(storage, roots, false);
+    }
+
+    /**
+     * Constructs a new evaluation.
+     * 
+     * @param storage     The storage containing the cells to evaluate.
+     * @param roots       The coordinates of the cells to evaluate.
+     * @param propagating Whether the dependents of the evaluated cells are
+     *                    evaluated as well.
+     */
+    public Evaluation(CellStorage storage, Collection<CellCoordinates> roots, boolean propagating) {
+        this.storage = storage;
+        this.roots = new ArrayDeque<CellCoordinates>(roots);
+        this.propagating = propagating;
+
+        stack = new ArrayDeque<CellCoordinates>();
+        visited = new HashSet<CellCoordinates>();
+
+        depths = new HashMap<CellCoordinates, Integer>();
+
+        blocked = new LinkedHashSet<CellCoordinates>();
+        components = new ArrayDeque<List<CellCoordinates>>();
+    }
+
+    /**
+     * Returns whether the evaluation is done.
+     * 
+     * @return Whether the evaluation is done.
+     */
+    public boolean isDone() {
+        return stack.isEmpty() && roots.isEmpty() && components.isEmpty() && blocked.isEmpty();
+    }
+
+    /**
+     * Returns the coordinates of the cells left to evaluate, along with the ones
+     * whose dependencies are being evaluated.
+     * 
+     * @return The coordinates of the cells left to evaluate.
+     */
+    public Set<CellCoordinates> getRemaining() {
+        Set<CellCoordinates> remaining = new LinkedHashSet<CellCoordinates>(stack);
+        remaining.addAll(roots);
+        remaining.addAll(blocked);
+
+        for (List<CellCoordinates> component : components)
+            remaining.addAll(component);
+
+        return remaining;
+    }
+
+    /**
+     * Runs the evaluation until it is done.
+     */
+    public void run() {
+        long start = System.nanoTime();
+
+        while (!isDone())
+            step();
+
+        storage.getStatistics().addDuration(System.nanoTime() - start);
+    }
+
+    /**
+     * Runs at most the specified number of steps of the evaluation.
+     * 
+     * @param steps The maximum number of steps.
+     */
+    public void run(int steps) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < steps && !isDone(); i++)
+            step();
+
+        storage.getStatistics().addDuration(System.nanoTime() - start);
+    }
+
+    /**
+     * Runs the evaluation until it is done, its time budget is spent or its
+     * cancellation token is cancelled. Both are only checked every so many steps.
+     * 
+     * @param budget The time budget, in nanoseconds, or zero for no budget.
+     * @param token  The cancellation token.
+     * @return Whether the evaluation is done.
+     */
+    public boolean run(long budget, CancellationToken token) {
+        long start = System.nanoTime();
+
+        for (int i = 0; !isDone(); i++) {
+            if (i % CHECK_INTERVAL == 0
+                    && (token.isCancelled() || (budget > 0 && System.nanoTime() - start >= budget)))
+                break;
+
+            step();
+        }
+
+        storage.getStatistics().addDuration(System.nanoTime() - start);
+
+        return isDone();
+    }
+
+    /**
+     * Runs a single step of the evaluation. A step either pushes the dependencies
+     * of a cell onto the stack, or evaluates a cell whose dependencies have been
+     * handled. A dependency met again while its own dependencies are being
+     * handled is not pushed twice, so that cycles end up as errors, unless the
+     * storage is iterative. Once every cell has been handled, a step either splits
+     * the blocked cells into components, or handles the next component.
+     */
+    public void step() {
+        if (stack.isEmpty()) {
+            if (!roots.isEmpty()) {
+                CellCoordinates root = roots.poll();
+                if (!visited.contains(root))
+                    stack.push(root);
+            } else if (components.isEmpty())
+                findComponents();
+            else
+                resolve(components.poll());
+
+            return;
+        }
+
+        CellCoordinates current = stack.peek();
+        Cell cell = storage.getCell(current);
+
+        if (cell == null || cell.isEvaluated()) {
+            stack.pop();
+            return;
+        }
+
+        if (visited.add(current)) {
+            for (int i = 0; i < cell.getPrecedentCount(); i++) {
+                Cell dependency = cell.getPrecedent(i);
+                if (!dependency.isEvaluated() && !visited.contains(dependency.getCoordinates()))
+                    stack.push(dependency.getCoordinates());
+            }
+
+            Set<CellCoordinates> rangeDependencies = storage.getRangePrecedents(cell);
+            if (rangeDependencies != null)
+                for (CellCoordinates dependency : rangeDependencies)
+                    if (!visited.contains(dependency) && !storage.isEvaluated(dependency))
+                        stack.push(dependency);
+
+            return;
+        }
+
+        stack.pop();
+
+        evaluate(current, cell, true);
+    }
+
+    /**
+     * Evaluates a cell whose dependencies have been handled, and handles its
+     * dependents if it was evaluated.
+     * 
+     * @param current  The coordinates of the cell.
+     * @param cell     The cell.
+     * @param blocking Whether the cell is gathered with the blocked cells if a
+     *                 cell it depends on is not evaluated.
+     */
+    private void evaluate(CellCoordinates current, Cell cell, boolean blocking) {
+        EvaluationProfiler profiler = storage.getProfiler();
+        boolean sampled = profiler.sample();
+        long start = sampled ? System.nanoTime() : 0;
+
+        boolean evaluated = cell.evaluate();
+
+        if (sampled)
+            profiler.record(current, System.nanoTime() - start);
+
+        Integer depth = depths.remove(current);
+        if (depth == null)
+            depth = 0;
+
+        storage.getStatistics().evaluated(evaluated, depth);
+        storage.valueChanged(current);
+
+        if (evaluated)
+            release(current, depth);
+        else if (blocking && storage.isIterative() && cell.getError() == CellError.DEPENDENCY_NOT_EVALUATED)
+            blocked.add(current);
+    }
+
+    /**
+     * Handles the dependents of an evaluated cell, which are evaluated or queued
+     * if they are not evaluated.
+     * 
+     * @param current The coordinates of the cell.
+     * @param depth   The propagation depth of the cell.
+     */
+    private void release(CellCoordinates current, int depth) {
+        Cell cell = storage.getCell(current);
+
+        for (int i = 0; i < cell.getDependentCount(); i++) {
+            Cell dependent = cell.getDependent(i);
+            if (!dependent.isEvaluated())
+                schedule(dependent.getCoordinates(), depth);
+        }
+
+        for (CellCoordinates dependent : storage.getRangeDependents(current))
+            if (!storage.isEvaluated(dependent))
+                schedule(dependent, depth);
+
+        storage.queueExternalDependents(current);
+    }
+
+    /**
+     * Handles a dependent left not evaluated of an evaluated cell, which is
+     * evaluated or queued unless it has already been handled.
+     * 
+     * @param dependent The coordinates of the dependent.
+     * @param depth     The propagation depth of the evaluated cell.
+     */
+    private void schedule(CellCoordinates dependent, int depth) {
+        depths.merge(dependent, depth + 1, Math::max);
+
+        if (visited.contains(dependent))
+            return;
+
+        if (propagating)
+            roots.add(dependent);
+        else
+            storage.queue(dependent);
+    }
+
+    /**
+     * Splits the blocked cells left not evaluated into strongly connected
+     * components, following their precedents without recursion. A component is
+     * only found once all the components it depends on have been, so that the
+     * components are queued in topological order.
+     */
+    private void findComponents() {
+        List<CellCoordinates> nodes = new ArrayList<CellCoordinates>();
+        for (CellCoordinates coordinates : blocked)
+            if (!storage.isEvaluated(coordinates))
+                nodes.add(coordinates);
+
+        blocked.clear();
+
+        Set<CellCoordinates> members = new HashSet<CellCoordinates>(nodes);
+        Map<CellCoordinates, Integer> indices = new HashMap<CellCoordinates, Integer>();
+        Map<CellCoordinates, Integer> lowLinks = new HashMap<CellCoordinates, Integer>();
+
+        Deque<CellCoordinates> path = new ArrayDeque<CellCoordinates>();
+        Set<CellCoordinates> onPath = new HashSet<CellCoordinates>();
+
+        Deque<CellCoordinates> calls = new ArrayDeque<CellCoordinates>();
+        Deque<Iterator<CellCoordinates>> edges = new ArrayDeque<Iterator<CellCoordinates>>();
+
+        for (CellCoordinates node : nodes) {
+            if (indices.containsKey(node))
+                continue;
+
+            calls.push(node);
+
+            while (!calls.isEmpty()) {
+                CellCoordinates current = calls.peek();
+
+                if (!indices.containsKey(current)) {
+                    indices.put(current, indices.size());
+                    lowLinks.put(current, indices.get(current));
+
+                    path.push(current);
+                    onPath.add(current);
+
+                    edges.push(getPrecedents(current, members).iterator());
+                }
+
+                Iterator<CellCoordinates> iterator = edges.peek();
+
+                if (iterator.hasNext()) {
+                    CellCoordinates precedent = iterator.next();
+
+                    if (!indices.containsKey(precedent))
+                        calls.push(precedent);
+                    else if (onPath.contains(precedent))
+                        lowLinks.put(current, Math.min(lowLinks.get(current), indices.get(precedent)));
+
+                    continue;
+                }
+
+                calls.pop();
+                edges.pop();
+
+                if (!calls.isEmpty())
+                    lowLinks.put(calls.peek(), Math.min(lowLinks.get(calls.peek()), lowLinks.get(current)));
+
+                if (!lowLinks.get(current).equals(indices.get(current)))
+                    continue;
+
+                List<CellCoordinates> component = new ArrayList<CellCoordinates>();
+                CellCoordinates member;
+
+                do {
+                    member = path.pop();
+                    onPath.remove(member);
+                    component.add(member);
+                } while (!member.equals(current));
+
+                components.add(component);
+            }
+        }
+    }
+
+    /**
+     * Returns the precedents of a cell that are part of the specified cells.
+     * 
+     * @param coordinates The coordinates of the cell.
+     * @param members     The coordinates of the cells.
+     * @return The precedents of the cell among the specified cells.
+     */
+    private List<CellCoordinates> getPrecedents(CellCoordinates coordinates, Set<CellCoordinates> members) {
+        List<CellCoordinates> precedents = new ArrayList<CellCoordinates>();
+
+        Set<CellCoordinates> all = storage.getPrecedents(coordinates);
+        if (all != null)
+            for (CellCoordinates precedent : all)
+                if (members.contains(precedent))
+                    precedents.add(precedent);
+
+        return precedents;
+    }
+
+    /**
+     * Handles a strongly connected component of blocked cells. A cycle is
+     * evaluated iteratively, while a single cell outside of any cycle is evaluated
+     * once, now that the components it depends on have been handled.
+     * 
+     * @param component The coordinates of the cells of the component.
+     */
+    private void resolve(List<CellCoordinates> component) {
+        CellCoordinates first = component.get(0);
+
+        if (component.size() == 1 && !getPrecedents(first, Set.of(first)).contains(first)) {
+            Cell cell = storage.getCell(first);
+            if (cell != null && !cell.isEvaluated())
+                evaluate(first, cell, false);
+
+            return;
+        }
+
+        iterate(component);
+    }
+
+    /**
+     * Evaluates the cells of a cycle iteratively. Each cell starts from its
+     * provisional value, then the cells are evaluated in turn, each reading the
+     * latest values of the others, until no value changes by more than the
+     * maximum change of the storage or its maximum number of iterations is
+     * reached. If a cell fails to be evaluated, it keeps its error and the rest
+     * of the cycle is left not evaluated, as the dependents of a failed cell are.
+     * 
+     * @param component The coordinates of the cells of the cycle.
+     */
+    private void iterate(List<CellCoordinates> component) {
+        long start = System.nanoTime();
+
+        List<Cell> cells = new ArrayList<Cell>();
+        int depth = 0;
+
+        for (CellCoordinates coordinates : component) {
+            Cell cell = storage.getCell(coordinates);
+            cell.seed();
+            cells.add(cell);
+
+            Integer cellDepth = depths.remove(coordinates);
+            if (cellDepth != null)
+                depth = Math.max(depth, cellDepth);
+        }
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        Cell failure = null;
+
+        while (failure == null && iterations < storage.getMaximumIterations()
+                && residual > storage.getMaximumChange()) {
+            iterations++;
+            residual = 0;
+
+            for (Cell cell : cells) {
+                double previous = cell.getValue();
+
+                if (!cell.iterate()) {
+                    failure = cell;
+                    break;
+                }
+
+                residual = Math.max(residual, Math.abs(cell.getValue() - previous));
+            }
+        }
+
+        long duration = (System.nanoTime() - start) / component.size();
+        boolean failed = failure != null;
+
+        for (int i = 0; i < component.size(); i++) {
+            CellCoordinates coordinates = component.get(i);
+            Cell cell = cells.get(i);
+
+            if (cell == failure)
+                cell.fail();
+            else if (failed)
+                cell.deevaluate();
+            else
+                storage.getProfiler().record(coordinates, duration);
+
+            storage.getStatistics().evaluated(!failed, depth);
+            storage.valueChanged(coordinates);
+        }
+
+        storage.getStatistics().iterated(iterations, residual);
+
+        if (failed)
+            return;
+
+        for (CellCoordinates coordinates : component)
+            release(coordinates, depth);
+    }
+}
@@ -0,0 +1,133 @@
+package ranger.sheet.cell;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class representing a sampling profiler of the evaluations of cells.
+ * Only one evaluation every so many is timed, so that profiling stays cheap
+ * enough to be always on. The cells that are evaluated the most or the longest
+ * are still sampled the most, and thus stand out in the profile.
+ */
+public class EvaluationProfiler {
+    /**
+     * The default number of evaluations between two samples.
+     */
+    public static final int DEFAULT_INTERVAL = 16;
+
+    /**
+     * The number of evaluations between two samples. If zero, no evaluation is
+     * sampled.
+     */
+    private int interval;
+
+    /**
+     * The number of evaluations left before the next sample.
+     */
+    private int countdown;
+
+    /**
+     * The profiles of the sampled cells, by coordinates.
+     */
+    private Map<CellCoordinates, CellProfile> profiles;
+
+    /**
+     * Constructs a new profiler sampling every default interval.
+     */
+    public EvaluationProfiler() {
+        profiles = new HashMap<CellCoordinates, CellProfile>();
+
+        setInterval(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Returns the number of evaluations between two samples.
+     * 
+     * @return The number of evaluations between two samples, or zero if no
+     *         evaluation is sampled.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets the number of evaluations between two samples.
+     * 
+     * @param interval The number of evaluations between two samples, or zero to
+     *                 stop sampling.
+     */
+    public void setInterval(int interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException("The sampling interval cannot be negative.");
+
+        this.interval = interval;
+        countdown = interval;
+    }
+
+    /**
+     * Returns whether the next evaluation has to be sampled.
+     * 
+     * @return Whether the next evaluation has to be sampled.
+     */
+    public boolean sample() {
+        if (interval == 0 || --countdown > 0)
+            return false;
+
+        countdown = interval;
+        return true;
+    }
+
+    /**
+     * Records the duration of a sampled evaluation of a cell.
+     * 
+     * @param coordinates The coordinates of the cell.
+     * @param duration    The duration, in nanoseconds.
+     */
+    public void record(CellCoordinates coordinates, long duration) {
+        CellProfile profile = profiles.get(coordinates);
+        if (profile == null) {
+            profile = new CellProfile(coordinates);
+            profiles.put(coordinates, profile);
+        }
+
+        profile.record(duration);
+    }
+
+    /**
+     * Removes the profile of a cell, whose previous samples no longer apply.
+     * 
+     * @param coordinates The coordinates of the cell.
+     */
+    public void remove(CellCoordinates coordinates) {
+        profiles.remove(coordinates);
+    }
+
+    /**
+     * Removes the profiles of every cell.
+     */
+    public void clear() {
+        profiles.clear();
+    }
+
+    /**
+     * Returns the profiles of the cells with the longest total sampled time, the
+     * slowest first.
+     * 
+     * @param count The maximum number of profiles.
+     * @return The profiles of the slowest cells.
+     */
+    public List<CellProfile> getSlowest(int count) {
+        List<CellProfile> slowest = new ArrayList<CellProfile>();
+        for (CellProfile profile : profiles.values())
+            slowest.add(new CellProfile(profile));
+
+        slowest.sort((first, second) -> Long.compare(second.getTotalTime(), first.getTotalTime()));
+
+        if (slowest.size() > count)
+            return new ArrayList<CellProfile>(slowest.subList(0, count));
+
+        return slowest;
+    }
+}
@@ -0,0 +1,151 @@
+package ranger.sheet.cell;
+
+/**
+ * Class representing a reference to a range of cells of another sheet, such as
+ * "Sheet2!A1" or "'My sheet'!A1:B10". A reference to a single cell is a range
+ * whose corners are the same.
+ */
+public class ExternalReference {
+    /**
+     * The separator between the name of the sheet and the referenced cells.
+     */
+    public static final char SEPARATOR = '!';
+
+    /**
+     * The quote surrounding the names of the sheets that are not plain
+     * identifiers. A quote inside such a name is doubled.
+     */
+    public static final char QUOTE = '\'';
+
+    /**
+     * The name of the referenced sheet.
+     */
+    private final String sheet;
+
+    /**
+     * The referenced range of cells.
+     */
+    private final CellRange range;
+
+    /**
+     * Constructs a new external reference.
+     * 
+     * @param sheet The name of the referenced sheet.
+     * @param range The referenced range of cells.
+     */
+    public ExternalReference(String sheet, CellRange range) {
+        if (sheet == null)
+            throw new IllegalArgumentException("The name of the referenced sheet cannot be null.");
+
+        this.sheet = sheet;
+        this.range = range;
+    }
+
+    /**
+     * Returns the name of the referenced sheet.
+     * 
+     * @return The name of the referenced sheet.
+     */
+    public String getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Returns the referenced range of cells.
+     * 
+     * @return The referenced range of cells.
+     */
+    public CellRange getRange() {
+        return range;
+    }
+
+    /**
+     * Returns the reference moved by the specified numbers of columns and rows,
+     * in the same sheet.
+     * 
+     * @param columns The number of columns, which can be negative.
+     * @param rows    The number of rows, which can be negative.
+     * @return The moved reference.
+     * @throws IllegalArgumentException If the moved range is outside of the sheet.
+     */
+    public ExternalReference offset(int columns, int rows) {
+        if (columns == 0 && rows == 0)
+            return this;
+
+        return new ExternalReference(sheet, range.offset(columns, rows));
+    }
+
+    /**
+     * Returns the string representation of the external reference.
+     * 
+     * @return The string representation of the external reference.
+     */
+    @Override
+    public String toString() {
+        if (range.getStart().equals(range.getEnd()))
+            return formatSheet(sheet) + SEPARATOR + range.getStart();
+
+        return formatSheet(sheet) + SEPARATOR + range;
+    }
+
+    /**
+     * Compares this object to another object.
+     * 
+     * @param obj The object to compare to.
+     * @return Whether the objects are equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null)
+            return false;
+
+        if (!(obj instanceof ExternalReference))
+            return false;
+
+        ExternalReference other = (ExternalReference) obj;
+
+        return sheet.equals(other.sheet) && range.equals(other.range);
+    }
+
+    /**
+     * Returns the hash code of the object.
+     * 
+     * @return The hash code of the object.
+     */
+    @Override
+    public int hashCode() {
+        return sheet.hashCode() * 31 + range.hashCode();
+    }
+
+    /**
+     * Returns whether the specified character can be part of a sheet name written
+     * without quotes.
+     * 
+     * @param character The character.
+     * @return Whether the character can be part of an unquoted sheet name.
+     */
+    public static boolean isSupportedCharacter(char character) {
+        return Character.isLetterOrDigit(character) || character == '_';
+    }
+
+    /**
+     * Returns the specified sheet name as written in a reference. Names that are
+     * not plain identifiers are quoted.
+     * 
+     * @param sheet The name of the sheet.
+     * @return The sheet name as written in a reference.
+     */
+    public static String formatSheet(String sheet) {
+        boolean plain = !sheet.isEmpty() && !Character.isDigit(sheet.charAt(0));
+
+        for (int i = 0; i < sheet.length() && plain; i++)
+            plain = isSupportedCharacter(sheet.charAt(i));
+
+        if (plain)
+            return sheet;
+
+        String quote = String.valueOf(QUOTE);
+
+        return quote + sheet.replace(quote, quote + quote) + quote;
+    }
+}
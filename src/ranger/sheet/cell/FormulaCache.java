@@ -0,0 +1,361 @@
+package ranger.sheet.cell;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import ranger.function.FunctionRegistrar;
+import ranger.syntax.lexer.Lexer;
+import ranger.syntax.parser.ExpressionParser;
+import ranger.syntax.token.TokenStream;
+
+/**
+ * Class caching the parsed formulas of a cell storage. The parsed expressions
+ * are immutable, so that all the cells with the same formula share a single
+ * syntax tree, which is only parsed, optimized and compiled once.
+ * <p>
+ * Formulas are looked up by their expression, then by their relative form,
+ * where every reference is written as its offset from the cell of the formula,
+ * as in the R1C1 notation. A formula filled down a column, such as "=A1*2",
+ * "=A2*2" and so on, thus has a single relative form, and its syntax tree is
+ * moved to each cell instead of being parsed again.
+ * <p>
+ * The cache keeps the formulas used most recently, up to its capacity, and is
+ * emptied whenever the expression parser or the function registrar changes, as
+ * the parsed formulas depend on both.
+ */
+public class FormulaCache {
+    /**
+     * The prefix of the keys of the relative forms, which cannot start an
+     * expression.
+     */
+    private static final String RELATIVE_PREFIX = "R1C1 ";
+
+    /**
+     * The default maximum number of expressions and relative forms kept.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The maximum number of expressions and relative forms kept.
+     */
+    private final int capacity;
+
+    /**
+     * The parsed formulas by expression and by relative form, the least recently
+     * used first.
+     */
+    private final LinkedHashMap<String, ParsedExpression> entries;
+
+    /**
+     * The expression parser the formulas were parsed with.
+     */
+    private ExpressionParser expressionParser;
+
+    /**
+     * The function registrar the formulas were optimized with.
+     */
+    private FunctionRegistrar functionRegistrar;
+
+    /**
+     * The number of formulas found in the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The number of formulas found in the cache by their relative form only,
+     * whose syntax tree was moved.
+     */
+    private long relativeHitCount;
+
+    /**
+     * The number of formulas parsed because they were not in the cache.
+     */
+    private long missCount;
+
+    /**
+     * The lock guarding the cache, which is used by the parallel reparsing.
+     */
+    private final Object lock;
+
+    /**
+     * Constructs a new formula cache with the default capacity.
+     */
+    public FormulaCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new formula cache.
+     * 
+     * @param capacity The maximum number of expressions and relative forms kept.
+     */
+    public FormulaCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity of the formula cache must be positive.");
+
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, ParsedExpression>(16, 0.75f, true);
+
+        this.expressionParser = null;
+        this.functionRegistrar = null;
+
+        this.hitCount = 0;
+        this.relativeHitCount = 0;
+        this.missCount = 0;
+
+        this.lock = new Object();
+    }
+
+    /**
+     * Returns the parsed expression of a cell, from the cache if it is a formula
+     * with the same expression or the same relative form as one parsed before.
+     * Other expressions are cheap to parse and are not cached.
+     * 
+     * @param expression        The expression, or null.
+     * @param anchor            The cell of the expression.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar.
+     * @return The parsed expression.
+     */
+    public ParsedExpression get(String expression, CellCoordinates anchor, ExpressionParser expressionParser,
+            FunctionRegistrar functionRegistrar) {
+        if (expression == null || !expression.startsWith("="))
+            return ParsedExpression.parse(expression, anchor, expressionParser, functionRegistrar);
+
+        ParsedExpression shared;
+
+        synchronized (lock) {
+            if (expressionParser != this.expressionParser || functionRegistrar != this.functionRegistrar) {
+                entries.clear();
+
+                this.expressionParser = expressionParser;
+                this.functionRegistrar = functionRegistrar;
+            }
+
+            // The same expression has the same references wherever it is
+            shared = entries.get(expression);
+            if (shared != null) {
+                hitCount++;
+                return shared;
+            }
+        }
+
+        // Lexed and parsed outside of the lock, so that the parallel reparsing is
+        // not serialized
+        TokenStream tokens;
+
+        try {
+            tokens = Lexer.getTokens(expression.substring(1));
+        } catch (Exception e) {
+            return ParsedExpression.parse(expression, anchor, expressionParser, functionRegistrar);
+        }
+
+        String key = getRelativeKey(tokens, anchor);
+
+        synchronized (lock) {
+            shared = entries.get(key);
+        }
+
+        ParsedExpression parsed = null;
+
+        if (shared != null) {
+            try {
+                parsed = shared.moveTo(anchor);
+            } catch (IllegalArgumentException e) {
+                parsed = null;
+            }
+        }
+
+        synchronized (lock) {
+            if (parsed != null) {
+                hitCount++;
+                relativeHitCount++;
+            } else
+                missCount++;
+        }
+
+        if (parsed == null)
+            parsed = ParsedExpression.parse(tokens, anchor, expressionParser, functionRegistrar);
+
+        synchronized (lock) {
+            if (expressionParser == this.expressionParser && functionRegistrar == this.functionRegistrar) {
+                put(expression, parsed);
+
+                if (shared == null)
+                    put(key, parsed);
+            }
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Adds an entry to the cache, removing the least recently used one if the
+     * cache is full.
+     * 
+     * @param key    The expression or the key of the relative form.
+     * @param parsed The parsed formula.
+     */
+    private void put(String key, ParsedExpression parsed) {
+        entries.put(key, parsed);
+
+        if (entries.size() > capacity) {
+            Iterator<String> iterator = entries.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the key of the relative form of a formula, where every reference is
+     * written as its offset from the cell of the formula.
+     * 
+     * @param tokens The tokens of the formula.
+     * @param anchor The cell of the formula.
+     * @return The key of the relative form.
+     */
+    private static String getRelativeKey(TokenStream tokens, CellCoordinates anchor) {
+        StringBuilder builder = new StringBuilder(RELATIVE_PREFIX);
+
+        for (int i = 0; i < tokens.size(); i++) {
+            switch (tokens.getType(i)) {
+                case REFERENCE:
+                    appendSheet(builder, tokens.getSheet(i));
+                    appendRelative(builder, tokens.getCoordinates(i), anchor);
+                    break;
+                case RANGE:
+                    appendSheet(builder, tokens.getSheet(i));
+                    appendRelative(builder, tokens.getRange(i).getStart(), anchor);
+                    builder.append(CellRange.SEPARATOR);
+                    appendRelative(builder, tokens.getRange(i).getEnd(), anchor);
+                    break;
+                default:
+                    builder.append(tokens.getText(i));
+                    break;
+            }
+
+            builder.append(' ');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends the sheet of a reference to the key of a relative form.
+     * 
+     * @param builder The key being built.
+     * @param sheet   The name of the sheet, or null if the reference is local.
+     */
+    private static void appendSheet(StringBuilder builder, String sheet) {
+        if (sheet != null)
+            builder.append(ExternalReference.formatSheet(sheet)).append(ExternalReference.SEPARATOR);
+    }
+
+    /**
+     * Appends coordinates to the key of a relative form, as their offset from the
+     * cell of the formula in the R1C1 notation, such as "R[-1]C[0]".
+     * 
+     * @param builder     The key being built.
+     * @param coordinates The coordinates.
+     * @param anchor      The cell of the formula.
+     */
+    private static void appendRelative(StringBuilder builder, CellCoordinates coordinates, CellCoordinates anchor) {
+        builder.append("R[").append(coordinates.getY() - anchor.getY()).append("]C[")
+                .append(coordinates.getX() - anchor.getX()).append(']');
+    }
+
+    /**
+     * Removes all formulas from the cache. The numbers of hits and misses are
+     * kept.
+     */
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the maximum number of expressions and relative forms kept.
+     * 
+     * @return The capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of expressions and relative forms in the cache.
+     * 
+     * @return The number of entries of the cache.
+     */
+    public int getSize() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of formulas found in the cache.
+     * 
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        synchronized (lock) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Returns the number of formulas found in the cache by their relative form
+     * only, whose syntax tree was moved.
+     * 
+     * @return The number of relative hits, which are included in the hits.
+     */
+    public long getRelativeHitCount() {
+        synchronized (lock) {
+            return relativeHitCount;
+        }
+    }
+
+    /**
+     * Returns the number of formulas parsed because they were not in the cache.
+     * 
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        synchronized (lock) {
+            return missCount;
+        }
+    }
+
+    /**
+     * Returns the proportion of the formulas found in the cache.
+     * 
+     * @return The hit rate, between 0 and 1, or 0 if no formula was looked up.
+     */
+    public double getHitRate() {
+        synchronized (lock) {
+            long total = hitCount + missCount;
+            if (total == 0)
+                return 0;
+
+            return (double) hitCount / total;
+        }
+    }
+
+    /**
+     * Returns the string representation of the cache.
+     * 
+     * @return The string representation of the cache.
+     */
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            long total = hitCount + missCount;
+
+            return entries.size() + "/" + capacity + " entries, " + hitCount + " hits (" + relativeHitCount
+                    + " relative), " + missCount + " misses"
+                    + (total == 0 ? "" : " (" + Math.round(100.0 * hitCount / total) + "% hit rate)");
+        }
+    }
+}
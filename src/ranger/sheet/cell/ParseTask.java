@@ -0,0 +1,130 @@
+package ranger.sheet.cell;
+
+import java.util.concurrent.RecursiveAction;
+
+import ranger.function.FunctionRegistrar;
+import ranger.syntax.parser.ExpressionParser;
+
+/**
+ * Class representing the parsing of the expressions of many cells on a
+ * fork-join pool. The expressions are split in halves until few enough are left
+ * to be parsed by a single task, each result being stored at the index of its
+ * expression. The tasks share the formula cache of the storage, so that a
+ * formula used by many cells is only parsed once.
+ */
+public class ParseTask extends RecursiveAction {
+    /**
+     * The number of expressions under which a task parses them itself.
+     */
+    public static final int THRESHOLD = 256;
+
+    /**
+     * The serial version UID of the task.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The expressions to parse.
+     */
+    private final String[] expressions;
+
+    /**
+     * The cells of the expressions, matching the expressions.
+     */
+    private final CellCoordinates[] anchors;
+
+    /**
+     * The parsed expressions, matching the expressions.
+     */
+    private final ParsedExpression[] results;
+
+    /**
+     * The cache of the parsed formulas, shared by the tasks.
+     */
+    private final transient FormulaCache formulaCache;
+
+    /**
+     * The expression parser.
+     */
+    private final transient ExpressionParser expressionParser;
+
+    /**
+     * The function registrar used to fold the constant calls.
+     */
+    private final transient FunctionRegistrar functionRegistrar;
+
+    /**
+     * The index of the first expression parsed by the task.
+     */
+    private final int start;
+
+    /**
+     * The index following the last expression parsed by the task.
+     */
+    private final int end;
+
+    /**
+     * Constructs a new task parsing every expression.
+     * 
+     * @param expressions       The expressions to parse.
+     * @param anchors           The cells of the expressions.
+     * @param results           The array receiving the parsed expressions, as
+     *                          long as the expressions.
+     * @param formulaCache      The cache of the parsed formulas.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar.
+     */
+    public ParseTask(String[] expressions, CellCoordinates[] anchors, ParsedExpression[] results,
+            FormulaCache formulaCache, ExpressionParser expressionParser, FunctionRegistrar functionRegistrar) {
+        this(expressions, anchors, results, formulaCache, expressionParser, functionRegistrar, 0, expressions.length);
+    }
+
+    /**
+     * Constructs a new task parsing a slice of the expressions.
+     * 
+     * @param expressions       The expressions to parse.
+     * @param anchors           The cells of the expressions.
+     * @param results           The array receiving the parsed expressions.
+     * @param formulaCache      The cache of the parsed formulas.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar.
+     * @param start             The index of the first expression to parse.
+     * @param end               The index following the last expression to parse.
+     */
+    private ParseTask(String[] expressions, CellCoordinates[] anchors, ParsedExpression[] results,
+            FormulaCache formulaCache, ExpressionParser expressionParser, FunctionRegistrar functionRegistrar,
+            int start, int end) {
+        if (anchors.length != expressions.length || results.length != expressions.length)
+            throw new IllegalArgumentException("The anchors and the results must match the expressions.");
+
+        this.expressions = expressions;
+        this.anchors = anchors;
+        this.results = results;
+        this.formulaCache = formulaCache;
+        this.expressionParser = expressionParser;
+        this.functionRegistrar = functionRegistrar;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses the expressions of the task, or splits them between two subtasks.
+     */
+    @Override
+    protected void compute() {
+        if (end - start <= THRESHOLD) {
+            for (int i = start; i < end; i++)
+                results[i] = formulaCache.get(expressions[i], anchors[i], expressionParser, functionRegistrar);
+
+            return;
+        }
+
+        int middle = (start + end) >>> 1;
+
+        invokeAll(
+                new ParseTask(expressions, anchors, results, formulaCache, expressionParser, functionRegistrar,
+                        start, middle),
+                new ParseTask(expressions, anchors, results, formulaCache, expressionParser, functionRegistrar,
+                        middle, end));
+    }
+}
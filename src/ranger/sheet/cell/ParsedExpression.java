@@ -0,0 +1,285 @@
+package ranger.sheet.cell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ranger.function.FunctionRegistrar;
+import ranger.syntax.SyntaxTree;
+import ranger.syntax.block.ExpressionBlock;
+import ranger.syntax.lexer.Lexer;
+import ranger.syntax.node.NumberNode;
+import ranger.syntax.parser.ExpressionParser;
+import ranger.syntax.token.TokenStream;
+
+/**
+ * Class representing the result of parsing the expression of a cell.
+ * Parsing only depends on the expression and the parser, and does not touch the
+ * cell nor its storage, so that the expressions of many cells can be parsed in
+ * parallel before being applied to their cells.
+ * <p>
+ * The syntax tree of a formula holds the references of the cell it was parsed
+ * for, its anchor. A formula filled down a column has the same tree at every
+ * row once its references are taken relative to the anchor, so the tree is
+ * shared by moving the parsed expression to the other cells: only the ranges
+ * and the offset from the tree's anchor are computed for each of them.
+ */
+public class ParsedExpression {
+    /**
+     * The syntax tree of the expression.
+     * This is null if the expression failed to parse.
+     */
+    private final SyntaxTree tree;
+
+    /**
+     * Whether the expression is a number or a formula.
+     */
+    private final boolean numeric;
+
+    /**
+     * The error of the expression, or null if it parsed.
+     */
+    private final CellError error;
+
+    /**
+     * The ranges of cells referenced by the expression, or null if there are
+     * none.
+     */
+    private final List<CellRange> ranges;
+
+    /**
+     * The references of the expression to other sheets, or null if there are
+     * none.
+     */
+    private final List<ExternalReference> externals;
+
+    /**
+     * The cell the expression was parsed or moved for, or null if the expression
+     * is not a formula.
+     */
+    private final CellCoordinates anchor;
+
+    /**
+     * The number of columns from the cell the syntax tree was parsed for to the
+     * anchor.
+     */
+    private final int columnOffset;
+
+    /**
+     * The number of rows from the cell the syntax tree was parsed for to the
+     * anchor.
+     */
+    private final int rowOffset;
+
+    /**
+     * Constructs a new parsed expression which does not reference any cell.
+     * 
+     * @param tree    The syntax tree, or null.
+     * @param numeric Whether the expression is a number or a formula.
+     * @param error   The error, or null.
+     */
+    private ParsedExpression(SyntaxTree tree, boolean numeric, CellError error) {
+        this(tree, numeric, error, null, null, null, 0, 0);
+    }
+
+    /**
+     * Constructs a new parsed expression.
+     * 
+     * @param tree         The syntax tree, or null.
+     * @param numeric      Whether the expression is a number or a formula.
+     * @param error        The error, or null.
+     * @param ranges       The referenced ranges, or null.
+     * @param externals    The references to other sheets, or null.
+     * @param anchor       The cell the expression was parsed or moved for, or
+     *                     null.
+     * @param columnOffset The number of columns from the cell the tree was parsed
+     *                     for to the anchor.
+     * @param rowOffset    The number of rows from the cell the tree was parsed for
+     *                     to the anchor.
+     */
+    private ParsedExpression(SyntaxTree tree, boolean numeric, CellError error, List<CellRange> ranges,
+            List<ExternalReference> externals, CellCoordinates anchor, int columnOffset, int rowOffset) {
+        this.tree = tree;
+        this.numeric = numeric;
+        this.error = error;
+        this.ranges = ranges;
+        this.externals = externals;
+        this.anchor = anchor;
+        this.columnOffset = columnOffset;
+        this.rowOffset = rowOffset;
+    }
+
+    /**
+     * Returns the syntax tree of the expression.
+     * 
+     * @return The syntax tree, or null if the expression failed to parse.
+     */
+    public SyntaxTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Returns whether the expression is a number or a formula, as opposed to
+     * plain text or no expression at all.
+     * 
+     * @return Whether the expression is a number or a formula.
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Returns the error of the expression.
+     * 
+     * @return The error, or null if the expression parsed.
+     */
+    public CellError getError() {
+        return error;
+    }
+
+    /**
+     * Returns the ranges of cells referenced by the expression.
+     * 
+     * @return The referenced ranges, or null if there are none.
+     */
+    public List<CellRange> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the references of the expression to other sheets.
+     * 
+     * @return The references to other sheets, or null if there are none.
+     */
+    public List<ExternalReference> getExternalReferences() {
+        return externals;
+    }
+
+    /**
+     * Returns the cell the expression was parsed or moved for. An expression found
+     * in the formula cache by its text may be applied to another cell with the
+     * same text, as its references do not move.
+     * 
+     * @return The anchor, or null if the expression is not a formula.
+     */
+    public CellCoordinates getAnchor() {
+        return anchor;
+    }
+
+    /**
+     * Returns the number of columns from the cell the syntax tree was parsed for
+     * to the anchor, which the references of the tree are moved by when it is
+     * evaluated.
+     * 
+     * @return The column offset.
+     */
+    public int getColumnOffset() {
+        return columnOffset;
+    }
+
+    /**
+     * Returns the number of rows from the cell the syntax tree was parsed for to
+     * the anchor, which the references of the tree are moved by when it is
+     * evaluated.
+     * 
+     * @return The row offset.
+     */
+    public int getRowOffset() {
+        return rowOffset;
+    }
+
+    /**
+     * Returns the expression applied to another cell, with the same syntax tree
+     * and all its references moved along.
+     * 
+     * @param anchor The cell the expression is moved to.
+     * @return The moved expression, which is this expression if it does not move.
+     * @throws IllegalArgumentException If a reference is moved outside of the
+     *                                  sheet.
+     */
+    public ParsedExpression moveTo(CellCoordinates anchor) {
+        if (this.anchor == null || this.anchor.equals(anchor))
+            return this;
+
+        int columns = anchor.getX() - this.anchor.getX();
+        int rows = anchor.getY() - this.anchor.getY();
+
+        List<CellRange> movedRanges = null;
+        if (ranges != null) {
+            movedRanges = new ArrayList<CellRange>(ranges.size());
+            for (CellRange range : ranges)
+                movedRanges.add(range.offset(columns, rows));
+        }
+
+        List<ExternalReference> movedExternals = null;
+        if (externals != null) {
+            movedExternals = new ArrayList<ExternalReference>(externals.size());
+            for (ExternalReference reference : externals)
+                movedExternals.add(reference.offset(columns, rows));
+        }
+
+        return new ParsedExpression(tree, numeric, error, movedRanges, movedExternals, anchor,
+                columnOffset + columns, rowOffset + rows);
+    }
+
+    /**
+     * Parses the expression of a cell. An empty expression evaluates to zero, a
+     * number to itself, and an expression starting with '=' is a formula. Any
+     * other expression is plain text.
+     * 
+     * @param expression        The expression, or null.
+     * @param anchor            The cell of the expression.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar used to fold the constant
+     *                          calls to functions.
+     * @return The parsed expression.
+     */
+    public static ParsedExpression parse(String expression, CellCoordinates anchor,
+            ExpressionParser expressionParser, FunctionRegistrar functionRegistrar) {
+        if (expression == null)
+            return new ParsedExpression(new SyntaxTree(new NumberNode(0.0), expressionParser), false, null);
+
+        try {
+            return new ParsedExpression(
+                    new SyntaxTree(new NumberNode(Double.parseDouble(expression)), expressionParser), true, null);
+        } catch (NumberFormatException e) {
+        }
+
+        if (!expression.startsWith("="))
+            return new ParsedExpression(null, false, null);
+
+        TokenStream tokens;
+
+        try {
+            tokens = Lexer.getTokens(expression.substring(1));
+        } catch (Exception e) {
+            return new ParsedExpression(null, true, CellError.INVALID_EXPRESSION);
+        }
+
+        return parse(tokens, anchor, expressionParser, functionRegistrar);
+    }
+
+    /**
+     * Parses the tokens of a formula, without its leading '='.
+     * 
+     * @param tokens            The tokens of the formula, which are consumed.
+     * @param anchor            The cell of the formula.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar used to fold the constant
+     *                          calls to functions.
+     * @return The parsed formula.
+     */
+    public static ParsedExpression parse(TokenStream tokens, CellCoordinates anchor,
+            ExpressionParser expressionParser, FunctionRegistrar functionRegistrar) {
+        try {
+            SyntaxTree tree = new SyntaxTree(ExpressionBlock.getRoot(tokens), expressionParser, functionRegistrar);
+
+            List<CellRange> ranges = tree.getRanges();
+            List<ExternalReference> externals = tree.getExternalReferences();
+
+            return new ParsedExpression(tree, true, null, ranges.isEmpty() ? null : ranges,
+                    externals.isEmpty() ? null : externals, anchor, 0, 0);
+        } catch (Exception e) {
+            return new ParsedExpression(null, true, CellError.INVALID_EXPRESSION);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ranger.sheet.cell;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import ranger.function.Aggregator;
+import ranger.function.Function;
+
+/**
+ * Class representing the dependency of a cell on a range of cells.
+ * The dependency keeps track of the cells of the range that are not evaluated
+ * yet, and of the aggregators of the functions called on the range. Both are
+ * updated from each cell of the range that changes, so that neither needs the
+ * whole range to be read again.
+ */
+public class RangeDependency {
+    /**
+     * The range of cells.
+     */
+    private final CellRange range;
+
+    /**
+     * The coordinates of the numeric cells of the range that are not evaluated.
+     */
+    private Set<CellCoordinates> pending;
+
+    /**
+     * The aggregators of the functions called on the range, by function. An
+     * aggregator is only created when its function is first evaluated.
+     */
+    private Map<Function, Aggregator> aggregators;
+
+    /**
+     * Constructs a new range dependency.
+     * 
+     * @param range   The range of cells.
+     * @param pending The coordinates of the numeric cells of the range that are
+     *                not evaluated.
+     */
+    public RangeDependency(CellRange range, Set<CellCoordinates> pending) {
+        this.range = range;
+        this.pending = new HashSet<CellCoordinates>(pending);
+
+        aggregators = new HashMap<Function, Aggregator>();
+    }
+
+    /**
+     * Returns the range of cells.
+     * 
+     * @return The range of cells.
+     */
+    public CellRange getRange() {
+        return range;
+    }
+
+    /**
+     * Returns whether all the numeric cells of the range are evaluated.
+     * 
+     * @return Whether all the numeric cells of the range are evaluated.
+     */
+    public boolean isEvaluated() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Returns the coordinates of the numeric cells of the range that are not
+     * evaluated.
+     * 
+     * @return The coordinates of the cells that are not evaluated.
+     */
+    public Set<CellCoordinates> getPending() {
+        return new HashSet<CellCoordinates>(pending);
+    }
+
+    /**
+     * Handles a change of a cell of the range. The value of a cell is only part
+     * of the range when the cell is numeric and evaluated.
+     * 
+     * @param coordinates The coordinates of the cell.
+     * @param wasPending  Whether the cell was numeric and not evaluated.
+     * @param previous    The previous value of the cell, or null if it had none.
+     * @param isPending   Whether the cell is numeric and not evaluated.
+     * @param current     The current value of the cell, or null if it has none.
+     */
+    public void inputChanged(CellCoordinates coordinates, boolean wasPending, Double previous, boolean isPending,
+            Double current) {
+        if (wasPending)
+            pending.remove(coordinates);
+
+        if (isPending)
+            pending.add(coordinates);
+
+        Iterator<Aggregator> iterator = aggregators.values().iterator();
+
+        while (iterator.hasNext()) {
+            Aggregator aggregator = iterator.next();
+
+            if (previous != null && !aggregator.remove(previous)) {
+                iterator.remove();
+                continue;
+            }
+
+            if (current != null && !aggregator.add(current))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the aggregator of the specified function over the range. If there
+     * is none yet, it is created from the values of the range, which must all be
+     * evaluated.
+     * 
+     * @param function The function.
+     * @param storage  The storage containing the range.
+     * @return The aggregator, or null if the function cannot be aggregated.
+     */
+    public Aggregator getAggregator(Function function, CellStorage storage) {
+        Aggregator aggregator = aggregators.get(function);
+        if (aggregator != null)
+            return aggregator;
+
+        aggregator = function.createAggregator();
+        if (aggregator == null)
+            return null;
+
+        // The values are all added, so the aggregator is as precise as evaluating
+        // the function on them
+        for (double value : storage.getValues(range))
+            aggregator.add(value);
+
+        aggregators.put(function, aggregator);
+        return aggregator;
+    }
+
+    /**
+     * Removes the aggregators, so that they are created again the next time
+     * their function is evaluated.
+     */
+    public void clearAggregators() {
+        aggregators.clear();
+    }
+}
@@ -0,0 +1,304 @@
+package ranger.sheet.cell;
+
+/**
+ * Class representing the statistics of a recalculation of a cell storage.
+ * A recalculation gathers the work done between two notifications of the
+ * listeners of the storage: the cells deevaluated by the modifications, and the
+ * cells evaluated again, whether at once, in background or on demand. In
+ * iterative mode, it also gathers the cycles calculated iteratively.
+ */
+public class RecalculationStatistics {
+    /**
+     * The number of cells deevaluated.
+     */
+    private int deevaluatedCount;
+
+    /**
+     * The number of cells evaluated.
+     */
+    private int evaluatedCount;
+
+    /**
+     * The number of cells whose evaluation failed.
+     */
+    private int failedCount;
+
+    /**
+     * The time spent evaluating the cells, in nanoseconds.
+     */
+    private long duration;
+
+    /**
+     * The maximum propagation depth, which is the length of the longest chain of
+     * cells evaluated one after the other because of their dependencies.
+     */
+    private int maxDepth;
+
+    /**
+     * The number of cycles calculated iteratively.
+     */
+    private int cycleCount;
+
+    /**
+     * The maximum number of iterations run for a cycle.
+     */
+    private int iterationCount;
+
+    /**
+     * The maximum residual of the cycles, which is the largest change of a value
+     * during the last iteration of its cycle.
+     */
+    private double residual;
+
+    /**
+     * The number of cells reparsed at once.
+     */
+    private int reparsedCount;
+
+    /**
+     * The time spent reparsing cells at once, in nanoseconds.
+     */
+    private long parseDuration;
+
+    /**
+     * The number of formulas found in the formula cache.
+     */
+    private long cacheHitCount;
+
+    /**
+     * The number of formulas parsed because they were not in the formula cache.
+     */
+    private long cacheMissCount;
+
+    /**
+     * Constructs new empty recalculation statistics.
+     */
+    public RecalculationStatistics() {
+        deevaluatedCount = 0;
+        evaluatedCount = 0;
+        failedCount = 0;
+
+        duration = 0;
+        maxDepth = 0;
+
+        cycleCount = 0;
+        iterationCount = 0;
+        residual = 0;
+
+        reparsedCount = 0;
+        parseDuration = 0;
+
+        cacheHitCount = 0;
+        cacheMissCount = 0;
+    }
+
+    /**
+     * Returns the number of cells deevaluated.
+     * 
+     * @return The number of cells deevaluated.
+     */
+    public int getDeevaluatedCount() {
+        return deevaluatedCount;
+    }
+
+    /**
+     * Returns the number of cells evaluated.
+     * 
+     * @return The number of cells evaluated.
+     */
+    public int getEvaluatedCount() {
+        return evaluatedCount;
+    }
+
+    /**
+     * Returns the number of cells whose evaluation failed.
+     * 
+     * @return The number of cells whose evaluation failed.
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the time spent evaluating the cells.
+     * 
+     * @return The time spent evaluating the cells, in nanoseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the maximum propagation depth, which is the length of the longest
+     * chain of cells evaluated one after the other because of their dependencies.
+     * 
+     * @return The maximum propagation depth.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the number of cycles calculated iteratively.
+     * 
+     * @return The number of cycles calculated iteratively.
+     */
+    public int getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Returns the maximum number of iterations run for a cycle.
+     * 
+     * @return The maximum number of iterations run for a cycle.
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Returns the maximum residual of the cycles, which is the largest change of a
+     * value during the last iteration of its cycle. A cycle converged if its
+     * residual is within the maximum change of its storage.
+     * 
+     * @return The maximum residual of the cycles.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Returns the number of cells reparsed at once, when the parser changed.
+     * 
+     * @return The number of cells reparsed.
+     */
+    public int getReparsedCount() {
+        return reparsedCount;
+    }
+
+    /**
+     * Returns the time spent reparsing cells at once.
+     * 
+     * @return The time spent reparsing cells, in nanoseconds.
+     */
+    public long getParseDuration() {
+        return parseDuration;
+    }
+
+    /**
+     * Returns the number of formulas found in the formula cache.
+     * 
+     * @return The number of formulas found in the formula cache.
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * Returns the number of formulas parsed because they were not in the formula
+     * cache.
+     * 
+     * @return The number of formulas not in the formula cache.
+     */
+    public long getCacheMissCount() {
+        return cacheMissCount;
+    }
+
+    /**
+     * Returns whether no cell was deevaluated nor evaluated.
+     * 
+     * @return Whether the statistics are empty.
+     */
+    public boolean isEmpty() {
+        return deevaluatedCount == 0 && evaluatedCount == 0 && failedCount == 0 && reparsedCount == 0;
+    }
+
+    /**
+     * Records the deevaluation of a cell.
+     */
+    void deevaluated() {
+        deevaluatedCount++;
+    }
+
+    /**
+     * Records the evaluation of a cell.
+     * 
+     * @param evaluated Whether the cell was evaluated, or its evaluation failed.
+     * @param depth     The propagation depth of the cell.
+     */
+    void evaluated(boolean evaluated, int depth) {
+        if (evaluated)
+            evaluatedCount++;
+        else
+            failedCount++;
+
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Records the iterative calculation of a cycle.
+     * 
+     * @param iterations The number of iterations run.
+     * @param residual   The largest change of a value during the last iteration.
+     */
+    void iterated(int iterations, double residual) {
+        cycleCount++;
+
+        iterationCount = Math.max(iterationCount, iterations);
+        this.residual = Math.max(this.residual, residual);
+    }
+
+    /**
+     * Records cells reparsed at once.
+     * 
+     * @param count    The number of cells reparsed.
+     * @param duration The time spent, in nanoseconds.
+     */
+    void reparsed(int count, long duration) {
+        reparsedCount += count;
+        parseDuration += duration;
+    }
+
+    /**
+     * Records lookups of the formula cache.
+     * 
+     * @param hits   The number of formulas found in the cache.
+     * @param misses The number of formulas parsed.
+     */
+    void cached(long hits, long misses) {
+        cacheHitCount += hits;
+        cacheMissCount += misses;
+    }
+
+    /**
+     * Records time spent evaluating cells.
+     * 
+     * @param duration The time spent, in nanoseconds.
+     */
+    void addDuration(long duration) {
+        this.duration += duration;
+    }
+
+    /**
+     * Returns the string representation of the statistics.
+     * 
+     * @return The string representation of the statistics.
+     */
+    @Override
+    public String toString() {
+        String string = deevaluatedCount + " deevaluated, " + evaluatedCount + " evaluated, " + failedCount
+                + " failed in " + Math.round(duration / 1000.0) + " us, depth " + maxDepth;
+
+        if (reparsedCount > 0)
+            string += ", " + reparsedCount + " reparsed in " + Math.round(parseDuration / 1000.0) + " us";
+
+        if (cacheHitCount + cacheMissCount > 0)
+            string += ", " + Math.round(100.0 * cacheHitCount / (cacheHitCount + cacheMissCount))
+                    + "% of " + (cacheHitCount + cacheMissCount) + " formulas cached";
+
+        if (cycleCount > 0)
+            string += ", " + cycleCount + " cycles in " + iterationCount + " iterations, residual " + residual;
+
+        return string;
+    }
+}
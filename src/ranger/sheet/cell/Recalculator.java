@@ -0,0 +1,151 @@
+package ranger.sheet.cell;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Class representing a recalculator.
+ * The recalculator is responsible for evaluating the cells of a storage on a
+ * dedicated thread. The evaluation is run in small slices while holding the
+ * storage's monitor, so that modifications can be made between two slices.
+ * Each modification restarts the evaluation, and once the cells are all
+ * evaluated, their values are published at once, and the other storages of its
+ * workbook as well as the listeners of the storage are notified through the
+ * specified executor.
+ */
+public class Recalculator implements Runnable {
+    /**
+     * The number of evaluation steps run in a single slice.
+     */
+    private static final int SLICE_SIZE = 64;
+
+    /**
+     * The storage whose cells are evaluated.
+     */
+    private CellStorage storage;
+
+    /**
+     * The monitor guarding the storage when the recalculator was created.
+     */
+    private Object lock;
+
+    /**
+     * The executor used to notify the listeners of the storage.
+     */
+    private Executor notifier;
+
+    /**
+     * The thread running the evaluations.
+     */
+    private Thread thread;
+
+    /**
+     * The number of times an evaluation has been requested. It is guarded by the
+     * storage's monitor.
+     */
+    private int generation;
+
+    /**
+     * Whether the recalculator has been stopped. It is guarded by the storage's
+     * monitor.
+     */
+    private boolean stopped;
+
+    /**
+     * Constructs a new recalculator.
+     * 
+     * @param storage  The storage whose cells are evaluated.
+     * @param notifier The executor used to notify the listeners of the storage.
+     */
+    public Recalculator(CellStorage storage, Executor notifier) {
+        this.storage = storage;
+        this.notifier = notifier;
+
+        lock = storage.getLock();
+
+        thread = new Thread(this, "Recalculator");
+        thread.setDaemon(true);
+
+        generation = 0;
+        stopped = false;
+    }
+
+    /**
+     * Starts the thread of the recalculator.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the recalculator. The evaluation in progress is abandoned.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Requests an evaluation of the cells being calculated. The evaluation in
+     * progress, if any, is abandoned and restarted.
+     */
+    public void schedule() {
+        synchronized (lock) {
+            generation++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Runs the evaluations until the recalculator is stopped.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Evaluation evaluation;
+                int generation;
+
+                synchronized (lock) {
+                    while (!stopped && !storage.isCalculating())
+                        lock.wait();
+
+                    if (stopped)
+                        return;
+
+                    generation = this.generation;
+                    evaluation = new Evaluation(storage, storage.getStaleCells(), true);
+                }
+
+                while (true) {
+                    synchronized (lock) {
+                        if (stopped)
+                            return;
+
+                        if (generation != this.generation)
+                            break;
+
+                        if (storage.getCancellationToken().isCancelled()) {
+                            notifier.execute(storage::notifyListeners);
+                            break;
+                        }
+
+                        evaluation.run(SLICE_SIZE);
+
+                        if (evaluation.isDone()) {
+                            storage.publish();
+                            notifier.execute(storage::propagate);
+                            notifier.execute(storage::notifyListeners);
+                            break;
+                        }
+                    }
+
+                    Thread.yield();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ranger.sheet.cell;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+
+import ranger.data.RegionIndex;
+
+/**
+ * Class representing the dependency graph of a workbook.
+ * The graph links the storages of the sheets of a workbook by the names of the
+ * sheets, and indexes the cells referencing the cells of other sheets, so that
+ * a modification in one storage only deevaluates the cells depending on it in
+ * the others. The storages of a workbook share the monitor of its graph, so that
+ * a cell can read the cells of another storage while being evaluated, whichever
+ * thread evaluates it.
+ */
+public class WorkbookGraph {
+    /**
+     * The names of the sheets, by storage, in the order they were added.
+     */
+    private Map<CellStorage, String> names;
+
+    /**
+     * The cells referencing the cells of each sheet, by name of the referenced
+     * sheet. Each reference is registered once per dependent cell, whatever its
+     * size.
+     */
+    private Map<String, RegionIndex<Cell>> dependents;
+
+    /**
+     * The cells referencing each sheet, by name of the referenced sheet.
+     */
+    private Map<String, Set<Cell>> sheetDependents;
+
+    /**
+     * The storages whose cells have been deevaluated by another storage, and
+     * which have to process them.
+     */
+    private Set<CellStorage> changedStorages;
+
+    /**
+     * Constructs a new empty workbook graph.
+     */
+    public WorkbookGraph() {
+        names = new LinkedHashMap<CellStorage, String>();
+
+        dependents = new HashMap<String, RegionIndex<Cell>>();
+        sheetDependents = new HashMap<String, Set<Cell>>();
+
+        changedStorages = new LinkedHashSet<CellStorage>();
+    }
+
+    /**
+     * Adds the storage of a sheet to the graph. The cells referencing a sheet with
+     * the same name are evaluated again.
+     * 
+     * @param storage The storage.
+     * @param name    The name of the sheet.
+     */
+    public synchronized void add(CellStorage storage, String name) {
+        if (names.containsKey(storage))
+            throw new IllegalArgumentException("Cannot add a storage that is already in the graph.");
+
+        names.put(storage, name);
+        storage.setWorkbook(this);
+
+        invalidate(name);
+        propagate();
+    }
+
+    /**
+     * Removes the storage of a sheet from the graph. The cells referencing its
+     * sheet are evaluated again.
+     * 
+     * @param storage The storage.
+     */
+    public synchronized void remove(CellStorage storage) {
+        String name = names.remove(storage);
+        if (name == null)
+            throw new IllegalArgumentException("Cannot remove a storage that is not in the graph.");
+
+        storage.setWorkbook(null);
+        changedStorages.remove(storage);
+
+        invalidate(name);
+        propagate();
+    }
+
+    /**
+     * Renames the sheet of a storage. The cells referencing either the previous or
+     * the new name are evaluated again.
+     * 
+     * @param storage The storage.
+     * @param name    The new name of the sheet.
+     */
+    public synchronized void rename(CellStorage storage, String name) {
+        String previous = names.get(storage);
+        if (previous == null)
+            throw new IllegalArgumentException("Cannot rename a storage that is not in the graph.");
+
+        if (previous.equals(name))
+            return;
+
+        names.put(storage, name);
+
+        invalidate(previous);
+        invalidate(name);
+        propagate();
+    }
+
+    /**
+     * Returns the storage of the sheet with the specified name. If several sheets
+     * have this name, the first one added is returned.
+     * 
+     * @param name The name of the sheet.
+     * @return The storage, or null if there is no sheet with this name.
+     */
+    CellStorage getStorage(String name) {
+        for (Entry<CellStorage, String> entry : names.entrySet())
+            if (entry.getValue().equals(name))
+                return entry.getKey();
+
+        return null;
+    }
+
+    /**
+     * Registers the references of a cell to other sheets.
+     * 
+     * @param cell The cell.
+     */
+    void register(Cell cell) {
+        List<ExternalReference> references = cell.getExternalReferences();
+        if (references == null)
+            return;
+
+        for (ExternalReference reference : references) {
+            RegionIndex<Cell> index = dependents.get(reference.getSheet());
+            if (index == null) {
+                index = new RegionIndex<Cell>();
+                dependents.put(reference.getSheet(), index);
+            }
+
+            index.add(reference.getRange(), cell);
+
+            Set<Cell> cells = sheetDependents.get(reference.getSheet());
+            if (cells == null) {
+                cells = new HashSet<Cell>();
+                sheetDependents.put(reference.getSheet(), cells);
+            }
+
+            cells.add(cell);
+        }
+    }
+
+    /**
+     * Unregisters the references of a cell to other sheets.
+     * 
+     * @param cell The cell.
+     */
+    void unregister(Cell cell) {
+        List<ExternalReference> references = cell.getExternalReferences();
+        if (references == null)
+            return;
+
+        for (ExternalReference reference : references) {
+            RegionIndex<Cell> index = dependents.get(reference.getSheet());
+            if (index != null) {
+                index.remove(reference.getRange(), cell);
+                if (index.isEmpty())
+                    dependents.remove(reference.getSheet());
+            }
+
+            Set<Cell> cells = sheetDependents.get(reference.getSheet());
+            if (cells != null) {
+                cells.remove(cell);
+                if (cells.isEmpty())
+                    sheetDependents.remove(reference.getSheet());
+            }
+        }
+    }
+
+    /**
+     * Deevaluates the cells of the other storages depending on the cell at the
+     * specified coordinates, and queues them to be evaluated again.
+     * 
+     * @param storage     The storage of the cell.
+     * @param coordinates The coordinates of the cell.
+     */
+    void invalidateDependents(CellStorage storage, CellCoordinates coordinates) {
+        String name = names.get(storage);
+        if (name == null)
+            return;
+
+        RegionIndex<Cell> index = dependents.get(name);
+        if (index == null)
+            return;
+
+        for (Cell dependent : index.get(coordinates.getX(), coordinates.getY()))
+            dependent.getStorage().externalChanged(dependent.getCoordinates());
+    }
+
+    /**
+     * Queues the cells of the other storages depending on the cell at the
+     * specified coordinates that are not evaluated, as they may have been waiting
+     * for the cell to be evaluated.
+     * 
+     * @param storage     The storage of the cell.
+     * @param coordinates The coordinates of the cell.
+     */
+    void queueDependents(CellStorage storage, CellCoordinates coordinates) {
+        String name = names.get(storage);
+        if (name == null)
+            return;
+
+        RegionIndex<Cell> index = dependents.get(name);
+        if (index == null)
+            return;
+
+        for (Cell dependent : index.get(coordinates.getX(), coordinates.getY()))
+            if (!dependent.isEvaluated())
+                dependent.getStorage().externalChanged(dependent.getCoordinates());
+    }
+
+    /**
+     * Deevaluates the cells referencing the sheet with the specified name, and
+     * queues them to be evaluated again.
+     * 
+     * @param name The name of the sheet.
+     */
+    private void invalidate(String name) {
+        Set<Cell> cells = sheetDependents.get(name);
+        if (cells == null)
+            return;
+
+        for (Cell dependent : new ArrayList<Cell>(cells))
+            dependent.getStorage().externalChanged(dependent.getCoordinates());
+    }
+
+    /**
+     * Marks a storage as having cells deevaluated by another storage.
+     * 
+     * @param storage The storage.
+     */
+    void changed(CellStorage storage) {
+        changedStorages.add(storage);
+    }
+
+    /**
+     * Lets the storages whose cells have been deevaluated or queued by another
+     * storage process them, according to their calculation modes.
+     */
+    void propagate() {
+        while (!changedStorages.isEmpty()) {
+            CellStorage storage = changedStorages.iterator().next();
+            changedStorages.remove(storage);
+
+            storage.contentChanged();
+        }
+    }
+}
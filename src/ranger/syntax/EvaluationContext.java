@@ -1,7 +1,10 @@
 package ranger.syntax;
 
+import ranger.function.Aggregator;
 import ranger.function.Function;
+import ranger.function.FunctionRegistrar;
 import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
 
 /**
  * Interface representing an evaluation context.
@@ -15,6 +18,16 @@ public interface EvaluationContext {
      */
     public Function getFunction(String name);
 
+    /**
+     * Returns the function registrar the functions are resolved with. Programs
+     * whose functions were bound with the same registrar call them without
+     * resolving them again.
+     * 
+     * @return The function registrar, or null if the functions are resolved in
+     *         another way.
+     */
+    public FunctionRegistrar getFunctionRegistrar();
+
     /**
      * Returns the value of the cell with the specified coordinates.
      * 
@@ -22,4 +35,56 @@ public interface EvaluationContext {
      * @return The value.
      */
     public double getValue(CellCoordinates coordinates);
+
+    /**
+     * Returns the value of the cell bound to the specified reference slot. Contexts
+     * without bound cells resolve the specified coordinates instead.
+     * 
+     * @param slot        The reference slot.
+     * @param coordinates The coordinates of the referenced cell.
+     * @return The value.
+     */
+    public double getValue(int slot, CellCoordinates coordinates);
+
+    /**
+     * Returns the value of the cell with the specified coordinates on the sheet
+     * with the specified name.
+     * 
+     * @param sheet       The name of the sheet.
+     * @param coordinates The coordinates.
+     * @return The value.
+     * @throws IllegalArgumentException If there is no sheet with this name.
+     */
+    public double getValue(String sheet, CellCoordinates coordinates);
+
+    /**
+     * Returns the values of the cells in the specified range. Only the cells
+     * holding a number or a formula have a value, the other cells are skipped.
+     * 
+     * @param range The range.
+     * @return The values.
+     */
+    public double[] getValues(CellRange range);
+
+    /**
+     * Returns the values of the cells in the specified range on the sheet with the
+     * specified name. Only the cells holding a number or a formula have a value.
+     * 
+     * @param sheet The name of the sheet.
+     * @param range The range.
+     * @return The values.
+     * @throws IllegalArgumentException If there is no sheet with this name.
+     */
+    public double[] getValues(String sheet, CellRange range);
+
+    /**
+     * Returns the aggregator of the specified function over the values of the
+     * cells in the specified range, kept up to date as the cells change.
+     * 
+     * @param range    The range.
+     * @param function The function.
+     * @return The aggregator, or null if the context does not maintain one, in
+     *         which case the values of the range are read instead.
+     */
+    public Aggregator getAggregator(CellRange range, Function function);
 }
@@ -0,0 +1,255 @@
+package ranger.syntax;
+
+import ranger.function.EvaluationError;
+import ranger.function.Function;
+import ranger.function.FunctionRegistrar;
+import ranger.function.standard.PowFunction;
+import ranger.operator.Operator;
+import ranger.syntax.node.ExpressionNode;
+import ranger.syntax.node.FunctionNode;
+import ranger.syntax.node.NumberNode;
+import ranger.syntax.node.OperatorNode;
+import ranger.syntax.node.RangeNode;
+import ranger.syntax.node.ReferenceNode;
+import ranger.syntax.node.SyntaxNode;
+
+/**
+ * Class simplifying parsed syntax trees before they are bound and compiled.
+ * Operators and functions whose operands are all constants are replaced by
+ * their result, unless the function is volatile or the evaluation fails, in
+ * which case the failure is left for the evaluation to report. Multiplying or
+ * dividing by one, and subtracting zero, are removed. Adding zero is kept, as
+ * it turns a negative zero into a positive one. A cell raised to a small
+ * integer power is multiplied by itself instead.
+ */
+public class ExpressionOptimizer {
+    /**
+     * The largest integer exponent turned into a chain of multiplications.
+     */
+    private static final int MAXIMUM_EXPONENT = 4;
+
+    /**
+     * The function registrar used to resolve functions, or null if functions are
+     * not folded.
+     */
+    private final FunctionRegistrar functionRegistrar;
+
+    /**
+     * Constructs a new expression optimizer.
+     * 
+     * @param functionRegistrar The function registrar used to resolve functions,
+     *                          or null to leave the functions as they are.
+     */
+    public ExpressionOptimizer(FunctionRegistrar functionRegistrar) {
+        this.functionRegistrar = functionRegistrar;
+    }
+
+    /**
+     * Optimizes the specified node. This is a recursive method.
+     * 
+     * @param node The node.
+     * @return The optimized node, which may be the node itself.
+     */
+    public SyntaxNode optimize(SyntaxNode node) {
+        if (node == null || node.isLeaf())
+            return node;
+
+        SyntaxNode[] children = null;
+
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            SyntaxNode child = node.getChild(i);
+            SyntaxNode optimized = optimize(child);
+
+            if (optimized != child) {
+                if (children == null)
+                    children = node.getChildren();
+
+                children[i] = optimized;
+            }
+        }
+
+        if (children != null)
+            node = node.withChildren(children);
+
+        if (node instanceof ExpressionNode)
+            return optimizeExpression((ExpressionNode) node);
+
+        if (node instanceof OperatorNode)
+            return optimizeOperator((OperatorNode) node);
+
+        if (node instanceof FunctionNode)
+            return optimizeFunction((FunctionNode) node);
+
+        return node;
+    }
+
+    /**
+     * Optimizes a parenthesized expression. A parenthesized constant is the
+     * constant itself.
+     * 
+     * @param node The expression node.
+     * @return The optimized node.
+     */
+    private SyntaxNode optimizeExpression(ExpressionNode node) {
+        if (node.getChildrenCount() == 1 && node.getChild(0) instanceof NumberNode)
+            return node.getChild(0);
+
+        return node;
+    }
+
+    /**
+     * Optimizes an operator node whose operands are already optimized.
+     * 
+     * @param node The operator node.
+     * @return The optimized node.
+     */
+    private SyntaxNode optimizeOperator(OperatorNode node) {
+        if (node.getChildrenCount() != 2)
+            return node;
+
+        SyntaxNode left = node.getChild(0);
+        SyntaxNode right = node.getChild(1);
+
+        if (left == null && right == null)
+            return node;
+
+        if ((left == null || left instanceof NumberNode) && (right == null || right instanceof NumberNode))
+            return fold(node);
+
+        if (left == null || right == null)
+            return node;
+
+        switch (node.getOperator()) {
+            case MULTIPLICATION:
+                if (isConstant(right, 1) && !isRange(left))
+                    return left;
+                if (isConstant(left, 1) && !isRange(right))
+                    return right;
+                break;
+            case DIVISION:
+                if (isConstant(right, 1) && !isRange(left))
+                    return left;
+                break;
+
+            case SUBTRACTION:
+                if (isConstant(right, 0) && !isRange(left))
+                    return left;
+                break;
+
+            case POWER_PRIMARY:
+            case POWER_SECONDARY:
+                return power(node, left, right);
+
+            default:
+                break;
+        }
+
+        return node;
+    }
+
+    /**
+     * Optimizes a function node whose arguments are already optimized.
+     * 
+     * @param node The function node.
+     * @return The optimized node.
+     */
+    private SyntaxNode optimizeFunction(FunctionNode node) {
+        if (functionRegistrar == null)
+            return node;
+
+        Function function = functionRegistrar.get(node.getName());
+        if (function == null || function.isVolatile())
+            return node;
+
+        double[] arguments = new double[node.getChildrenCount()];
+
+        for (int i = 0; i < arguments.length; i++) {
+            if (!(node.getChild(i) instanceof NumberNode)) {
+                if (function instanceof PowFunction && arguments.length == 2)
+                    return power(node, node.getChild(0), node.getChild(1));
+
+                return node;
+            }
+
+            arguments[i] = ((NumberNode) node.getChild(i)).getValue();
+        }
+
+        try {
+            double result = function.evaluate(arguments);
+
+            return EvaluationError.isError(result) ? node : new NumberNode(result);
+        } catch (RuntimeException e) {
+            return node;
+        }
+    }
+
+    /**
+     * Optimizes a power whose operands are not both constants. A cell raised to a
+     * small positive integer is multiplied by itself.
+     * 
+     * @param node     The operator or function node computing the power.
+     * @param base     The base.
+     * @param exponent The exponent.
+     * @return The optimized node.
+     */
+    private SyntaxNode power(SyntaxNode node, SyntaxNode base, SyntaxNode exponent) {
+        if (!(base instanceof ReferenceNode) || !(exponent instanceof NumberNode))
+            return node;
+
+        double value = ((NumberNode) exponent).getValue();
+        if (value != Math.rint(value) || value < 1 || value > MAXIMUM_EXPONENT)
+            return node;
+
+        ReferenceNode reference = (ReferenceNode) base;
+        SyntaxNode product = reference;
+
+        for (int i = 1; i < value; i++)
+            product = new OperatorNode(Operator.MULTIPLICATION, product,
+                    new ReferenceNode(reference.getSheet(), reference.getCoordinates()));
+
+        return product;
+    }
+
+    /**
+     * Replaces an operator node whose operands are all constants by its result.
+     * 
+     * @param node The operator node.
+     * @return The constant result, or the node itself if its evaluation fails.
+     */
+    private SyntaxNode fold(OperatorNode node) {
+        try {
+            double result = node.evaluate(null);
+
+            return EvaluationError.isError(result) ? node : new NumberNode(result);
+        } catch (RuntimeException e) {
+            return node;
+        }
+    }
+
+    /**
+     * Returns whether a node is the specified constant. Zero and negative zero
+     * are different constants, as subtracting negative zero is adding zero.
+     * 
+     * @param node  The node.
+     * @param value The constant.
+     * @return Whether the node is the constant.
+     */
+    private static boolean isConstant(SyntaxNode node, double value) {
+        return node instanceof NumberNode && Double.compare(((NumberNode) node).getValue(), value) == 0;
+    }
+
+    /**
+     * Returns whether a node is a range, possibly parenthesized. Removing the
+     * operator applied to a range would turn it into a function argument
+     * expanded into its cells.
+     * 
+     * @param node The node.
+     * @return Whether the node is a range.
+     */
+    private static boolean isRange(SyntaxNode node) {
+        while (node instanceof ExpressionNode && node.getChildrenCount() == 1)
+            node = node.getChild(0);
+
+        return node instanceof RangeNode;
+    }
+}
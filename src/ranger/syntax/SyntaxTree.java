@@ -1,13 +1,26 @@
 package ranger.syntax;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import ranger.function.EvaluationError;
+import ranger.function.Function;
+import ranger.function.FunctionRegistrar;
 import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
+import ranger.sheet.cell.ExternalReference;
 import ranger.syntax.node.ExpressionNode;
+import ranger.syntax.node.FunctionNode;
+import ranger.syntax.node.RangeNode;
 import ranger.syntax.node.ReferenceNode;
 import ranger.syntax.node.SyntaxNode;
 import ranger.syntax.parser.ExpressionParser;
+import ranger.syntax.program.Program;
+import ranger.syntax.program.ProgramCompiler;
 
 /**
  * Class representing a syntax tree.
@@ -16,22 +29,133 @@ public class SyntaxTree {
     /**
      * The root node of the syntax tree.
      */
-    private SyntaxNode root;
+    private final SyntaxNode root;
 
     /**
-     * Constructs a new syntax tree.
+     * The coordinates of the referenced cells, indexed by reference slot.
+     */
+    private final List<CellCoordinates> slots;
+
+    /**
+     * The program the syntax tree is compiled into, or null if the tree has a
+     * shape the compiler leaves to the tree interpreter.
+     */
+    private Program program;
+
+    /**
+     * Constructs a new syntax tree, without folding its functions.
      * 
      * @param root             The root node of the syntax tree.
      * @param expressionParser The expression parser.
      */
     public SyntaxTree(SyntaxNode root, ExpressionParser expressionParser) {
-        this.root = root;
+        this(root, expressionParser, null);
+    }
+
+    /**
+     * Constructs a new syntax tree. Once parsed, the tree is optimized, its
+     * constant subexpressions being folded, before being bound and compiled.
+     * 
+     * @param root              The root node of the syntax tree.
+     * @param expressionParser  The expression parser.
+     * @param functionRegistrar The function registrar used to fold the calls to
+     *                          functions that are not volatile and to bind the
+     *                          called functions, or null to leave the calls as
+     *                          they are.
+     */
+    public SyntaxTree(SyntaxNode root, ExpressionParser expressionParser, FunctionRegistrar functionRegistrar) {
+        SyntaxNode optimized = new ExpressionOptimizer(functionRegistrar).optimize(parse(root, expressionParser));
+
+        slots = new ArrayList<CellCoordinates>();
+        this.root = bind(optimized, new HashMap<CellCoordinates, Integer>());
+
+        compile(functionRegistrar);
+    }
 
-        parse(root, expressionParser);
+    /**
+     * Compiles the syntax tree into a program. Trees the compiler rejects are
+     * evaluated by walking their nodes, which fails the same way.
+     * 
+     * @param functionRegistrar The function registrar the called functions are
+     *                          bound with, or null to resolve them by name.
+     */
+    private void compile(FunctionRegistrar functionRegistrar) {
+        try {
+            program = ProgramCompiler.compile(root, functionRegistrar);
+        } catch (IllegalStateException e) {
+            program = null;
+        }
     }
 
     /**
-     * Returns a set of cell coordinates that are referenced by this syntax tree.
+     * Returns the program the syntax tree is compiled into.
+     * 
+     * @return The program, or null if the syntax tree is evaluated by walking its
+     *         nodes.
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the coordinates of the cells referenced by this syntax tree, indexed
+     * by reference slot. Every reference node referencing the same cell shares the
+     * same slot. References to other sheets have no slot.
+     * 
+     * @return The coordinates of the referenced cells, indexed by reference slot.
+     */
+    public List<CellCoordinates> getSlots() {
+        return new ArrayList<CellCoordinates>(slots);
+    }
+
+    /**
+     * Assigns a reference slot to the reference nodes of the specified node. This
+     * is a recursive method.
+     * 
+     * @param node    The node.
+     * @param indices The slots already assigned, by coordinates.
+     * @return The node with its reference nodes bound.
+     */
+    private SyntaxNode bind(SyntaxNode node, Map<CellCoordinates, Integer> indices) {
+        if (node == null)
+            return null;
+
+        if (node instanceof ReferenceNode && ((ReferenceNode) node).getSheet() == null) {
+            ReferenceNode reference = (ReferenceNode) node;
+
+            Integer slot = indices.get(reference.getCoordinates());
+            if (slot == null) {
+                slot = slots.size();
+                slots.add(reference.getCoordinates());
+                indices.put(reference.getCoordinates(), slot);
+            }
+
+            return reference.withSlot(slot);
+        }
+
+        if (node.isLeaf())
+            return node;
+
+        SyntaxNode[] children = null;
+
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            SyntaxNode child = node.getChild(i);
+            SyntaxNode bound = bind(child, indices);
+
+            if (bound != child) {
+                if (children == null)
+                    children = node.getChildren();
+
+                children[i] = bound;
+            }
+        }
+
+        return children != null ? node.withChildren(children) : node;
+    }
+
+    /**
+     * Returns a set of cell coordinates that are referenced by this syntax tree on
+     * the sheet of the expression.
      * 
      * @return A set of cell coordinates that are referenced by this syntax tree.
      */
@@ -51,7 +175,7 @@ public class SyntaxTree {
      * @param references The set of cell coordinates.
      */
     private void getReferences(SyntaxNode node, Set<CellCoordinates> references) {
-        if (node instanceof ReferenceNode)
+        if (node instanceof ReferenceNode && ((ReferenceNode) node).getSheet() == null)
             references.add(((ReferenceNode) node).getCoordinates());
 
         if (node == null || node.isLeaf())
@@ -62,33 +186,171 @@ public class SyntaxTree {
     }
 
     /**
-     * Parses the specified node using the specified expression parser.
-     * This is a recursive method.
+     * Returns the ranges of cells that are referenced by this syntax tree on the
+     * sheet of the expression, each range being listed once.
+     * 
+     * @return The ranges of cells that are referenced by this syntax tree.
+     */
+    public List<CellRange> getRanges() {
+        List<CellRange> ranges = new ArrayList<CellRange>();
+
+        getRanges(root, ranges);
+
+        return ranges;
+    }
+
+    /**
+     * Adds the ranges of cells that are referenced by the specified node to the
+     * specified list. This is a recursive method.
+     * 
+     * @param node   The node.
+     * @param ranges The list of ranges.
+     */
+    private void getRanges(SyntaxNode node, List<CellRange> ranges) {
+        if (node instanceof RangeNode && ((RangeNode) node).getSheet() == null
+                && !ranges.contains(((RangeNode) node).getRange()))
+            ranges.add(((RangeNode) node).getRange());
+
+        if (node == null || node.isLeaf())
+            return;
+
+        for (int i = 0; i < node.getChildrenCount(); i++)
+            getRanges(node.getChild(i), ranges);
+    }
+
+    /**
+     * Returns the cells and ranges of cells of other sheets that are referenced by
+     * this syntax tree, each reference being listed once.
+     * 
+     * @return The references to other sheets.
+     */
+    public List<ExternalReference> getExternalReferences() {
+        List<ExternalReference> references = new ArrayList<ExternalReference>();
+
+        getExternalReferences(root, references);
+
+        return references;
+    }
+
+    /**
+     * Adds the references to other sheets of the specified node to the specified
+     * list. This is a recursive method.
+     * 
+     * @param node       The node.
+     * @param references The list of references.
+     */
+    private void getExternalReferences(SyntaxNode node, List<ExternalReference> references) {
+        ExternalReference reference = null;
+
+        if (node instanceof ReferenceNode && ((ReferenceNode) node).getSheet() != null) {
+            CellCoordinates coordinates = ((ReferenceNode) node).getCoordinates();
+
+            reference = new ExternalReference(((ReferenceNode) node).getSheet(),
+                    new CellRange(coordinates, coordinates));
+        } else if (node instanceof RangeNode && ((RangeNode) node).getSheet() != null)
+            reference = new ExternalReference(((RangeNode) node).getSheet(), ((RangeNode) node).getRange());
+
+        if (reference != null && !references.contains(reference))
+            references.add(reference);
+
+        if (node == null || node.isLeaf())
+            return;
+
+        for (int i = 0; i < node.getChildrenCount(); i++)
+            getExternalReferences(node.getChild(i), references);
+    }
+
+    /**
+     * Returns whether this syntax tree calls a volatile function, meaning that its
+     * result can change without any of its references changing.
+     * 
+     * @param functionRegistrar The function registrar used to resolve functions.
+     * @return Whether this syntax tree calls a volatile function.
+     */
+    public boolean isVolatile(FunctionRegistrar functionRegistrar) {
+        return isVolatile(root, functionRegistrar);
+    }
+
+    /**
+     * Returns whether the specified node calls a volatile function. This is a
+     * recursive method.
+     * 
+     * @param node              The node.
+     * @param functionRegistrar The function registrar used to resolve functions.
+     * @return Whether the specified node calls a volatile function.
+     */
+    private boolean isVolatile(SyntaxNode node, FunctionRegistrar functionRegistrar) {
+        if (node == null)
+            return false;
+
+        if (node instanceof FunctionNode) {
+            Function function = functionRegistrar.get(((FunctionNode) node).getName());
+            if (function != null && function.isVolatile())
+                return true;
+        }
+
+        if (node.isLeaf())
+            return false;
+
+        for (int i = 0; i < node.getChildrenCount(); i++)
+            if (isVolatile(node.getChild(i), functionRegistrar))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Parses the specified node using the specified expression parser, each
+     * expression node being replaced by an expression node holding the root of
+     * its group. This is a recursive method.
      * 
      * @param node             The node.
      * @param expressionParser The expression parser.
+     * @return The parsed node.
      */
-    private void parse(SyntaxNode node, ExpressionParser expressionParser) {
-        if (!node.isLeaf())
-            for (int i = 0; i < node.getChildrenCount(); i++)
-                parse(node.getChild(i), expressionParser);
+    private SyntaxNode parse(SyntaxNode node, ExpressionParser expressionParser) {
+        if (node == null || node.isLeaf())
+            return node;
+
+        SyntaxNode[] children = null;
+
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            SyntaxNode child = node.getChild(i);
+            SyntaxNode parsed = parse(child, expressionParser);
+
+            if (parsed != child) {
+                if (children == null)
+                    children = node.getChildren();
+
+                children[i] = parsed;
+            }
+        }
+
+        if (children != null)
+            node = node.withChildren(children);
 
         if (node instanceof ExpressionNode)
-            expressionParser.parse((ExpressionNode) node);
+            return new ExpressionNode(new SyntaxNode[] { expressionParser.parse((ExpressionNode) node) });
+
+        return node;
     }
 
     /**
-     * Evaluates the syntax tree using the specified evaluation context.
+     * Evaluates the syntax tree using the specified evaluation context. The
+     * compiled program is executed if there is one, otherwise the nodes are
+     * walked.
      * 
      * @param context The evaluation context.
-     * @return The result of the evaluation.
+     * @return The result of the evaluation, or an evaluation error if it failed,
+     *         which can be read with {@link EvaluationError#get(double)}. A result
+     *         that is NaN or infinite without being an error is also an error.
      */
     public double evaluate(EvaluationContext context) {
-        double result = root.evaluate(context);
+        double result = program != null ? program.execute(context) : root.evaluate(context);
         if (Double.isNaN(result))
-            throw new ArithmeticException("Expression resulted in NaN.");
+            return EvaluationError.get(result) != null ? result : EvaluationError.NOT_A_NUMBER.getValue();
         if (Double.isInfinite(result))
-            throw new ArithmeticException("Expression resulted in infinity.");
+            return EvaluationError.INFINITY.getValue();
         return result;
     }
 }
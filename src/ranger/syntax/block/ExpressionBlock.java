@@ -1,12 +1,12 @@
 package ranger.syntax.block;
 
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
 
-import ranger.Utils;
 import ranger.syntax.Delimiter;
 import ranger.syntax.SyntaxException;
 import ranger.syntax.node.*;
-import ranger.syntax.token.*;
+import ranger.syntax.token.TokenStream;
 
 /**
  * Class reprensenting a expression block of tokens.
@@ -27,67 +27,70 @@ public class ExpressionBlock {
      * @param tokens The tokens to parse.
      * @return The root node of the expression block.
      */
-    public static SyntaxNode getRoot(Queue<Token> tokens) {
-        ExpressionNode root = new ExpressionNode();
+    public static SyntaxNode getRoot(TokenStream tokens) {
+        List<SyntaxNode> children = new ArrayList<SyntaxNode>();
 
         while (!tokens.isEmpty()) {
-            Token token = tokens.peek();
+            int token = tokens.peek();
 
-            if (token instanceof OperatorToken) {
-                root.addChild(new OperatorNode((OperatorToken) tokens.poll()));
-                continue;
-            }
+            switch (tokens.getType(token)) {
+                case OPERATOR:
+                    children.add(new OperatorNode(tokens.getOperator(tokens.next())));
+                    continue;
 
-            if (token instanceof NumberToken) {
-                root.addChild(new NumberNode((NumberToken) tokens.poll()));
-                continue;
-            }
+                case NUMBER:
+                    children.add(new NumberNode(tokens.getNumber(tokens.next())));
+                    continue;
 
-            if (token instanceof ReferenceToken) {
-                root.addChild(new ReferenceNode((ReferenceToken) tokens.poll()));
-                continue;
-            }
+                case REFERENCE:
+                    children.add(new ReferenceNode(tokens.getSheet(token), tokens.getCoordinates(tokens.next())));
+                    continue;
 
-            if (token instanceof FunctionToken) {
-                tokens.remove(); // Consume the function token
+                case RANGE:
+                    children.add(new RangeNode(tokens.getSheet(token), tokens.getRange(tokens.next())));
+                    continue;
 
-                if (!Utils.isNextDelimiter(tokens, Delimiter.OPEN))
-                    throw new SyntaxException("Missing opening parenthesis after function call.");
+                case FUNCTION:
+                    tokens.next(); // Consume the function token
 
-                tokens.remove(); // Consume the open token
+                    if (!tokens.isNextDelimiter(Delimiter.OPEN))
+                        throw new SyntaxException("Missing opening parenthesis after function call.");
 
-                root.addChild(FunctionBlock.getRoot(((FunctionToken) token).getName(), tokens));
+                    tokens.next(); // Consume the open token
 
-                if (!Utils.isNextDelimiter(tokens, Delimiter.CLOSE))
-                    throw new SyntaxException("Missing closing parenthesis after function arguments.");
+                    children.add(FunctionBlock.getRoot(tokens.getName(token), tokens));
 
-                tokens.remove(); // Consume the close token
-                continue;
+                    if (!tokens.isNextDelimiter(Delimiter.CLOSE))
+                        throw new SyntaxException("Missing closing parenthesis after function arguments.");
+
+                    tokens.next(); // Consume the close token
+                    continue;
+
+                default:
+                    break;
             }
 
-            if (token instanceof DelimiterToken && ((DelimiterToken) token).getDelimiter() == Delimiter.OPEN) {
-                tokens.remove(); // Consume the open token
+            if (tokens.isNextDelimiter(Delimiter.OPEN)) {
+                tokens.next(); // Consume the open token
 
-                root.addChild(ExpressionBlock.getRoot(tokens));
+                children.add(ExpressionBlock.getRoot(tokens));
 
-                if (!Utils.isNextDelimiter(tokens, Delimiter.CLOSE))
+                if (!tokens.isNextDelimiter(Delimiter.CLOSE))
                     throw new SyntaxException("Missing closing parenthesis after expression.");
 
-                tokens.remove(); // Consume the close token
+                tokens.next(); // Consume the close token
                 continue;
             }
 
-            if (token instanceof DelimiterToken
-                    && ((DelimiterToken) token).getDelimiter() == Delimiter.CLOSE
-                    || ((DelimiterToken) token).getDelimiter() == Delimiter.SEPARATOR)
+            if (tokens.isNextDelimiter(Delimiter.CLOSE) || tokens.isNextDelimiter(Delimiter.SEPARATOR))
                 break;
 
-            throw new SyntaxException("Unexpected token '" + token + "' in expression.");
+            throw new SyntaxException("Unexpected token '" + tokens.getText(token) + "' in expression.");
         }
 
-        if (root.getChildrenCount() == 0)
+        if (children.isEmpty())
             throw new SyntaxException("Premature end of expression.");
 
-        return root;
+        return new ExpressionNode(children.toArray(new SyntaxNode[children.size()]));
     }
 }
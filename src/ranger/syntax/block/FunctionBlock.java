@@ -1,12 +1,12 @@
 package ranger.syntax.block;
 
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
 
-import ranger.Utils;
 import ranger.syntax.Delimiter;
 import ranger.syntax.node.FunctionNode;
 import ranger.syntax.node.SyntaxNode;
-import ranger.syntax.token.Token;
+import ranger.syntax.token.TokenStream;
 
 /**
  * Class reprensenting a function block of tokens.
@@ -28,22 +28,22 @@ public class FunctionBlock {
      * @param tokens The tokens to parse.
      * @return The root node of the function block.
      */
-    public static SyntaxNode getRoot(String name, Queue<Token> tokens) {
-        FunctionNode root = new FunctionNode(name);
+    public static SyntaxNode getRoot(String name, TokenStream tokens) {
+        List<SyntaxNode> arguments = new ArrayList<SyntaxNode>();
 
         while (!tokens.isEmpty()) {
-            if (Utils.isNextDelimiter(tokens, Delimiter.CLOSE))
+            if (tokens.isNextDelimiter(Delimiter.CLOSE))
                 break;
 
-            if (Utils.isNextDelimiter(tokens, Delimiter.SEPARATOR))
+            if (tokens.isNextDelimiter(Delimiter.SEPARATOR))
                 throw new RuntimeException("Empty function argument.");
 
-            root.addChild(ExpressionBlock.getRoot(tokens));
+            arguments.add(ExpressionBlock.getRoot(tokens));
 
-            if (Utils.isNextDelimiter(tokens, Delimiter.SEPARATOR)) {
-                tokens.remove(); // Consume the separator token
+            if (tokens.isNextDelimiter(Delimiter.SEPARATOR)) {
+                tokens.next(); // Consume the separator token
 
-                if (Utils.isNextDelimiter(tokens, Delimiter.CLOSE))
+                if (tokens.isNextDelimiter(Delimiter.CLOSE))
                     throw new RuntimeException("Empty function argument.");
 
                 continue;
@@ -51,6 +51,6 @@ public class FunctionBlock {
 
         }
 
-        return root;
+        return new FunctionNode(name, arguments.toArray(new SyntaxNode[arguments.size()]));
     }
 }
@@ -1,14 +1,22 @@
 package ranger.syntax.lexer;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
-
 import ranger.Utils;
-import ranger.syntax.lexer.sublexers.*;
-import ranger.syntax.token.Token;
+import ranger.function.Function;
+import ranger.operator.Operator;
+import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
+import ranger.sheet.cell.ExternalReference;
+import ranger.syntax.Delimiter;
+import ranger.syntax.token.TokenStream;
 
 /**
  * Class reprensenting a lexer.
+ * <p>
+ * The expression is read in a single pass. The class of each ASCII character is
+ * looked up in a table to decide which kind of token starts with it: numbers are
+ * parsed in place, operators and delimiters are matched through tries, and the
+ * other characters start either a function name or a reference, whose
+ * coordinates are parsed without copying them.
  */
 public class Lexer {
 
@@ -19,14 +27,54 @@ public class Lexer {
     }
 
     /**
-     * The sublexers to use to find tokens.
+     * The class of the whitespaces, which are skipped.
+     */
+    private static final byte WHITESPACE = 0;
+
+    /**
+     * The class of the digits and of the decimal point, which start a number.
+     */
+    private static final byte NUMBER = 1;
+
+    /**
+     * The class of the characters starting an operator or a delimiter.
+     */
+    private static final byte SYMBOL = 2;
+
+    /**
+     * The class of the other characters, which can start a function name, a
+     * sheet name or a reference.
+     */
+    private static final byte WORD = 3;
+
+    /**
+     * The classes of the ASCII characters. The other characters are classified
+     * as they are read.
+     */
+    private static final byte[] CLASSES = getClasses();
+
+    /**
+     * The operators, by symbol.
+     */
+    private static final SymbolTrie<Operator> OPERATORS = getOperators();
+
+    /**
+     * The delimiters, by symbol.
+     */
+    private static final SymbolTrie<Delimiter> DELIMITERS = getDelimiters();
+
+    /**
+     * The largest number of significant digits of a number parsed without
+     * rounding errors, its digits fitting exactly in the mantissa of a double.
      */
-    private static final Sublexer[] SUBLEXERS = new Sublexer[] {
-            new NumberSublexer(),
-            new OperatorSublexer(),
-            new DelimiterSublexer(),
-            new FunctionSublexer(),
-            new ReferenceSublexer(),
+    private static final int MAXIMUM_EXACT_DIGITS = 15;
+
+    /**
+     * The powers of ten that are exactly represented by a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
     };
 
     /**
@@ -35,25 +83,319 @@ public class Lexer {
      * @param expression The expression to get the tokens in.
      * @return The tokens in the given expression.
      */
-    public static Queue<Token> getTokens(String expression) {
-        Queue<Token> tokens = new ArrayDeque<Token>();
+    public static TokenStream getTokens(String expression) {
+        TokenStream tokens = new TokenStream();
 
-        int consumed = 0;
+        int offset = 0;
 
-        for (int offset = 0; offset < expression.length(); offset += consumed) {
-            consumed = Utils.skipWhitespaces(expression, offset);
-            if (consumed > 0)
-                continue;
+        while (offset < expression.length()) {
+            char character = expression.charAt(offset);
+            int end = offset;
 
-            for (Sublexer sublexer : SUBLEXERS)
-                if ((consumed = sublexer.tryFindToken(expression, offset, tokens)) > 0)
+            switch (getClass(character)) {
+                case WHITESPACE:
+                    end = offset + 1;
+                    break;
+                case NUMBER:
+                    end = readNumber(expression, offset, tokens);
                     break;
+                case SYMBOL:
+                    end = readSymbol(expression, offset, tokens);
+                    break;
+                default:
+                    end = readWord(expression, offset, tokens);
+                    break;
+            }
 
-            if (consumed == 0)
-                throw new IllegalArgumentException(
-                        "Unexpected character '" + expression.charAt(offset) + "' at index " + offset);
+            if (end == offset)
+                throw new IllegalArgumentException("Unexpected character '" + character + "' at index " + offset);
+
+            offset = end;
         }
 
         return tokens;
     }
+
+    /**
+     * Returns the class of a character.
+     * 
+     * @param character The character.
+     * @return The class of the character.
+     */
+    private static byte getClass(char character) {
+        if (character < CLASSES.length)
+            return CLASSES[character];
+
+        return Character.isDigit(character) ? NUMBER : WORD;
+    }
+
+    /**
+     * Reads a number, made of digits and of a decimal point. Numbers with few
+     * enough digits are computed directly from their digits, as their digits and
+     * the power of ten dividing them are both exact, while the others are left to
+     * the standard parsing.
+     * 
+     * @param input  The input.
+     * @param start  The index of the number.
+     * @param tokens The tokens to add the number to.
+     * @return The index following the number.
+     * @throws IllegalStateException If the number is not valid.
+     */
+    private static int readNumber(String input, int start, TokenStream tokens) {
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean point = false;
+        boolean exact = true;
+
+        int end = start;
+
+        for (; end < input.length(); end++) {
+            char character = input.charAt(end);
+
+            if (character == '.') {
+                exact &= !point;
+                point = true;
+            } else if (character >= '0' && character <= '9') {
+                mantissa = mantissa * 10 + (character - '0');
+                digits++;
+
+                if (point)
+                    decimals++;
+
+                exact &= digits <= MAXIMUM_EXACT_DIGITS;
+            } else if (Character.isDigit(character))
+                exact = false;
+            else
+                break;
+        }
+
+        if (exact && digits > 0) {
+            tokens.addNumber(mantissa / POWERS_OF_TEN[decimals]);
+            return end;
+        }
+
+        String number = input.substring(start, end);
+
+        try {
+            tokens.addNumber(Double.parseDouble(number));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Number '" + number + "' is not valid.");
+        }
+
+        return end;
+    }
+
+    /**
+     * Reads an operator or a delimiter, the longest operator being preferred.
+     * 
+     * @param input  The input.
+     * @param start  The index of the symbol.
+     * @param tokens The tokens to add the symbol to.
+     * @return The index following the symbol, or the start if there is none.
+     */
+    private static int readSymbol(String input, int start, TokenStream tokens) {
+        int length = OPERATORS.match(input, start);
+        if (length > 0) {
+            tokens.addOperator(OPERATORS.get(input, start, length));
+            return start + length;
+        }
+
+        length = DELIMITERS.match(input, start);
+        if (length > 0) {
+            tokens.addDelimiter(DELIMITERS.get(input, start, length));
+            return start + length;
+        }
+
+        return start;
+    }
+
+    /**
+     * Reads a function name followed by its opening parenthesis, or else a
+     * reference or a range.
+     * 
+     * @param input  The input.
+     * @param start  The index of the word.
+     * @param tokens The tokens to add the token to.
+     * @return The index following the token, or the start if there is none.
+     */
+    private static int readWord(String input, int start, TokenStream tokens) {
+        int end = start;
+
+        while (end < input.length() && Function.isSupportedCharacter(input.charAt(end)))
+            end++;
+
+        if (end > start && Utils.getNextChar(input, end) == '(') {
+            tokens.addFunction(input.substring(start, end));
+            return end;
+        }
+
+        return readReference(input, start, tokens);
+    }
+
+    /**
+     * Reads a reference, or a range if the reference is followed by a range
+     * separator and another reference. Both can be prefixed by the name of
+     * another sheet and a sheet separator.
+     * 
+     * @param input  The input.
+     * @param start  The index of the reference.
+     * @param tokens The tokens to add the reference to.
+     * @return The index following the reference, or the start if there is none.
+     */
+    private static int readReference(String input, int start, TokenStream tokens) {
+        String sheet = null;
+        int offset = start;
+
+        int sheetEnd = getSheetEnd(input, start);
+        if (sheetEnd > start && sheetEnd < input.length() && input.charAt(sheetEnd) == ExternalReference.SEPARATOR
+                && getReferenceEnd(input, sheetEnd + 1) > sheetEnd + 1) {
+            sheet = getSheet(input, start, sheetEnd);
+            offset = sheetEnd + 1;
+        }
+
+        int end = getReferenceEnd(input, offset);
+        if (end == offset)
+            return start;
+
+        CellCoordinates coordinates = CellCoordinates.parse(input, offset, end);
+
+        if (end < input.length() && input.charAt(end) == CellRange.SEPARATOR) {
+            int rangeEnd = getReferenceEnd(input, end + 1);
+
+            if (rangeEnd > end + 1) {
+                tokens.addRange(sheet, new CellRange(coordinates, CellCoordinates.parse(input, end + 1, rangeEnd)));
+                return rangeEnd;
+            }
+        }
+
+        tokens.addReference(sheet, coordinates);
+        return end;
+    }
+
+    /**
+     * Returns the end of the sheet name starting at the specified index. The name
+     * is either a plain identifier, or any text between quotes.
+     * 
+     * @param input The input.
+     * @param start The index to start reading at.
+     * @return The index following the sheet name, including its quotes, or the
+     *         start if there is none.
+     */
+    private static int getSheetEnd(String input, int start) {
+        if (start >= input.length())
+            return start;
+
+        if (input.charAt(start) == ExternalReference.QUOTE) {
+            for (int i = start + 1; i < input.length(); i++) {
+                if (input.charAt(i) != ExternalReference.QUOTE)
+                    continue;
+
+                if (i + 1 < input.length() && input.charAt(i + 1) == ExternalReference.QUOTE) {
+                    i++;
+                    continue;
+                }
+
+                return i + 1;
+            }
+
+            return start;
+        }
+
+        if (Character.isDigit(input.charAt(start)))
+            return start;
+
+        int end = start;
+
+        while (end < input.length() && ExternalReference.isSupportedCharacter(input.charAt(end)))
+            end++;
+
+        return end;
+    }
+
+    /**
+     * Returns the name of the sheet written in a reference, without its quotes.
+     * 
+     * @param input The input.
+     * @param start The index of the sheet name.
+     * @param end   The index following the sheet name.
+     * @return The name of the sheet.
+     */
+    private static String getSheet(String input, int start, int end) {
+        if (input.charAt(start) != ExternalReference.QUOTE)
+            return input.substring(start, end);
+
+        String quote = String.valueOf(ExternalReference.QUOTE);
+
+        return input.substring(start + 1, end - 1).replace(quote + quote, quote);
+    }
+
+    /**
+     * Returns the end of the reference starting at the specified index.
+     * 
+     * @param input The input.
+     * @param start The index to start reading at.
+     * @return The index following the reference, or the start if there is none.
+     */
+    private static int getReferenceEnd(String input, int start) {
+        int end = start;
+
+        while (end < input.length() && CellCoordinates.isSupportedCharacter(input.charAt(end)))
+            end++;
+
+        return end;
+    }
+
+    /**
+     * Returns the classes of the ASCII characters. The result should already be
+     * present in the CLASSES constant.
+     * 
+     * @return The classes of the ASCII characters.
+     */
+    private static byte[] getClasses() {
+        byte[] classes = new byte[128];
+
+        for (char character = 0; character < classes.length; character++) {
+            if (character == ' ' || character == '\t' || character == '\n' || character == '\r')
+                classes[character] = WHITESPACE;
+            else if (Character.isDigit(character) || character == '.')
+                classes[character] = NUMBER;
+            else if (Operator.CHARACTERS.contains(character) || Delimiter.CHARACTERS.contains(character))
+                classes[character] = SYMBOL;
+            else
+                classes[character] = WORD;
+        }
+
+        return classes;
+    }
+
+    /**
+     * Returns the trie of the operators. The result should already be present in
+     * the OPERATORS constant.
+     * 
+     * @return The trie of the operators.
+     */
+    private static SymbolTrie<Operator> getOperators() {
+        SymbolTrie<Operator> operators = new SymbolTrie<Operator>();
+
+        for (Operator operator : Operator.values())
+            operators.add(operator.getSymbol(), operator);
+
+        return operators;
+    }
+
+    /**
+     * Returns the trie of the delimiters. The result should already be present in
+     * the DELIMITERS constant.
+     * 
+     * @return The trie of the delimiters.
+     */
+    private static SymbolTrie<Delimiter> getDelimiters() {
+        SymbolTrie<Delimiter> delimiters = new SymbolTrie<Delimiter>();
+
+        for (Delimiter delimiter : Delimiter.values())
+            delimiters.add(delimiter.getSymbol(), delimiter);
+
+        return delimiters;
+    }
 }
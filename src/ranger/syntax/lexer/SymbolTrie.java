@@ -0,0 +1,125 @@
+package ranger.syntax.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class representing a trie of symbols, such as the operators or the
+ * delimiters, used by the lexer to find the longest symbol at some index of an
+ * expression by reading each character once.
+ * 
+ * @param <T> The type of the values of the symbols.
+ */
+public class SymbolTrie<T> {
+    /**
+     * The value of the symbol ending at this node, or null if no symbol ends here.
+     */
+    private T value;
+
+    /**
+     * The characters leading to the children of this node.
+     */
+    private char[] characters;
+
+    /**
+     * The children of this node, matching the characters.
+     */
+    private final List<SymbolTrie<T>> children;
+
+    /**
+     * Constructs a new empty symbol trie.
+     */
+    public SymbolTrie() {
+        this.value = null;
+        this.characters = new char[0];
+        this.children = new ArrayList<SymbolTrie<T>>();
+    }
+
+    /**
+     * Adds a symbol to the trie.
+     * 
+     * @param symbol The symbol.
+     * @param value  The value of the symbol.
+     * @throws IllegalArgumentException If the symbol is empty or already added.
+     */
+    public void add(String symbol, T value) {
+        if (symbol.isEmpty())
+            throw new IllegalArgumentException("Empty symbols cannot be added to a trie.");
+
+        SymbolTrie<T> node = this;
+
+        for (int i = 0; i < symbol.length(); i++) {
+            SymbolTrie<T> child = node.getChild(symbol.charAt(i));
+
+            if (child == null) {
+                child = new SymbolTrie<T>();
+
+                node.characters = Arrays.copyOf(node.characters, node.characters.length + 1);
+                node.characters[node.characters.length - 1] = symbol.charAt(i);
+                node.children.add(child);
+            }
+
+            node = child;
+        }
+
+        if (node.value != null)
+            throw new IllegalArgumentException("Symbol '" + symbol + "' is already in the trie.");
+
+        node.value = value;
+    }
+
+    /**
+     * Returns the child of this node reached by a character.
+     * 
+     * @param character The character.
+     * @return The child, or null if no symbol continues with the character.
+     */
+    private SymbolTrie<T> getChild(char character) {
+        for (int i = 0; i < characters.length; i++)
+            if (characters[i] == character)
+                return children.get(i);
+
+        return null;
+    }
+
+    /**
+     * Returns the length of the longest symbol found at an index of the input.
+     * 
+     * @param input The input.
+     * @param start The index to look for a symbol at.
+     * @return The length of the longest symbol, or 0 if there is none.
+     */
+    public int match(String input, int start) {
+        SymbolTrie<T> node = this;
+        int length = 0;
+
+        for (int i = start; i < input.length(); i++) {
+            node = node.getChild(input.charAt(i));
+            if (node == null)
+                break;
+
+            if (node.value != null)
+                length = i + 1 - start;
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the value of a symbol found at an index of the input.
+     * 
+     * @param input  The input.
+     * @param start  The index of the symbol.
+     * @param length The length of the symbol, as returned by match.
+     * @return The value of the symbol, or null if there is no such symbol.
+     */
+    public T get(String input, int start, int length) {
+        SymbolTrie<T> node = this;
+
+        for (int i = start; i < start + length && node != null; i++)
+            node = node.getChild(input.charAt(i));
+
+        return node != null ? node.value : null;
+    }
+}
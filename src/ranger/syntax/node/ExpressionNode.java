@@ -4,13 +4,76 @@ import ranger.syntax.EvaluationContext;
 
 /**
  * Class representing an expression node.
+ * <p>
+ * As built from the tokens, the children of an expression node are the operands
+ * and operators of a parenthesized group, in order. Once parsed, the node has a
+ * single child, the root of the group.
  */
 public class ExpressionNode extends SyntaxNode {
+    /**
+     * The children of this node.
+     */
+    private final SyntaxNode[] children;
+
     /**
      * Constructs a new expression node.
+     * 
+     * @param children The children of the node.
+     */
+    public ExpressionNode(SyntaxNode[] children) {
+        this.children = children.clone();
+    }
+
+    /**
+     * Returns whether this node is a leaf node.
+     * 
+     * @return False, as an expression node has children.
+     */
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    /**
+     * Returns the number of children of this node.
+     * 
+     * @return The number of children of this node.
+     */
+    @Override
+    public int getChildrenCount() {
+        return children.length;
+    }
+
+    /**
+     * Returns the child at the specified index.
+     * 
+     * @param index The index of the child.
+     * @return The child at the specified index.
      */
-    public ExpressionNode() {
-        super(false);
+    @Override
+    public SyntaxNode getChild(int index) {
+        return children[index];
+    }
+
+    /**
+     * Returns the children of this node.
+     * 
+     * @return A copy of the children of this node.
+     */
+    @Override
+    public SyntaxNode[] getChildren() {
+        return children.clone();
+    }
+
+    /**
+     * Returns an expression node with other children.
+     * 
+     * @param children The children of the new node.
+     * @return The new node.
+     */
+    @Override
+    public SyntaxNode withChildren(SyntaxNode[] children) {
+        return new ExpressionNode(children);
     }
 
     /**
@@ -24,8 +87,8 @@ public class ExpressionNode extends SyntaxNode {
 
         builder.append("(");
 
-        for (int i = 0; i < getChildrenCount(); i++)
-            builder.append(getChild(i).toString());
+        for (int i = 0; i < children.length; i++)
+            builder.append(children[i].toString());
 
         builder.append(")");
 
@@ -40,9 +103,9 @@ public class ExpressionNode extends SyntaxNode {
      */
     @Override
     public double evaluate(EvaluationContext context) {
-        if (getChildrenCount() != 1)
+        if (children.length != 1)
             throw new IllegalStateException("Expression node must have exactly one child. This is a bug.");
 
-        return getChild(0).evaluate(context);
+        return children[0].evaluate(context);
     }
 }
@@ -1,8 +1,12 @@
 package ranger.syntax.node;
 
+import java.util.Arrays;
+
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
 import ranger.function.Function;
 import ranger.syntax.EvaluationContext;
-import ranger.syntax.token.FunctionToken;
+import ranger.syntax.program.Operations;
 
 /**
  * Class representing a function node.
@@ -11,26 +15,22 @@ public class FunctionNode extends SyntaxNode {
     /**
      * The name of the function.
      */
-    private String name;
+    private final String name;
 
     /**
-     * Constructs a new function node.
-     * 
-     * @param name The name of the function.
+     * The arguments of the function.
      */
-    public FunctionNode(String name) {
-        super(false);
-
-        this.name = name;
-    }
+    private final SyntaxNode[] arguments;
 
     /**
      * Constructs a new function node.
      * 
-     * @param token The token representing the function.
+     * @param name      The name of the function.
+     * @param arguments The arguments of the function.
      */
-    public FunctionNode(FunctionToken token) {
-        this(token.getName());
+    public FunctionNode(String name, SyntaxNode[] arguments) {
+        this.name = name;
+        this.arguments = arguments.clone();
     }
 
     /**
@@ -42,6 +42,58 @@ public class FunctionNode extends SyntaxNode {
         return name;
     }
 
+    /**
+     * Returns whether this node is a leaf node.
+     * 
+     * @return False, as a function node has arguments, even if there are none.
+     */
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    /**
+     * Returns the number of arguments of the function.
+     * 
+     * @return The number of arguments.
+     */
+    @Override
+    public int getChildrenCount() {
+        return arguments.length;
+    }
+
+    /**
+     * Returns the argument at the specified index.
+     * 
+     * @param index The index of the argument.
+     * @return The argument.
+     */
+    @Override
+    public SyntaxNode getChild(int index) {
+        return arguments[index];
+    }
+
+    /**
+     * Returns the arguments of the function.
+     * 
+     * @return A copy of the arguments.
+     */
+    @Override
+    public SyntaxNode[] getChildren() {
+        return arguments.clone();
+    }
+
+    /**
+     * Returns a node calling the same function with other arguments.
+     * 
+     * @param children The arguments of the new node.
+     * @return The new node.
+     */
+    @Override
+    public SyntaxNode withChildren(SyntaxNode[] children) {
+        return new FunctionNode(name, children);
+    }
+
     /**
      * Returns the string representation of this function node.
      * 
@@ -54,9 +106,9 @@ public class FunctionNode extends SyntaxNode {
         builder.append(name);
         builder.append("(");
 
-        for (int i = 0; i < getChildrenCount(); i++) {
-            builder.append(getChild(i).toString());
-            if (i < getChildrenCount() - 1)
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(arguments[i].toString());
+            if (i < arguments.length - 1)
                 builder.append(",");
         }
 
@@ -66,21 +118,71 @@ public class FunctionNode extends SyntaxNode {
     }
 
     /**
-     * Evaluates the function node.
+     * Evaluates the function node. Range arguments are expanded into the values
+     * of their cells, unless the range is the only argument, is on the sheet of
+     * the expression, and the context maintains an aggregator of the function
+     * over it.
      * 
      * @param context The evaluation context.
-     * @return The result of the evaluation.
+     * @return The result of the evaluation, which is an unknown function if the
+     *         function is not registered.
      */
     @Override
     public double evaluate(EvaluationContext context) {
         Function function = context.getFunction(name);
         if (function == null)
-            throw new IllegalStateException("Function '" + name + "' is not registered.");
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        if (arguments.length == 1) {
+            RangeNode range = getRange(arguments[0]);
+
+            if (range != null && range.getSheet() == null) {
+                Aggregator aggregator = context.getAggregator(range.getRange(), function);
+                if (aggregator != null)
+                    return aggregator.getResult();
+            }
+        }
+
+        double[] values = new double[arguments.length];
+        int count = 0;
+
+        for (int i = 0; i < arguments.length; i++) {
+            RangeNode range = getRange(arguments[i]);
+
+            if (range == null) {
+                if (count == values.length)
+                    values = Arrays.copyOf(values, count * 2 + 1);
+
+                values[count++] = arguments[i].evaluate(context);
+                continue;
+            }
+
+            double[] cells = range.getValues(context);
+
+            if (count + cells.length > values.length)
+                values = Arrays.copyOf(values, count + cells.length + arguments.length - i - 1);
+
+            System.arraycopy(cells, 0, values, count, cells.length);
+            count += cells.length;
+        }
+
+        return Operations.call(function, values, 0, count);
+    }
+
+    /**
+     * Returns the range node an argument consists of, if any. Parenthesized
+     * ranges are also considered as ranges.
+     * 
+     * @param argument The argument node.
+     * @return The range node, or null if the argument is not a range.
+     */
+    private static RangeNode getRange(SyntaxNode argument) {
+        while (argument instanceof ExpressionNode && argument.getChildrenCount() == 1)
+            argument = argument.getChild(0);
 
-        double[] arguments = new double[getChildrenCount()];
-        for (int i = 0; i < getChildrenCount(); i++)
-            arguments[i] = getChild(i).evaluate(context);
+        if (argument instanceof RangeNode)
+            return (RangeNode) argument;
 
-        return function.evaluate(arguments);
+        return null;
     }
 }
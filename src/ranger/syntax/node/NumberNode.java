@@ -1,7 +1,6 @@
 package ranger.syntax.node;
 
 import ranger.syntax.EvaluationContext;
-import ranger.syntax.token.NumberToken;
 
 /**
  * Class representing a number node.
@@ -18,19 +17,9 @@ public class NumberNode extends SyntaxNode {
      * @param value The value of the number.
      */
     public NumberNode(double value) {
-        super(true);
         this.value = value;
     }
 
-    /**
-     * Constructs a new number node.
-     * 
-     * @param token The token representing the number.
-     */
-    public NumberNode(NumberToken token) {
-        this(token.getValue());
-    }
-
     /**
      * Returns the value of the number.
      * 
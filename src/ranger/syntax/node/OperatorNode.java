@@ -1,13 +1,16 @@
 package ranger.syntax.node;
 
-import ranger.Utils;
 import ranger.operator.Operator;
 import ranger.operator.OperatorUsage;
 import ranger.syntax.EvaluationContext;
-import ranger.syntax.token.OperatorToken;
+import ranger.syntax.program.Operations;
 
 /**
  * Class representing an operator node.
+ * <p>
+ * A binary operator has both operands, while a left unary operator only has its
+ * left one and a right unary operator only its right one. An operator built from
+ * its token has no operands until it is parsed.
  */
 public class OperatorNode extends SyntaxNode {
     /**
@@ -16,23 +19,45 @@ public class OperatorNode extends SyntaxNode {
     private final Operator operator;
 
     /**
-     * Constructs a new operator node.
+     * Whether the operands of the operator are attached.
+     */
+    private final boolean attached;
+
+    /**
+     * The left operand, or null if there is none.
+     */
+    private final SyntaxNode left;
+
+    /**
+     * The right operand, or null if there is none.
+     */
+    private final SyntaxNode right;
+
+    /**
+     * Constructs a new operator node without its operands, as found in the
+     * tokens of an expression.
      * 
      * @param operator The operator.
      */
     public OperatorNode(Operator operator) {
-        super(false);
-
         this.operator = operator;
+        this.attached = false;
+        this.left = null;
+        this.right = null;
     }
 
     /**
-     * Constructs a new operator node.
+     * Constructs a new operator node with its operands.
      * 
-     * @param token The token representing the operator.
+     * @param operator The operator.
+     * @param left     The left operand, or null for a right unary operator.
+     * @param right    The right operand, or null for a left unary operator.
      */
-    public OperatorNode(OperatorToken token) {
-        this(token.getOperator());
+    public OperatorNode(Operator operator, SyntaxNode left, SyntaxNode right) {
+        this.operator = operator;
+        this.attached = true;
+        this.left = left;
+        this.right = right;
     }
 
     /**
@@ -44,6 +69,88 @@ public class OperatorNode extends SyntaxNode {
         return operator;
     }
 
+    /**
+     * Returns the left operand.
+     * 
+     * @return The left operand, or null if there is none.
+     */
+    public SyntaxNode getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns the right operand.
+     * 
+     * @return The right operand, or null if there is none.
+     */
+    public SyntaxNode getRight() {
+        return right;
+    }
+
+    /**
+     * Returns whether this node is a leaf node.
+     * 
+     * @return False, as an operator node has operands once parsed.
+     */
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    /**
+     * Returns the number of children of this node, which are its left and right
+     * operands.
+     * 
+     * @return 2, or 0 if the operands are not attached.
+     */
+    @Override
+    public int getChildrenCount() {
+        return attached ? 2 : 0;
+    }
+
+    /**
+     * Returns the child at the specified index.
+     * 
+     * @param index The index of the child, 0 for the left operand and 1 for the
+     *              right one.
+     * @return The operand, or null if there is none.
+     */
+    @Override
+    public SyntaxNode getChild(int index) {
+        if (!attached || index < 0 || index > 1)
+            return super.getChild(index);
+
+        return index == 0 ? left : right;
+    }
+
+    /**
+     * Returns the children of this node.
+     * 
+     * @return The left and right operands, or no children if the operands are not
+     *         attached.
+     */
+    @Override
+    public SyntaxNode[] getChildren() {
+        return attached ? new SyntaxNode[] { left, right } : super.getChildren();
+    }
+
+    /**
+     * Returns an operator node with other operands.
+     * 
+     * @param children The left and right operands.
+     * @return The new node.
+     */
+    @Override
+    public SyntaxNode withChildren(SyntaxNode[] children) {
+        if (children.length == 0 && !attached)
+            return new OperatorNode(operator);
+
+        if (children.length != 2)
+            throw new IllegalArgumentException("Operator '" + operator + "' takes two children.");
+
+        return new OperatorNode(operator, children[0], children[1]);
+    }
+
     /**
      * Returns the string representation of this operator node.
      * 
@@ -62,13 +169,10 @@ public class OperatorNode extends SyntaxNode {
      */
     @Override
     public double evaluate(EvaluationContext context) {
-        if (getChildrenCount() != 2)
+        if (!attached)
             throw new IllegalStateException(
                     "Missing operands for operator '" + operator.toString() + "'.");
 
-        SyntaxNode left = getChild(0);
-        SyntaxNode right = getChild(1);
-
         if (left != null && right != null)
             return evaluateBinary(left, right, context);
         else if (left != null && right == null)
@@ -100,40 +204,36 @@ public class OperatorNode extends SyntaxNode {
         switch (operator) {
             case POWER_PRIMARY:
             case POWER_SECONDARY:
-                return Math.pow(leftValue, rightValue);
+                return Operations.power(leftValue, rightValue);
 
             case MULTIPLICATION:
-                return leftValue * rightValue;
+                return Operations.multiply(leftValue, rightValue);
             case DIVISION:
-                if (rightValue == 0)
-                    throw new ArithmeticException("Division operation with zero divisor is undefined.");
-                return leftValue / rightValue;
+                return Operations.divide(leftValue, rightValue);
             case MODULO:
-                if (rightValue == 0)
-                    throw new ArithmeticException("Modulo operation with zero divisor is undefined.");
-                return leftValue % rightValue;
+                return Operations.modulo(leftValue, rightValue);
 
             case ADDITION:
-                return leftValue + rightValue;
+                return Operations.add(leftValue, rightValue);
             case SUBTRACTION:
-                return leftValue - rightValue;
+                return Operations.subtract(leftValue, rightValue);
 
             case LESS_THAN:
-                return leftValue < rightValue ? 1 : 0;
+                return Operations.lessThan(leftValue, rightValue);
             case LESS_THAN_OR_EQUAL_TO:
-                return leftValue <= rightValue ? 1 : 0;
+                return Operations.lessThanOrEqualTo(leftValue, rightValue);
             case GREATER_THAN:
-                return leftValue > rightValue ? 1 : 0;
+                return Operations.greaterThan(leftValue, rightValue);
             case GREATER_THAN_OR_EQUAL_TO:
-                return leftValue >= rightValue ? 1 : 0;
+                return Operations.greaterThanOrEqualTo(leftValue, rightValue);
             case EQUAL_TO:
-                return leftValue == rightValue ? 1 : 0;
+                return Operations.equalTo(leftValue, rightValue);
             case NOT_EQUAL_TO:
-                return leftValue != rightValue ? 1 : 0;
+                return Operations.notEqualTo(leftValue, rightValue);
             case LOGICAL_AND:
-                return (leftValue != 0 && rightValue != 0) ? 1 : 0;
+                return Operations.and(leftValue, rightValue);
             case LOGICAL_OR:
-                return (leftValue != 0 || rightValue != 0) ? 1 : 0;
+                return Operations.or(leftValue, rightValue);
 
             default:
                 throw new IllegalStateException(
@@ -183,9 +283,7 @@ public class OperatorNode extends SyntaxNode {
 
         switch (operator) {
             case FACTORIAL:
-                if (operandValue < 0)
-                    throw new ArithmeticException("Factorial of a negative number.");
-                return Utils.factorial(operandValue);
+                return Operations.factorial(operandValue);
 
             default:
                 throw new IllegalStateException(
@@ -0,0 +1,101 @@
+package ranger.syntax.node;
+
+import ranger.function.EvaluationError;
+import ranger.sheet.cell.CellRange;
+import ranger.sheet.cell.ExternalReference;
+import ranger.syntax.EvaluationContext;
+
+/**
+ * Class representing a range node.
+ * A range does not evaluate to a single value, it can only be used as a
+ * function argument, where it is expanded into the values of its cells.
+ */
+public class RangeNode extends SyntaxNode {
+    /**
+     * The name of the sheet of the range, or null if the range is on the sheet of
+     * the expression.
+     */
+    private final String sheet;
+
+    /**
+     * The range of cells.
+     */
+    private final CellRange range;
+
+    /**
+     * Constructs a new range node.
+     * 
+     * @param range The range of cells.
+     */
+    public RangeNode(CellRange range) {
+        this(null, range);
+    }
+
+    /**
+     * Constructs a new range node to a range of another sheet.
+     * 
+     * @param sheet The name of the sheet of the range, or null.
+     * @param range The range of cells.
+     */
+    public RangeNode(String sheet, CellRange range) {
+        this.sheet = sheet;
+        this.range = range;
+    }
+
+    /**
+     * Returns the name of the sheet of the range.
+     * 
+     * @return The name of the sheet of the range, or null if the range is on the
+     *         sheet of the expression.
+     */
+    public String getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Returns the range of cells.
+     * 
+     * @return The range of cells.
+     */
+    public CellRange getRange() {
+        return range;
+    }
+
+    /**
+     * Returns the values of the cells of the range.
+     * 
+     * @param context The evaluation context.
+     * @return The values of the cells of the range.
+     */
+    public double[] getValues(EvaluationContext context) {
+        if (sheet != null)
+            return context.getValues(sheet, range);
+
+        return context.getValues(range);
+    }
+
+    /**
+     * Returns the string representation of this range node.
+     * 
+     * @return The string representation of this range node.
+     */
+    @Override
+    public String toString() {
+        if (sheet != null)
+            return ExternalReference.formatSheet(sheet) + ExternalReference.SEPARATOR + range;
+
+        return range.toString();
+    }
+
+    /**
+     * Evaluates the range node, which is not supported outside of a function
+     * argument.
+     * 
+     * @param context The evaluation context.
+     * @return A range value error, as a range has no single value.
+     */
+    @Override
+    public double evaluate(EvaluationContext context) {
+        return EvaluationError.RANGE_VALUE.getValue();
+    }
+}
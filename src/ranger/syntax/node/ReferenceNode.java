@@ -1,37 +1,72 @@
 package ranger.syntax.node;
 
 import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.ExternalReference;
 import ranger.syntax.EvaluationContext;
-import ranger.syntax.token.ReferenceToken;
 
 /**
  * Class representing a reference node.
  */
 public class ReferenceNode extends SyntaxNode {
+    /**
+     * The name of the sheet of the cell, or null if the cell is on the sheet of
+     * the expression.
+     */
+    private final String sheet;
+
     /**
      * The coordinates of the cell.
      */
     public final CellCoordinates coordinates;
 
+    /**
+     * The reference slot of the node in its syntax tree, or -1 if the node is not
+     * bound to a slot. References to other sheets are never bound.
+     */
+    private final int slot;
+
     /**
      * Constructs a new reference node.
      * 
      * @param coordinates The coordinates of the cell.
      */
     public ReferenceNode(CellCoordinates coordinates) {
-        super(true);
+        this(null, coordinates);
+    }
 
+    /**
+     * Constructs a new reference node to a cell of another sheet.
+     * 
+     * @param sheet       The name of the sheet of the cell, or null.
+     * @param coordinates The coordinates of the cell.
+     */
+    public ReferenceNode(String sheet, CellCoordinates coordinates) {
+        this(sheet, coordinates, -1);
+    }
+
+    /**
+     * Constructs a new reference node bound to a reference slot.
+     * 
+     * @param sheet       The name of the sheet of the cell, or null.
+     * @param coordinates The coordinates of the cell.
+     * @param slot        The reference slot of the node in its syntax tree, or -1
+     *                    if the node is not bound to a slot.
+     */
+    public ReferenceNode(String sheet, CellCoordinates coordinates, int slot) {
+        this.sheet = sheet;
         this.coordinates = coordinates;
+        this.slot = slot;
     }
 
     /**
-     * Constructs a new reference node.
+     * Returns the name of the sheet of the cell.
      * 
-     * @param token The token representing the reference.
+     * @return The name of the sheet of the cell, or null if the cell is on the
+     *         sheet of the expression.
      */
-    public ReferenceNode(ReferenceToken token) {
-        this(token.getCoordinates());
-    }   
+    public String getSheet() {
+        return sheet;
+    }
 
     /**
      * Returns the coordinates of the cell.
@@ -42,6 +77,28 @@ public class ReferenceNode extends SyntaxNode {
         return coordinates;
     }
 
+    /**
+     * Returns the reference slot of the node.
+     * 
+     * @return The reference slot of the node, or -1 if it is not bound.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Returns a reference node to the same cell, bound to a reference slot.
+     * 
+     * @param slot The reference slot of the node.
+     * @return The node itself if it is already bound to the slot, or a new node.
+     */
+    public ReferenceNode withSlot(int slot) {
+        if (slot == this.slot)
+            return this;
+
+        return new ReferenceNode(sheet, coordinates, slot);
+    }
+
     /**
      * Returns the string representation of this reference node.
      * 
@@ -49,6 +106,9 @@ public class ReferenceNode extends SyntaxNode {
      */
     @Override
     public String toString() {
+        if (sheet != null)
+            return ExternalReference.formatSheet(sheet) + ExternalReference.SEPARATOR + coordinates;
+
         return coordinates.toString();
     }
 
@@ -60,6 +120,12 @@ public class ReferenceNode extends SyntaxNode {
      */
     @Override
     public double evaluate(EvaluationContext context) {
-        return context.getValue(coordinates);
+        if (sheet != null)
+            return context.getValue(sheet, coordinates);
+
+        if (slot < 0)
+            return context.getValue(coordinates);
+
+        return context.getValue(slot, coordinates);
     }
 }
@@ -1,26 +1,25 @@
 package ranger.syntax.node;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import ranger.syntax.EvaluationContext;
 
 /**
  * Abstract class representing a syntax node.
+ * <p>
+ * Nodes are immutable: their children are fixed when they are constructed, so
+ * that a syntax tree can be shared between the cells with the same formula and
+ * evaluated by many threads at once. Trees are transformed by building new
+ * nodes, through withChildren, instead of by replacing children in place.
  */
 public abstract class SyntaxNode {
     /**
-     * The children of this node.
+     * The children of the leaf nodes.
      */
-    private final List<SyntaxNode> children;
+    private static final SyntaxNode[] NO_CHILDREN = new SyntaxNode[0];
 
     /**
      * Constructs a new syntax node.
-     * 
-     * @param isLeaf Whether this node is a leaf node.
      */
-    public SyntaxNode(boolean isLeaf) {
-        this.children = isLeaf ? null : new LinkedList<SyntaxNode>();
+    public SyntaxNode() {
     }
 
     /**
@@ -29,7 +28,7 @@ public abstract class SyntaxNode {
      * @return Whether this node is a leaf node.
      */
     public boolean isLeaf() {
-        return this.children == null;
+        return true;
     }
 
     /**
@@ -38,40 +37,44 @@ public abstract class SyntaxNode {
      * @return The number of children of this node.
      */
     public int getChildrenCount() {
-        return this.children.size();
+        return 0;
     }
 
     /**
      * Returns the child at the specified index.
      * 
      * @param index The index of the child.
-     * @return The child at the specified index.
+     * @return The child at the specified index, which can be null for the
+     *         missing operand of a unary operator.
+     * @throws IllegalArgumentException If there is no child at the index.
      */
     public SyntaxNode getChild(int index) {
-        return this.children.get(index);
+        throw new IllegalArgumentException("Node '" + this + "' has no child at index " + index + ".");
     }
 
     /**
-     * Adds a child to this node.
+     * Returns the children of this node.
      * 
-     * @param child The child to add.
+     * @return A copy of the children of this node.
      */
-    public void addChild(SyntaxNode child) {
-        this.children.add(child);
+    public SyntaxNode[] getChildren() {
+        return NO_CHILDREN;
     }
 
     /**
-     * Removes the child at the specified index.
+     * Returns a node like this one, with other children.
      * 
-     * @param index The index of the child to remove.
+     * @param children The children of the new node, as many as this node has.
+     * @return The new node.
+     * @throws IllegalStateException If this node is a leaf node.
      */
-    public void removeChild(int index) {
-        this.children.remove(index);
+    public SyntaxNode withChildren(SyntaxNode[] children) {
+        throw new IllegalStateException("Node '" + this + "' is a leaf node.");
     }
 
     /**
      * Evaluates the syntax node.
-     *
+     * 
      * @param context The evaluation context.
      * @return The result of the evaluation. 
      */
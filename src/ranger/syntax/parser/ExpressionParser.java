@@ -1,16 +1,19 @@
 package ranger.syntax.parser;
 
 import ranger.syntax.node.ExpressionNode;
+import ranger.syntax.node.SyntaxNode;
 
 /**
  * Interface for expression parsers.
  */
 public interface ExpressionParser {
     /**
-     * Parses the expression node.
-     * This process will collapse the expression tree.
+     * Parses the expression node, whose children are the operands and operators
+     * of a parenthesized group, into a single node. The operands are already
+     * parsed.
      * 
      * @param node The expression node.
+     * @return The root node of the group.
      */
-    public void parse(ExpressionNode node);
+    public SyntaxNode parse(ExpressionNode node);
 }
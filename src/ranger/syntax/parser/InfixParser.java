@@ -1,5 +1,6 @@
 package ranger.syntax.parser;
 
+import ranger.operator.Operator;
 import ranger.operator.OperatorPrecedence;
 import ranger.operator.OperatorUsage;
 import ranger.syntax.SyntaxException;
@@ -9,8 +10,16 @@ import ranger.syntax.node.SyntaxNode;
 
 /**
  * Class representing an infix parser.
+ * <p>
+ * The expression is parsed by precedence climbing, in a single pass over its
+ * operands and operators. Right unary operators bind tightest, then left unary
+ * operators, then binary operators by precedence, which associate to the left.
  */
 public class InfixParser implements ExpressionParser {
+    /**
+     * The precedences, from the tightest to the loosest.
+     */
+    private static final OperatorPrecedence[] PRECEDENCES = OperatorPrecedence.values();
 
     /**
      * Constructs a new infix parser.
@@ -19,134 +28,84 @@ public class InfixParser implements ExpressionParser {
     }
 
     /**
-     * Parses the expression node.
-     * This process will collapse the expression tree.
+     * Parses the expression node into a single node.
      * 
      * @param node The expression node.
+     * @return The root node of the group.
      */
     @Override
-    public void parse(ExpressionNode node) {
-        collapseRightUnaryOperators(node);
-        collapseLeftUnaryOperators(node);
-
-        collapseBinaryOperators(node, OperatorPrecedence.EXPONENTIAL);
-        collapseBinaryOperators(node, OperatorPrecedence.MULTIPLICATIVE);
-        collapseBinaryOperators(node, OperatorPrecedence.ADDITIVE);
-        collapseBinaryOperators(node, OperatorPrecedence.RELATIONAL);
-
+    public SyntaxNode parse(ExpressionNode node) {
         if (node.getChildrenCount() == 0)
             throw new SyntaxException("Error during expression parsing. This is a bug in the parser.");
 
-        if (node.getChildrenCount() > 1)
-            throw new SyntaxException("Invalid expression.");
-    }
-
-    /**
-     * Collapses all left unary operators.
-     * 
-     * @param node The expression node.
-     */
-    private void collapseLeftUnaryOperators(ExpressionNode node) {
-        for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
-            SyntaxNode child = node.getChild(i);
-
-            if (!(child instanceof OperatorNode))
-                continue;
-            OperatorNode operator = (OperatorNode) child;
-
-            if (operator.getChildrenCount() != 0)
-                continue;
+        NodeCursor cursor = new NodeCursor(node);
 
-            boolean left = i <= 0 || (node.getChild(i - 1) instanceof OperatorNode
-                    && ((OperatorNode) node.getChild(i - 1)).getChildrenCount() == 0);
-            if (!left)
-                continue;
+        SyntaxNode root = parseBinary(cursor, PRECEDENCES.length - 1);
 
-            if (!operator.getOperator().supportsUsage(OperatorUsage.LEFT_UNARY))
-                continue;
-
-            if (i + 1 >= node.getChildrenCount())
-                throw new SyntaxException("Operator '" + operator.getOperator() + "' is missing an operand.");
-
-            SyntaxNode operand = node.getChild(i + 1);
-
-            operator.addChild(operand);
-            operator.addChild(null);
+        if (cursor.hasNext())
+            throw new SyntaxException("Invalid expression.");
 
-            node.removeChild(i + 1);
-        }
+        return root;
     }
 
     /**
-     * Collapses all right unary operators.
+     * Parses a sequence of binary operators of the specified precedence, whose
+     * operands only contain tighter operators. This is a recursive method.
      * 
-     * @param node The expression node.
+     * @param cursor     The cursor over the operands and operators.
+     * @param precedence The index of the precedence, or -1 for an operand.
+     * @return The parsed node.
      */
-    private void collapseRightUnaryOperators(ExpressionNode node) {
-        for (int i = 0; i < node.getChildrenCount(); i++) {
-            SyntaxNode child = node.getChild(i);
+    private SyntaxNode parseBinary(NodeCursor cursor, int precedence) {
+        if (precedence < 0)
+            return parseUnary(cursor);
 
-            if (!(child instanceof OperatorNode))
-                continue;
-            OperatorNode operator = (OperatorNode) child;
+        SyntaxNode left = parseBinary(cursor, precedence - 1);
 
-            if (operator.getChildrenCount() != 0)
-                continue;
+        while (true) {
+            Operator operator = cursor.peekOperator(0);
 
-            boolean right = i >= node.getChildrenCount() - 1 || (node.getChild(i + 1) instanceof OperatorNode
-                    && ((OperatorNode) node.getChild(i + 1)).getChildrenCount() == 0);
-            if (!right)
-                continue;
+            if (operator == null || operator.getPrecedence() != PRECEDENCES[precedence]
+                    || !operator.supportsUsage(OperatorUsage.BINARY))
+                return left;
 
-            if (!operator.getOperator().supportsUsage(OperatorUsage.RIGHT_UNARY))
-                continue;
+            cursor.next();
 
-            if (i == 0)
-                throw new SyntaxException("Operator '" + operator.getOperator() + "' is missing an operand.");
+            if (!cursor.hasNext())
+                throw new SyntaxException("Operator '" + operator + "' is missing an operand.");
 
-            SyntaxNode operand = node.getChild(i - 1);
-
-            operator.addChild(null);
-            operator.addChild(operand);
-
-            node.removeChild(i - 1);
-            i--;
+            left = new OperatorNode(operator, left, parseBinary(cursor, precedence - 1));
         }
     }
 
     /**
-     * Collapses all binary operators with the specified precedence.
+     * Parses an operand with its unary operators. This is a recursive method.
      * 
-     * @param node       The expression node.
-     * @param precedence The precedence.
+     * @param cursor The cursor over the operands and operators.
+     * @return The parsed node.
      */
-    private void collapseBinaryOperators(ExpressionNode node, OperatorPrecedence precedence) {
-        for (int i = 0; i < node.getChildrenCount(); i++) {
-            SyntaxNode child = node.getChild(i);
-
-            if (!(child instanceof OperatorNode))
-                continue;
-            OperatorNode operator = (OperatorNode) child;
+    private SyntaxNode parseUnary(NodeCursor cursor) {
+        Operator operator = cursor.peekOperator(0);
 
-            if (operator.getChildrenCount() != 0 || operator.getOperator().getPrecedence() != precedence)
-                continue;
+        if (operator != null) {
+            if (!operator.supportsUsage(OperatorUsage.LEFT_UNARY) || cursor.isEnd(1))
+                throw new SyntaxException("Operator '" + operator + "' is missing an operand.");
 
-            if (!operator.getOperator().supportsUsage(OperatorUsage.BINARY))
-                continue;
+            cursor.next();
 
-            if (i == 0 || i == node.getChildrenCount() - 1)
-                throw new SyntaxException("Operator '" + operator.getOperator() + "' is missing an operand.");
-
-            SyntaxNode leftOperand = node.getChild(i - 1);
-            SyntaxNode rightOperand = node.getChild(i + 1);
+            return new OperatorNode(operator, parseUnary(cursor), null);
+        }
 
-            operator.addChild(leftOperand);
-            operator.addChild(rightOperand);
+        SyntaxNode operand = cursor.next();
 
-            node.removeChild(i - 1);
-            node.removeChild(i);
+        // A right unary operator applies when it is not followed by an operand
+        while ((operator = cursor.peekOperator(0)) != null && operator.supportsUsage(OperatorUsage.RIGHT_UNARY)
+                && (cursor.isEnd(1) || cursor.peekOperator(1) != null)) {
+            cursor.next();
 
-            i--;
+            operand = new OperatorNode(operator, null, operand);
         }
+
+        return operand;
     }
 }
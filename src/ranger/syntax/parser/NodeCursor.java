@@ -0,0 +1,100 @@
+package ranger.syntax.parser;
+
+import ranger.operator.Operator;
+import ranger.syntax.node.ExpressionNode;
+import ranger.syntax.node.OperatorNode;
+import ranger.syntax.node.SyntaxNode;
+
+/**
+ * Class representing a cursor over the children of an expression node, which
+ * are the operands and the operators of the expression as found in its tokens.
+ * The children are copied once, so that the parsers read each of them once, in
+ * order, and build the tree from them without removing them one by one.
+ */
+public class NodeCursor {
+    /**
+     * The children of the expression node.
+     */
+    private final SyntaxNode[] nodes;
+
+    /**
+     * The index of the next child to read.
+     */
+    private int position;
+
+    /**
+     * Constructs a new cursor at the first child of an expression node.
+     * 
+     * @param node The expression node.
+     */
+    public NodeCursor(ExpressionNode node) {
+        this.nodes = new SyntaxNode[node.getChildrenCount()];
+
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = node.getChild(i);
+
+        this.position = 0;
+    }
+
+    /**
+     * Returns whether there are children left to read.
+     * 
+     * @return Whether there are children left to read.
+     */
+    public boolean hasNext() {
+        return position < nodes.length;
+    }
+
+    /**
+     * Returns whether there are no children left at some distance from the
+     * cursor.
+     * 
+     * @param distance The distance from the cursor, 0 being the next child.
+     * @return Whether the child at the distance is past the last child.
+     */
+    public boolean isEnd(int distance) {
+        return position + distance >= nodes.length;
+    }
+
+    /**
+     * Reads the next child.
+     * 
+     * @return The next child.
+     * @throws IllegalStateException If every child has been read.
+     */
+    public SyntaxNode next() {
+        if (position >= nodes.length)
+            throw new IllegalStateException("No more nodes in expression.");
+
+        return nodes[position++];
+    }
+
+    /**
+     * Returns the operator of the child at some distance from the cursor, if it
+     * is an operator whose operands are not yet attached.
+     * 
+     * @param distance The distance from the cursor, 0 being the next child.
+     * @return The operator, or null if the child is an operand or past the last
+     *         child.
+     */
+    public Operator peekOperator(int distance) {
+        if (position + distance >= nodes.length)
+            return null;
+
+        return getOperator(nodes[position + distance]);
+    }
+
+    /**
+     * Returns the operator of a node, if it is an operator whose operands are not
+     * yet attached.
+     * 
+     * @param node The node.
+     * @return The operator, or null if the node is an operand.
+     */
+    public static Operator getOperator(SyntaxNode node) {
+        if (!(node instanceof OperatorNode) || node.getChildrenCount() != 0)
+            return null;
+
+        return ((OperatorNode) node).getOperator();
+    }
+}
@@ -1,5 +1,6 @@
 package ranger.syntax.parser;
 
+import ranger.operator.Operator;
 import ranger.operator.OperatorUsage;
 import ranger.syntax.SyntaxException;
 import ranger.syntax.node.ExpressionNode;
@@ -8,6 +9,9 @@ import ranger.syntax.node.SyntaxNode;
 
 /**
  * Class representing a prefix parser.
+ * <p>
+ * The operands and operators are read once, from the last to the first, the
+ * operands being pushed on a stack from which each operator takes its own.
  */
 public class PrefixParser implements ExpressionParser {
 
@@ -18,64 +22,60 @@ public class PrefixParser implements ExpressionParser {
     }
 
     /**
-     * Parses the expression node.
-     * This process will collapse the expression tree.
+     * Parses the expression node into a single node.
      * 
      * @param node The expression node.
+     * @return The root node of the group.
      */
     @Override
-    public void parse(ExpressionNode node) {
+    public SyntaxNode parse(ExpressionNode node) {
+        SyntaxNode[] stack = new SyntaxNode[node.getChildrenCount()];
+        int size = 0;
+
         for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
             SyntaxNode child = node.getChild(i);
 
-            if (!(child instanceof OperatorNode))
-                continue;
-            OperatorNode operator = (OperatorNode) child;
-
-            if (operator.getChildrenCount() != 0)
+            Operator operator = NodeCursor.getOperator(child);
+            if (operator == null) {
+                stack[size++] = child;
                 continue;
+            }
 
-            if (operator.getOperator().supportsUsage(OperatorUsage.BINARY)) {
-                if (i + 1 >= node.getChildrenCount())
-                    throw new SyntaxException("Operator '" + operator.getOperator()
-                            + "' is missing both operands.");
-
-                SyntaxNode leftOperand = node.getChild(i + 1);
+            if (operator.supportsUsage(OperatorUsage.BINARY)) {
+                if (size < 1)
+                    throw new SyntaxException("Operator '" + operator + "' is missing both operands.");
 
-                if (i + 2 >= node.getChildrenCount())
-                    throw new SyntaxException("Operator '" + operator.getOperator()
-                            + "' is missing its right operand.");
+                SyntaxNode leftOperand = stack[--size];
 
-                SyntaxNode rightOperand = node.getChild(i + 2);
+                if (size < 1)
+                    throw new SyntaxException("Operator '" + operator + "' is missing its right operand.");
 
-                operator.addChild(leftOperand);
-                operator.addChild(rightOperand);
+                SyntaxNode rightOperand = stack[--size];
 
-                node.removeChild(i + 2);
-                node.removeChild(i + 1);
-            } else if (operator.getOperator().supportsUsage(OperatorUsage.RIGHT_UNARY)
-                    || operator.getOperator().supportsUsage(OperatorUsage.LEFT_UNARY)) {
-                if (i + 1 >= node.getChildrenCount())
-                    throw new SyntaxException("Operator '" + operator.getOperator()
-                            + "' is missing its operand.");
+                child = new OperatorNode(operator, leftOperand, rightOperand);
+            } else if (operator.supportsUsage(OperatorUsage.RIGHT_UNARY)
+                    || operator.supportsUsage(OperatorUsage.LEFT_UNARY)) {
+                if (size < 1)
+                    throw new SyntaxException("Operator '" + operator + "' is missing its operand.");
 
-                SyntaxNode operand = node.getChild(i + 1);
+                SyntaxNode operand = stack[--size];
 
-                if (operator.getOperator().supportsUsage(OperatorUsage.RIGHT_UNARY)) {
-                    operator.addChild(null);
-                    operator.addChild(operand);
-                } else if (operator.getOperator().supportsUsage(OperatorUsage.LEFT_UNARY)) {
-                    operator.addChild(operand);
-                    operator.addChild(null);
-                }
-
-                node.removeChild(i + 1);
+                if (operator.supportsUsage(OperatorUsage.RIGHT_UNARY))
+                    child = new OperatorNode(operator, null, operand);
+                else
+                    child = new OperatorNode(operator, operand, null);
             } else
-                throw new IllegalArgumentException("Operator '" + operator.getOperator()
-                        + "' is not supported by this parser.");
+                throw new IllegalArgumentException("Operator '" + operator + "' is not supported by this parser.");
+
+            stack[size++] = child;
         }
 
-        if (node.getChildrenCount() > 1)
+        if (size == 0)
+            throw new SyntaxException("Error during expression parsing. This is a bug in the parser.");
+
+        if (size > 1)
             throw new SyntaxException("Invalid expression.");
+
+        return stack[0];
     }
 }
@@ -0,0 +1,321 @@
+package ranger.syntax.program;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class writing minimal class files, with a constant pool, methods and their
+ * code, and nothing else. The methods cannot branch, as no stack map frames are
+ * written, which is enough for the straight-line code of the generated
+ * formulas.
+ */
+public class ClassFileWriter {
+    /**
+     * The magic number starting every class file.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * The major version of the class files, the one of Java 17.
+     */
+    private static final int MAJOR_VERSION = 61;
+
+    /**
+     * The tag of the UTF-8 constants.
+     */
+    private static final int CONSTANT_UTF8 = 1;
+
+    /**
+     * The tag of the class constants.
+     */
+    private static final int CONSTANT_CLASS = 7;
+
+    /**
+     * The tag of the method reference constants.
+     */
+    private static final int CONSTANT_METHOD_REFERENCE = 10;
+
+    /**
+     * The tag of the interface method reference constants.
+     */
+    private static final int CONSTANT_INTERFACE_METHOD_REFERENCE = 11;
+
+    /**
+     * The tag of the name and type constants.
+     */
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * The public access flag.
+     */
+    public static final int ACC_PUBLIC = 0x0001;
+
+    /**
+     * The final access flag.
+     */
+    public static final int ACC_FINAL = 0x0010;
+
+    /**
+     * The super access flag, set on every class.
+     */
+    private static final int ACC_SUPER = 0x0020;
+
+    /**
+     * The entries of the constant pool.
+     */
+    private final ByteArrayOutputStream pool;
+
+    /**
+     * The number of entries of the constant pool, plus one.
+     */
+    private int poolCount;
+
+    /**
+     * The indices of the entries of the constant pool, by description.
+     */
+    private final Map<String, Integer> indices;
+
+    /**
+     * The methods of the class.
+     */
+    private final ByteArrayOutputStream methods;
+
+    /**
+     * The number of methods of the class.
+     */
+    private int methodCount;
+
+    /**
+     * Constructs a new class file writer.
+     */
+    public ClassFileWriter() {
+        pool = new ByteArrayOutputStream();
+        poolCount = 1;
+        indices = new HashMap<String, Integer>();
+
+        methods = new ByteArrayOutputStream();
+        methodCount = 0;
+    }
+
+    /**
+     * Returns the index of a UTF-8 constant, adding it if needed.
+     * 
+     * @param value The value, which must only contain ASCII characters.
+     * @return The index of the constant.
+     */
+    public int utf8(String value) {
+        Integer index = indices.get("U" + value);
+        if (index != null)
+            return index;
+
+        pool.write(CONSTANT_UTF8);
+        u2(pool, value.length());
+        for (int i = 0; i < value.length(); i++)
+            pool.write(value.charAt(i));
+
+        return add("U" + value);
+    }
+
+    /**
+     * Returns the index of a class constant, adding it if needed.
+     * 
+     * @param name The internal name of the class, such as "java/lang/Object".
+     * @return The index of the constant.
+     */
+    public int classReference(String name) {
+        Integer index = indices.get("C" + name);
+        if (index != null)
+            return index;
+
+        int nameIndex = utf8(name);
+
+        pool.write(CONSTANT_CLASS);
+        u2(pool, nameIndex);
+
+        return add("C" + name);
+    }
+
+    /**
+     * Returns the index of a method reference constant, adding it if needed.
+     * 
+     * @param owner      The internal name of the class of the method.
+     * @param name       The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @return The index of the constant.
+     */
+    public int methodReference(String owner, String name, String descriptor) {
+        return memberReference(CONSTANT_METHOD_REFERENCE, owner, name, descriptor);
+    }
+
+    /**
+     * Returns the index of an interface method reference constant, adding it if
+     * needed.
+     * 
+     * @param owner      The internal name of the interface of the method.
+     * @param name       The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @return The index of the constant.
+     */
+    public int interfaceMethodReference(String owner, String name, String descriptor) {
+        return memberReference(CONSTANT_INTERFACE_METHOD_REFERENCE, owner, name, descriptor);
+    }
+
+    /**
+     * Returns the index of a member reference constant, adding it if needed.
+     * 
+     * @param tag        The tag of the constant.
+     * @param owner      The internal name of the class of the member.
+     * @param name       The name of the member.
+     * @param descriptor The descriptor of the member.
+     * @return The index of the constant.
+     */
+    private int memberReference(int tag, String owner, String name, String descriptor) {
+        String key = tag + owner + "." + name + descriptor;
+
+        Integer index = indices.get(key);
+        if (index != null)
+            return index;
+
+        int classIndex = classReference(owner);
+        int nameAndTypeIndex = nameAndType(name, descriptor);
+
+        pool.write(tag);
+        u2(pool, classIndex);
+        u2(pool, nameAndTypeIndex);
+
+        return add(key);
+    }
+
+    /**
+     * Returns the index of a name and type constant, adding it if needed.
+     * 
+     * @param name       The name of the member.
+     * @param descriptor The descriptor of the member.
+     * @return The index of the constant.
+     */
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+
+        Integer index = indices.get(key);
+        if (index != null)
+            return index;
+
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+
+        pool.write(CONSTANT_NAME_AND_TYPE);
+        u2(pool, nameIndex);
+        u2(pool, descriptorIndex);
+
+        return add(key);
+    }
+
+    /**
+     * Registers the last entry written to the constant pool.
+     * 
+     * @param key The description of the entry.
+     * @return The index of the entry.
+     */
+    private int add(String key) {
+        int index = poolCount++;
+        indices.put(key, index);
+
+        return index;
+    }
+
+    /**
+     * Adds a method to the class.
+     * 
+     * @param access     The access flags of the method.
+     * @param name       The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @param code       The bytecode of the method.
+     * @param maxStack   The largest number of words on the operand stack.
+     * @param maxLocals  The number of words of the local variables, including
+     *                   the parameters.
+     */
+    public void addMethod(int access, String name, String descriptor, byte[] code, int maxStack, int maxLocals) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+
+        u2(methods, access);
+        u2(methods, nameIndex);
+        u2(methods, descriptorIndex);
+        u2(methods, 1);
+
+        u2(methods, codeIndex);
+        u4(methods, 12 + code.length);
+        u2(methods, maxStack);
+        u2(methods, maxLocals);
+        u4(methods, code.length);
+        methods.writeBytes(code);
+        u2(methods, 0);
+        u2(methods, 0);
+
+        methodCount++;
+    }
+
+    /**
+     * Returns the class file of a class with the methods added so far.
+     * 
+     * @param access        The access flags of the class.
+     * @param name          The internal name of the class.
+     * @param superclass    The internal name of the superclass.
+     * @param interfaceName The internal name of the interface implemented by the
+     *                      class.
+     * @return The class file.
+     */
+    public byte[] toByteArray(int access, String name, String superclass, String interfaceName) {
+        int thisIndex = classReference(name);
+        int superIndex = classReference(superclass);
+        int interfaceIndex = classReference(interfaceName);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        u4(output, MAGIC);
+        u2(output, 0);
+        u2(output, MAJOR_VERSION);
+
+        u2(output, poolCount);
+        output.writeBytes(pool.toByteArray());
+
+        u2(output, access | ACC_SUPER);
+        u2(output, thisIndex);
+        u2(output, superIndex);
+        u2(output, 1);
+        u2(output, interfaceIndex);
+
+        u2(output, 0);
+
+        u2(output, methodCount);
+        output.writeBytes(methods.toByteArray());
+
+        u2(output, 0);
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Writes an unsigned 16-bit value.
+     * 
+     * @param output The output.
+     * @param value  The value.
+     */
+    private static void u2(ByteArrayOutputStream output, int value) {
+        output.write(value >>> 8);
+        output.write(value);
+    }
+
+    /**
+     * Writes a 32-bit value.
+     * 
+     * @param output The output.
+     * @param value  The value.
+     */
+    private static void u4(ByteArrayOutputStream output, int value) {
+        u2(output, value >>> 16);
+        u2(output, value);
+    }
+}
@@ -0,0 +1,21 @@
+package ranger.syntax.program;
+
+import ranger.syntax.EvaluationContext;
+
+/**
+ * Interface implemented by the classes generated for the shapes of hot
+ * programs. A generated class only depends on the instructions of the program,
+ * and reads its constants, coordinates, ranges and names from the program it is
+ * executed for, so that every program of the same shape shares it.
+ */
+public interface CompiledFormula {
+    /**
+     * Evaluates the specified program.
+     * 
+     * @param program The program, whose shape is the one the class was generated
+     *                for.
+     * @param context The evaluation context.
+     * @return The result of the program.
+     */
+    public double evaluate(Program program, EvaluationContext context);
+}
@@ -0,0 +1,587 @@
+package ranger.syntax.program;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class generating a JVM class for the shape of a hot program.
+ * Each instruction of the program is translated into straight-line bytecode,
+ * the negation becoming a native double operation and the other operations
+ * calls to the ones the interpreter uses, which HotSpot inlines, so that the
+ * generated class carries errors the same way. Function calls with up to three
+ * arguments pass them to the call matching their number, without building an
+ * array. The class is defined as a hidden class, so that HotSpot optimises it
+ * like any other code and unloads it once it is no longer used. Programs using
+ * ranges as function arguments are left to the interpreter.
+ */
+public class FormulaCompiler {
+    /**
+     * The number of executions after which a program is promoted to a generated
+     * class.
+     */
+    public static final int PROMOTION_THRESHOLD = 1000;
+
+    /**
+     * The largest number of arguments of a function call in a generated class.
+     */
+    private static final int MAXIMUM_ARGUMENTS = 64;
+
+    /**
+     * The internal name of the generated classes, to which the JVM appends a
+     * unique suffix.
+     */
+    private static final String CLASS_NAME = "ranger/syntax/program/GeneratedFormula";
+
+    /**
+     * The internal name of the programs.
+     */
+    private static final String PROGRAM = "ranger/syntax/program/Program";
+
+    /**
+     * The internal name of the evaluation contexts.
+     */
+    private static final String CONTEXT = "ranger/syntax/EvaluationContext";
+
+    /**
+     * The internal name of the operations shared with the interpreter.
+     */
+    private static final String OPERATIONS = "ranger/syntax/program/Operations";
+
+    /**
+     * The internal name of the functions.
+     */
+    private static final String FUNCTION = "ranger/function/Function";
+
+    /**
+     * The descriptor of the coordinates of the cells.
+     */
+    private static final String COORDINATES = "Lranger/sheet/cell/CellCoordinates;";
+
+    /**
+     * The descriptor of the ranges of cells.
+     */
+    private static final String RANGE = "Lranger/sheet/cell/CellRange;";
+
+    /**
+     * The local variable holding the program.
+     */
+    private static final int PROGRAM_LOCAL = 1;
+
+    /**
+     * The local variable holding the evaluation context.
+     */
+    private static final int CONTEXT_LOCAL = 2;
+
+    /**
+     * The local variable holding the constants of the program.
+     */
+    private static final int CONSTANTS_LOCAL = 3;
+
+    /**
+     * The local variable holding the coordinates of the program.
+     */
+    private static final int COORDINATES_LOCAL = 4;
+
+    /**
+     * The local variable holding the ranges of the program.
+     */
+    private static final int RANGES_LOCAL = 5;
+
+    /**
+     * The local variable holding the names of the program.
+     */
+    private static final int NAMES_LOCAL = 6;
+
+    /**
+     * The local variable holding the functions bound to the program.
+     */
+    private static final int FUNCTIONS_LOCAL = 7;
+
+    /**
+     * The first local variable holding the arguments of a function call.
+     */
+    private static final int ARGUMENTS_LOCAL = 8;
+
+    /**
+     * The largest number of arguments passed to a function without an array.
+     */
+    private static final int MAXIMUM_FIXED_ARGUMENTS = 3;
+
+    /**
+     * The classes generated so far, by shape.
+     */
+    private static final Map<FormulaShape, CompiledFormula> FORMULAS = new ConcurrentHashMap<FormulaShape, CompiledFormula>();
+
+    /**
+     * The writer of the class file.
+     */
+    private final ClassFileWriter writer;
+
+    /**
+     * The bytecode of the evaluation method.
+     */
+    private final ByteArrayOutputStream code;
+
+    /**
+     * The number of words on the operand stack at the current instruction.
+     */
+    private int stack;
+
+    /**
+     * The largest number of words on the operand stack.
+     */
+    private int maxStack;
+
+    /**
+     * The number of words of the local variables.
+     */
+    private int maxLocals;
+
+    /**
+     * The number of values of the program on the stack at the current
+     * instruction.
+     */
+    private int values;
+
+    /**
+     * The number of values on the stack at the start of each call in progress.
+     */
+    private int[] marks;
+
+    /**
+     * The number of calls in progress.
+     */
+    private int calls;
+
+    /**
+     * Constructs a new formula compiler.
+     */
+    private FormulaCompiler() {
+        writer = new ClassFileWriter();
+        code = new ByteArrayOutputStream();
+
+        stack = 0;
+        maxStack = 0;
+        maxLocals = ARGUMENTS_LOCAL;
+
+        values = 0;
+        calls = 0;
+    }
+
+    /**
+     * Returns the class already generated for the shape of a program.
+     * 
+     * @param program The program.
+     * @return The generated class, or null if there is none yet.
+     */
+    public static CompiledFormula find(Program program) {
+        if (FORMULAS.isEmpty())
+            return null;
+
+        return FORMULAS.get(new FormulaShape(program));
+    }
+
+    /**
+     * Returns the class generated for the shape of a program, generating it if
+     * needed.
+     * 
+     * @param program The program.
+     * @return The generated class, or null if the program is left to the
+     *         interpreter.
+     */
+    public static CompiledFormula compile(Program program) {
+        FormulaShape shape = new FormulaShape(program);
+
+        CompiledFormula formula = FORMULAS.get(shape);
+        if (formula != null)
+            return formula;
+
+        try {
+            formula = new FormulaCompiler().generate(program.getCode());
+        } catch (IllegalStateException e) {
+            return null;
+        }
+
+        CompiledFormula previous = FORMULAS.putIfAbsent(shape, formula);
+
+        return previous != null ? previous : formula;
+    }
+
+    /**
+     * Returns the number of classes generated so far.
+     * 
+     * @return The number of generated classes.
+     */
+    public static int getCompiledCount() {
+        return FORMULAS.size();
+    }
+
+    /**
+     * Generates and instantiates the class for the specified instructions.
+     * 
+     * @param instructions The instructions of the program.
+     * @return An instance of the generated class.
+     * @throws IllegalStateException If the instructions are not supported, or
+     *                               the class cannot be defined.
+     */
+    private CompiledFormula generate(int[] instructions) {
+        marks = new int[instructions.length];
+
+        prologue();
+
+        for (int pc = 0; pc < instructions.length; pc += 1 + Opcode.getOperandCount(instructions[pc]))
+            translate(instructions, pc);
+
+        op(0xaf, -2); // dreturn
+
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", constructor(), 1, 1);
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "evaluate",
+                "(L" + PROGRAM + ";L" + CONTEXT + ";)D", code.toByteArray(), maxStack, maxLocals);
+
+        byte[] bytes = writer.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL, CLASS_NAME,
+                "java/lang/Object", "ranger/syntax/program/CompiledFormula");
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+
+            return (CompiledFormula) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define the generated formula.", e);
+        }
+    }
+
+    /**
+     * Returns the bytecode of the constructor, which only calls the one of its
+     * superclass.
+     * 
+     * @return The bytecode of the constructor.
+     */
+    private byte[] constructor() {
+        int superConstructor = writer.methodReference("java/lang/Object", "<init>", "()V");
+
+        return new byte[] { 0x2a, (byte) 0xb7, (byte) (superConstructor >>> 8), (byte) superConstructor,
+                (byte) 0xb1 };
+    }
+
+    /**
+     * Loads the pools of the program, and the functions bound to it, into local
+     * variables.
+     */
+    private void prologue() {
+        loadPool("getConstants", "()[D", CONSTANTS_LOCAL);
+        loadPool("getCoordinates", "()[" + COORDINATES, COORDINATES_LOCAL);
+        loadPool("getRanges", "()[" + RANGE, RANGES_LOCAL);
+        loadPool("getNames", "()[Ljava/lang/String;", NAMES_LOCAL);
+
+        load(PROGRAM_LOCAL);
+        load(CONTEXT_LOCAL);
+        invoke(0xb6, writer.methodReference(PROGRAM, "getFunctions", "(L" + CONTEXT + ";)[L" + FUNCTION + ";"),
+                -1);
+        op(0x3a, -1); // astore
+        code.write(FUNCTIONS_LOCAL);
+    }
+
+    /**
+     * Loads a pool of the program into a local variable.
+     * 
+     * @param getter     The name of the getter of the pool.
+     * @param descriptor The descriptor of the getter.
+     * @param local      The local variable.
+     */
+    private void loadPool(String getter, String descriptor, int local) {
+        load(PROGRAM_LOCAL);
+        invoke(0xb6, writer.methodReference(PROGRAM, getter, descriptor), 0);
+        op(0x3a, -1); // astore
+        code.write(local);
+    }
+
+    /**
+     * Translates the instruction at the specified position.
+     * 
+     * @param instructions The instructions of the program.
+     * @param pc           The position of the instruction.
+     * @throws IllegalStateException If the instruction is not supported.
+     */
+    private void translate(int[] instructions, int pc) {
+        int opcode = instructions[pc];
+
+        switch (opcode) {
+            case Opcode.CONSTANT:
+                load(CONSTANTS_LOCAL);
+                push(instructions[pc + 1]);
+                op(0x31, 0); // daload
+                break;
+
+            case Opcode.REFERENCE:
+                load(CONTEXT_LOCAL);
+                element(COORDINATES_LOCAL, instructions[pc + 1]);
+                interfaceCall("getValue", "(" + COORDINATES + ")D", 2, 2);
+                break;
+            case Opcode.SLOT:
+                load(CONTEXT_LOCAL);
+                push(instructions[pc + 1]);
+                element(COORDINATES_LOCAL, instructions[pc + 2]);
+                interfaceCall("getValue", "(I" + COORDINATES + ")D", 3, 2);
+                break;
+            case Opcode.EXTERNAL:
+                load(CONTEXT_LOCAL);
+                element(NAMES_LOCAL, instructions[pc + 1]);
+                element(COORDINATES_LOCAL, instructions[pc + 2]);
+                interfaceCall("getValue", "(Ljava/lang/String;" + COORDINATES + ")D", 3, 2);
+                break;
+
+            case Opcode.ADD:
+                binary("add");
+                break;
+            case Opcode.SUBTRACT:
+                binary("subtract");
+                break;
+            case Opcode.MULTIPLY:
+                binary("multiply");
+                break;
+            case Opcode.NEGATE:
+                op(0x77, 0); // dneg
+                break;
+            case Opcode.POWER:
+                binary("power");
+                break;
+
+            case Opcode.DIVIDE:
+                binary("divide");
+                break;
+            case Opcode.MODULO:
+                binary("modulo");
+                break;
+            case Opcode.LESS_THAN:
+                binary("lessThan");
+                break;
+            case Opcode.LESS_THAN_OR_EQUAL_TO:
+                binary("lessThanOrEqualTo");
+                break;
+            case Opcode.GREATER_THAN:
+                binary("greaterThan");
+                break;
+            case Opcode.GREATER_THAN_OR_EQUAL_TO:
+                binary("greaterThanOrEqualTo");
+                break;
+            case Opcode.EQUAL_TO:
+                binary("equalTo");
+                break;
+            case Opcode.NOT_EQUAL_TO:
+                binary("notEqualTo");
+                break;
+            case Opcode.LOGICAL_AND:
+                binary("and");
+                break;
+            case Opcode.LOGICAL_OR:
+                binary("or");
+                break;
+            case Opcode.FACTORIAL:
+                invoke(0xb8, writer.methodReference(OPERATIONS, "factorial", "(D)D"), 0);
+                break;
+
+            case Opcode.BEGIN_CALL:
+                resolve(instructions[pc + 1]);
+                marks[calls++] = values;
+                break;
+            case Opcode.CALL:
+                int mark = marks[--calls];
+                call(values - mark);
+                values = mark + 1;
+                break;
+            case Opcode.AGGREGATE:
+                load(CONTEXT_LOCAL);
+                resolve(instructions[pc + 1]);
+                element(RANGES_LOCAL, instructions[pc + 2]);
+                invoke(0xb8, writer.methodReference(OPERATIONS, "aggregate",
+                        "(L" + CONTEXT + ";L" + FUNCTION + ";" + RANGE + ")D"), -1);
+                break;
+
+            default:
+                throw new IllegalStateException("Instruction " + Opcode.getName(opcode) + " is not supported.");
+        }
+
+        values += getEffect(opcode);
+    }
+
+    /**
+     * Returns the change of the number of values of the program on the stack
+     * caused by an instruction, calls being tracked separately.
+     * 
+     * @param opcode The opcode.
+     * @return The change of the number of values.
+     */
+    private static int getEffect(int opcode) {
+        switch (opcode) {
+            case Opcode.CONSTANT:
+            case Opcode.REFERENCE:
+            case Opcode.SLOT:
+            case Opcode.EXTERNAL:
+            case Opcode.AGGREGATE:
+                return 1;
+
+            case Opcode.NEGATE:
+            case Opcode.FACTORIAL:
+            case Opcode.BEGIN_CALL:
+            case Opcode.CALL:
+                return 0;
+
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Resolves a function, leaving it on the stack.
+     * 
+     * @param name The index of the name of the function.
+     */
+    private void resolve(int name) {
+        load(CONTEXT_LOCAL);
+        load(FUNCTIONS_LOCAL);
+        load(NAMES_LOCAL);
+        push(name);
+        invoke(0xb8, writer.methodReference(OPERATIONS, "resolve",
+                "(L" + CONTEXT + ";[L" + FUNCTION + ";[Ljava/lang/String;I)L" + FUNCTION + ";"), -3);
+    }
+
+    /**
+     * Calls the function below its arguments on the stack. Up to three arguments
+     * are passed as they are, more arguments are moved into local variables, then
+     * into a new array.
+     * 
+     * @param count The number of arguments.
+     */
+    private void call(int count) {
+        if (count <= MAXIMUM_FIXED_ARGUMENTS) {
+            invoke(0xb8, writer.methodReference(OPERATIONS, "call" + count,
+                    "(L" + FUNCTION + ";" + "D".repeat(count) + ")D"), 1 - count * 2);
+            return;
+        }
+
+        if (count > MAXIMUM_ARGUMENTS)
+            throw new IllegalStateException("Too many arguments.");
+
+        maxLocals = Math.max(maxLocals, ARGUMENTS_LOCAL + count * 2);
+
+        for (int i = count - 1; i >= 0; i--) {
+            op(0x39, -2); // dstore
+            code.write(ARGUMENTS_LOCAL + i * 2);
+        }
+
+        push(count);
+        op(0xbc, 0); // newarray
+        code.write(7); // double
+
+        for (int i = 0; i < count; i++) {
+            op(0x59, 1); // dup
+            push(i);
+            op(0x18, 2); // dload
+            code.write(ARGUMENTS_LOCAL + i * 2);
+            op(0x52, -4); // dastore
+        }
+
+        invoke(0xb8, writer.methodReference(OPERATIONS, "call", "(L" + FUNCTION + ";[D)D"), 0);
+    }
+
+    /**
+     * Calls a binary operation shared with the interpreter.
+     * 
+     * @param name The name of the operation.
+     */
+    private void binary(String name) {
+        invoke(0xb8, writer.methodReference(OPERATIONS, name, "(DD)D"), -2);
+    }
+
+    /**
+     * Calls a method of the evaluation context.
+     * 
+     * @param name       The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @param words      The number of words of the arguments, including the
+     *                   context.
+     * @param result     The number of words of the result.
+     */
+    private void interfaceCall(String name, String descriptor, int words, int result) {
+        int index = writer.interfaceMethodReference(CONTEXT, name, descriptor);
+
+        op(0xb9, result - words); // invokeinterface
+        code.write(index >>> 8);
+        code.write(index);
+        code.write(words);
+        code.write(0);
+    }
+
+    /**
+     * Writes an invocation instruction.
+     * 
+     * @param opcode The opcode of the invocation.
+     * @param index  The index of the method reference.
+     * @param effect The change of the number of words on the stack.
+     */
+    private void invoke(int opcode, int index, int effect) {
+        op(opcode, effect);
+        code.write(index >>> 8);
+        code.write(index);
+    }
+
+    /**
+     * Loads an element of an array held by a local variable.
+     * 
+     * @param local The local variable.
+     * @param index The index of the element.
+     */
+    private void element(int local, int index) {
+        load(local);
+        push(index);
+        op(0x32, -1); // aaload
+    }
+
+    /**
+     * Loads a reference held by a local variable.
+     * 
+     * @param local The local variable.
+     */
+    private void load(int local) {
+        op(0x19, 1); // aload
+        code.write(local);
+    }
+
+    /**
+     * Pushes an integer constant.
+     * 
+     * @param value The value, between zero and 32767.
+     */
+    private void push(int value) {
+        if (value < 0 || value > Short.MAX_VALUE)
+            throw new IllegalStateException("Operand " + value + " is out of range.");
+
+        if (value <= 5)
+            op(0x03 + value, 1); // iconst
+        else if (value <= Byte.MAX_VALUE) {
+            op(0x10, 1); // bipush
+            code.write(value);
+        } else {
+            op(0x11, 1); // sipush
+            code.write(value >>> 8);
+            code.write(value);
+        }
+    }
+
+    /**
+     * Writes an opcode and tracks the number of words on the operand stack.
+     * 
+     * @param opcode The opcode.
+     * @param effect The change of the number of words on the stack.
+     */
+    private void op(int opcode, int effect) {
+        code.write(opcode);
+
+        stack += effect;
+        maxStack = Math.max(maxStack, stack);
+    }
+}
@@ -0,0 +1,67 @@
+package ranger.syntax.program;
+
+import java.util.Arrays;
+
+/**
+ * Class representing the shape of a program, which the classes generated for
+ * hot programs are cached by. Two programs have the same shape when they have
+ * the same instructions and reference the same sheets and functions, whatever
+ * their constants and the cells they reference. A formula filled down a column
+ * thus has a single shape.
+ */
+public class FormulaShape {
+    /**
+     * The instructions of the program.
+     */
+    private final int[] code;
+
+    /**
+     * The names of the sheets and of the functions referenced by the program.
+     */
+    private final String[] names;
+
+    /**
+     * The hash code of the shape.
+     */
+    private final int hash;
+
+    /**
+     * Constructs the shape of the specified program.
+     * 
+     * @param program The program.
+     */
+    public FormulaShape(Program program) {
+        this.code = program.getCode();
+        this.names = program.getNames();
+        this.hash = Arrays.hashCode(code) * 31 + Arrays.hashCode(names);
+    }
+
+    /**
+     * Compares this object to another object.
+     * 
+     * @param obj The object to compare to.
+     * @return Whether the objects are equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null)
+            return false;
+
+        if (!(obj instanceof FormulaShape))
+            return false;
+
+        FormulaShape other = (FormulaShape) obj;
+
+        return hash == other.hash && Arrays.equals(code, other.code) && Arrays.equals(names, other.names);
+    }
+
+    /**
+     * Returns the hash code of the object.
+     * 
+     * @return The hash code of the object.
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
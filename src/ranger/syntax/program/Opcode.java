@@ -0,0 +1,193 @@
+package ranger.syntax.program;
+
+/**
+ * Class listing the opcodes of the instructions of a program.
+ * Each instruction is an opcode followed by its operands, which are indices
+ * into the pools of the program. The instructions are executed in postfix
+ * order on a stack of values.
+ */
+public class Opcode {
+    /**
+     * Pushes a constant. Its operand is the index of the constant.
+     */
+    public static final int CONSTANT = 0;
+
+    /**
+     * Pushes the value of a cell of the sheet of the expression that is not bound
+     * to a slot. Its operand is the index of the coordinates of the cell.
+     */
+    public static final int REFERENCE = 1;
+
+    /**
+     * Pushes the value of a cell bound to a reference slot. Its operands are the
+     * slot and the index of the coordinates of the cell.
+     */
+    public static final int SLOT = 2;
+
+    /**
+     * Pushes the value of a cell of another sheet. Its operands are the index of
+     * the name of the sheet and the index of the coordinates of the cell.
+     */
+    public static final int EXTERNAL = 3;
+
+    /**
+     * Pushes the values of the cells of a range of the sheet of the expression, as
+     * arguments of the current call. Its operand is the index of the range.
+     */
+    public static final int RANGE = 4;
+
+    /**
+     * Pushes the values of the cells of a range of another sheet, as arguments of
+     * the current call. Its operands are the index of the name of the sheet and
+     * the index of the range.
+     */
+    public static final int EXTERNAL_RANGE = 5;
+
+    /**
+     * Fails, as a range is used where a single value is expected. Its operand is
+     * the index of the range.
+     */
+    public static final int RANGE_VALUE = 6;
+
+    /**
+     * Adds the two values on top of the stack.
+     */
+    public static final int ADD = 7;
+
+    /**
+     * Subtracts the value on top of the stack from the one below it.
+     */
+    public static final int SUBTRACT = 8;
+
+    /**
+     * Multiplies the two values on top of the stack.
+     */
+    public static final int MULTIPLY = 9;
+
+    /**
+     * Divides the value below the top of the stack by the one on top of it.
+     */
+    public static final int DIVIDE = 10;
+
+    /**
+     * Computes the remainder of the value below the top of the stack by the one on
+     * top of it.
+     */
+    public static final int MODULO = 11;
+
+    /**
+     * Raises the value below the top of the stack to the power of the one on top
+     * of it.
+     */
+    public static final int POWER = 12;
+
+    /**
+     * Compares whether the value below the top of the stack is less than the one
+     * on top of it.
+     */
+    public static final int LESS_THAN = 13;
+
+    /**
+     * Compares whether the value below the top of the stack is less than or equal
+     * to the one on top of it.
+     */
+    public static final int LESS_THAN_OR_EQUAL_TO = 14;
+
+    /**
+     * Compares whether the value below the top of the stack is greater than the
+     * one on top of it.
+     */
+    public static final int GREATER_THAN = 15;
+
+    /**
+     * Compares whether the value below the top of the stack is greater than or
+     * equal to the one on top of it.
+     */
+    public static final int GREATER_THAN_OR_EQUAL_TO = 16;
+
+    /**
+     * Compares whether the two values on top of the stack are equal.
+     */
+    public static final int EQUAL_TO = 17;
+
+    /**
+     * Compares whether the two values on top of the stack are different.
+     */
+    public static final int NOT_EQUAL_TO = 18;
+
+    /**
+     * Computes the logical and of the two values on top of the stack.
+     */
+    public static final int LOGICAL_AND = 19;
+
+    /**
+     * Computes the logical or of the two values on top of the stack.
+     */
+    public static final int LOGICAL_OR = 20;
+
+    /**
+     * Negates the value on top of the stack.
+     */
+    public static final int NEGATE = 21;
+
+    /**
+     * Computes the factorial of the value on top of the stack.
+     */
+    public static final int FACTORIAL = 22;
+
+    /**
+     * Resolves a function and starts a call to it, before its arguments are
+     * pushed. Its operand is the index of the name of the function.
+     */
+    public static final int BEGIN_CALL = 23;
+
+    /**
+     * Calls the function of the current call with the values pushed since it
+     * started, and pushes its result.
+     */
+    public static final int CALL = 24;
+
+    /**
+     * Calls a function on a single range of the sheet of the expression, through
+     * the aggregator maintained by the context if there is one. Its operands are
+     * the index of the name of the function and the index of the range.
+     */
+    public static final int AGGREGATE = 25;
+
+    /**
+     * The names of the opcodes, by opcode.
+     */
+    private static final String[] NAMES = { "CONSTANT", "REFERENCE", "SLOT", "EXTERNAL", "RANGE", "EXTERNAL_RANGE",
+            "RANGE_VALUE", "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "MODULO", "POWER", "LESS_THAN",
+            "LESS_THAN_OR_EQUAL_TO", "GREATER_THAN", "GREATER_THAN_OR_EQUAL_TO", "EQUAL_TO", "NOT_EQUAL_TO",
+            "LOGICAL_AND", "LOGICAL_OR", "NEGATE", "FACTORIAL", "BEGIN_CALL", "CALL", "AGGREGATE" };
+
+    /**
+     * The number of operands of the instructions, by opcode.
+     */
+    private static final int[] OPERANDS = { 1, 1, 2, 2, 1, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1,
+            0, 2 };
+
+    private Opcode() {
+    }
+
+    /**
+     * Returns the name of the specified opcode.
+     * 
+     * @param opcode The opcode.
+     * @return The name of the opcode.
+     */
+    public static String getName(int opcode) {
+        return NAMES[opcode];
+    }
+
+    /**
+     * Returns the number of operands following the specified opcode.
+     * 
+     * @param opcode The opcode.
+     * @return The number of operands of the opcode.
+     */
+    public static int getOperandCount(int opcode) {
+        return OPERANDS[opcode];
+    }
+}
@@ -0,0 +1,410 @@
+package ranger.syntax.program;
+
+import ranger.Utils;
+import ranger.function.Aggregator;
+import ranger.function.EvaluationError;
+import ranger.function.Function;
+import ranger.sheet.cell.CellRange;
+import ranger.syntax.EvaluationContext;
+
+/**
+ * Class containing the operations of the instructions that are more than a
+ * single arithmetic operation. They are shared by the program interpreter, the
+ * classes generated for hot programs and the syntax tree, so that all of them
+ * fail the same way.
+ * <p>
+ * Failures are returned as evaluation errors rather than thrown. An operation
+ * whose operand is an error returns that error, the left one first, so that the
+ * error of an expression is the first one its evaluation met. Operations check
+ * their operands only once their result is a NaN, or when one of their operands
+ * is, which keeps the common case to a single comparison.
+ */
+public class Operations {
+    private Operations() {
+    }
+
+    /**
+     * Adds two values.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return The sum, or the error of an operand.
+     */
+    public static double add(double left, double right) {
+        double result = left + right;
+
+        return Double.isNaN(result) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Subtracts a value from another.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return The difference, or the error of an operand.
+     */
+    public static double subtract(double left, double right) {
+        double result = left - right;
+
+        return Double.isNaN(result) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Multiplies two values.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return The product, or the error of an operand.
+     */
+    public static double multiply(double left, double right) {
+        double result = left * right;
+
+        return Double.isNaN(result) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Divides a value by another.
+     * 
+     * @param left  The dividend.
+     * @param right The divisor.
+     * @return The quotient, the error of an operand, or a division by zero if the
+     *         divisor is zero.
+     */
+    public static double divide(double left, double right) {
+        double result = right == 0 ? EvaluationError.DIVISION_BY_ZERO.getValue() : left / right;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Computes the remainder of a value by another.
+     * 
+     * @param left  The dividend.
+     * @param right The divisor.
+     * @return The remainder, the error of an operand, or a modulo by zero if the
+     *         divisor is zero.
+     */
+    public static double modulo(double left, double right) {
+        double result = right == 0 ? EvaluationError.MODULO_BY_ZERO.getValue() : left % right;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Raises a value to the power of another. Unlike Math.pow, an error raised to
+     * the power of zero is still an error.
+     * 
+     * @param left  The base.
+     * @param right The exponent.
+     * @return The power, or the error of an operand.
+     */
+    public static double power(double left, double right) {
+        double result = Math.pow(left, right);
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Computes the factorial of a value.
+     * 
+     * @param operand The value.
+     * @return The factorial of the value, the error of the value, or the
+     *         factorial of a negative number if the value is negative.
+     */
+    public static double factorial(double operand) {
+        if (EvaluationError.isError(operand))
+            return operand;
+
+        if (operand < 0)
+            return EvaluationError.NEGATIVE_FACTORIAL.getValue();
+
+        return Utils.factorial(operand);
+    }
+
+    /**
+     * Compares whether a value is less than another.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if it is, 0 otherwise, or the error of an operand.
+     */
+    public static double lessThan(double left, double right) {
+        double result = left < right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Compares whether a value is less than or equal to another.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if it is, 0 otherwise, or the error of an operand.
+     */
+    public static double lessThanOrEqualTo(double left, double right) {
+        double result = left <= right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Compares whether a value is greater than another.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if it is, 0 otherwise, or the error of an operand.
+     */
+    public static double greaterThan(double left, double right) {
+        double result = left > right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Compares whether a value is greater than or equal to another.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if it is, 0 otherwise, or the error of an operand.
+     */
+    public static double greaterThanOrEqualTo(double left, double right) {
+        double result = left >= right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Compares whether two values are equal.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if they are, 0 otherwise, or the error of an operand.
+     */
+    public static double equalTo(double left, double right) {
+        double result = left == right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Compares whether two values are different.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if they are, 0 otherwise, or the error of an operand.
+     */
+    public static double notEqualTo(double left, double right) {
+        double result = left != right ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Computes the logical and of two values.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if both are non-zero, 0 otherwise, or the error of an operand.
+     */
+    public static double and(double left, double right) {
+        double result = left != 0 && right != 0 ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Computes the logical or of two values.
+     * 
+     * @param left  The left value.
+     * @param right The right value.
+     * @return 1 if either is non-zero, 0 otherwise, or the error of an
+     *         operand.
+     */
+    public static double or(double left, double right) {
+        double result = left != 0 || right != 0 ? 1 : 0;
+
+        return Double.isNaN(left + right) ? propagate(left, right, result) : result;
+    }
+
+    /**
+     * Returns the function with the specified name.
+     * 
+     * @param context The evaluation context.
+     * @param name    The name of the function.
+     * @return The function, or null if there is no function with this name, in
+     *         which case calling it results in an unknown function.
+     */
+    public static Function resolve(EvaluationContext context, String name) {
+        return context.getFunction(name);
+    }
+
+    /**
+     * Returns the function with the specified name, from the functions bound to
+     * the program if they can be used in the context.
+     * 
+     * @param context   The evaluation context.
+     * @param functions The functions bound to the program, by name index, or null
+     *                  if they cannot be used in the context.
+     * @param names     The names of the program.
+     * @param name      The index of the name of the function.
+     * @return The function, or null if there is no function with this name.
+     */
+    public static Function resolve(EvaluationContext context, Function[] functions, String[] names, int name) {
+        if (functions != null && functions[name] != null)
+            return functions[name];
+
+        return resolve(context, names[name]);
+    }
+
+    /**
+     * Calls a function without arguments.
+     * 
+     * @param function The function, or null if it is not registered.
+     * @return The result of the function, or an unknown function.
+     */
+    public static double call0(Function function) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        return function.evaluate0();
+    }
+
+    /**
+     * Calls a function with one argument.
+     * 
+     * @param function The function, or null if it is not registered.
+     * @param first    The argument.
+     * @return The result of the function, an unknown function, or the error of
+     *         the argument.
+     */
+    public static double call1(Function function, double first) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        if (EvaluationError.isError(first))
+            return first;
+
+        return function.evaluate1(first);
+    }
+
+    /**
+     * Calls a function with two arguments.
+     * 
+     * @param function The function, or null if it is not registered.
+     * @param first    The first argument.
+     * @param second   The second argument.
+     * @return The result of the function, an unknown function, or the error of
+     *         the first argument that is one.
+     */
+    public static double call2(Function function, double first, double second) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        if (EvaluationError.isError(first))
+            return first;
+
+        if (EvaluationError.isError(second))
+            return second;
+
+        return function.evaluate2(first, second);
+    }
+
+    /**
+     * Calls a function with three arguments.
+     * 
+     * @param function The function, or null if it is not registered.
+     * @param first    The first argument.
+     * @param second   The second argument.
+     * @param third    The third argument.
+     * @return The result of the function, an unknown function, or the error of
+     *         the first argument that is one.
+     */
+    public static double call3(Function function, double first, double second, double third) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        if (EvaluationError.isError(first))
+            return first;
+
+        if (EvaluationError.isError(second))
+            return second;
+
+        if (EvaluationError.isError(third))
+            return third;
+
+        return function.evaluate3(first, second, third);
+    }
+
+    /**
+     * Calls a function with the arguments held by an array.
+     * 
+     * @param function  The function, or null if it is not registered.
+     * @param arguments The arguments.
+     * @return The result of the function, an unknown function, or the error of
+     *         the first argument that is one.
+     */
+    public static double call(Function function, double[] arguments) {
+        return call(function, arguments, 0, arguments.length);
+    }
+
+    /**
+     * Calls a function with the arguments held by a part of a buffer.
+     * 
+     * @param function The function, or null if it is not registered.
+     * @param values   The buffer.
+     * @param offset   The index of the first argument in the buffer.
+     * @param count    The number of arguments.
+     * @return The result of the function, an unknown function, or the error of
+     *         the first argument that is one.
+     */
+    public static double call(Function function, double[] values, int offset, int count) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        for (int i = offset; i < offset + count; i++)
+            if (EvaluationError.isError(values[i]))
+                return values[i];
+
+        return function.evaluate(values, offset, count);
+    }
+
+    /**
+     * Calls a function on a single range of the sheet of the expression. The
+     * aggregator maintained by the context is used if there is one, otherwise the
+     * values of the range are read.
+     * 
+     * @param context  The evaluation context.
+     * @param function The function, or null if it is not registered.
+     * @param range    The range.
+     * @return The result of the function, or an unknown function.
+     */
+    public static double aggregate(EvaluationContext context, Function function, CellRange range) {
+        if (function == null)
+            return EvaluationError.UNKNOWN_FUNCTION.getValue();
+
+        Aggregator aggregator = context.getAggregator(range, function);
+        if (aggregator != null)
+            return aggregator.getResult();
+
+        return function.evaluate(context.getValues(range));
+    }
+
+    /**
+     * Returns the error of the left operand of an operation if it is one,
+     * otherwise the error of its right operand if it is one, otherwise its result.
+     * 
+     * @param left   The left operand.
+     * @param right  The right operand.
+     * @param result The result of the operation.
+     * @return The error of an operand, or the result.
+     */
+    private static double propagate(double left, double right, double result) {
+        if (EvaluationError.isError(left))
+            return left;
+
+        if (EvaluationError.isError(right))
+            return right;
+
+        return result;
+    }
+}
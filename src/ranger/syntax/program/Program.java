@@ -0,0 +1,429 @@
+package ranger.syntax.program;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ranger.function.EvaluationError;
+import ranger.function.Function;
+import ranger.function.FunctionRegistrar;
+import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
+import ranger.syntax.EvaluationContext;
+
+/**
+ * Class representing a syntax tree compiled into a flat sequence of
+ * instructions.
+ * The instructions are executed in postfix order on a stack of primitive
+ * values, so that evaluating the program does not walk the nodes of the tree
+ * nor allocate, apart from the values of the ranges read from the context. Its
+ * results, and the exceptions it throws, are the same as the ones of the tree.
+ * The stack is reused by the programs executed on the same thread, including
+ * the ones executed while another program reads the value of a cell.
+ * Programs executed often enough are promoted to a class generated for their
+ * shape, which is then executed instead of the interpreter.
+ * The functions called by the program are bound when it is compiled, and are
+ * only resolved by name again in contexts resolving functions with another
+ * function registrar.
+ */
+public class Program {
+    /**
+     * The stack of the programs executed by each thread.
+     */
+    private static final ThreadLocal<ProgramStack> STACKS = ThreadLocal.withInitial(ProgramStack::new);
+
+    /**
+     * The instructions of the program, each one being an opcode followed by its
+     * operands.
+     */
+    private final int[] code;
+
+    /**
+     * The constants of the program.
+     */
+    private final double[] constants;
+
+    /**
+     * The coordinates of the cells referenced by the program.
+     */
+    private final CellCoordinates[] coordinates;
+
+    /**
+     * The ranges of cells referenced by the program.
+     */
+    private final CellRange[] ranges;
+
+    /**
+     * The names of the sheets and of the functions referenced by the program.
+     */
+    private final String[] names;
+
+    /**
+     * The functions called by the program, indexed like their names, the other
+     * names having no function.
+     */
+    private final Function[] functions;
+
+    /**
+     * The function registrar the functions were bound with, or null if they are
+     * resolved by name.
+     */
+    private final FunctionRegistrar functionRegistrar;
+
+    /**
+     * The largest number of values on the stack while executing the program, not
+     * counting the values of the ranges.
+     */
+    private final int depth;
+
+    /**
+     * The number of times the program was interpreted, counted atomically so
+     * that exactly one of the threads sharing the program promotes it.
+     */
+    private final AtomicInteger invocations;
+
+    /**
+     * The class generated for the shape of the program, or null while the
+     * program is interpreted.
+     */
+    private volatile CompiledFormula formula;
+
+    /**
+     * Constructs a new program.
+     * 
+     * @param code        The instructions.
+     * @param constants   The constants.
+     * @param coordinates The coordinates of the referenced cells.
+     * @param ranges      The referenced ranges.
+     * @param names             The names of the referenced sheets and functions.
+     * @param functions         The functions bound to the names.
+     * @param functionRegistrar The function registrar the functions were bound
+     *                          with, or null.
+     * @param depth             The largest number of values on the stack.
+     */
+    Program(int[] code, double[] constants, CellCoordinates[] coordinates, CellRange[] ranges, String[] names,
+            Function[] functions, FunctionRegistrar functionRegistrar, int depth) {
+        this.code = code;
+        this.constants = constants;
+        this.coordinates = coordinates;
+        this.ranges = ranges;
+        this.names = names;
+        this.functions = functions;
+        this.functionRegistrar = functionRegistrar;
+        this.depth = depth;
+
+        this.invocations = new AtomicInteger();
+        this.formula = null;
+    }
+
+    /**
+     * Returns the instructions of the program.
+     * 
+     * @return The instructions, which must not be modified.
+     */
+    int[] getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the constants of the program.
+     * 
+     * @return The constants, which must not be modified.
+     */
+    double[] getConstants() {
+        return constants;
+    }
+
+    /**
+     * Returns the coordinates of the cells referenced by the program.
+     * 
+     * @return The coordinates, which must not be modified.
+     */
+    CellCoordinates[] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Returns the ranges of cells referenced by the program.
+     * 
+     * @return The ranges, which must not be modified.
+     */
+    CellRange[] getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the names of the sheets and of the functions referenced by the
+     * program.
+     * 
+     * @return The names, which must not be modified.
+     */
+    String[] getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the functions bound to the program, if the specified context
+     * resolves functions with the function registrar they were bound with.
+     * 
+     * @param context The evaluation context.
+     * @return The functions, which must not be modified, or null if they must be
+     *         resolved by name.
+     */
+    Function[] getFunctions(EvaluationContext context) {
+        if (functionRegistrar == null || context.getFunctionRegistrar() != functionRegistrar)
+            return null;
+
+        return functions;
+    }
+
+    /**
+     * Returns the number of instructions of the program.
+     * 
+     * @return The number of instructions.
+     */
+    public int getLength() {
+        int length = 0;
+
+        for (int pc = 0; pc < code.length; pc += 1 + Opcode.getOperandCount(code[pc]))
+            length++;
+
+        return length;
+    }
+
+    /**
+     * Returns the largest number of values on the stack while executing the
+     * program, not counting the values of the ranges.
+     * 
+     * @return The depth of the program.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns whether the program was promoted to a generated class.
+     * 
+     * @return Whether the program is compiled.
+     */
+    public boolean isCompiled() {
+        return formula != null;
+    }
+
+    /**
+     * Executes the program. The first execution picks up the class already
+     * generated for a program of the same shape, if any, and the one reaching the
+     * promotion threshold generates it. Otherwise the program is interpreted on
+     * the stack of the current thread.
+     * 
+     * @param context The evaluation context.
+     * @return The result of the program.
+     */
+    public double execute(EvaluationContext context) {
+        if (formula == null) {
+            int count = invocations.incrementAndGet();
+
+            if (count == 1)
+                formula = FormulaCompiler.find(this);
+            else if (count == FormulaCompiler.PROMOTION_THRESHOLD)
+                formula = FormulaCompiler.compile(this);
+        }
+
+        CompiledFormula formula = this.formula;
+        if (formula != null)
+            return formula.evaluate(this, context);
+
+        return interpret(context);
+    }
+
+    /**
+     * Interprets the program on the stack of the current thread.
+     * 
+     * @param context The evaluation context.
+     * @return The result of the program.
+     */
+    public double interpret(EvaluationContext context) {
+        ProgramStack stack = STACKS.get();
+
+        int size = stack.size();
+        int calls = stack.getCallCount();
+
+        try {
+            stack.ensureCapacity(depth);
+
+            run(stack, context);
+
+            return stack.pop();
+        } finally {
+            stack.reset(size, calls);
+        }
+    }
+
+    /**
+     * Runs the instructions of the program on the specified stack. The result is
+     * left on top of the stack.
+     * 
+     * @param stack   The stack.
+     * @param context The evaluation context.
+     */
+    private void run(ProgramStack stack, EvaluationContext context) {
+        int[] code = this.code;
+        Function[] functions = getFunctions(context);
+        int pc = 0;
+
+        while (pc < code.length) {
+            double right;
+
+            switch (code[pc]) {
+                case Opcode.CONSTANT:
+                    stack.push(constants[code[pc + 1]]);
+                    pc += 2;
+                    break;
+
+                case Opcode.REFERENCE:
+                    stack.push(context.getValue(coordinates[code[pc + 1]]));
+                    pc += 2;
+                    break;
+                case Opcode.SLOT:
+                    stack.push(context.getValue(code[pc + 1], coordinates[code[pc + 2]]));
+                    pc += 3;
+                    break;
+                case Opcode.EXTERNAL:
+                    stack.push(context.getValue(names[code[pc + 1]], coordinates[code[pc + 2]]));
+                    pc += 3;
+                    break;
+
+                case Opcode.RANGE:
+                    stack.push(context.getValues(ranges[code[pc + 1]]));
+                    pc += 2;
+                    break;
+                case Opcode.EXTERNAL_RANGE:
+                    stack.push(context.getValues(names[code[pc + 1]], ranges[code[pc + 2]]));
+                    pc += 3;
+                    break;
+                case Opcode.RANGE_VALUE:
+                    stack.push(EvaluationError.RANGE_VALUE.getValue());
+                    pc += 2;
+                    break;
+
+                case Opcode.ADD:
+                    right = stack.pop();
+                    stack.replace(Operations.add(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.SUBTRACT:
+                    right = stack.pop();
+                    stack.replace(Operations.subtract(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.MULTIPLY:
+                    right = stack.pop();
+                    stack.replace(Operations.multiply(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.DIVIDE:
+                    right = stack.pop();
+                    stack.replace(Operations.divide(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.MODULO:
+                    right = stack.pop();
+                    stack.replace(Operations.modulo(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.POWER:
+                    right = stack.pop();
+                    stack.replace(Operations.power(stack.peek(), right));
+                    pc++;
+                    break;
+
+                case Opcode.LESS_THAN:
+                    right = stack.pop();
+                    stack.replace(Operations.lessThan(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.LESS_THAN_OR_EQUAL_TO:
+                    right = stack.pop();
+                    stack.replace(Operations.lessThanOrEqualTo(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.GREATER_THAN:
+                    right = stack.pop();
+                    stack.replace(Operations.greaterThan(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.GREATER_THAN_OR_EQUAL_TO:
+                    right = stack.pop();
+                    stack.replace(Operations.greaterThanOrEqualTo(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.EQUAL_TO:
+                    right = stack.pop();
+                    stack.replace(Operations.equalTo(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.NOT_EQUAL_TO:
+                    right = stack.pop();
+                    stack.replace(Operations.notEqualTo(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.LOGICAL_AND:
+                    right = stack.pop();
+                    stack.replace(Operations.and(stack.peek(), right));
+                    pc++;
+                    break;
+                case Opcode.LOGICAL_OR:
+                    right = stack.pop();
+                    stack.replace(Operations.or(stack.peek(), right));
+                    pc++;
+                    break;
+
+                case Opcode.NEGATE:
+                    stack.replace(-stack.peek());
+                    pc++;
+                    break;
+                case Opcode.FACTORIAL:
+                    stack.replace(Operations.factorial(stack.peek()));
+                    pc++;
+                    break;
+
+                case Opcode.BEGIN_CALL:
+                    stack.begin(Operations.resolve(context, functions, names, code[pc + 1]));
+                    pc += 2;
+                    break;
+                case Opcode.CALL:
+                    stack.call();
+                    pc++;
+                    break;
+                case Opcode.AGGREGATE:
+                    stack.push(Operations.aggregate(context,
+                            Operations.resolve(context, functions, names, code[pc + 1]), ranges[code[pc + 2]]));
+                    pc += 3;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc + ".");
+            }
+        }
+    }
+
+    /**
+     * Returns the string representation of the program, one instruction per line.
+     * 
+     * @return The string representation of the program.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int pc = 0; pc < code.length; pc += 1 + Opcode.getOperandCount(code[pc])) {
+            if (builder.length() > 0)
+                builder.append('\n');
+
+            builder.append(Opcode.getName(code[pc]));
+
+            for (int i = 1; i <= Opcode.getOperandCount(code[pc]); i++)
+                builder.append(' ').append(code[pc + i]);
+        }
+
+        return builder.toString();
+    }
+}
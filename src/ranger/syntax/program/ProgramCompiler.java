@@ -0,0 +1,447 @@
+package ranger.syntax.program;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ranger.function.Function;
+import ranger.function.FunctionRegistrar;
+import ranger.operator.Operator;
+import ranger.operator.OperatorUsage;
+import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
+import ranger.syntax.node.ExpressionNode;
+import ranger.syntax.node.FunctionNode;
+import ranger.syntax.node.NumberNode;
+import ranger.syntax.node.OperatorNode;
+import ranger.syntax.node.RangeNode;
+import ranger.syntax.node.ReferenceNode;
+import ranger.syntax.node.SyntaxNode;
+
+/**
+ * Class compiling syntax trees into programs.
+ * The nodes are lowered in postfix order, so that the operands of each
+ * instruction are on top of the stack when it runs, in the order the tree
+ * evaluates them. The constants, the coordinates, the ranges and the names are
+ * pooled, each distinct one being stored once. The called functions are bound
+ * to their names with the function registrar of the tree, if any.
+ */
+public class ProgramCompiler {
+    /**
+     * The instructions, followed by unused entries.
+     */
+    private int[] code;
+
+    /**
+     * The number of entries of the instructions.
+     */
+    private int length;
+
+    /**
+     * The constants.
+     */
+    private double[] constants;
+
+    /**
+     * The number of constants.
+     */
+    private int constantCount;
+
+    /**
+     * The coordinates of the referenced cells.
+     */
+    private List<CellCoordinates> coordinates;
+
+    /**
+     * The referenced ranges.
+     */
+    private List<CellRange> ranges;
+
+    /**
+     * The names of the referenced sheets and functions.
+     */
+    private List<String> names;
+
+    /**
+     * The functions bound to the names, indexed like the names, up to the last
+     * name of a function.
+     */
+    private List<Function> functions;
+
+    /**
+     * The function registrar the functions are bound with, or null.
+     */
+    private final FunctionRegistrar functionRegistrar;
+
+    /**
+     * The number of values on the stack at the current instruction.
+     */
+    private int depth;
+
+    /**
+     * The largest number of values on the stack.
+     */
+    private int maximumDepth;
+
+    /**
+     * Constructs a new compiler.
+     * 
+     * @param functionRegistrar The function registrar the functions are bound
+     *                          with, or null.
+     */
+    private ProgramCompiler(FunctionRegistrar functionRegistrar) {
+        code = new int[16];
+        length = 0;
+
+        constants = new double[4];
+        constantCount = 0;
+
+        coordinates = new ArrayList<CellCoordinates>();
+        ranges = new ArrayList<CellRange>();
+        names = new ArrayList<String>();
+
+        functions = new ArrayList<Function>();
+        this.functionRegistrar = functionRegistrar;
+
+        depth = 0;
+        maximumDepth = 0;
+    }
+
+    /**
+     * Compiles the syntax tree with the specified root node into a program. The
+     * reference slots of the tree must already be assigned.
+     * 
+     * @param root              The root node of the syntax tree.
+     * @param functionRegistrar The function registrar the called functions are
+     *                          bound with, or null to resolve them by name.
+     * @return The program.
+     * @throws IllegalStateException If the tree has a shape the tree interpreter
+     *                               rejects, in which case it is left to it so
+     *                               that it fails the same way.
+     */
+    public static Program compile(SyntaxNode root, FunctionRegistrar functionRegistrar) {
+        ProgramCompiler compiler = new ProgramCompiler(functionRegistrar);
+
+        compiler.lower(root);
+
+        if (compiler.depth != 1)
+            throw new IllegalStateException("Compiled expression leaves " + compiler.depth + " values. This is a bug.");
+
+        Function[] functions = compiler.functions.toArray(new Function[compiler.names.size()]);
+
+        return new Program(Arrays.copyOf(compiler.code, compiler.length),
+                Arrays.copyOf(compiler.constants, compiler.constantCount),
+                compiler.coordinates.toArray(new CellCoordinates[compiler.coordinates.size()]),
+                compiler.ranges.toArray(new CellRange[compiler.ranges.size()]),
+                compiler.names.toArray(new String[compiler.names.size()]), functions, functionRegistrar,
+                compiler.maximumDepth);
+    }
+
+    /**
+     * Lowers a node into the instructions computing its value. This is a
+     * recursive method.
+     * 
+     * @param node The node.
+     */
+    private void lower(SyntaxNode node) {
+        if (node instanceof NumberNode)
+            emit(Opcode.CONSTANT, constant(((NumberNode) node).getValue()), 1);
+        else if (node instanceof ReferenceNode)
+            lowerReference((ReferenceNode) node);
+        else if (node instanceof RangeNode)
+            emit(Opcode.RANGE_VALUE, index(ranges, ((RangeNode) node).getRange()), 1);
+        else if (node instanceof OperatorNode)
+            lowerOperator((OperatorNode) node);
+        else if (node instanceof FunctionNode)
+            lowerFunction((FunctionNode) node);
+        else if (node instanceof ExpressionNode) {
+            if (node.getChildrenCount() != 1)
+                throw new IllegalStateException("Expression node must have exactly one child.");
+
+            lower(node.getChild(0));
+        } else
+            throw new IllegalStateException("Cannot compile node '" + node + "'.");
+    }
+
+    /**
+     * Lowers a reference node.
+     * 
+     * @param node The reference node.
+     */
+    private void lowerReference(ReferenceNode node) {
+        int cell = index(coordinates, node.getCoordinates());
+
+        if (node.getSheet() != null)
+            emit(Opcode.EXTERNAL, index(names, node.getSheet()), cell, 1);
+        else if (node.getSlot() >= 0)
+            emit(Opcode.SLOT, node.getSlot(), cell, 1);
+        else
+            emit(Opcode.REFERENCE, cell, 1);
+    }
+
+    /**
+     * Lowers an operator node. Its operands are lowered first, in the order the
+     * tree evaluates them.
+     * 
+     * @param node The operator node.
+     */
+    private void lowerOperator(OperatorNode node) {
+        if (node.getChildrenCount() != 2)
+            throw new IllegalStateException("Missing operands for operator '" + node.getOperator() + "'.");
+
+        Operator operator = node.getOperator();
+        SyntaxNode left = node.getChild(0);
+        SyntaxNode right = node.getChild(1);
+
+        if (left != null && right != null) {
+            if (!operator.supportsUsage(OperatorUsage.BINARY))
+                throw new IllegalStateException("Operator '" + operator + "' does not support binary usage.");
+
+            int opcode = getBinaryOpcode(operator);
+
+            lower(left);
+            lower(right);
+            emit(opcode, -1);
+        } else if (left != null) {
+            if (!operator.supportsUsage(OperatorUsage.LEFT_UNARY))
+                throw new IllegalStateException("Operator '" + operator + "' does not support left unary usage.");
+
+            if (operator == Operator.ADDITION)
+                lower(left);
+            else if (operator == Operator.SUBTRACTION) {
+                lower(left);
+                emit(Opcode.NEGATE, 0);
+            } else
+                throw new IllegalStateException("Operator '" + operator + "' is not supported.");
+        } else if (right != null) {
+            if (!operator.supportsUsage(OperatorUsage.RIGHT_UNARY))
+                throw new IllegalStateException("Operator '" + operator + "' does not support right unary usage.");
+
+            if (operator != Operator.FACTORIAL)
+                throw new IllegalStateException("Operator '" + operator + "' is not supported.");
+
+            lower(right);
+            emit(Opcode.FACTORIAL, 0);
+        } else
+            throw new IllegalStateException("Operator '" + operator + "' was incorrectly initialized.");
+    }
+
+    /**
+     * Returns the opcode of a binary operator.
+     * 
+     * @param operator The operator.
+     * @return The opcode.
+     */
+    private static int getBinaryOpcode(Operator operator) {
+        switch (operator) {
+            case POWER_PRIMARY:
+            case POWER_SECONDARY:
+                return Opcode.POWER;
+
+            case MULTIPLICATION:
+                return Opcode.MULTIPLY;
+            case DIVISION:
+                return Opcode.DIVIDE;
+            case MODULO:
+                return Opcode.MODULO;
+
+            case ADDITION:
+                return Opcode.ADD;
+            case SUBTRACTION:
+                return Opcode.SUBTRACT;
+
+            case LESS_THAN:
+                return Opcode.LESS_THAN;
+            case LESS_THAN_OR_EQUAL_TO:
+                return Opcode.LESS_THAN_OR_EQUAL_TO;
+            case GREATER_THAN:
+                return Opcode.GREATER_THAN;
+            case GREATER_THAN_OR_EQUAL_TO:
+                return Opcode.GREATER_THAN_OR_EQUAL_TO;
+            case EQUAL_TO:
+                return Opcode.EQUAL_TO;
+            case NOT_EQUAL_TO:
+                return Opcode.NOT_EQUAL_TO;
+            case LOGICAL_AND:
+                return Opcode.LOGICAL_AND;
+            case LOGICAL_OR:
+                return Opcode.LOGICAL_OR;
+
+            default:
+                throw new IllegalStateException("Operator '" + operator + "' is not supported.");
+        }
+    }
+
+    /**
+     * Lowers a function node. A function called on a single range of the sheet of
+     * the expression goes through the aggregator of the context, otherwise the
+     * function is resolved before its arguments are pushed, and range arguments
+     * are expanded into the values of their cells.
+     * 
+     * @param node The function node.
+     */
+    private void lowerFunction(FunctionNode node) {
+        int name = function(node.getName());
+
+        if (node.getChildrenCount() == 1) {
+            RangeNode range = getRange(node.getChild(0));
+
+            if (range != null && range.getSheet() == null) {
+                emit(Opcode.AGGREGATE, name, index(ranges, range.getRange()), 1);
+                return;
+            }
+        }
+
+        emit(Opcode.BEGIN_CALL, name, 0);
+
+        int mark = depth;
+
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            RangeNode range = getRange(node.getChild(i));
+
+            if (range == null)
+                lower(node.getChild(i));
+            else if (range.getSheet() == null)
+                emit(Opcode.RANGE, index(ranges, range.getRange()), 0);
+            else
+                emit(Opcode.EXTERNAL_RANGE, index(names, range.getSheet()), index(ranges, range.getRange()), 0);
+        }
+
+        emit(Opcode.CALL, mark - depth + 1);
+    }
+
+    /**
+     * Returns the range node an argument consists of, if any. Parenthesized
+     * ranges are also considered as ranges.
+     * 
+     * @param argument The argument node.
+     * @return The range node, or null if the argument is not a range.
+     */
+    private static RangeNode getRange(SyntaxNode argument) {
+        while (argument instanceof ExpressionNode && argument.getChildrenCount() == 1)
+            argument = argument.getChild(0);
+
+        if (argument instanceof RangeNode)
+            return (RangeNode) argument;
+
+        return null;
+    }
+
+    /**
+     * Returns the index of the name of a function, adding it to the names and
+     * binding it if needed. Functions that are not registered are left unbound,
+     * so that calling them fails when the program is executed.
+     * 
+     * @param name The name of the function.
+     * @return The index of the name.
+     */
+    private int function(String name) {
+        int index = index(names, name);
+
+        while (functions.size() <= index)
+            functions.add(null);
+
+        if (functionRegistrar != null && functions.get(index) == null)
+            functions.set(index, functionRegistrar.get(name));
+
+        return index;
+    }
+
+    /**
+     * Returns the index of a constant, adding it to the constants if needed.
+     * 
+     * @param value The constant.
+     * @return The index of the constant.
+     */
+    private int constant(double value) {
+        for (int i = 0; i < constantCount; i++)
+            if (Double.compare(constants[i], value) == 0)
+                return i;
+
+        if (constantCount == constants.length)
+            constants = Arrays.copyOf(constants, constantCount * 2);
+
+        constants[constantCount] = value;
+
+        return constantCount++;
+    }
+
+    /**
+     * Returns the index of an element of a pool, adding it to the pool if needed.
+     * 
+     * @param <T>     The type of the elements of the pool.
+     * @param pool    The pool.
+     * @param element The element.
+     * @return The index of the element.
+     */
+    private static <T> int index(List<T> pool, T element) {
+        int index = pool.indexOf(element);
+        if (index >= 0)
+            return index;
+
+        pool.add(element);
+
+        return pool.size() - 1;
+    }
+
+    /**
+     * Appends an instruction without operands.
+     * 
+     * @param opcode The opcode.
+     * @param effect The change of the number of values on the stack.
+     */
+    private void emit(int opcode, int effect) {
+        append(opcode);
+        adjust(effect);
+    }
+
+    /**
+     * Appends an instruction with one operand.
+     * 
+     * @param opcode  The opcode.
+     * @param operand The operand.
+     * @param effect  The change of the number of values on the stack.
+     */
+    private void emit(int opcode, int operand, int effect) {
+        append(opcode);
+        append(operand);
+        adjust(effect);
+    }
+
+    /**
+     * Appends an instruction with two operands.
+     * 
+     * @param opcode The opcode.
+     * @param first  The first operand.
+     * @param second The second operand.
+     * @param effect The change of the number of values on the stack.
+     */
+    private void emit(int opcode, int first, int second, int effect) {
+        append(opcode);
+        append(first);
+        append(second);
+        adjust(effect);
+    }
+
+    /**
+     * Appends an entry to the instructions.
+     * 
+     * @param entry The entry.
+     */
+    private void append(int entry) {
+        if (length == code.length)
+            code = Arrays.copyOf(code, length * 2);
+
+        code[length++] = entry;
+    }
+
+    /**
+     * Tracks the number of values on the stack after an instruction.
+     * 
+     * @param effect The change of the number of values on the stack.
+     */
+    private void adjust(int effect) {
+        depth += effect;
+        maximumDepth = Math.max(maximumDepth, depth);
+    }
+}
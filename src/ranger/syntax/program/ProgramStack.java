@@ -0,0 +1,187 @@
+package ranger.syntax.program;
+
+import java.util.Arrays;
+
+import ranger.function.Function;
+
+/**
+ * Class representing the stack programs are executed on.
+ * The stack holds primitive values, and the calls in progress along with the
+ * position of their first argument. It grows as needed and is never shrunk, so
+ * that a stack reused by the programs of a thread does not allocate once it is
+ * large enough. The arguments of a call are passed to its function as a part of
+ * the stack, so that calls do not allocate either.
+ */
+public class ProgramStack {
+    /**
+     * The initial capacity of the stack.
+     */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * The values of the stack, followed by unused entries.
+     */
+    private double[] values;
+
+    /**
+     * The number of values on the stack.
+     */
+    private int size;
+
+    /**
+     * The functions of the calls in progress.
+     */
+    private Function[] functions;
+
+    /**
+     * The positions of the first arguments of the calls in progress.
+     */
+    private int[] marks;
+
+    /**
+     * The number of calls in progress.
+     */
+    private int calls;
+
+    /**
+     * Constructs a new empty stack.
+     */
+    public ProgramStack() {
+        values = new double[INITIAL_CAPACITY];
+        size = 0;
+
+        functions = new Function[INITIAL_CAPACITY / 4];
+        marks = new int[INITIAL_CAPACITY / 4];
+        calls = 0;
+    }
+
+    /**
+     * Returns the number of values on the stack.
+     * 
+     * @return The number of values on the stack.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of calls in progress.
+     * 
+     * @return The number of calls in progress.
+     */
+    public int getCallCount() {
+        return calls;
+    }
+
+    /**
+     * Discards the values and the calls above the specified heights, such as the
+     * ones left by a program that failed.
+     * 
+     * @param size  The number of values to keep.
+     * @param calls The number of calls to keep.
+     */
+    public void reset(int size, int calls) {
+        this.size = size;
+
+        for (int i = calls; i < this.calls; i++)
+            functions[i] = null;
+
+        this.calls = calls;
+    }
+
+    /**
+     * Makes sure the stack can hold the specified number of additional values.
+     * 
+     * @param count The number of additional values.
+     */
+    public void ensureCapacity(int count) {
+        if (size + count > values.length)
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + count));
+    }
+
+    /**
+     * Pushes a value on the stack.
+     * 
+     * @param value The value.
+     */
+    public void push(double value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        values[size++] = value;
+    }
+
+    /**
+     * Pushes several values on the stack.
+     * 
+     * @param pushed The values.
+     */
+    public void push(double[] pushed) {
+        ensureCapacity(pushed.length);
+
+        System.arraycopy(pushed, 0, values, size, pushed.length);
+        size += pushed.length;
+    }
+
+    /**
+     * Pops the value on top of the stack.
+     * 
+     * @return The value.
+     */
+    public double pop() {
+        return values[--size];
+    }
+
+    /**
+     * Returns the value on top of the stack, without popping it.
+     * 
+     * @return The value.
+     */
+    public double peek() {
+        return values[size - 1];
+    }
+
+    /**
+     * Replaces the value on top of the stack.
+     * 
+     * @param value The new value.
+     */
+    public void replace(double value) {
+        values[size - 1] = value;
+    }
+
+    /**
+     * Starts a call to a function. Its arguments are the values pushed until the
+     * call is made.
+     * 
+     * @param function The function, or null if it is not registered, in which
+     *                 case the call results in an unknown function.
+     */
+    public void begin(Function function) {
+        if (calls == functions.length) {
+            functions = Arrays.copyOf(functions, calls * 2);
+            marks = Arrays.copyOf(marks, calls * 2);
+        }
+
+        functions[calls] = function;
+        marks[calls] = size;
+        calls++;
+    }
+
+    /**
+     * Calls the function of the current call with the values pushed since it
+     * started, which are replaced by its result.
+     */
+    public void call() {
+        calls--;
+
+        Function function = functions[calls];
+        functions[calls] = null;
+
+        int mark = marks[calls];
+        double result = Operations.call(function, values, mark, size - mark);
+
+        size = mark;
+        push(result);
+    }
+}
@@ -1,7 +0,0 @@
-package ranger.syntax.token;
-
-/**
- * Interface representing a syntax token.
- */
-public interface Token {
-}
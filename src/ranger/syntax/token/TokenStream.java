@@ -0,0 +1,408 @@
+package ranger.syntax.token;
+
+import ranger.operator.Operator;
+import ranger.sheet.cell.CellCoordinates;
+import ranger.sheet.cell.CellRange;
+import ranger.sheet.cell.ExternalReference;
+import ranger.syntax.Delimiter;
+
+/**
+ * Class representing the tokens of an expression, as found by the lexer. The
+ * tokens are stored in parallel arrays instead of one object each: their types,
+ * the values of the numbers, and the operator, delimiter, function name,
+ * coordinates or range of the other tokens. The names of the sheets of the
+ * references are only stored once a reference to another sheet is found.
+ * <p>
+ * The stream is read in order by the blocks through a cursor, while the tokens
+ * can also be accessed by index.
+ */
+public class TokenStream {
+    /**
+     * The initial number of tokens the arrays can hold.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The types of the tokens.
+     */
+    private TokenType[] types;
+
+    /**
+     * The values of the number tokens.
+     */
+    private double[] numbers;
+
+    /**
+     * The operators, delimiters, function names, coordinates and ranges of the
+     * other tokens.
+     */
+    private Object[] values;
+
+    /**
+     * The names of the sheets of the references and ranges, or null if every
+     * reference is on the sheet of the expression.
+     */
+    private String[] sheets;
+
+    /**
+     * The number of tokens.
+     */
+    private int size;
+
+    /**
+     * The index of the next token to read.
+     */
+    private int position;
+
+    /**
+     * Constructs a new empty token stream.
+     */
+    public TokenStream() {
+        this.types = new TokenType[INITIAL_CAPACITY];
+        this.numbers = new double[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.sheets = null;
+        this.size = 0;
+        this.position = 0;
+    }
+
+    /**
+     * Adds a number token.
+     * 
+     * @param value The value of the number.
+     */
+    public void addNumber(double value) {
+        // The index is taken first, as adding the token can replace the array
+        int index = add(TokenType.NUMBER, null);
+
+        numbers[index] = value;
+    }
+
+    /**
+     * Adds an operator token.
+     * 
+     * @param operator The operator.
+     */
+    public void addOperator(Operator operator) {
+        add(TokenType.OPERATOR, operator);
+    }
+
+    /**
+     * Adds a delimiter token.
+     * 
+     * @param delimiter The delimiter.
+     */
+    public void addDelimiter(Delimiter delimiter) {
+        add(TokenType.DELIMITER, delimiter);
+    }
+
+    /**
+     * Adds a function token.
+     * 
+     * @param name The name of the function.
+     */
+    public void addFunction(String name) {
+        add(TokenType.FUNCTION, name);
+    }
+
+    /**
+     * Adds a reference token.
+     * 
+     * @param sheet       The name of the sheet of the cell, or null if the cell is
+     *                    on the sheet of the expression.
+     * @param coordinates The coordinates of the cell.
+     */
+    public void addReference(String sheet, CellCoordinates coordinates) {
+        setSheet(add(TokenType.REFERENCE, coordinates), sheet);
+    }
+
+    /**
+     * Adds a range token.
+     * 
+     * @param sheet The name of the sheet of the range, or null if the range is on
+     *              the sheet of the expression.
+     * @param range The range of cells.
+     */
+    public void addRange(String sheet, CellRange range) {
+        setSheet(add(TokenType.RANGE, range), sheet);
+    }
+
+    /**
+     * Adds a token, growing the arrays if they are full.
+     * 
+     * @param type  The type of the token.
+     * @param value The value of the token, or null for a number.
+     * @return The index of the token.
+     */
+    private int add(TokenType type, Object value) {
+        if (size == types.length) {
+            int capacity = size * 2;
+
+            TokenType[] grownTypes = new TokenType[capacity];
+            double[] grownNumbers = new double[capacity];
+            Object[] grownValues = new Object[capacity];
+
+            System.arraycopy(types, 0, grownTypes, 0, size);
+            System.arraycopy(numbers, 0, grownNumbers, 0, size);
+            System.arraycopy(values, 0, grownValues, 0, size);
+
+            types = grownTypes;
+            numbers = grownNumbers;
+            values = grownValues;
+
+            if (sheets != null) {
+                String[] grownSheets = new String[capacity];
+                System.arraycopy(sheets, 0, grownSheets, 0, size);
+                sheets = grownSheets;
+            }
+        }
+
+        types[size] = type;
+        values[size] = value;
+
+        return size++;
+    }
+
+    /**
+     * Sets the sheet of a reference or range token.
+     * 
+     * @param index The index of the token.
+     * @param sheet The name of the sheet, or null if the token is on the sheet of
+     *              the expression.
+     */
+    private void setSheet(int index, String sheet) {
+        if (sheet == null)
+            return;
+
+        if (sheets == null)
+            sheets = new String[types.length];
+
+        sheets[index] = sheet;
+    }
+
+    /**
+     * Returns the number of tokens.
+     * 
+     * @return The number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a token.
+     * 
+     * @param index The index of the token.
+     * @return The type of the token.
+     */
+    public TokenType getType(int index) {
+        checkIndex(index);
+
+        return types[index];
+    }
+
+    /**
+     * Returns the value of a number token.
+     * 
+     * @param index The index of the number token.
+     * @return The value of the number.
+     */
+    public double getNumber(int index) {
+        checkIndex(index);
+
+        return numbers[index];
+    }
+
+    /**
+     * Returns the operator of an operator token.
+     * 
+     * @param index The index of the operator token.
+     * @return The operator.
+     */
+    public Operator getOperator(int index) {
+        checkIndex(index);
+
+        return (Operator) values[index];
+    }
+
+    /**
+     * Returns the delimiter of a delimiter token.
+     * 
+     * @param index The index of the delimiter token.
+     * @return The delimiter.
+     */
+    public Delimiter getDelimiter(int index) {
+        checkIndex(index);
+
+        return (Delimiter) values[index];
+    }
+
+    /**
+     * Returns the name of the function of a function token.
+     * 
+     * @param index The index of the function token.
+     * @return The name of the function.
+     */
+    public String getName(int index) {
+        checkIndex(index);
+
+        return (String) values[index];
+    }
+
+    /**
+     * Returns the sheet of a reference or range token.
+     * 
+     * @param index The index of the reference or range token.
+     * @return The name of the sheet, or null if the token is on the sheet of the
+     *         expression.
+     */
+    public String getSheet(int index) {
+        checkIndex(index);
+
+        return sheets != null ? sheets[index] : null;
+    }
+
+    /**
+     * Returns the coordinates of a reference token.
+     * 
+     * @param index The index of the reference token.
+     * @return The coordinates of the cell.
+     */
+    public CellCoordinates getCoordinates(int index) {
+        checkIndex(index);
+
+        return (CellCoordinates) values[index];
+    }
+
+    /**
+     * Returns the range of a range token.
+     * 
+     * @param index The index of the range token.
+     * @return The range of cells.
+     */
+    public CellRange getRange(int index) {
+        checkIndex(index);
+
+        return (CellRange) values[index];
+    }
+
+    /**
+     * Returns the text of a token, as it would be written in an expression.
+     * 
+     * @param index The index of the token.
+     * @return The text of the token.
+     */
+    public String getText(int index) {
+        checkIndex(index);
+
+        switch (types[index]) {
+            case NUMBER:
+                return Double.toString(numbers[index]);
+            case OPERATOR:
+                return ((Operator) values[index]).getSymbol();
+            case DELIMITER:
+                return ((Delimiter) values[index]).getSymbol();
+            case FUNCTION:
+                return (String) values[index];
+            default:
+                String sheet = getSheet(index);
+                if (sheet != null)
+                    return ExternalReference.formatSheet(sheet) + ExternalReference.SEPARATOR + values[index];
+
+                return values[index].toString();
+        }
+    }
+
+    /**
+     * Checks that an index is the index of a token.
+     * 
+     * @param index The index.
+     * @throws IllegalArgumentException If there is no token at the index.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IllegalArgumentException("Invalid token index " + index + " (" + size + " tokens).");
+    }
+
+    /**
+     * Returns whether every token has been read.
+     * 
+     * @return Whether every token has been read.
+     */
+    public boolean isEmpty() {
+        return position >= size;
+    }
+
+    /**
+     * Returns the type of the next token to read, without reading it.
+     * 
+     * @return The type of the next token, or null if every token has been read.
+     */
+    public TokenType peekType() {
+        return position < size ? types[position] : null;
+    }
+
+    /**
+     * Returns the index of the next token to read, without reading it.
+     * 
+     * @return The index of the next token.
+     * @throws IllegalStateException If every token has been read.
+     */
+    public int peek() {
+        if (position >= size)
+            throw new IllegalStateException("No more tokens in expression.");
+
+        return position;
+    }
+
+    /**
+     * Reads the next token.
+     * 
+     * @return The index of the token read.
+     * @throws IllegalStateException If every token has been read.
+     */
+    public int next() {
+        int index = peek();
+
+        position++;
+
+        return index;
+    }
+
+    /**
+     * Returns whether the next token to read is a specific delimiter.
+     * 
+     * @param delimiter The delimiter to check for.
+     * @return Whether the next token is the delimiter.
+     */
+    public boolean isNextDelimiter(Delimiter delimiter) {
+        return position < size && types[position] == TokenType.DELIMITER && values[position] == delimiter;
+    }
+
+    /**
+     * Moves the cursor back to the first token, so that the tokens can be read
+     * again.
+     */
+    public void rewind() {
+        position = 0;
+    }
+
+    /**
+     * Returns the string representation of the tokens, separated by spaces.
+     * 
+     * @return The string representation of the tokens.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                builder.append(' ');
+
+            builder.append(getText(i));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package ranger.syntax.token;
+
+/**
+ * Enum representing the type of a syntax token.
+ */
+public enum TokenType {
+    /**
+     * A number, such as "1.5".
+     */
+    NUMBER,
+
+    /**
+     * An operator, such as "+" or "<=".
+     */
+    OPERATOR,
+
+    /**
+     * A delimiter, such as "(" or ",".
+     */
+    DELIMITER,
+
+    /**
+     * The name of a function, which is followed by its opening parenthesis.
+     */
+    FUNCTION,
+
+    /**
+     * A reference to a cell, such as "A1" or "Sheet!A1".
+     */
+    REFERENCE,
+
+    /**
+     * A range of cells, such as "A1:B2" or "Sheet!A1:B2".
+     */
+    RANGE,
+}
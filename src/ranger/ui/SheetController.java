@@ -175,6 +175,30 @@ public class SheetController implements SheetRequestListener {
         sheet.redoAction();
     }
 
+    /**
+     * Calculates the cells of the selected sheet left not evaluated.
+     */
+    @Override
+    public void calculate() {
+        Sheet sheet = storage.getSelectedSheet();
+        if (sheet == null)
+            return;
+
+        sheet.calculate();
+    }
+
+    /**
+     * Cancels the recalculation of the selected sheet in progress.
+     */
+    @Override
+    public void cancelCalculation() {
+        Sheet sheet = storage.getSelectedSheet();
+        if (sheet == null)
+            return;
+
+        sheet.cancelCalculation();
+    }
+
     /**
      * Copies the specified cell range to the clipboard.
      * 
@@ -8,6 +8,7 @@ import ranger.sheet.Sheet;
 import ranger.sheet.Storage;
 import ranger.sheet.StorageListener;
 import ranger.sheet.StorageRequestListener;
+import ranger.sheet.cell.CellChangeSet;
 import ranger.ui.component.Container;
 import ranger.ui.component.LayerContainer;
 import ranger.ui.component.layout.Direction;
@@ -66,6 +67,11 @@ public class UserInterfaceController
      */
     private ViewController viewSubcontroller;
 
+    /**
+     * The volatile subcontroller that refreshes the volatile cells.
+     */
+    private VolatileController volatileSubcontroller;
+
     /**
      * The window resize subcontroller that handles resizing the window.
      */
@@ -162,6 +168,7 @@ public class UserInterfaceController
 
         sheetSubcontroller = new SheetController(storage);
         viewSubcontroller = new ViewController(viewStorage);
+        volatileSubcontroller = new VolatileController(settings, storage);
 
         window = new Window();
         window.addWindowStateListener(this);
@@ -235,6 +242,8 @@ public class UserInterfaceController
 
         window.revalidate();
         window.repaint();
+
+        volatileSubcontroller.start();
     }
 
     /**
@@ -314,6 +323,7 @@ public class UserInterfaceController
     @Override
     public void close() {
         popupSubcontroller.dispose();
+        volatileSubcontroller.dispose();
         window.dispose();
     }
 
@@ -358,6 +368,7 @@ public class UserInterfaceController
             return;
 
         popupSubcontroller.dispose();
+        volatileSubcontroller.dispose();
     }
 
     /**
@@ -465,12 +476,16 @@ public class UserInterfaceController
      * 
      * @param storage The storage.
      * @param sheet   The sheet.
+     * @param changes The cells that changed.
      */
     @Override
-    public void sheetContentChanged(Storage storage, Sheet sheet) {
+    public void sheetContentChanged(Storage storage, Sheet sheet, CellChangeSet changes) {
         inputBar.updateExpression();
 
         homeMenu.update();
+
+        if (sheet == storage.getSelectedSheet())
+            statusBar.updateCalculation();
     }
 
     /**
@@ -0,0 +1,71 @@
+package ranger.ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.Timer;
+
+import ranger.setting.Setting;
+import ranger.setting.SettingsRegistrar;
+import ranger.sheet.Sheet;
+import ranger.sheet.Storage;
+
+/**
+ * Class representing the volatile controller.
+ * This controller is responsible for periodically evaluating again the cells
+ * calling volatile functions, such as now(). The refreshes are run on the user
+ * interface thread, and coalesced if it falls behind.
+ */
+public class VolatileController implements ActionListener {
+    /**
+     * The storage containing the sheets to refresh.
+     */
+    private Storage storage;
+
+    /**
+     * The timer triggering the refreshes.
+     */
+    private Timer timer;
+
+    /**
+     * Constructs a new volatile controller.
+     * 
+     * @param settings The settings registrar that contains the settings to use.
+     * @param storage  The storage containing the sheets to refresh.
+     */
+    public VolatileController(SettingsRegistrar settings, Storage storage) {
+        this.storage = storage;
+
+        int interval = settings.get(Setting.VOLATILE_REFRESH_INTERVAL, Integer.class);
+
+        timer = new Timer(interval, this);
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Starts refreshing the volatile cells.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops refreshing the volatile cells.
+     */
+    public void dispose() {
+        timer.stop();
+    }
+
+    /**
+     * Handles a tick of the timer, by evaluating again the volatile cells of
+     * every sheet.
+     * 
+     * @param e The action event.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        for (Sheet sheet : storage)
+            if (sheet.hasVolatileCells())
+                sheet.recalculateVolatileCells();
+    }
+}
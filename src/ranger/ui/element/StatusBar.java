@@ -14,6 +14,7 @@ import ranger.setting.SettingsRegistrar;
 import ranger.sheet.Sheet;
 import ranger.sheet.Storage;
 import ranger.sheet.StorageRequestListener;
+import ranger.sheet.cell.CalculationMode;
 import ranger.ui.component.Block;
 import ranger.ui.component.Button;
 import ranger.ui.component.ColoredIcon;
@@ -61,6 +62,11 @@ public class StatusBar extends Container implements ActionListener, ChangeListen
      */
     private static final String RENAME_ACTION = "RENAME_ACTION";
 
+    /**
+     * The storage calculation mode toggle action.
+     */
+    private static final String CALCULATION_MODE_ACTION = "CALCULATION_MODE_ACTION";
+
     /**
      * The view zoom out action.
      */
@@ -170,7 +176,7 @@ public class StatusBar extends Container implements ActionListener, ChangeListen
         /* ---- ---- */
 
         Container statusContainer = new Container(new Padding(1, 0, 4, 4));
-        statusContainer.setPreferredSize(64 + 4 + 4, 33);
+        statusContainer.setPreferredSize(96 + 4 + 4, 33);
 
         statusLabel = new Label("Ready");
         statusLabel.setForeground(foreground);
@@ -293,6 +299,25 @@ public class StatusBar extends Container implements ActionListener, ChangeListen
         regenerateEntries();
 
         updateView();
+        updateCalculation();
+    }
+
+    /**
+     * Updates the status according to the calculation state of the selected sheet.
+     * The number of stale cells is shown when the sheet has some, as the progress
+     * of the calculation while it runs.
+     */
+    public void updateCalculation() {
+        Sheet selected = viewStorage.getStorage().getSelectedSheet();
+
+        if (selected == null)
+            setStatus("Ready");
+        else if (selected.isCalculating())
+            setStatus("Calculating (" + selected.getStaleCount() + " left)");
+        else if (selected.getStaleCount() > 0)
+            setStatus(selected.getStaleCount() + " stale");
+        else
+            setStatus("Ready");
     }
 
     /**
@@ -375,6 +400,14 @@ public class StatusBar extends Container implements ActionListener, ChangeListen
         renameButton.addActionListener(this);
         contextMenu.add(renameButton);
 
+        boolean manual = sheet.getCalculationMode() == CalculationMode.MANUAL;
+
+        SheetContextEntry calculationModeButton = new SheetContextEntry(contextMenu, sheet,
+                manual ? "Automatic calculation" : "Manual calculation");
+        calculationModeButton.setActionCommand(CALCULATION_MODE_ACTION);
+        calculationModeButton.addActionListener(this);
+        contextMenu.add(calculationModeButton);
+
         SheetContextEntry removeButton = new SheetContextEntry(contextMenu, sheet, "Remove");
         removeButton.setActionCommand(REMOVE_ACTION);
         removeButton.addActionListener(this);
@@ -442,6 +475,26 @@ public class StatusBar extends Container implements ActionListener, ChangeListen
                 renamePopup.acquireFocus();
                 break;
 
+            case CALCULATION_MODE_ACTION:
+                if (e.getSource() instanceof SheetContextEntry) {
+                    SheetContextEntry entry = (SheetContextEntry) e.getSource();
+                    sheet = entry.getSheet();
+                    entry.getMenu().setVisible(false);
+                } else
+                    throw new IllegalArgumentException(
+                            "Cannot change the calculation mode of a sheet from an unknown source.");
+
+                CalculationMode calculationMode = CalculationMode.MANUAL;
+                if (sheet.getCalculationMode() == CalculationMode.MANUAL) {
+                    calculationMode = settings.get(Setting.INITIAL_CALCULATION_MODE, CalculationMode.class);
+                    if (calculationMode == CalculationMode.MANUAL)
+                        calculationMode = CalculationMode.AUTOMATIC;
+                }
+
+                storageRequestListener.setCalculationMode(sheet, calculationMode);
+                update();
+                break;
+
             case ZOOM_OUT_ACTION:
                 zoomSlider.setValue(zoomSlider.getValue() - 5);
                 break;
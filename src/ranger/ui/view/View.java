@@ -26,9 +26,11 @@ import ranger.sheet.Area;
 import ranger.sheet.Sheet;
 import ranger.sheet.SheetListener;
 import ranger.sheet.SheetRequestListener;
+import ranger.sheet.cell.CellChangeSet;
 import ranger.sheet.cell.CellContent;
 import ranger.sheet.cell.CellCoordinates;
 import ranger.sheet.cell.CellHorizontalAlignment;
+import ranger.sheet.cell.CellRange;
 import ranger.sheet.cell.CellValue;
 import ranger.sheet.cell.CellVerticalAlignment;
 import ranger.ui.component.Container;
@@ -848,6 +850,7 @@ public class View extends Container
      */
     private void paintCells(Graphics2D g2d) {
         Color foreground = settings.get(Setting.SHEET_FOREGROUND, Color.class);
+        Color calculatingForeground = settings.get(Setting.SHEET_CALCULATING_FOREGROUND, Color.class);
 
         /* ---- ---- */
 
@@ -912,7 +915,10 @@ public class View extends Container
                     else
                         textY = (height + textHeight) / 2;
 
-                    g2dCell.setColor(cellForeground != null ? cellForeground : foreground);
+                    if (value.isCalculating())
+                        g2dCell.setColor(calculatingForeground);
+                    else
+                        g2dCell.setColor(cellForeground != null ? cellForeground : foreground);
                     g2dCell.drawString(displayText, x + textX, y + textY);
                     g2dCell.setClip(null);
                 }
@@ -1271,13 +1277,38 @@ public class View extends Container
     }
 
     /**
-     * Handles a sheet content change event.
+     * Handles a sheet content change event. Only the visible part of the bounding
+     * range of the changed cells is repainted, along with its borders.
      * 
-     * @param sheet The sheet that changed.
+     * @param sheet   The sheet that changed.
+     * @param changes The cells that changed.
      */
     @Override
-    public void contentChanged(Sheet sheet) {
-        repaint();
+    public void contentChanged(Sheet sheet, CellChangeSet changes) {
+        CellRange bounds = changes.getBounds();
+        if (bounds == null)
+            return;
+
+        if (cachedColumnOffsets == null || cachedRowOffsets == null) {
+            repaint();
+            return;
+        }
+
+        int left = Math.max(bounds.getLeft(), visibleX);
+        int top = Math.max(bounds.getTop(), visibleY);
+        int right = Math.min(bounds.getRight(), visibleX + visibleWidth - 1);
+        int bottom = Math.min(bounds.getBottom(), visibleY + visibleHeight - 1);
+
+        if (left > right || top > bottom)
+            return;
+
+        int x = getColumnOffset(left) + labelWidth + 1; // 1 pixel for the left border
+        int y = getRowOffset(top) + labelHeight + 1; // 1 pixel for the top border
+
+        int width = getColumnOffset(right) + getColumnWidth(right) - getColumnOffset(left);
+        int height = getRowOffset(bottom) + getRowHeight(bottom) - getRowOffset(top);
+
+        repaint(x - 1, y - 1, width + 2, height + 2);
     }
 
     /**
@@ -1349,7 +1380,10 @@ public class View extends Container
 
         switch (e.getKeyCode()) {
             case KeyEvent.VK_ESCAPE:
-                moveCursor(null);
+                if (sheet.isCalculating())
+                    sheetRequestListener.cancelCalculation();
+                else
+                    moveCursor(null);
                 return;
 
             case KeyEvent.VK_UP:
@@ -1442,6 +1476,10 @@ public class View extends Container
                 else
                     break;
                 return;
+
+            case KeyEvent.VK_F9:
+                sheetRequestListener.calculate();
+                return;
         }
 
         isPassingFocus = true;
@@ -11,6 +11,7 @@ import ranger.setting.SettingsRegistrar;
 import ranger.sheet.Sheet;
 import ranger.sheet.Storage;
 import ranger.sheet.StorageListener;
+import ranger.sheet.cell.CellChangeSet;
 
 /**
  * Class representing a view storage.
@@ -192,9 +193,10 @@ public class ViewStorage implements StorageListener, Iterable<View>, ViewListene
      * 
      * @param storage The storage that the sheet content was changed in.
      * @param sheet   The sheet.
+     * @param changes The cells that changed.
      */
     @Override
-    public void sheetContentChanged(Storage storage, Sheet sheet) {
+    public void sheetContentChanged(Storage storage, Sheet sheet, CellChangeSet changes) {
     }
 
     /**